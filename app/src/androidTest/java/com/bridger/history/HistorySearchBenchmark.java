@@ -0,0 +1,138 @@
+package com.bridger.history;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.bridger.metrics.Histogram;
+import com.bridger.metrics.LatencyHistogram;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Full-text index build and query latency at 100k clips, on the device's SQLite. Builds the history the way the app
+ * does, in batches with the index kept by triggers, then rebuilds the index from scratch, then times each query
+ * kind as the list runs it: the first page of matches, and a page deep in them read after the last id of the page
+ * before. Prints ms per step and per-query percentiles. It only asserts that the queries found what they should, so
+ * it never fails on a slow device.
+ */
+@RunWith(AndroidJUnit4.class)
+public class HistorySearchBenchmark {
+
+    private static final String DATABASE = "history-benchmark.db";
+    private static final int ROWS = 100_000;
+    private static final int BATCH = 500;
+    private static final int QUERY_RUNS = 50;
+    private static final int PAGE = 50;
+    private static final int DEEP_PAGE = 20;
+    private static final HistoryStore.Retention UNLIMITED = new HistoryStore.Retention(Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    private static final String[] WORDS = {
+            "select", "from", "where", "join", "users", "orders", "insert", "update", "delete", "group", "by", "limit",
+            "meeting", "tuesday", "invoice", "address", "password", "link", "https", "github", "com", "bridger",
+            "clipboard", "note", "todo", "call", "tomorrow", "budget", "draft", "review", "deploy", "release"};
+
+    private Context context;
+    private SqliteHistoryStore store;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DATABASE);
+        store = new SqliteHistoryStore(context, DATABASE);
+    }
+
+    @After
+    public void tearDown() {
+        store.close();
+        context.deleteDatabase(DATABASE);
+    }
+
+    @Test
+    public void buildAndQuery() {
+        Random random = new Random(42); // Same corpus every run
+        long buildStart = System.nanoTime();
+        List<HistoryEntry> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < ROWS; i++) {
+            batch.add(entry(random, i));
+            if (batch.size() == BATCH) {
+                store.append(batch, UNLIMITED);
+                batch.clear();
+            }
+        }
+        long buildMs = (System.nanoTime() - buildStart) / 1_000_000;
+        assertEquals(ROWS, store.count());
+
+        long rebuildStart = System.nanoTime();
+        store.getWritableDatabase().execSQL("INSERT INTO clips_fts(clips_fts) VALUES ('rebuild')");
+        long rebuildMs = (System.nanoTime() - rebuildStart) / 1_000_000;
+        System.out.printf("History index, %d rows: built with inserts in %d ms (%.1f us per row), rebuilt in %d ms%n",
+                ROWS, buildMs, buildMs * 1_000.0 / ROWS, rebuildMs);
+
+        measure("common prefix", "se", true);
+        measure("word", "invoice", true);
+        measure("two prefixes", "sel us", true);
+        measure("rare word past the preview", "id99999", true);
+        measure("no match", "zzzz", false);
+    }
+
+    private void measure(String kind, String text, boolean expectMatches) {
+        HistoryQuery query = HistoryQuery.parse(text);
+        LatencyHistogram first = new LatencyHistogram();
+        List<HistoryEntry> page = List.of();
+        for (int run = 0; run < QUERY_RUNS; run++) {
+            long start = System.nanoTime();
+            page = store.search(query, Long.MAX_VALUE, PAGE);
+            first.record((System.nanoTime() - start) / 1_000);
+        }
+        assertEquals(expectMatches, !page.isEmpty());
+        print(kind + " \"" + text + "\", first page", page.size(), first);
+
+        // Walked to once, then only the deep page itself is timed
+        long beforeId = Long.MAX_VALUE;
+        for (int i = 0; i < DEEP_PAGE && page.size() == PAGE; i++) {
+            beforeId = page.get(page.size() - 1).id();
+            page = store.search(query, beforeId, PAGE);
+        }
+        if (page.size() < PAGE) return; // Fewer matches than that
+        LatencyHistogram deep = new LatencyHistogram();
+        for (int run = 0; run < QUERY_RUNS; run++) {
+            long start = System.nanoTime();
+            page = store.search(query, beforeId, PAGE);
+            deep.record((System.nanoTime() - start) / 1_000);
+        }
+        for (HistoryEntry entry : page) assertTrue(entry.id() < beforeId);
+        print(kind + " \"" + text + "\", page " + DEEP_PAGE, page.size(), deep);
+    }
+
+    private static void print(String step, int rows, LatencyHistogram latency) {
+        Histogram.Snapshot snapshot = latency.snapshot();
+        System.out.printf("History search, %s: %d rows, p50 %.1f ms, p99 %.1f ms, max %.1f ms%n", step, rows,
+                snapshot.percentile(50) / 1_000.0, snapshot.percentile(99) / 1_000.0, snapshot.max() / 1_000.0);
+    }
+
+    // Five to two hundred words, then an id unique to the row, mostly past the preview
+    private static HistoryEntry entry(Random random, int i) {
+        StringBuilder text = new StringBuilder();
+        int words = 5 + random.nextInt(196);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) text.append(random.nextInt(4) == 0 ? ", " : " ");
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        text.append(" id").append(i);
+        String body = text.toString();
+        return new HistoryEntry(HistoryEntry.NO_ID, i % 2 == 0 ? HistoryEntry.Direction.SENT : HistoryEntry.Direction.RECEIVED,
+                1_700_000_000_000L + i * 60_000L, body.length(), null, null, HistoryEntry.preview(body), body);
+    }
+}
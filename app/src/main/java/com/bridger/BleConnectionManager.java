@@ -2,97 +2,148 @@ package com.bridger;
 
 import android.bluetooth.BluetoothAdapter; // Import BluetoothAdapter
 import android.bluetooth.BluetoothDevice;
-import android.bluetooth.BluetoothGatt;
-import android.bluetooth.BluetoothGattCharacteristic;
-import android.bluetooth.BluetoothGattService;
+import android.content.BroadcastReceiver;
 import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.res.AssetFileDescriptor;
+import android.net.Uri;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import java.util.HashMap;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.CancellationException;
 
+import com.bridger.connection.ReconnectPolicy;
 import com.bridger.constants.Constants;
 import com.bridger.events.ClipboardEvent;
-import com.bridger.model.Characteristic;
 import com.bridger.model.ConnectionState;
+import com.bridger.model.Delivery;
+import com.bridger.model.LinkMode;
+import com.bridger.model.PeerState;
+import com.bridger.metrics.Counter;
+import com.bridger.metrics.Gauge;
+import com.bridger.metrics.Histogram;
+import com.bridger.metrics.LatencyHistogram;
+import com.bridger.metrics.MetricsRegistry;
+import com.bridger.protocol.StreamReassembler;
+import com.bridger.schedulers.AppSchedulers;
+import com.bridger.trace.ClipTrace;
+import com.bridger.trace.ClipTracer;
+import com.bridger.transfer.OutboundQueue;
 
 import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Single;
 import io.reactivex.rxjava3.disposables.CompositeDisposable;
-import io.reactivex.rxjava3.schedulers.Schedulers;
-import no.nordicsemi.android.ble.BleManager;
-import no.nordicsemi.android.ble.data.Data;
-import no.nordicsemi.android.ble.observer.ConnectionObserver;
-
+import io.reactivex.rxjava3.functions.Function;
+
+/**
+ * Keeps one {@link BlePeer} session per connected Mac, up to {@link Constants#MAX_PEERS}, and fans every
+ * outgoing clip out to all of them in parallel. Each peer has its own queue, link and reconnect state, so a
+ * slow or dropped Mac never holds back the others. Per-peer state is published in {@link Store#peers};
+ * {@link Store#connection} reports the best state among them.
+ */
 public class BleConnectionManager {
 
     private static final String TAG = "BleConnectionManager";
     private static BleConnectionManager instance;
-    private final BridgerBleManager bleManager;
+    private final Context context;
     private final CompositeDisposable disposables = new CompositeDisposable();
     private final Store store;
+    private final ClipCache clipCache = ClipCache.getInstance();
+    private final RememberedDevice rememberedDevice;
+    private final ClipTracer tracer = ClipTracer.getInstance();
+    private final AppSchedulers schedulers = AppSchedulers.getInstance();
+    private final BleThread bleThread = BleThread.getInstance();
+    @Nullable private volatile File lastReceivedBlob; // Backs the clip on the system clipboard, deleted when replaced
+
+    // Open sessions by address, guarded by peersLock. Peers call back into this class while holding their
+    // own lock, so the lock order is peer, then peersLock: never call into a peer with peersLock held.
+    private final Object peersLock = new Object();
+    private final Map<String, BlePeer> peers = new LinkedHashMap<>();
+    private ConnectionState lastEndedState = ConnectionState.DISCONNECTED; // Reported once no session is left
+    private volatile OutboundQueue.Mode queueMode = OutboundQueue.Mode.LATEST_WINS;
+
+    // Shared by every peer's reconnect engine
+    private final ReconnectPolicy reconnectPolicy = new ReconnectPolicy(Constants.RECONNECT_BASE_DELAY_MS,
+            Constants.RECONNECT_MAX_DELAY_MS, Constants.RECONNECT_IMMEDIATE_RETRIES, Constants.RECONNECT_MAX_ATTEMPTS, Math::random);
+    private final Histogram reconnectTimes = Histogram.exponential(50, 12); // 50 ms up to about 100 s, guarded by itself
+    private final Histogram deliveryLatency = Histogram.exponential(10, 14); // 10 ms up to about 80 s, guarded by itself
+    private long deliveryRetries; // Guarded by deliveryLatency
+    private volatile boolean bluetoothOn;
+
+    // Field metrics, see MetricsRegistry
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final Counter clipsSent = metrics.counter("clips_sent_total", "Text clips sent to every connected Mac");
+    private final Counter blobsSent = metrics.counter("blobs_sent_total", "Binary clips sent to every connected Mac");
+    private final Counter sendFailures = metrics.counter("send_failures_total", "Clips that failed to reach a Mac, not counting superseded ones");
+    private final Counter bytesSent = metrics.counter("clip_bytes_sent_total", "Payload bytes of sent clips, once per clip");
+    private final LatencyHistogram sendTime = metrics.histogram("send_time_ms", "Time from a send request until every Mac has the clip");
+    private final Counter clipsReceived = metrics.counter("clips_received_total", "Text clips received, echoes included");
+    private final Counter blobsReceived = metrics.counter("blobs_received_total", "Binary clips received");
+    private final Counter blobBytesReceived = metrics.counter("blob_bytes_received_total", "Payload bytes of received binary clips");
+    private final Gauge peersConnected = metrics.gauge("peers_connected", "Macs with a ready link");
+    private final LatencyHistogram reconnectTime = metrics.histogram("reconnect_time_ms", "Time from a dropped link to the next ready one");
+    private final LatencyHistogram deliveryTime = metrics.histogram("delivery_latency_ms", "Copy to applied on the Mac, per confirmed clip");
 
     private BleConnectionManager(@NonNull Context context, @NonNull Store store) {
+        this.context = context;
         this.store = store;
-        this.bleManager = new BridgerBleManager(context.getApplicationContext());
-        bleManager.setConnectionObserver(new ConnectionObserver() {
-            @Override
-            public void onDeviceConnecting(@NonNull BluetoothDevice device) {
-                store.connection.onNext(ConnectionState.CONNECTING);
-            }
-
-            @Override
-            public void onDeviceConnected(@NonNull BluetoothDevice device) {
-                // Intermediate state, wait for onDeviceReady
-            }
+        this.rememberedDevice = new RememberedDevice(context);
 
+        // Reconnect attempts are pointless while Bluetooth is off; pause them and start over once it is back
+        BluetoothAdapter adapter = BluetoothAdapter.getDefaultAdapter();
+        bluetoothOn = adapter != null && adapter.isEnabled();
+        context.registerReceiver(new BroadcastReceiver() {
             @Override
-            public void onDeviceFailedToConnect(@NonNull BluetoothDevice device, int reason) {
-                store.connection.onNext(ConnectionState.FAILED);
-            }
-
-            @Override
-            public void onDeviceReady(@NonNull BluetoothDevice device) {
-                store.connection.onNext(ConnectionState.CONNECTED);
-            }
-
-            @Override
-            public void onDeviceDisconnecting(@NonNull BluetoothDevice device) {
-                store.connection.onNext(ConnectionState.DISCONNECTING);
+            public void onReceive(Context context, Intent intent) {
+                int state = intent.getIntExtra(BluetoothAdapter.EXTRA_STATE, BluetoothAdapter.ERROR);
+                if (state == BluetoothAdapter.STATE_ON) {
+                    onBluetoothStateChanged(true);
+                } else if (state == BluetoothAdapter.STATE_TURNING_OFF || state == BluetoothAdapter.STATE_OFF) {
+                    onBluetoothStateChanged(false);
+                }
             }
+        }, new IntentFilter(BluetoothAdapter.ACTION_STATE_CHANGED), null, bleThread.handler()); // Peers are only touched on the BLE thread
 
-            @Override
-            public void onDeviceDisconnected(@NonNull BluetoothDevice device, int reason) {
-                store.connection.onNext(ConnectionState.DISCONNECTED);
-            }
-        });
-
-        // Subscribe to clipboard events from the Store to handle outgoing data
-        disposables.add(store.clipboard
-                .filter(event -> event.getType() == ClipboardEvent.EventType.SEND_REQUESTED)
-                .map(ClipboardEvent::getData) // Get text data from event
-                .flatMapCompletable(text -> {
-                    if (text != null) {
-                        Data data = new Data(text.getBytes());
-                        return bleManager.performWriteCharacteristic(data)
-                                .doOnComplete(() -> store.lastAction.onNext("Sent: " + text)); // Update last action on success
+        // Subscribe to clipboard events from the Store to handle outgoing data.
+        // Each clip is handed to every peer's outbound queue, which decides what is sent, replaced or cancelled.
+        // Hashing and encoding run on the encode scheduler, in order, instead of on whichever thread posted the clip.
+        disposables.add(store.clipboard.on(ClipboardEvent.EventType.SEND_REQUESTED)
+                .observeOn(schedulers.encode())
+                .subscribe(event -> {
+                    ClipTrace trace = tracer.get(event.traceId());
+                    if (trace != null) trace.mark(ClipTrace.Stage.SEND);
+                    if (event.isText()) {
+                        send(event.data(), trace);
+                    } else {
+                        sendUri(Uri.parse(event.data()), event.mimeType(), trace);
                     }
-                    return Completable.complete(); // No text to send
-                })
-                .subscribeOn(Schedulers.io())
-                .subscribe(
-                        () -> Log.d(TAG, "Clipboard data sent via Store subscription and last action updated."),
-                        throwable -> Log.e(TAG, "Failed to send clipboard data: " + throwable.getMessage())
-                ));
+                }, throwable -> Log.e(TAG, "Error observing SEND_REQUESTED: " + throwable.getMessage())));
+        disposables.add(tracer.traces().subscribe(store.clipTraces::onNext));
 
         // Subscribe to CONNECT_REQUESTED events from the Store to initiate connection
-        disposables.add(store.clipboard
-                .filter(event -> event.getType() == ClipboardEvent.EventType.CONNECT_REQUESTED)
-                .map(ClipboardEvent::getData) // Get device address
-                .subscribeOn(Schedulers.io())
+        disposables.add(store.clipboard.on(ClipboardEvent.EventType.CONNECT_REQUESTED)
+                .filter(event -> event.data() != null)
+                .map(ClipboardEvent::data) // Get device address
+                .observeOn(bleThread.scheduler()) // Connection requests run on the BLE thread, like the Nordic callbacks and the peers' timers
                 .subscribe(deviceAddress -> {
                     if (deviceAddress != null) {
                         BluetoothAdapter bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
@@ -111,13 +162,17 @@ public class BleConnectionManager {
                     }
                 }, throwable -> Log.e(TAG, "Error observing CONNECT_REQUESTED: " + throwable.getMessage())));
 
-        // Subscribe to DISCONNECT_REQUESTED events from the Store
-        disposables.add(store.clipboard
-                .filter(event -> event.getType() == ClipboardEvent.EventType.DISCONNECT_REQUESTED)
-                .subscribeOn(Schedulers.io())
+        // Subscribe to DISCONNECT_REQUESTED events from the Store. With an address only that peer is
+        // disconnected, without one every peer is.
+        disposables.add(store.clipboard.on(ClipboardEvent.EventType.DISCONNECT_REQUESTED)
+                .observeOn(bleThread.scheduler())
                 .subscribe(event -> {
                     Log.d(TAG, "Disconnect requested.");
-                    disconnect();
+                    if (event.data() != null) {
+                        disconnect(event.data());
+                    } else {
+                        disconnect();
+                    }
                 }, throwable -> Log.e(TAG, "Error observing DISCONNECT_REQUESTED: " + throwable.getMessage())));
     }
 
@@ -130,109 +185,338 @@ public class BleConnectionManager {
 
     // --- Public API ---
 
-    @Nullable
-    public BluetoothDevice getConnectedDevice() {
-        return bleManager.getBluetoothDevice();
+    @NonNull
+    public List<BluetoothDevice> getConnectedDevices() {
+        List<BluetoothDevice> devices = new ArrayList<>();
+        for (BlePeer peer : peers()) {
+            if (peer.state() == ConnectionState.CONNECTED) devices.add(peer.device());
+        }
+        return devices;
     }
 
+    // Opens a session with the device, or wakes up the one already open. Other peers are left as they are.
     public void connect(@NonNull BluetoothDevice device) {
-        if (store.connection.getValue() == ConnectionState.CONNECTED ||
-            store.connection.getValue() == ConnectionState.CONNECTING) {
-            Log.w(TAG, "Already connected or connecting to a device.");
-            return;
+        BlePeer peer;
+        synchronized (peersLock) {
+            peer = peers.get(device.getAddress());
+            if (peer == null) {
+                if (peers.size() >= Constants.MAX_PEERS) {
+                    Log.w(TAG, "Already connected to " + peers.size() + " devices, not connecting to " + device.getAddress() + ".");
+                    store.lastAction.onNext("Too many devices connected.");
+                    return;
+                }
+                peer = new BlePeer(this, context, store, device, queueMode);
+                peers.put(device.getAddress(), peer);
+            }
+        }
+        peer.connect();
+    }
+
+    public void disconnect(@NonNull String address) {
+        BlePeer peer;
+        synchronized (peersLock) {
+            peer = peers.get(address);
         }
-        bleManager.connect(device)
-                .retry(3, 100)
-                .useAutoConnect(true)
-                .timeout(15_000)
-                .enqueue();
+        if (peer != null) peer.disconnect();
     }
 
     public void disconnect() {
-        bleManager.disconnect().enqueue();
+        for (BlePeer peer : peers()) {
+            peer.disconnect();
+        }
     }
 
-    // The inner class that extends BleManager and can access protected methods
-    private class BridgerBleManager extends BleManager {
+    // Chooses whether a newer clip cancels the one in flight (the default) or every clip is delivered.
+    // Applies to every open session and to those opened later.
+    public void setQueueMode(@NonNull OutboundQueue.Mode mode) {
+        queueMode = mode;
+        for (BlePeer peer : peers()) {
+            peer.engine().setQueueMode(mode);
+        }
+    }
 
-        private final Map<UUID, Characteristic> SUPPORTED_CHARACTERISTICS = new HashMap<>();
+    // --- Peers ---
 
-        {
-            SUPPORTED_CHARACTERISTICS.put(Constants.ANDROID_TO_MAC_CHARACTERISTIC_UUID, new Characteristic(Constants.ANDROID_TO_MAC_CHARACTERISTIC_UUID));
-            SUPPORTED_CHARACTERISTICS.put(Constants.MAC_TO_ANDROID_CHARACTERISTIC_UUID, new Characteristic(Constants.MAC_TO_ANDROID_CHARACTERISTIC_UUID, data -> {
-                String value = data.getStringValue(0);
-                if (value == null) return;
-                store.clipboard.onNext(ClipboardEvent.createReceiveEvent(value));
-            }));
+    @NonNull
+    private List<BlePeer> peers() {
+        synchronized (peersLock) {
+            return new ArrayList<>(peers.values());
         }
+    }
+
+    @NonNull
+    RememberedDevice rememberedDevice() {
+        return rememberedDevice;
+    }
 
-        public BridgerBleManager(@NonNull Context context) {
-            super(context);
+    @NonNull
+    ReconnectPolicy reconnectPolicy() {
+        return reconnectPolicy;
+    }
+
+    boolean isBluetoothOn() {
+        return bluetoothOn;
+    }
+
+    void recordReconnect(long elapsedMs) {
+        synchronized (reconnectTimes) {
+            reconnectTimes.record(elapsedMs);
+            reconnectTime.record(elapsedMs);
+            store.reconnectTimes.onNext(reconnectTimes.snapshot());
         }
+    }
 
-        @Override
-        public void log(int priority, @NonNull String message) {
-            Log.println(priority, TAG, message);
+    // Called by a peer for every clip it asked the Mac to confirm. Unconfirmed clips only count their retries.
+    void onDelivery(@NonNull Delivery delivery) {
+        synchronized (deliveryLatency) {
+            if (delivery.confirmed()) {
+                deliveryLatency.record(delivery.latencyMs());
+                deliveryTime.record(delivery.latencyMs());
+                store.deliveryLatency.onNext(deliveryLatency.snapshot());
+            }
+            if (delivery.retries() > 0) {
+                deliveryRetries += delivery.retries();
+                store.deliveryRetries.onNext(deliveryRetries);
+            }
         }
+    }
 
-        public Completable performWriteCharacteristic(@NonNull Data data) {
-            return Completable.create(emitter -> {
-                Characteristic androidToMacChar = SUPPORTED_CHARACTERISTICS.get(Constants.ANDROID_TO_MAC_CHARACTERISTIC_UUID);
+    // Called by a peer whenever its published state changes.
+    void onPeerChanged() {
+        publishPeers();
+    }
 
-                if (androidToMacChar == null || androidToMacChar.gattCharacteristic == null) {
-                    emitter.onError(new Throwable("Characteristic not found: " + Constants.ANDROID_TO_MAC_CHARACTERISTIC_UUID));
-                    return;
-                }
-                writeCharacteristic(androidToMacChar.gattCharacteristic, data, BluetoothGattCharacteristic.WRITE_TYPE_DEFAULT)
-                        .split()
-                        .done(device -> emitter.onComplete())
-                        .fail((device, status) -> emitter.onError(new Throwable("Failed to write characteristic with status: " + status)))
-                        .enqueue();
-            });
-        }
-
-        @Override
-        protected boolean isRequiredServiceSupported(@NonNull final BluetoothGatt gatt) {
-            final BluetoothGattService service = gatt.getService(Constants.BRIDGER_SERVICE_UUID);
-
-            if (service != null) {
-                for (Characteristic characteristic : SUPPORTED_CHARACTERISTICS.values()) {
-                    BluetoothGattCharacteristic gattChar = service.getCharacteristic(characteristic.uuid);
-                    if (gattChar != null) {
-                        characteristic.gattCharacteristic = gattChar;
-                    }
-                }
+    // Called by a peer once it has closed for good, so the next connect to that address opens a new session.
+    void onPeerEnded(@NonNull BlePeer peer, @NonNull ConnectionState finalState) {
+        synchronized (peersLock) {
+            if (peers.get(peer.address()) == peer) peers.remove(peer.address());
+            lastEndedState = finalState;
+        }
+        publishPeers();
+    }
+
+    // Publishes every session, and the best of their states as the app-wide connection state.
+    // Emitted under peersLock, so the subjects see one update at a time and in order.
+    private void publishPeers() {
+        synchronized (peersLock) {
+            Map<String, PeerState> states = new LinkedHashMap<>();
+            int reconnectAttempt = 0;
+            int connected = 0;
+            for (BlePeer peer : peers.values()) {
+                PeerState state = peer.snapshot();
+                states.put(state.address(), state);
+                reconnectAttempt = Math.max(reconnectAttempt, state.reconnectAttempt());
+                if (state.state() == ConnectionState.CONNECTED) connected++;
             }
+            peersConnected.set(connected);
+            store.peers.onNext(Collections.unmodifiableMap(states));
+            ConnectionState overall = PeerState.overall(states.values(), lastEndedState);
+            if (overall != store.connection.getValue()) store.connection.onNext(overall);
+            // Derived from every connected peer, so one peer dropping never overwrites what the others report
+            int mtu = PeerState.overallMtu(states.values());
+            if (mtu != store.mtu.getValue()) store.mtu.onNext(mtu);
+            LinkMode linkMode = PeerState.overallLinkMode(states.values());
+            if (linkMode != store.linkMode.getValue()) store.linkMode.onNext(linkMode);
+            if (reconnectAttempt != store.reconnectAttempt.getValue()) store.reconnectAttempt.onNext(reconnectAttempt);
+        }
+    }
 
-            return true;
+    private void onBluetoothStateChanged(boolean on) {
+        if (bluetoothOn == on) return;
+        bluetoothOn = on;
+        for (BlePeer peer : peers()) {
+            peer.onBluetoothStateChanged(on);
         }
+    }
 
-        @Override
-        protected void initialize() {
-            for (Characteristic characteristic : SUPPORTED_CHARACTERISTICS.values()) {
-                if (characteristic.notificationCallback == null) continue;
-                if (characteristic.gattCharacteristic == null) {
-                    log(Log.WARN, "Characteristic " + characteristic.uuid + " not found on device. Skipping initialization.");
-                    continue;
-                }
+    // --- Sending ---
 
-                setNotificationCallback(characteristic.gattCharacteristic)
-                    .with((device, data) -> characteristic.notificationCallback.accept(data));
+    private void send(@NonNull String text, @Nullable ClipTrace trace) {
+        String hash = ClipCache.hash(text);
+        if (clipCache.isCurrent(hash)) {
+            // The Macs already hold this clip: a repeated tap, or a clip we just received from one of them
+            Log.d(TAG, "Skipping send, clip " + hash + " is already synced (" + clipCache.originOf(hash) + ").");
+            store.avoidedTransfers.onNext(clipCache.markAvoided());
+            store.lastAction.onNext("Already synced.");
+            tracer.abandon(trace, "already synced");
+            return;
+        }
+        List<BlePeer> targets = peers();
+        if (targets.isEmpty()) {
+            Log.w(TAG, "No device to send clip " + hash + " to.");
+            store.lastAction.onNext("Not connected.");
+            tracer.abandon(trace, "not connected");
+            return;
+        }
+        clipCache.record(hash, ClipCache.Origin.SENT); // Recorded up front so a quick second tap is caught too
+        // Every session gets the clip, even one that is reconnecting: its queue holds it until the link is back
+        byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+        long startedAt = SystemClock.elapsedRealtime();
+        sendToEach(targets, peer -> peer.engine().send(payload, trace))
+                .observeOn(bleThread.scheduler()) // SENT is only ever posted from the BLE thread
+                .subscribe(failures -> {
+                    if (failures.size() < targets.size()) {
+                        // Macs that confirm delivery have applied the clip by now, the others have received it
+                        Log.d(TAG, "Clipboard data sent to " + (targets.size() - failures.size()) + " of " + targets.size() + " devices.");
+                        clipsSent.increment();
+                        bytesSent.add(payload.length);
+                        sendTime.record(SystemClock.elapsedRealtime() - startedAt);
+                        tracer.complete(trace);
+                        store.lastAction.onNext("Sent: " + text); // Update last action on success
+                        store.clipboard.post(ClipboardEvent.createSentEvent(text));
+                        return;
+                    }
+                    // No Mac holds the clip, so the next tap has to send it again
+                    clipCache.invalidate(hash);
+                    if (allCancelled(failures)) {
+                        Log.d(TAG, "Clip " + hash + " superseded by a newer one.");
+                        tracer.abandon(trace, "superseded");
+                    } else {
+                        Log.e(TAG, "Failed to send clipboard data to every device.");
+                        sendFailures.increment();
+                        tracer.abandon(trace, "failed");
+                    }
+                });
+    }
 
-                beginAtomicRequestQueue()
-                    .add(enableNotifications(characteristic.gattCharacteristic)
-                            .fail((device, status) -> log(Log.ERROR, "Could not enable notifications for " + characteristic.uuid + ": " + status))
-                    )
-                    .enqueue();
+    // Streams a content URI to every Mac without reading it into memory. Each peer reads its own stream, so
+    // a slow link does not hold back a fast one. Providers that cannot report the length up front are first
+    // copied to a cache file, chunk by chunk, which all peers then read.
+    private void sendUri(@NonNull Uri uri, @NonNull String mimeType, @Nullable ClipTrace trace) {
+        List<BlePeer> targets = peers();
+        if (targets.isEmpty()) {
+            Log.w(TAG, "No device to send " + uri + " to.");
+            store.lastAction.onNext("Not connected.");
+            tracer.abandon(trace, "not connected");
+            return;
+        }
+        File spooled = null;
+        long length;
+        try {
+            length = contentLength(uri);
+            if (length < 0) {
+                spooled = spool(uri);
+                length = spooled.length();
             }
+        } catch (IOException | SecurityException e) {
+            Log.e(TAG, "Could not read " + uri + ": " + e.getMessage());
+            store.lastAction.onNext("Could not read clip.");
+            tracer.abandon(trace, "unreadable");
+            return;
+        }
+        if (length > Constants.MAX_BLOB_BYTES) {
+            Log.w(TAG, "Not sending " + uri + ": " + length + " bytes is over the limit.");
+            store.lastAction.onNext("Clip too large.");
+            tracer.abandon(trace, "too large");
+            if (spooled != null) spooled.delete();
+            return;
         }
+        File spoolFile = spooled;
+        long size = length;
+        long startedAt = SystemClock.elapsedRealtime();
+        sendToEach(targets, peer -> Completable.defer(() -> {
+                    InputStream content = spoolFile != null
+                            ? new FileInputStream(spoolFile)
+                            : context.getContentResolver().openInputStream(uri);
+                    if (content == null) return Completable.error(new FileNotFoundException("No content at " + uri + "."));
+                    return peer.engine().sendBlob(mimeType, new BufferedInputStream(content, Constants.STREAM_COPY_BUFFER_BYTES), size, trace);
+                }))
+                .doFinally(() -> {
+                    if (spoolFile != null) spoolFile.delete();
+                })
+                .observeOn(bleThread.scheduler())
+                .subscribe(failures -> {
+                    if (failures.size() < targets.size()) {
+                        Log.d(TAG, "Binary clip sent to " + (targets.size() - failures.size()) + " of " + targets.size() + " devices: " + mimeType + ", " + size + " bytes.");
+                        blobsSent.increment();
+                        bytesSent.add(size);
+                        sendTime.record(SystemClock.elapsedRealtime() - startedAt);
+                        tracer.complete(trace);
+                        store.lastAction.onNext("Sent " + mimeType + " (" + (size + 1023) / 1024 + " KB)");
+                    } else if (allCancelled(failures)) {
+                        Log.d(TAG, "Binary clip superseded by a newer one.");
+                        tracer.abandon(trace, "superseded");
+                    } else {
+                        Log.e(TAG, "Failed to send binary clip to every device.");
+                        sendFailures.increment();
+                        tracer.abandon(trace, "failed");
+                    }
+                });
+    }
+
+    // Runs one send per peer and collects the failures, so a Mac that drops out does not fail the clip for
+    // the ones that received it. Each failure is logged against its own peer.
+    @NonNull
+    private static Single<List<Throwable>> sendToEach(@NonNull List<BlePeer> targets, @NonNull Function<BlePeer, Completable> send) {
+        List<Maybe<Throwable>> outcomes = new ArrayList<>(targets.size());
+        for (BlePeer peer : targets) {
+            outcomes.add(Completable.defer(() -> send.apply(peer))
+                    .doOnError(error -> {
+                        if (!(error instanceof CancellationException)) {
+                            Log.w(TAG, "Send to " + peer.address() + " failed: " + error.getMessage());
+                        }
+                    })
+                    .<Throwable>toMaybe()
+                    .onErrorReturn(error -> error));
+        }
+        return Maybe.merge(outcomes).toList();
+    }
+
+    // True if every peer failed only because a newer clip replaced this one.
+    private static boolean allCancelled(@NonNull List<Throwable> failures) {
+        for (Throwable error : failures) {
+            if (!(error instanceof CancellationException)) return false;
+        }
+        return true;
+    }
 
-        @Override
-        protected void onServicesInvalidated() {
-            Log.w(TAG, "Services Invalidated");
-            for (Characteristic characteristic : SUPPORTED_CHARACTERISTICS.values()) {
-                characteristic.gattCharacteristic = null;
+    // Length the provider reports for the URI, or -1 if it does not know.
+    private long contentLength(@NonNull Uri uri) {
+        try (AssetFileDescriptor descriptor = context.getContentResolver().openAssetFileDescriptor(uri, "r")) {
+            return descriptor != null ? descriptor.getLength() : AssetFileDescriptor.UNKNOWN_LENGTH;
+        } catch (IOException | SecurityException e) {
+            return AssetFileDescriptor.UNKNOWN_LENGTH;
+        }
+    }
+
+    @NonNull
+    private File spool(@NonNull Uri uri) throws IOException {
+        File file = File.createTempFile("outgoing-", ".tmp", context.getCacheDir());
+        try (InputStream in = context.getContentResolver().openInputStream(uri);
+             OutputStream out = new FileOutputStream(file)) {
+            if (in == null) throw new FileNotFoundException("No content at " + uri + ".");
+            byte[] buffer = new byte[Constants.STREAM_COPY_BUFFER_BYTES];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
             }
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+        return file;
+    }
+
+    // --- Receiving, from any peer ---
+
+    void onBlobReceived(@NonNull StreamReassembler.Blob blob) {
+        File previous = lastReceivedBlob;
+        lastReceivedBlob = blob.file();
+        if (previous != null) previous.delete(); // This clip replaces it on the clipboard
+        Log.d(TAG, "Binary clip received: " + blob.mimeType() + ", " + blob.length() + " bytes.");
+        blobsReceived.increment();
+        blobBytesReceived.add(blob.length());
+        store.clipboard.post(ClipboardEvent.createFileReceiveEvent(blob.file().getPath(), blob.mimeType()));
+    }
+
+    void onClipReceived(@NonNull String text) {
+        clipsReceived.increment();
+        if (clipCache.isCurrent(ClipCache.hash(text))) {
+            // Echo of the clip we just sent (or a repeat), applying it again would change nothing
+            Log.d(TAG, "Dropping echoed clip.");
+            store.avoidedTransfers.onNext(clipCache.markAvoided());
+            return;
         }
+        store.clipboard.post(ClipboardEvent.createReceiveEvent(text));
     }
 }
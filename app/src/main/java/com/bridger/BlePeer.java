@@ -0,0 +1,611 @@
+package com.bridger;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothGatt;
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.bluetooth.BluetoothGattService;
+import android.content.Context;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.bridger.constants.Constants;
+import com.bridger.model.Characteristic;
+import com.bridger.metrics.Counter;
+import com.bridger.metrics.LatencyHistogram;
+import com.bridger.metrics.MetricsRegistry;
+import com.bridger.model.ConnectTiming;
+import com.bridger.model.ConnectionState;
+import com.bridger.model.LinkMode;
+import com.bridger.model.LinkTransition;
+import com.bridger.model.PeerState;
+import com.bridger.model.TransferStats;
+import com.bridger.schedulers.AppSchedulers;
+import com.bridger.transfer.LinkScheduler;
+import com.bridger.transfer.OutboundQueue;
+import com.bridger.transfer.TransferEngine;
+import com.bridger.transport.ClipboardTransport;
+import com.bridger.transport.LinkMetrics;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.disposables.CompositeDisposable;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.disposables.SerialDisposable;
+import io.reactivex.rxjava3.subjects.BehaviorSubject;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+import io.reactivex.rxjava3.subjects.Subject;
+import no.nordicsemi.android.ble.BleManager;
+import no.nordicsemi.android.ble.ConnectionPriorityRequest;
+import no.nordicsemi.android.ble.PhyRequest;
+import no.nordicsemi.android.ble.RequestQueue;
+import no.nordicsemi.android.ble.observer.ConnectionObserver;
+
+/**
+ * One Bridger peer: its own Nordic manager, {@link TransferEngine}, outbound queue, link scheduler and
+ * reconnect state, so peers never wait on each other. Created and owned by {@link BleConnectionManager};
+ * once the session ends for good it closes itself and asks the owner to drop it.
+ */
+class BlePeer {
+
+    private static final String TAG = "BlePeer";
+
+    // Field metrics; the registry hands every peer the same ones
+    private final Counter connectAttempts = MetricsRegistry.getInstance().counter("connect_attempts_total", "Connection attempts, reconnects included");
+    private final Counter connects = MetricsRegistry.getInstance().counter("connects_total", "Connections that became ready");
+    private final Counter connectFailures = MetricsRegistry.getInstance().counter("connect_failures_total", "Connection attempts that failed");
+    private final Counter linkLosses = MetricsRegistry.getInstance().counter("link_losses_total", "Ready links lost to range or timeout");
+    private final LatencyHistogram connectTime = MetricsRegistry.getInstance().histogram("connect_time_ms", "Time from a connection request to a ready link");
+
+    private final BleConnectionManager owner;
+    private final Store store;
+    private final BluetoothDevice device;
+    private final BridgerBleManager bleManager;
+    private final TransferEngine engine;
+    private final CompositeDisposable disposables = new CompositeDisposable();
+
+    // Published through Store.peers
+    private volatile ConnectionState state = ConnectionState.DISCONNECTED;
+    private volatile LinkMode linkMode = LinkMode.BALANCED;
+    @Nullable private volatile TransferStats lastTransfer;
+
+    // Connection phase timestamps in elapsedRealtime, for ConnectTiming
+    private volatile long connectRequestedAt;
+    private volatile long linkUpAt;
+    private volatile long servicesDiscoveredAt;
+    private volatile boolean connectingToRemembered;
+
+    // Reconnect state, guarded by this
+    private final SerialDisposable reconnectTimer = new SerialDisposable();
+    private boolean keepConnected; // False once the user disconnects
+    private boolean reconnecting;
+    private boolean reconnectAfterLinkLoss;
+    private volatile int reconnectAttempt;
+    private long linkLostAt; // When the current outage began, 0 if the device was never connected
+    private boolean ended;
+
+    BlePeer(@NonNull BleConnectionManager owner, @NonNull Context context, @NonNull Store store,
+            @NonNull BluetoothDevice device, @NonNull OutboundQueue.Mode queueMode) {
+        this.owner = owner;
+        this.store = store;
+        this.device = device;
+        this.bleManager = new BridgerBleManager(context.getApplicationContext(), BleThread.getInstance().handler());
+        String tag = TAG + " " + device.getAddress();
+        this.engine = new TransferEngine(new BleTransport(), BleThread.getInstance().scheduler(),
+                AppSchedulers.getInstance().encode(), SystemClock::elapsedRealtime,
+                Constants.RESUME_SESSION_EXPIRY_MS, new TransferEngine.Logger() {
+            @Override
+            public void info(@NonNull String message) {
+                Log.i(tag, message);
+            }
+
+            @Override
+            public void warn(@NonNull String message) {
+                Log.w(tag, message);
+            }
+        });
+        engine.setQueueMode(queueMode);
+        engine.setBlobDirectory(new File(context.getCacheDir(), Constants.CLIP_CACHE_DIR));
+
+        bleManager.setConnectionObserver(new ConnectionObserver() {
+            @Override
+            public void onDeviceConnecting(@NonNull BluetoothDevice device) {
+                setState(ConnectionState.CONNECTING);
+            }
+
+            @Override
+            public void onDeviceConnected(@NonNull BluetoothDevice device) {
+                // Intermediate state, wait for onDeviceReady
+                linkUpAt = SystemClock.elapsedRealtime();
+            }
+
+            @Override
+            public void onDeviceFailedToConnect(@NonNull BluetoothDevice device, int reason) {
+                connectFailures.increment();
+                onLinkDropped(reason, false);
+            }
+
+            @Override
+            public void onDeviceReady(@NonNull BluetoothDevice device) {
+                onConnectTimed();
+                onLinkReady();
+                bleManager.linkReady.onNext(true); // The engine announces itself with HELLO now that notifications are on
+                setState(ConnectionState.CONNECTED);
+            }
+
+            @Override
+            public void onDeviceDisconnecting(@NonNull BluetoothDevice device) {
+                setState(ConnectionState.DISCONNECTING);
+            }
+
+            @Override
+            public void onDeviceDisconnected(@NonNull BluetoothDevice device, int reason) {
+                if (reason == REASON_LINK_LOSS || reason == REASON_TIMEOUT) linkLosses.increment();
+                bleManager.mtu = Constants.DEFAULT_ATT_MTU; // The next link starts over from the default MTU
+                linkMode = LinkMode.BALANCED; // And from the stack's default parameters
+                onLinkDropped(reason, true);
+            }
+        });
+
+        // Publish what the transfer engine reports, and hand received clips to the owner
+        disposables.add(engine.receivedText().subscribe(owner::onClipReceived));
+        disposables.add(engine.receivedBlobs().subscribe(owner::onBlobReceived));
+        disposables.add(engine.transfers().subscribe(stats -> {
+            Log.i(tag, "Transfer complete: " + stats);
+            lastTransfer = stats;
+            store.lastTransfer.onNext(stats);
+            store.laneStats.onNext(engine.laneStats());
+            owner.onPeerChanged();
+        }));
+        disposables.add(engine.deliveries().subscribe(delivery -> {
+            Log.i(tag, "Delivery: " + delivery);
+            owner.onDelivery(delivery);
+        }));
+        disposables.add(engine.queueStats().subscribe(store.outboundQueue::onNext));
+        // Synchronous, so a burst request is queued on the GATT queue ahead of the clip's first frame
+        disposables.add(engine.busy().subscribe(busy -> {
+            if (busy) {
+                bleManager.onLinkBusy();
+            } else {
+                bleManager.onLinkIdle();
+            }
+        }));
+    }
+
+    @NonNull
+    String address() {
+        return device.getAddress();
+    }
+
+    @NonNull
+    BluetoothDevice device() {
+        return device;
+    }
+
+    @NonNull
+    ConnectionState state() {
+        return state;
+    }
+
+    @NonNull
+    TransferEngine engine() {
+        return engine;
+    }
+
+    // Read without locking, from volatile fields, so the owner can publish while a peer is busy.
+    @NonNull
+    PeerState snapshot() {
+        return new PeerState(device.getAddress(), state, bleManager.mtu, linkMode, reconnectAttempt, lastTransfer);
+    }
+
+    private void setState(@NonNull ConnectionState state) {
+        this.state = state;
+        owner.onPeerChanged();
+    }
+
+    // --- Session ---
+
+    synchronized void connect() {
+        if (ended) return;
+        if (state == ConnectionState.CONNECTED || state == ConnectionState.CONNECTING) {
+            Log.w(TAG, "Already connected or connecting to " + device.getAddress() + ".");
+            return;
+        }
+        keepConnected = true; // Kept connected from now on, until disconnect()
+        reconnecting = false;
+        reconnectAttempt = 0;
+        reconnectTimer.set(Disposable.disposed());
+        setState(ConnectionState.CONNECTING); // Published before the manager reports it, so BleTransport.connect sees this session
+        enqueueConnect();
+    }
+
+    synchronized void disconnect() {
+        keepConnected = false;
+        reconnectTimer.set(Disposable.disposed());
+        if (reconnecting || state == ConnectionState.DISCONNECTED || state == ConnectionState.FAILED) {
+            // No link to close, only pending attempts
+            end(ConnectionState.DISCONNECTED);
+            return;
+        }
+        bleManager.disconnect().enqueue();
+    }
+
+    // Final state: stops everything this peer owns and lets the owner forget it. Must be called with this held.
+    private void end(@NonNull ConnectionState finalState) {
+        if (ended) return;
+        ended = true;
+        reconnecting = false;
+        reconnectAttempt = 0;
+        state = finalState;
+        reconnectTimer.dispose();
+        disposables.dispose();
+        engine.dispose();
+        bleManager.close();
+        owner.onPeerEnded(this, finalState);
+    }
+
+    // --- Reconnect engine ---
+
+    private void enqueueConnect() {
+        connectRequestedAt = SystemClock.elapsedRealtime();
+        connectAttempts.increment();
+        linkUpAt = 0;
+        servicesDiscoveredAt = 0;
+        connectingToRemembered = device.getAddress().equals(owner.rememberedDevice().address());
+        // Direct connections, so every attempt ends in ready or failed and the engine decides what comes next
+        bleManager.connect(device)
+                .retry(3, 100)
+                .useAutoConnect(false)
+                .timeout(Constants.CONNECT_TIMEOUT_MS)
+                .enqueue();
+    }
+
+    // Publishes how long each phase took and remembers the device for the next launch.
+    private void onConnectTimed() {
+        long readyAt = SystemClock.elapsedRealtime();
+        long linkUp = linkUpAt > 0 ? linkUpAt : connectRequestedAt;
+        long services = servicesDiscoveredAt > 0 ? servicesDiscoveredAt : linkUp;
+        ConnectTiming timing = new ConnectTiming(linkUp - connectRequestedAt, services - linkUp, readyAt - services,
+                connectingToRemembered);
+        Log.i(TAG, "Connected to " + device.getAddress() + " in " + timing);
+        connects.increment();
+        connectTime.record(readyAt - connectRequestedAt);
+        store.lastConnect.onNext(timing);
+        owner.rememberedDevice().save(device.getAddress());
+    }
+
+    private synchronized void onLinkReady() {
+        if (reconnecting && linkLostAt > 0) {
+            long elapsed = SystemClock.elapsedRealtime() - linkLostAt;
+            owner.recordReconnect(elapsed);
+            Log.i(TAG, "Reconnected to " + device.getAddress() + " after " + elapsed + " ms and " + reconnectAttempt + " attempts.");
+        }
+        reconnecting = false;
+        reconnectAttempt = 0;
+        linkLostAt = 0;
+    }
+
+    private synchronized void onLinkDropped(int reason, boolean wasConnected) {
+        if (ended) return;
+        if (!keepConnected || !shouldReconnect(reason)) {
+            end(wasConnected ? ConnectionState.DISCONNECTED : ConnectionState.FAILED);
+            return;
+        }
+        if (!reconnecting) {
+            // First drop of this outage
+            reconnecting = true;
+            reconnectAttempt = 0;
+            reconnectAfterLinkLoss = reason == ConnectionObserver.REASON_LINK_LOSS || reason == ConnectionObserver.REASON_TIMEOUT;
+            linkLostAt = wasConnected ? SystemClock.elapsedRealtime() : 0;
+        }
+        scheduleReconnect();
+    }
+
+    // Only an explicit close or a device without our service ends the session; everything else is retried.
+    private static boolean shouldReconnect(int reason) {
+        return reason != ConnectionObserver.REASON_SUCCESS
+                && reason != ConnectionObserver.REASON_NOT_SUPPORTED
+                && reason != ConnectionObserver.REASON_CANCELLED;
+    }
+
+    private synchronized void scheduleReconnect() {
+        if (!keepConnected || ended) return;
+        setState(ConnectionState.RECONNECTING);
+        if (!owner.isBluetoothOn()) {
+            Log.i(TAG, "Bluetooth is off, reconnect to " + device.getAddress() + " suspended.");
+            store.lastAction.onNext("Waiting for Bluetooth to reconnect.");
+            return;
+        }
+        long delay = owner.reconnectPolicy().delayMs(reconnectAttempt, reconnectAfterLinkLoss);
+        if (delay < 0) {
+            Log.w(TAG, "Giving up on " + device.getAddress() + " after " + reconnectAttempt + " reconnect attempts.");
+            end(ConnectionState.FAILED);
+            return;
+        }
+        reconnectAttempt++;
+        Log.i(TAG, "Reconnect attempt " + reconnectAttempt + "/" + owner.reconnectPolicy().maxAttempts() + " in " + delay + " ms.");
+        owner.onPeerChanged();
+        reconnectTimer.set(Completable.timer(delay, TimeUnit.MILLISECONDS, BleThread.getInstance().scheduler())
+                .subscribe(this::attemptReconnect));
+    }
+
+    private synchronized void attemptReconnect() {
+        if (!keepConnected || ended || !owner.isBluetoothOn()) return; // Disconnected or suspended meanwhile
+        enqueueConnect();
+    }
+
+    synchronized void onBluetoothStateChanged(boolean on) {
+        if (!on) {
+            reconnectTimer.set(Disposable.disposed());
+        } else if (reconnecting) {
+            reconnectAttempt = 0; // A fresh adapter deserves the fast attempts again
+            scheduleReconnect();
+        }
+    }
+
+    // ClipboardTransport over the Nordic manager: packets are ATT writes to ANDROID_TO_MAC and notifications from MAC_TO_ANDROID.
+    private class BleTransport implements ClipboardTransport {
+
+        @NonNull
+        @Override
+        public Completable connect(@NonNull String address) {
+            return Completable.defer(() -> {
+                BluetoothAdapter adapter = BluetoothAdapter.getDefaultAdapter();
+                if (adapter == null) return Completable.error(new Throwable("BluetoothAdapter not available."));
+                owner.connect(adapter.getRemoteDevice(address));
+                return store.peers
+                        .map(peers -> {
+                            PeerState peer = peers.get(address);
+                            return peer != null ? peer.state() : ConnectionState.FAILED; // Dropped once it ends
+                        })
+                        .filter(state -> state == ConnectionState.CONNECTED || state == ConnectionState.FAILED
+                                || state == ConnectionState.DISCONNECTED)
+                        .firstOrError()
+                        .flatMapCompletable(state -> state == ConnectionState.CONNECTED
+                                ? Completable.complete()
+                                : Completable.error(new Throwable("Could not connect to " + address)));
+            });
+        }
+
+        @NonNull
+        @Override
+        public Completable disconnect() {
+            return Completable.fromAction(BlePeer.this::disconnect);
+        }
+
+        @NonNull
+        @Override
+        public Completable write(@NonNull byte[] packet, boolean acknowledged) {
+            return bleManager.writePacket(packet, acknowledged);
+        }
+
+        @NonNull
+        @Override
+        public Observable<byte[]> incoming() {
+            return bleManager.incoming;
+        }
+
+        @NonNull
+        @Override
+        public Observable<Boolean> linkReady() {
+            return bleManager.linkReady;
+        }
+
+        @NonNull
+        @Override
+        public LinkMetrics metrics() {
+            return bleManager.metrics();
+        }
+    }
+
+    // The inner class that extends BleManager and can access protected methods
+    private class BridgerBleManager extends BleManager {
+
+        private final Map<UUID, Characteristic> SUPPORTED_CHARACTERISTICS = new HashMap<>();
+        private volatile int mtu = Constants.DEFAULT_ATT_MTU; // Effective MTU of the current link
+
+        // Packet stream for BleTransport
+        final Subject<byte[]> incoming = PublishSubject.<byte[]>create().toSerialized();
+        final BehaviorSubject<Boolean> linkReady = BehaviorSubject.createDefault(false);
+        private final AtomicLong packetsSent = new AtomicLong();
+        private final AtomicLong bytesSent = new AtomicLong();
+        private final AtomicLong packetsReceived = new AtomicLong();
+        private final AtomicLong bytesReceived = new AtomicLong();
+
+        // Connection parameters follow the outbound queue: burst while sending, then step down when idle
+        private final Object linkLock = new Object();
+        private final LinkScheduler linkScheduler = new LinkScheduler(Constants.BALANCED_AFTER_IDLE_MS, Constants.LOW_POWER_AFTER_IDLE_MS);
+        private final SerialDisposable stepDownTimer = new SerialDisposable();
+        private boolean phyRequested; // Guarded by linkLock
+
+        {
+            SUPPORTED_CHARACTERISTICS.put(Constants.ANDROID_TO_MAC_CHARACTERISTIC_UUID, new Characteristic(Constants.ANDROID_TO_MAC_CHARACTERISTIC_UUID));
+            SUPPORTED_CHARACTERISTICS.put(Constants.MAC_TO_ANDROID_CHARACTERISTIC_UUID, new Characteristic(Constants.MAC_TO_ANDROID_CHARACTERISTIC_UUID, data -> {
+                byte[] packet = data.getValue();
+                if (packet == null) return;
+                packetsReceived.incrementAndGet();
+                bytesReceived.addAndGet(packet.length);
+                incoming.onNext(packet);
+            }));
+        }
+
+        // Callbacks run on the BLE thread, where the engine and its timers run too
+        public BridgerBleManager(@NonNull Context context, @NonNull Handler handler) {
+            super(context, handler);
+        }
+
+        @Override
+        public void log(int priority, @NonNull String message) {
+            Log.println(priority, TAG, message);
+        }
+
+        // One packet to ANDROID_TO_MAC; unacknowledged writes complete once the stack has taken the packet.
+        Completable writePacket(@NonNull byte[] packet, boolean acknowledged) {
+            return Completable.create(emitter -> {
+                Characteristic androidToMacChar = SUPPORTED_CHARACTERISTICS.get(Constants.ANDROID_TO_MAC_CHARACTERISTIC_UUID);
+                if (androidToMacChar == null || androidToMacChar.gattCharacteristic == null) {
+                    emitter.onError(new Throwable("Characteristic not found: " + Constants.ANDROID_TO_MAC_CHARACTERISTIC_UUID));
+                    return;
+                }
+                packetsSent.incrementAndGet();
+                bytesSent.addAndGet(packet.length);
+                int writeType = acknowledged ? BluetoothGattCharacteristic.WRITE_TYPE_DEFAULT : BluetoothGattCharacteristic.WRITE_TYPE_NO_RESPONSE;
+                writeCharacteristic(androidToMacChar.gattCharacteristic, packet, writeType)
+                        .done(device -> emitter.onComplete())
+                        .fail((device, status) -> emitter.tryOnError(new Throwable("Failed to write frame with status: " + status)))
+                        .enqueue();
+            });
+        }
+
+        @NonNull
+        LinkMetrics metrics() {
+            return new LinkMetrics(mtu, packetsSent.get(), bytesSent.get(), packetsReceived.get(), bytesReceived.get(), 0);
+        }
+
+        private void onLinkBusy() {
+            synchronized (linkLock) {
+                LinkMode mode = linkScheduler.onBusy();
+                if (mode != null) applyLinkMode(mode, "transfer queued");
+            }
+        }
+
+        private void onLinkIdle() {
+            linkScheduler.onIdle(SystemClock.elapsedRealtime());
+            scheduleStepDown();
+        }
+
+        private void stepDownLink() {
+            synchronized (linkLock) {
+                LinkMode mode = linkScheduler.step(SystemClock.elapsedRealtime());
+                if (mode != null) applyLinkMode(mode, "link idle");
+            }
+            scheduleStepDown();
+        }
+
+        private void scheduleStepDown() {
+            long delay = linkScheduler.nextStepDelay(SystemClock.elapsedRealtime());
+            if (delay < 0) return;
+            stepDownTimer.set(Completable.timer(delay, TimeUnit.MILLISECONDS, BleThread.getInstance().scheduler())
+                    .subscribe(this::stepDownLink));
+        }
+
+        /**
+         * Requests the parameters for a mode through the request queue, so they are ordered against writes.
+         * LE 2M PHY is requested once per link on the first burst; it is kept afterwards, as it also halves
+         * the radio-on time of every packet when idle. Must be called with linkLock held.
+         */
+        private void applyLinkMode(@NonNull LinkMode mode, @NonNull String reason) {
+            LinkMode previous = linkMode;
+            int priority = switch (mode) {
+                case BURST -> ConnectionPriorityRequest.CONNECTION_PRIORITY_HIGH;
+                case BALANCED -> ConnectionPriorityRequest.CONNECTION_PRIORITY_BALANCED;
+                case LOW_POWER -> ConnectionPriorityRequest.CONNECTION_PRIORITY_LOW_POWER;
+            };
+            requestConnectionPriority(priority)
+                    .fail((device, status) -> log(Log.WARN, "Connection priority request for " + mode + " failed: " + status))
+                    .enqueue();
+            if (mode == LinkMode.BURST && !phyRequested) {
+                phyRequested = true;
+                setPreferredPhy(PhyRequest.PHY_LE_2M_MASK, PhyRequest.PHY_LE_2M_MASK, PhyRequest.PHY_OPTION_NO_PREFERRED)
+                        .with((device, txPhy, rxPhy) -> log(Log.INFO, "PHY updated: tx " + txPhy + ", rx " + rxPhy))
+                        .fail((device, status) -> log(Log.WARN, "LE 2M PHY not available: " + status))
+                        .enqueue();
+            }
+            publishLinkMode(previous, mode, reason);
+        }
+
+        private void publishLinkMode(@NonNull LinkMode previous, @NonNull LinkMode mode, @NonNull String reason) {
+            LinkTransition transition = new LinkTransition(previous, mode, reason, SystemClock.elapsedRealtime());
+            log(Log.INFO, "Link mode " + transition);
+            linkMode = mode;
+            store.linkTransitions.onNext(transition);
+            owner.onPeerChanged();
+        }
+
+        @Override
+        protected boolean isRequiredServiceSupported(@NonNull final BluetoothGatt gatt) {
+            final BluetoothGattService service = gatt.getService(Constants.BRIDGER_SERVICE_UUID);
+            servicesDiscoveredAt = SystemClock.elapsedRealtime();
+
+            if (service == null) {
+                log(Log.WARN, "Bridger service not found on device.");
+                return false;
+            }
+            // Both characteristics are needed, so a device without either one is not a Bridger peer and
+            // the connection fails as not supported instead of being retried
+            boolean supported = true;
+            for (Characteristic characteristic : SUPPORTED_CHARACTERISTICS.values()) {
+                characteristic.gattCharacteristic = service.getCharacteristic(characteristic.uuid);
+                if (characteristic.gattCharacteristic == null) {
+                    log(Log.WARN, "Characteristic " + characteristic.uuid + " not found on device.");
+                    supported = false;
+                }
+            }
+            return supported;
+        }
+
+        @Override
+        protected void initialize() {
+            // The whole setup runs as one queue. High priority goes first, so every request after it completes
+            // within short connection intervals; the link scheduler steps down once the link goes idle.
+            RequestQueue setup = beginAtomicRequestQueue()
+                    .add(requestConnectionPriority(ConnectionPriorityRequest.CONNECTION_PRIORITY_HIGH))
+                    // Negotiate the largest MTU early, so every write after this uses as few packets as possible.
+                    .add(requestMtu(Constants.MAX_ATT_MTU)
+                            .with((device, mtu) -> {
+                                this.mtu = mtu;
+                                log(Log.INFO, "MTU negotiated: " + mtu + " (" + (mtu - Constants.ATT_WRITE_HEADER_SIZE) + " bytes per chunk)");
+                                owner.onPeerChanged();
+                            })
+                            .fail((device, status) -> log(Log.WARN, "MTU request failed: " + status + ", staying at " + mtu)))
+                    .add(setPreferredPhy(PhyRequest.PHY_LE_2M_MASK, PhyRequest.PHY_LE_2M_MASK, PhyRequest.PHY_OPTION_NO_PREFERRED)
+                            .with((device, txPhy, rxPhy) -> log(Log.INFO, "PHY updated: tx " + txPhy + ", rx " + rxPhy))
+                            .fail((device, status) -> log(Log.WARN, "LE 2M PHY not available: " + status)));
+
+            for (Characteristic characteristic : SUPPORTED_CHARACTERISTICS.values()) {
+                if (characteristic.notificationCallback == null) continue;
+                if (characteristic.gattCharacteristic == null) {
+                    log(Log.WARN, "Characteristic " + characteristic.uuid + " not found on device. Skipping initialization.");
+                    continue;
+                }
+
+                setNotificationCallback(characteristic.gattCharacteristic)
+                    .with((device, data) -> characteristic.notificationCallback.accept(data));
+
+                setup.add(enableNotifications(characteristic.gattCharacteristic)
+                        .fail((device, status) -> log(Log.ERROR, "Could not enable notifications for " + characteristic.uuid + ": " + status)));
+            }
+            setup.enqueue();
+
+            // Setup left the link in burst mode; it steps down to balanced and then low power if nothing is sent
+            synchronized (linkLock) {
+                linkScheduler.reset(SystemClock.elapsedRealtime(), LinkMode.BURST);
+                phyRequested = true;
+                publishLinkMode(linkMode, LinkMode.BURST, "link setup");
+            }
+            scheduleStepDown();
+        }
+
+        @Override
+        protected void onServicesInvalidated() {
+            Log.w(TAG, "Services Invalidated");
+            for (Characteristic characteristic : SUPPORTED_CHARACTERISTICS.values()) {
+                characteristic.gattCharacteristic = null;
+            }
+            mtu = Constants.DEFAULT_ATT_MTU;
+            stepDownTimer.set(Disposable.disposed());
+            linkReady.onNext(false); // The engine fails what is in flight and resets its negotiated state
+        }
+    }
+}
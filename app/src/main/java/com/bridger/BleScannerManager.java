@@ -3,6 +3,9 @@ package com.bridger;
 import android.util.Log;
 import androidx.annotation.NonNull;
 import java.util.List;
+
+import com.bridger.metrics.Counter;
+import com.bridger.metrics.MetricsRegistry;
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.ObservableEmitter;
 import no.nordicsemi.android.support.v18.scanner.BluetoothLeScannerCompat;
@@ -16,6 +19,9 @@ public class BleScannerManager {
   private final BluetoothLeScannerCompat scanner = BluetoothLeScannerCompat.getScanner();
   private final ScanSettings scanSettings;
   private final Observable<ScanResult> sharedScanStream; // Field for the hot stream
+  private final Counter scansStarted = MetricsRegistry.getInstance().counter("scans_started_total", "BLE scans started");
+  private final Counter scanResults = MetricsRegistry.getInstance().counter("scan_results_total", "BLE scan results delivered");
+  private final Counter scanFailures = MetricsRegistry.getInstance().counter("scan_failures_total", "BLE scans that failed to start");
 
   public BleScannerManager() {
     this.scanSettings = new ScanSettings.Builder()
@@ -49,6 +55,7 @@ public class BleScannerManager {
       Log.d(TAG, "Starting BLE scan...");
       // 2. Start scanning with this callback.
       scanner.startScan(null, this.scanSettings, scanCallback);
+      scansStarted.increment();
 
       // 3. When unsubscribing, stop scanning using the same callback.
       emitter.setCancellable(() -> {
@@ -70,6 +77,7 @@ public class BleScannerManager {
       public void onScanResult(int callbackType, @NonNull ScanResult result) {
         super.onScanResult(callbackType, result);
         if (emitter.isDisposed()) return;;
+        scanResults.increment();
         emitter.onNext(result);
       }
 
@@ -78,6 +86,7 @@ public class BleScannerManager {
         super.onBatchScanResults(results);
         if (emitter.isDisposed()) return;;
 
+        scanResults.add(results.size());
         for (ScanResult result : results)
           emitter.onNext(result);
       }
@@ -85,6 +94,7 @@ public class BleScannerManager {
       @Override
       public void onScanFailed(int errorCode) {
         super.onScanFailed(errorCode);
+        scanFailures.increment();
         if (emitter.isDisposed()) return;
 
         emitter.onError(new Throwable("Scan failed with error code: " + errorCode));
@@ -0,0 +1,54 @@
+package com.bridger;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+
+import androidx.annotation.NonNull;
+
+import com.bridger.metrics.MetricsRegistry;
+import com.bridger.schedulers.NamedScheduler;
+
+import io.reactivex.rxjava3.core.Scheduler;
+
+/**
+ * The one thread all BLE work runs on: the Nordic managers' callbacks and request queues, every packet the
+ * transfer engines receive (inflate, delta apply, UTF-8 decoding, blob file writes), their timeouts, and the
+ * connection manager's connect and disconnect requests. Outgoing clips are queued on the encode scheduler, and
+ * each text clip is delta-encoded and compressed there when it becomes active, even when a write callback or
+ * timer here activated it; this thread only frames and writes it. TransferEngine guards its queues with its own
+ * lock.
+ * It is a Looper thread because the Nordic managers post to a Handler; {@link #scheduler()} posts to the same
+ * Handler and is counted as {@code scheduler_ble_*} like the other app schedulers.
+ */
+final class BleThread {
+
+    private static BleThread instance;
+
+    private final Handler handler;
+    private final NamedScheduler scheduler;
+
+    private BleThread() {
+        HandlerThread thread = new HandlerThread("bridger-ble-1");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        scheduler = new NamedScheduler("ble", handler::post, MetricsRegistry.getInstance(), System::nanoTime);
+    }
+
+    static synchronized BleThread getInstance() {
+        if (instance == null) {
+            instance = new BleThread();
+        }
+        return instance;
+    }
+
+    // For the Nordic managers' callbacks
+    @NonNull
+    Handler handler() {
+        return handler;
+    }
+
+    @NonNull
+    Scheduler scheduler() {
+        return scheduler.scheduler();
+    }
+}
@@ -1,10 +1,13 @@
 package com.bridger;
 
 import android.app.Activity;
+import android.net.Uri;
 import android.os.Bundle;
 import android.util.Log;
 
 import com.bridger.events.ClipboardEvent;
+import com.bridger.trace.ClipTrace;
+import com.bridger.trace.ClipTracer;
 
 public class ClipboardHandlerActivity extends Activity {
 
@@ -12,10 +15,13 @@ public class ClipboardHandlerActivity extends Activity {
     private boolean isClipboardProcessed = false;
     private ClipboardUtility clipboardUtility; // Reference to ClipboardUtility
     private Store store; // Reference to Store
+    private final ClipTracer tracer = ClipTracer.getInstance();
+    private final ClipTrace trace = tracer.begin(); // Started as the activity is instantiated, the earliest point after the tap
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        trace.mark(ClipTrace.Stage.CREATE);
         Log.d(TAG, "ClipboardHandlerActivity created.");
         clipboardUtility = ClipboardUtility.getInstance(getApplicationContext());
         store = Store.getInstance();
@@ -27,6 +33,7 @@ public class ClipboardHandlerActivity extends Activity {
 
         if (hasFocus && !isClipboardProcessed) {
             isClipboardProcessed = true;
+            trace.mark(ClipTrace.Stage.FOCUS);
             Log.d(TAG, "Activity has focus. Attempting to read and dispatch clipboard.");
             readAndDispatchClipboard();
             Log.d(TAG, "ClipboardHandlerActivity finished clipboard operation. Closing activity.");
@@ -35,13 +42,29 @@ public class ClipboardHandlerActivity extends Activity {
     }
 
     private void readAndDispatchClipboard() {
+        // Images and files are streamed from their content URI when the provider knows their type; everything
+        // else, links included, goes as text
+        Uri clipUri = clipboardUtility.readUriFromClipboard();
+        String mimeType = clipUri != null ? clipboardUtility.mimeTypeOf(clipUri) : null;
+        if (mimeType != null && !ClipboardEvent.MIME_TEXT.equals(mimeType)) {
+            trace.mark(ClipTrace.Stage.READ);
+            trace.setLabel(mimeType);
+            trace.mark(ClipTrace.Stage.DISPATCH);
+            store.clipboard.post(ClipboardEvent.createUriSendRequestedEvent(clipUri.toString(), mimeType, trace.id()));
+            Log.d(TAG, "Clipboard URI dispatched to Store: " + clipUri + " (" + mimeType + ")");
+            return;
+        }
         String clipboardText = clipboardUtility.readFromClipboard();
+        trace.mark(ClipTrace.Stage.READ);
         if (clipboardText != null) {
-            store.clipboard.onNext(ClipboardEvent.createSendRequestedEvent(clipboardText));
+            trace.setLabel("text, " + clipboardText.length() + " chars");
+            trace.mark(ClipTrace.Stage.DISPATCH);
+            store.clipboard.post(ClipboardEvent.createSendRequestedEvent(clipboardText, trace.id()));
             Log.d(TAG, "Clipboard text read and dispatched to Store: " + clipboardText);
         } else {
             Log.w(TAG, "Clipboard is empty or contains non-text data. No event dispatched.");
             store.lastAction.onNext("Clipboard empty."); // Update last action in Store
+            tracer.abandon(trace, "clipboard empty");
         }
     }
 
@@ -51,6 +74,7 @@ public class ClipboardHandlerActivity extends Activity {
         // Finish the activity if it loses focus before the clipboard is processed.
         if (!isFinishing() && !isClipboardProcessed) { // Only finish if not already finishing and not processed
             Log.d(TAG, "ClipboardHandlerActivity paused before processing. Finishing.");
+            tracer.abandon(trace, "lost focus");
             finish();
         }
     }
@@ -1,11 +1,19 @@
 package com.bridger;
 
 import android.content.ClipData;
+import android.content.ClipDescription;
+import android.content.ContentResolver;
 import android.content.Context;
+import android.net.Uri;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.content.FileProvider;
+
+import java.io.File;
+
+import com.bridger.constants.Constants;
 
 public class ClipboardUtility {
 
@@ -53,6 +61,58 @@ public class ClipboardUtility {
         return null;
     }
 
+    /**
+     * Reads the content URI of the current clip, e.g. a screenshot or a copied file.
+     *
+     * @return The URI, or null if the clip is empty or holds no content:// URI. Other URIs, such as a link
+     * copied from a browser, are left to {@link #readFromClipboard()}.
+     */
+    @Nullable
+    public Uri readUriFromClipboard() {
+        android.content.ClipboardManager clipboard = (android.content.ClipboardManager)
+                applicationContext.getSystemService(Context.CLIPBOARD_SERVICE);
+
+        if (clipboard != null && clipboard.hasPrimaryClip()) {
+            ClipData clipData = clipboard.getPrimaryClip();
+            if (clipData != null && clipData.getItemCount() > 0) {
+                Uri uri = clipData.getItemAt(0).getUri();
+                if (uri != null && ContentResolver.SCHEME_CONTENT.equals(uri.getScheme())) {
+                    Log.d(TAG, "Read URI from clipboard: " + uri);
+                    return uri;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The MIME type the content provider reports for the URI, or null if it reports none.
+     */
+    @Nullable
+    public String mimeTypeOf(@NonNull Uri uri) {
+        return applicationContext.getContentResolver().getType(uri);
+    }
+
+    /**
+     * Puts a received binary clip on the system clipboard, shared through the app's FileProvider.
+     *
+     * @param file     A file in the clip cache directory.
+     * @param mimeType The type the sender reported, so pasting apps see an image rather than a file.
+     */
+    public void writeFileToClipboard(@NonNull File file, @NonNull String mimeType) {
+        android.content.ClipboardManager clipboard = (android.content.ClipboardManager)
+                applicationContext.getSystemService(Context.CLIPBOARD_SERVICE);
+
+        if (clipboard != null) {
+            Uri uri = FileProvider.getUriForFile(applicationContext, Constants.CLIP_FILE_PROVIDER_AUTHORITY, file);
+            ClipData clip = new ClipData(new ClipDescription("Bridger Clipboard", new String[]{mimeType}), new ClipData.Item(uri));
+            clipboard.setPrimaryClip(clip);
+            Log.d(TAG, "Updated system clipboard with " + mimeType + " from " + file.getName());
+        } else {
+            Log.e(TAG, "Failed to get system clipboard service.");
+        }
+    }
+
     /**
      * Writes the given text content to the system clipboard.
      *
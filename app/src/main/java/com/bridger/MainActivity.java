@@ -14,12 +14,16 @@ import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.disposables.CompositeDisposable;
 
 import com.bridger.databinding.ActivityMainBinding;
+import com.bridger.ui.connection.ConnectionActivity;
 import com.bridger.ui.scanner.DeviceListAdapter;
 import com.bridger.ui.scanner.ScannerViewModel;
 import com.bridger.services.NotificationService; // Import NotificationService
 import android.content.Intent; // Import Intent
 import androidx.core.content.ContextCompat; // Import ContextCompat
 import com.bridger.events.SystemEvent; // Import SystemEvent
+import com.bridger.history.ClipHistory;
+import com.bridger.journal.StoreJournal;
+import com.bridger.metrics.MetricsReporter;
 
 public class MainActivity extends AppCompatActivity {
 
@@ -29,6 +33,8 @@ public class MainActivity extends AppCompatActivity {
   private ScannerViewModel scannerViewModel;
   private PermissionsManager permissionsManager;
   private NotificationChecker notificationChecker; // Declare NotificationChecker
+  private boolean permissionsGranted;
+  private boolean scanStarted; // Deferred when the app goes straight to the remembered device
 
   private final CompositeDisposable activityDisposables = new CompositeDisposable();
 
@@ -42,7 +48,10 @@ public class MainActivity extends AppCompatActivity {
     Toolbar toolbar = findViewById(R.id.toolbar);
     setSupportActionBar(toolbar);
 
-    // Initialize BleConnectionManager
+    // Bring back the Store's last action, open the clip history, then initialize BleConnectionManager
+    StoreJournal.getInstance(getApplicationContext());
+    ClipHistory.getInstance(getApplicationContext());
+    MetricsReporter.getInstance(getApplicationContext());
     BleConnectionManager.getInstance(getApplicationContext());
 
     // Start the NotificationService
@@ -56,14 +65,25 @@ public class MainActivity extends AppCompatActivity {
     scannerViewModel = new ViewModelProvider(this).get(ScannerViewModel.class);
     permissionsManager = new PermissionsManager(this);
     notificationChecker = new NotificationChecker(getApplicationContext()); // Initialize NotificationChecker
+    // Only on a fresh launch: coming back to this screen means the user wants to pick a device
+    String rememberedAddress = savedInstanceState == null ? new RememberedDevice(this).address() : null;
 
     activityDisposables.add(
         permissionsManager.requestPermissions()
             .toObservable()
             .flatMap(granted -> {
                 if (granted) {
-                    Log.d(TAG, "Permissions granted. Starting scan.");
-                    scannerViewModel.startScan();
+                    permissionsGranted = true;
+                    if (rememberedAddress != null) {
+                        // Fast connect: skip the scanner and connect to the last device directly
+                        Log.d(TAG, "Permissions granted. Connecting to remembered device " + rememberedAddress + ".");
+                        Intent intent = new Intent(this, ConnectionActivity.class);
+                        intent.putExtra(DeviceListAdapter.EXTRA_DEVICE_ADDRESS, rememberedAddress);
+                        startActivity(intent);
+                    } else {
+                        Log.d(TAG, "Permissions granted. Starting scan.");
+                        startScan();
+                    }
                     return scannerViewModel.getDevicesStream();
                 } else {
                     Log.e(TAG, "Permissions denied. Cannot start scan.");
@@ -82,11 +102,26 @@ public class MainActivity extends AppCompatActivity {
     );
   }
 
+  @Override
+  protected void onRestart() {
+    super.onRestart();
+    // Back from a fast connect: scan now, so another device can be picked
+    if (permissionsGranted) {
+      startScan();
+    }
+  }
+
+  private void startScan() {
+    if (scanStarted) return;
+    scanStarted = true;
+    scannerViewModel.startScan();
+  }
+
   @Override
   protected void onResume() {
     super.onResume();
     // Dispatch event to check notification presence
-    Store.getInstance().system.onNext(SystemEvent.CHECK_NOTIFICATION_PRESENCE);
+    Store.getInstance().system.post(SystemEvent.CHECK_NOTIFICATION_PRESENCE);
     Log.d(TAG, "onResume: Dispatched CHECK_NOTIFICATION_PRESENCE system event.");
   }
 
@@ -9,10 +9,10 @@ import android.util.Log;
 import androidx.core.content.ContextCompat;
 
 import com.bridger.events.SystemEvent; // Import SystemEvent
+import com.bridger.schedulers.AppSchedulers;
 import com.bridger.services.NotificationService;
 
 import io.reactivex.rxjava3.disposables.CompositeDisposable;
-import io.reactivex.rxjava3.schedulers.Schedulers;
 
 public class NotificationChecker {
 
@@ -29,9 +29,8 @@ public class NotificationChecker {
     }
 
     private void setupEventSubscription() {
-        disposables.add(store.system // Subscribe to SystemEventSubject
-                .filter(event -> event.getType() == SystemEvent.EventType.CHECK_NOTIFICATION_PRESENCE) // Use SystemEvent.EventType
-                .subscribeOn(Schedulers.io())
+        disposables.add(store.system.on(SystemEvent.EventType.CHECK_NOTIFICATION_PRESENCE)
+                .observeOn(AppSchedulers.getInstance().ui()) // Asks the NotificationManager over binder, off the poster's thread
                 .subscribe(event -> checkAndRecreateNotification(),
                         throwable -> Log.e(TAG, "Error observing CHECK_NOTIFICATION_PRESENCE event: " + throwable.getMessage())));
     }
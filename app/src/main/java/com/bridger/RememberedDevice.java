@@ -0,0 +1,39 @@
+package com.bridger;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * The last Mac we were connected to, kept in SharedPreferences so the app can connect to it on launch
+ * without scanning.
+ */
+public class RememberedDevice {
+
+    private static final String PREFS_NAME = "remembered_device";
+    private static final String KEY_ADDRESS = "address";
+
+    private final SharedPreferences prefs;
+
+    public RememberedDevice(@NonNull Context context) {
+        this.prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    @Nullable
+    public String address() {
+        return prefs.getString(KEY_ADDRESS, null);
+    }
+
+    public void save(@NonNull String address) {
+        prefs.edit()
+                .putString(KEY_ADDRESS, address)
+                .remove("layout") // Written by earlier versions
+                .apply();
+    }
+
+    public void forget() {
+        prefs.edit().clear().apply();
+    }
+}
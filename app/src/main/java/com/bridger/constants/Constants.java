@@ -1,14 +0,0 @@
-package com.bridger.constants;
-
-import java.util.UUID;
-
-public class Constants {
-
-    // Service UUID
-    public static final UUID BRIDGER_SERVICE_UUID = UUID.fromString("81a936be-a052-4ef1-9c3c-073c0b63438d");
-
-    // Characteristic UUIDs
-    public static final UUID ANDROID_TO_MAC_CHARACTERISTIC_UUID = UUID.fromString("f95f7d8b-cd6d-433a-b1d1-28b0955faa52");
-    public static final UUID MAC_TO_ANDROID_CHARACTERISTIC_UUID = UUID.fromString("b184c753-e5ca-401c-9844-b3935a56b7d2");
-
-}
@@ -0,0 +1,70 @@
+package com.bridger.history;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bridger.Store;
+import com.bridger.constants.Constants;
+import com.bridger.events.ClipboardEvent;
+import com.bridger.schedulers.AppSchedulers;
+
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.disposables.CompositeDisposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * Records every sent and received clip in a {@link SqliteHistoryStore}, whether or not a screen is open, and keeps
+ * {@code Store.historyCount} up to date. Entries are built on the encode scheduler and inserted in batches on
+ * {@code Schedulers.io()}; nothing here touches the disk on the caller's thread.
+ */
+public class ClipHistory {
+
+    private static final String TAG = "ClipHistory";
+
+    private static ClipHistory instance;
+
+    private final SqliteHistoryStore database;
+    private final HistoryWriter writer;
+    private final CompositeDisposable disposables = new CompositeDisposable();
+
+    private ClipHistory(@NonNull Context context, @NonNull Store store) {
+        this.database = new SqliteHistoryStore(context);
+        this.writer = new HistoryWriter(database, new HistoryStore.Retention(Constants.HISTORY_MAX_ROWS, Constants.HISTORY_MAX_BYTES),
+                Schedulers.io(), Constants.HISTORY_COMMIT_DELAY_MS, new HistoryWriter.Listener() {
+                    @Override
+                    public void onCommitted(int count) {
+                        store.historyCount.onNext(count);
+                    }
+
+                    @Override
+                    public void onFailed(@NonNull RuntimeException error) {
+                        Log.e(TAG, "Could not write clip history: " + error.getMessage());
+                    }
+                });
+
+        disposables.add(Single.fromCallable(database::count)
+                .subscribeOn(Schedulers.io())
+                .subscribe(store.historyCount::onNext,
+                        throwable -> Log.e(TAG, "Could not open clip history: " + throwable.getMessage())));
+        disposables.add(Flowable.merge(store.clipboard.on(ClipboardEvent.EventType.SENT), store.clipboard.on(ClipboardEvent.EventType.RECEIVED))
+                .observeOn(AppSchedulers.getInstance().encode()) // Hashes the whole clip
+                .map(event -> HistoryEntry.of(event, System.currentTimeMillis()))
+                .subscribe(writer::add,
+                        throwable -> Log.e(TAG, "Error recording clip history: " + throwable.getMessage())));
+    }
+
+    public static synchronized ClipHistory getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new ClipHistory(context.getApplicationContext(), Store.getInstance());
+        }
+        return instance;
+    }
+
+    @NonNull
+    public HistoryStore store() {
+        return database;
+    }
+}
@@ -0,0 +1,182 @@
+package com.bridger.history;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link HistoryStore} in an SQLite database in the app's files, one row per clip. Rows are read newest first by
+ * id, so a page is a walk along the primary key. The row count and stored bytes are kept in memory after the first
+ * call, so retention needs no full scan.
+ * The whole text of each clip is kept in a body column and indexed in an FTS4 table kept in step by triggers, so
+ * inserts and retention deletes update the index in their own transaction. The index stores no text of its own; it
+ * reads the clips table. Matches are paged by docid, so a deep page costs the same as the first one.
+ */
+public class SqliteHistoryStore extends SQLiteOpenHelper implements HistoryStore {
+
+    private static final String DATABASE = "history.db";
+    private static final int VERSION = 3; // 2: full-text index, 3: whole text indexed instead of the preview
+
+    // Not body: pages only show the preview
+    private static final String COLUMNS = "id, direction, timestamp, size, hash, mime_type, preview";
+
+    // Guarded by this; -1 until read from the database
+    private int rows = -1;
+    private long bytes;
+
+    public SqliteHistoryStore(@NonNull Context context) {
+        this(context, DATABASE);
+    }
+
+    SqliteHistoryStore(@NonNull Context context, @NonNull String database) {
+        super(context.getApplicationContext(), database, null, VERSION);
+        setWriteAheadLoggingEnabled(true); // Pages are read while a batch is written
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE clips ("
+                + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "direction INTEGER NOT NULL, "
+                + "timestamp INTEGER NOT NULL, "
+                + "size INTEGER NOT NULL, "
+                + "hash TEXT, "
+                + "mime_type TEXT, "
+                + "preview TEXT NOT NULL, "
+                + "body TEXT NOT NULL, " // HistoryEntry.searchText()
+                + "bytes INTEGER NOT NULL)"); // HistoryEntry.storedBytes(), summed for the byte budget
+        createIndex(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion == 2) {
+            db.execSQL("DROP TRIGGER clips_ai");
+            db.execSQL("DROP TRIGGER clips_bd");
+            db.execSQL("DROP TABLE clips_fts");
+        }
+        if (oldVersion < 3) {
+            // Rows written before only kept their preview, so that is all of them that can be searched
+            db.execSQL("ALTER TABLE clips ADD COLUMN body TEXT NOT NULL DEFAULT ''");
+            db.execSQL("UPDATE clips SET body = preview");
+            createIndex(db);
+            db.execSQL("INSERT INTO clips_fts(clips_fts) VALUES ('rebuild')"); // Indexes the rows already there
+        }
+    }
+
+    // FTS5 and its trigram tokenizer can't be relied on in the platform SQLite at minSdk 26, so this is FTS4, which
+    // matches words and word prefixes. Prefix indexes make short prefixes as cheap as whole words.
+    private static void createIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE VIRTUAL TABLE clips_fts USING fts4(content=\"clips\", body, tokenize=unicode61, prefix=\"2,3\", order=DESC)");
+        // External content: the index reads the old row when removing it, so deletes go first
+        db.execSQL("CREATE TRIGGER clips_ai AFTER INSERT ON clips BEGIN "
+                + "INSERT INTO clips_fts(docid, body) VALUES (new.id, new.body); END");
+        db.execSQL("CREATE TRIGGER clips_bd BEFORE DELETE ON clips BEGIN "
+                + "DELETE FROM clips_fts WHERE docid = old.id; END");
+    }
+
+    @Override
+    public synchronized int append(@NonNull List<HistoryEntry> entries, @NonNull Retention retention) {
+        SQLiteDatabase db = getWritableDatabase();
+        loadTotals(db);
+        db.beginTransaction();
+        try (SQLiteStatement insert = db.compileStatement(
+                "INSERT INTO clips (direction, timestamp, size, hash, mime_type, preview, body, bytes) VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            int addedRows = 0;
+            long addedBytes = 0;
+            for (HistoryEntry entry : entries) {
+                long stored = entry.storedBytes();
+                insert.clearBindings();
+                insert.bindLong(1, entry.direction().ordinal());
+                insert.bindLong(2, entry.timestamp());
+                insert.bindLong(3, entry.size());
+                if (entry.hash() != null) insert.bindString(4, entry.hash());
+                if (entry.mimeType() != null) insert.bindString(5, entry.mimeType());
+                insert.bindString(6, entry.preview());
+                insert.bindString(7, entry.searchText());
+                insert.bindLong(8, stored);
+                insert.executeInsert();
+                addedRows++;
+                addedBytes += stored;
+            }
+            long[] removed = trim(db, rows + addedRows, bytes + addedBytes, retention);
+            db.setTransactionSuccessful();
+            rows += addedRows - (int) removed[0];
+            bytes += addedBytes - removed[1];
+        } finally {
+            db.endTransaction();
+        }
+        return rows;
+    }
+
+    @Override
+    public synchronized int count() {
+        loadTotals(getReadableDatabase());
+        return rows;
+    }
+
+    @NonNull
+    @Override
+    public List<HistoryEntry> page(int offset, int limit) {
+        List<HistoryEntry> page = new ArrayList<>(limit);
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT " + COLUMNS + " FROM clips ORDER BY id DESC LIMIT ? OFFSET ?",
+                new String[]{String.valueOf(limit), String.valueOf(offset)})) {
+            while (cursor.moveToNext()) page.add(entry(cursor));
+        }
+        return page;
+    }
+
+    @NonNull
+    @Override
+    public List<HistoryEntry> search(@NonNull HistoryQuery query, long beforeId, int limit) {
+        List<HistoryEntry> page = new ArrayList<>(limit);
+        try (Cursor cursor = getReadableDatabase().rawQuery("SELECT " + COLUMNS + " FROM clips JOIN "
+                        + "(SELECT docid FROM clips_fts WHERE clips_fts MATCH ? AND docid < ? ORDER BY docid DESC LIMIT ?) AS hits "
+                        + "ON clips.id = hits.docid ORDER BY id DESC",
+                new String[]{query.ftsMatch(), String.valueOf(beforeId), String.valueOf(limit)})) {
+            while (cursor.moveToNext()) page.add(entry(cursor));
+        }
+        return page;
+    }
+
+    // Columns in COLUMNS order
+    @NonNull
+    static HistoryEntry entry(@NonNull Cursor cursor) {
+        return new HistoryEntry(cursor.getLong(0), HistoryEntry.Direction.values()[cursor.getInt(1)], cursor.getLong(2),
+                cursor.getLong(3), cursor.isNull(4) ? null : cursor.getString(4), cursor.isNull(5) ? null : cursor.getString(5),
+                cursor.getString(6), null);
+    }
+
+    private void loadTotals(SQLiteDatabase db) {
+        if (rows >= 0) return;
+        try (Cursor cursor = db.rawQuery("SELECT COUNT(*), TOTAL(bytes) FROM clips", null)) {
+            cursor.moveToFirst();
+            rows = cursor.getInt(0);
+            bytes = (long) cursor.getDouble(1);
+        }
+    }
+
+    // Deletes the oldest rows until both limits hold. Returns the rows and bytes deleted.
+    private static long[] trim(SQLiteDatabase db, int rows, long bytes, Retention retention) {
+        if (rows <= retention.maxRows() && bytes <= retention.maxBytes()) return new long[]{0, 0};
+        long removedRows = 0;
+        long removedBytes = 0;
+        long lastId = -1;
+        try (Cursor cursor = db.rawQuery("SELECT id, bytes FROM clips ORDER BY id ASC", null)) {
+            while ((rows - removedRows > retention.maxRows() || bytes - removedBytes > retention.maxBytes()) && cursor.moveToNext()) {
+                lastId = cursor.getLong(0);
+                removedRows++;
+                removedBytes += cursor.getLong(1);
+            }
+        }
+        if (lastId >= 0) db.execSQL("DELETE FROM clips WHERE id <= ?", new Object[]{lastId});
+        return new long[]{removedRows, removedBytes};
+    }
+}
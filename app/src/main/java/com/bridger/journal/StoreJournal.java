@@ -0,0 +1,129 @@
+package com.bridger.journal;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bridger.Store;
+import com.bridger.constants.Constants;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.rxjava3.disposables.CompositeDisposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * Keeps the parts of {@link Store} that should outlive the process in an {@link EventJournal}: the last action
+ * and the transfer counters. The journal is replayed into the Store once per process, before anything else reads
+ * it, so a service restarted by the OS shows what it showed before. The clip history has its own database, kept
+ * by {@code ClipHistory}.
+ * Connection state is not kept: the links did not survive the process, and reconnecting is the job of
+ * {@code RememberedDevice}.
+ */
+public class StoreJournal {
+
+    private static final String TAG = "StoreJournal";
+
+    // Record kinds
+    private static final int LAST_ACTION = 1;       // UTF-8 text
+    private static final int HISTORY = 2;           // History lines from before ClipHistory; skipped on replay
+    private static final int AVOIDED_TRANSFERS = 3; // int64 count
+    private static final int DELIVERY_RETRIES = 4;  // int64 count
+
+    private static StoreJournal instance;
+
+    private final Store store;
+    private final EventJournal journal;
+    private final CompositeDisposable disposables = new CompositeDisposable();
+
+    private StoreJournal(@NonNull File directory, @NonNull Store store) {
+        this.store = store;
+        this.journal = new EventJournal(directory, Constants.JOURNAL_SEGMENT_BYTES, Constants.JOURNAL_MAX_SEGMENTS,
+                this::snapshot, Schedulers.io(), Constants.JOURNAL_COMMIT_DELAY_MS, System::currentTimeMillis);
+        try {
+            replay(journal.replay());
+        } catch (IOException e) {
+            Log.e(TAG, "Could not replay the journal: " + e.getMessage());
+        }
+        store.journal.onNext(journal.stats());
+        Log.d(TAG, "Replayed " + journal.stats().replayedRecords() + " records in " + journal.stats().replayMs() + " ms.");
+        observeStore();
+    }
+
+    // Replays the journal into the Store on first use; later calls return the running instance.
+    public static synchronized StoreJournal getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new StoreJournal(new File(context.getFilesDir(), "journal"), Store.getInstance());
+        }
+        return instance;
+    }
+
+    private void replay(List<EventJournal.Entry> entries) {
+        for (EventJournal.Entry entry : entries) {
+            switch (entry.kind()) {
+                case LAST_ACTION:
+                    store.lastAction.onNext(text(entry));
+                    break;
+                case HISTORY:
+                    break; // Dropped with the next compaction
+                case AVOIDED_TRANSFERS:
+                    store.avoidedTransfers.onNext(ByteBuffer.wrap(entry.body()).getLong());
+                    break;
+                case DELIVERY_RETRIES:
+                    store.deliveryRetries.onNext(ByteBuffer.wrap(entry.body()).getLong());
+                    break;
+                default:
+                    break; // Written by a newer version
+            }
+        }
+    }
+
+    // The replayed values are skipped, so only changes from here on are written.
+    private void observeStore() {
+        disposables.add(store.lastAction.skip(1).subscribe(action -> append(LAST_ACTION, utf8(truncate(action)))));
+        disposables.add(store.avoidedTransfers.skip(1).subscribe(count -> append(AVOIDED_TRANSFERS, int64(count))));
+        disposables.add(store.deliveryRetries.skip(1).subscribe(count -> append(DELIVERY_RETRIES, int64(count))));
+    }
+
+    private void append(int kind, byte[] body) {
+        try {
+            journal.append(kind, body);
+        } catch (IOException e) {
+            Log.e(TAG, "Could not append to the journal: " + e.getMessage());
+        }
+        store.journal.onNext(journal.stats());
+    }
+
+    // Current state as records, written when the journal is compacted.
+    private List<EventJournal.Entry> snapshot() {
+        List<EventJournal.Entry> entries = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        entries.add(new EventJournal.Entry(LAST_ACTION, now, utf8(truncate(store.lastAction.getValue()))));
+        entries.add(new EventJournal.Entry(AVOIDED_TRANSFERS, now, int64(store.avoidedTransfers.getValue())));
+        entries.add(new EventJournal.Entry(DELIVERY_RETRIES, now, int64(store.deliveryRetries.getValue())));
+        return entries;
+    }
+
+    // Clips can be megabytes; records only keep the start.
+    private static String truncate(String text) {
+        return text.length() > Constants.JOURNAL_ACTION_CHARS ? text.substring(0, Constants.JOURNAL_ACTION_CHARS) + "..." : text;
+    }
+
+    private static String text(EventJournal.Entry entry) {
+        return new String(entry.body(), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] int64(long value) {
+        return ByteBuffer.allocate(8).putLong(value).array();
+    }
+}
@@ -0,0 +1,78 @@
+package com.bridger.metrics;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bridger.Store;
+import com.bridger.constants.Constants;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.disposables.CompositeDisposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * Publishes a {@link MetricsRegistry} snapshot to {@code Store.metrics} every METRICS_PUBLISH_INTERVAL_MS, and
+ * writes it in the Prometheus text format to METRICS_FILE every METRICS_DUMP_INTERVAL_MS, so the numbers of a
+ * device in the field can be pulled and compared between builds. Runs for the life of the process.
+ */
+public class MetricsReporter {
+
+    private static final String TAG = "MetricsReporter";
+    private static final String PREFIX = "bridger_";
+
+    private static MetricsReporter instance;
+
+    private final MetricsRegistry registry;
+    private final File file;
+    private final String version;
+    private final CompositeDisposable disposables = new CompositeDisposable();
+
+    private MetricsReporter(@NonNull Context context, @NonNull Store store, @NonNull MetricsRegistry registry) {
+        this.registry = registry;
+        this.file = new File(context.getFilesDir(), Constants.METRICS_FILE);
+        this.version = versionOf(context);
+        disposables.add(Observable.interval(0, Constants.METRICS_PUBLISH_INTERVAL_MS, TimeUnit.MILLISECONDS, Schedulers.computation())
+                .subscribe(tick -> store.metrics.onNext(registry.snapshot(System.currentTimeMillis()))));
+        disposables.add(Observable.interval(Constants.METRICS_DUMP_INTERVAL_MS, TimeUnit.MILLISECONDS, Schedulers.io())
+                .subscribe(tick -> dump()));
+    }
+
+    public static synchronized MetricsReporter getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new MetricsReporter(context.getApplicationContext(), Store.getInstance(), MetricsRegistry.getInstance());
+        }
+        return instance;
+    }
+
+    // Written beside the file and renamed over it, so a reader never sees half a dump.
+    private void dump() {
+        MetricsRegistry.Snapshot snapshot = registry.snapshot(System.currentTimeMillis());
+        String text = "# Bridger " + version + " at " + snapshot.takenAt() + "\n" + snapshot.exposition(PREFIX);
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.e(TAG, "Could not write metrics: " + e.getMessage());
+            return;
+        }
+        if (!temp.renameTo(file)) Log.e(TAG, "Could not rename " + temp + " to " + file);
+    }
+
+    @NonNull
+    private static String versionOf(@NonNull Context context) {
+        try {
+            return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).versionName;
+        } catch (PackageManager.NameNotFoundException e) {
+            return "unknown";
+        }
+    }
+}
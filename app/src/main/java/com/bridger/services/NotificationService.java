@@ -9,6 +9,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.os.Build;
 import android.os.IBinder;
+import android.os.SystemClock;
 import android.util.Log;
 import android.content.pm.ServiceInfo; // Import ServiceInfo
 
@@ -17,13 +18,19 @@ import androidx.core.app.NotificationCompat;
 
 import com.bridger.R;
 import com.bridger.Store;
+import com.bridger.history.ClipHistory;
+import com.bridger.journal.StoreJournal;
+import com.bridger.metrics.Counter;
+import com.bridger.metrics.LatencyHistogram;
+import com.bridger.metrics.MetricsRegistry;
+import com.bridger.metrics.MetricsReporter;
 import com.bridger.model.ConnectionState; // Correct import for ConnectionState
 
 import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
 import io.reactivex.rxjava3.disposables.CompositeDisposable;
-import io.reactivex.rxjava3.schedulers.Schedulers;
 import io.reactivex.rxjava3.core.Observable; // Import Observable
 import com.bridger.model.NotificationContent; // Import NotificationContent
+import com.bridger.schedulers.AppSchedulers;
 
 public class NotificationService extends Service {
 
@@ -38,12 +45,17 @@ public class NotificationService extends Service {
 
     private final CompositeDisposable disposables = new CompositeDisposable();
     private Store store;
+    private final Counter notificationUpdates = MetricsRegistry.getInstance().counter("notification_updates_total", "Times the persistent notification was rebuilt");
+    private final LatencyHistogram notificationUpdateTime = MetricsRegistry.getInstance().histogram("notification_update_us", "Time to build and post the notification");
 
     @Override
     public void onCreate() {
         super.onCreate();
         Log.d(TAG, "NotificationService onCreate: Service is being created.");
         store = Store.getInstance(); // Get the Store instance
+        StoreJournal.getInstance(getApplicationContext()); // After a restart by the OS, brings back what the Store held
+        ClipHistory.getInstance(getApplicationContext()); // Records clips while no screen is open
+        MetricsReporter.getInstance(getApplicationContext());
 
         createNotificationChannel(); // Channel creation remains in onCreate as it's idempotent
 
@@ -52,7 +64,7 @@ public class NotificationService extends Service {
                         store.connection,
                         store.lastAction,
                         NotificationContent::from) // Use the static from method
-                .subscribeOn(Schedulers.io())
+                .subscribeOn(AppSchedulers.getInstance().ui())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(this::updateNotification,
                         throwable -> Log.e(TAG, "Error observing notification content: " + throwable.getMessage())));
@@ -147,10 +159,13 @@ public class NotificationService extends Service {
     }
 
     private void updateNotification(NotificationContent content) {
+        long start = SystemClock.elapsedRealtimeNanos();
         Notification notification = buildNotification(content);
         NotificationManager manager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
         if (manager != null) {
             manager.notify(1, notification);
         }
+        notificationUpdates.increment();
+        notificationUpdateTime.record((SystemClock.elapsedRealtimeNanos() - start) / 1_000);
     }
 }
@@ -1,23 +1,49 @@
 package com.bridger.ui.connection;
 
+import android.text.format.DateUtils;
+import android.text.format.Formatter;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
-import androidx.recyclerview.widget.DiffUtil;
-import androidx.recyclerview.widget.ListAdapter;
+import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bridger.R;
+import com.bridger.history.HistoryEntry;
+import com.bridger.history.HistoryPager;
 
-import java.util.Objects;
+// Binds rows from a HistoryPager; a row whose page is still being read shows as a placeholder.
+public class ClipboardHistoryAdapter extends RecyclerView.Adapter<ClipboardHistoryAdapter.HistoryViewHolder>
+        implements HistoryPager.Listener {
 
-public class ClipboardHistoryAdapter extends ListAdapter<String, ClipboardHistoryAdapter.HistoryViewHolder> {
+    private final HistoryPager pager;
 
-    public ClipboardHistoryAdapter() {
-        super(DIFF_CALLBACK);
+    public ClipboardHistoryAdapter(@NonNull HistoryPager pager) {
+        this.pager = pager;
+        pager.setListener(this);
+    }
+
+    // Call when the number of clips in the history changed
+    public void refresh(int count) {
+        pager.refresh(count);
+    }
+
+    @Override
+    public void onRowsLoaded(int position, int count) {
+        notifyItemRangeChanged(position, count);
+    }
+
+    @Override
+    public void onSizeChanged(int size) {
+        notifyDataSetChanged(); // Rows at the top were added, the oldest may be gone, or the query changed; there is no cheaper diff
+    }
+
+    @Override
+    public int getItemCount() {
+        return pager.size();
     }
 
     @NonNull
@@ -30,32 +56,30 @@ public class ClipboardHistoryAdapter extends ListAdapter<String, ClipboardHistor
 
     @Override
     public void onBindViewHolder(@NonNull HistoryViewHolder holder, int position) {
-        String text = getItem(position);
-        holder.bind(text);
+        holder.bind(pager.get(position));
     }
 
     static class HistoryViewHolder extends RecyclerView.ViewHolder {
         private final TextView historyTextView;
+        private final TextView historyDetailsTextView;
 
         public HistoryViewHolder(@NonNull View itemView) {
             super(itemView);
             historyTextView = itemView.findViewById(R.id.historyTextView);
+            historyDetailsTextView = itemView.findViewById(R.id.historyDetailsTextView);
         }
 
-        public void bind(String text) {
-            historyTextView.setText(text);
+        public void bind(@Nullable HistoryEntry entry) {
+            if (entry == null) {
+                historyTextView.setText("\u2026");
+                historyDetailsTextView.setText("");
+                return;
+            }
+            String direction = entry.direction() == HistoryEntry.Direction.SENT ? "Sent" : "Received";
+            historyTextView.setText(direction + ": " + entry.preview());
+            String details = DateUtils.getRelativeTimeSpanString(entry.timestamp()) + " \u00b7 "
+                    + Formatter.formatShortFileSize(itemView.getContext(), entry.size());
+            historyDetailsTextView.setText(entry.isText() ? details : details + " \u00b7 " + entry.mimeType());
         }
     }
-
-    private static final DiffUtil.ItemCallback<String> DIFF_CALLBACK = new DiffUtil.ItemCallback<String>() {
-        @Override
-        public boolean areItemsTheSame(@NonNull String oldItem, @NonNull String newItem) {
-            return Objects.equals(oldItem, newItem);
-        }
-
-        @Override
-        public boolean areContentsTheSame(@NonNull String oldItem, @NonNull String newItem) {
-            return Objects.equals(oldItem, newItem);
-        }
-    };
 }
@@ -10,6 +10,9 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import android.content.Intent;
 import com.bridger.ui.scanner.DeviceListAdapter; // Import DeviceListAdapter for EXTRA_DEVICE_ADDRESS
 import android.util.Log; // Import Log
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.View;
 import com.bridger.NotificationChecker; // Import NotificationChecker
 import com.bridger.events.SystemEvent; // Import SystemEvent
 
@@ -43,7 +46,7 @@ public class ConnectionActivity extends AppCompatActivity {
             String deviceAddress = intent.getStringExtra(DeviceListAdapter.EXTRA_DEVICE_ADDRESS);
             if (deviceAddress != null) {
                 Log.d("ConnectionActivity", "Attempting to connect to device: " + deviceAddress);
-                store.clipboard.onNext(ClipboardEvent.createConnectEvent(deviceAddress));
+                store.clipboard.post(ClipboardEvent.createConnectEvent(deviceAddress));
             } else {
                 Log.e("ConnectionActivity", "Device address is null.");
                 store.lastAction.onNext("Error: Device address missing.");
@@ -58,7 +61,7 @@ public class ConnectionActivity extends AppCompatActivity {
     protected void onResume() {
         super.onResume();
         // Dispatch event to check notification presence
-        Store.getInstance().system.onNext(SystemEvent.CHECK_NOTIFICATION_PRESENCE);
+        Store.getInstance().system.post(SystemEvent.CHECK_NOTIFICATION_PRESENCE);
         Log.d("ConnectionActivity", "onResume: Dispatched CHECK_NOTIFICATION_PRESENCE system event.");
     }
 
@@ -72,13 +75,35 @@ public class ConnectionActivity extends AppCompatActivity {
     private void setupUI() {
         binding.shutdownSyncButton.setOnClickListener(v -> {
             // Dispatch a disconnect request to the Store
-            store.clipboard.onNext(ClipboardEvent.DISCONNECT_REQUESTED);
+            store.clipboard.post(ClipboardEvent.DISCONNECT_REQUESTED);
             Log.d("ConnectionActivity", "Disconnect requested via Store.");
         });
 
-        historyAdapter = new ClipboardHistoryAdapter();
+        binding.tracesButton.setOnClickListener(v -> binding.traceTimelineView.setVisibility(
+                binding.traceTimelineView.getVisibility() == View.VISIBLE ? View.GONE : View.VISIBLE));
+        binding.traceTimelineView.setOnClickListener(v -> viewModel.exportTraces());
+
+        binding.metricsButton.setOnClickListener(v -> binding.metricsTextView.setVisibility(
+                binding.metricsTextView.getVisibility() == View.VISIBLE ? View.GONE : View.VISIBLE));
+
+        historyAdapter = new ClipboardHistoryAdapter(viewModel.getHistoryPager());
         binding.clipboardHistoryRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        binding.clipboardHistoryRecyclerView.setHasFixedSize(true); // Its size comes from the layout, not the rows
         binding.clipboardHistoryRecyclerView.setAdapter(historyAdapter);
+        binding.historySearchEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence text, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence text, int start, int before, int count) {
+                viewModel.searchHistory(text.toString());
+            }
+
+            @Override
+            public void afterTextChanged(Editable text) {
+            }
+        });
     }
 
     private void observeViewModel() {
@@ -88,6 +113,9 @@ public class ConnectionActivity extends AppCompatActivity {
                 case CONNECTING:
                     statusText = "Connection Status: Connecting...";
                     break;
+                case RECONNECTING:
+                    statusText = "Connection Status: Reconnecting...";
+                    break;
                 case CONNECTED:
                     statusText = "Connection Status: Connected";
                     break;
@@ -119,10 +147,21 @@ public class ConnectionActivity extends AppCompatActivity {
             }
         });
 
-        viewModel.getClipboardHistory().observe(this, history -> {
-            historyAdapter.submitList(history);
-            if (!history.isEmpty()) {
-                binding.clipboardHistoryRecyclerView.scrollToPosition(0);
+        viewModel.getDeliveryStats().observe(this, stats -> {
+            binding.deliveryTextView.setText(stats);
+            binding.deliveryTextView.setVisibility(View.VISIBLE);
+        });
+
+        viewModel.getMetrics().observe(this, metrics -> binding.metricsTextView.setText(metrics));
+
+        viewModel.getClipTraces().observe(this, traces -> binding.traceTimelineView.setTraces(traces));
+
+        viewModel.getClipboardHistoryCount().observe(this, count -> {
+            LinearLayoutManager layout = (LinearLayoutManager) binding.clipboardHistoryRecyclerView.getLayoutManager();
+            boolean atTop = layout == null || layout.findFirstVisibleItemPosition() <= 0;
+            historyAdapter.refresh(count);
+            if (atTop) {
+                binding.clipboardHistoryRecyclerView.scrollToPosition(0); // Follow new clips, unless scrolled back through older ones
             }
         });
     }
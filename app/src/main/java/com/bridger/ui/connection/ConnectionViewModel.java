@@ -6,19 +6,34 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MutableLiveData;
 
+import com.bridger.ClipCache;
 import com.bridger.ClipboardUtility; // Use our new ClipboardUtility
 import com.bridger.Store; // Import the Store
+import com.bridger.constants.Constants;
 import com.bridger.events.ClipboardEvent;
+import com.bridger.metrics.MetricsRegistry;
+import com.bridger.history.ClipHistory;
+import com.bridger.history.HistoryPager;
+import com.bridger.history.HistoryQuery;
 import com.bridger.model.ConnectionState; // Import ConnectionState from model
+import com.bridger.schedulers.AppSchedulers;
+import com.bridger.trace.ChromeTrace;
+import com.bridger.trace.ClipTrace;
 
-import java.util.ArrayList;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.disposables.CompositeDisposable;
 import io.reactivex.rxjava3.schedulers.Schedulers;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+import io.reactivex.rxjava3.subjects.Subject;
 
 public class ConnectionViewModel extends AndroidViewModel {
 
@@ -26,17 +41,21 @@ public class ConnectionViewModel extends AndroidViewModel {
 
     private final Store store;
     private final ClipboardUtility clipboardUtility; // Use our new ClipboardUtility
+    private final ClipCache clipCache = ClipCache.getInstance();
+    private final AppSchedulers schedulers = AppSchedulers.getInstance();
     private final CompositeDisposable disposables = new CompositeDisposable();
-    private final MutableLiveData<List<String>> clipboardHistory = new MutableLiveData<>();
+    private final HistoryPager historyPager;
+    private final Subject<String> historySearch = PublishSubject.create();
 
     public ConnectionViewModel(@NonNull Application application) {
         super(application);
         this.store = Store.getInstance(); // Get Store instance
+        this.historyPager = new HistoryPager(ClipHistory.getInstance(application).store(), Constants.HISTORY_PAGE_SIZE,
+                Constants.HISTORY_MAX_PAGES, Schedulers.io(), AndroidSchedulers.mainThread());
         this.clipboardUtility = ClipboardUtility.getInstance(application.getApplicationContext()); // Get ClipboardUtility instance
-        clipboardHistory.setValue(new ArrayList<>());
         observeStoreState(); // Observe state from Store
         observeReceivedEvents(); // Observe RECEIVED events from Store
-        observeSentEvents(); // Observe SENT events from Store
+        observeHistorySearch();
     }
 
     // Expose LiveData from the Store's BehaviorSubjects
@@ -46,7 +65,7 @@ public class ConnectionViewModel extends AndroidViewModel {
             protected void onActive() {
                 super.onActive();
                 disposables.add(store.connection
-                        .subscribeOn(Schedulers.io())
+                        .subscribeOn(schedulers.ui())
                         .observeOn(AndroidSchedulers.mainThread())
                         .subscribe(this::setValue,
                                 throwable -> Log.e(TAG, "Error observing connection state from Store: " + throwable.getMessage())));
@@ -66,7 +85,7 @@ public class ConnectionViewModel extends AndroidViewModel {
             protected void onActive() {
                 super.onActive();
                 disposables.add(store.lastAction
-                        .subscribeOn(Schedulers.io())
+                        .subscribeOn(schedulers.ui())
                         .observeOn(AndroidSchedulers.mainThread())
                         .subscribe(this::setValue,
                                 throwable -> Log.e(TAG, "Error observing last action from Store: " + throwable.getMessage())));
@@ -79,8 +98,91 @@ public class ConnectionViewModel extends AndroidViewModel {
         };
     }
 
-    public LiveData<List<String>> getClipboardHistory() {
-        return clipboardHistory;
+    // Copy-to-applied latency percentiles and resends, shown once the first clip has been confirmed.
+    public LiveData<String> getDeliveryStats() {
+        return new LiveData<>() {
+            @Override
+            protected void onActive() {
+                super.onActive();
+                disposables.add(Observable.combineLatest(store.deliveryLatency, store.deliveryRetries,
+                                (latency, retries) -> "Delivery: p50 " + latency.percentile(50) + " ms, p95 " + latency.percentile(95)
+                                        + " ms, p99 " + latency.percentile(99) + " ms (" + latency.count() + " clips, " + retries + " retries)")
+                        .subscribeOn(schedulers.ui())
+                        .observeOn(AndroidSchedulers.mainThread())
+                        .subscribe(this::setValue,
+                                throwable -> Log.e(TAG, "Error observing delivery stats from Store: " + throwable.getMessage())));
+            }
+        };
+    }
+
+    // Rows are read through getHistoryPager(); this only says how many there are, after each batch is written
+    public LiveData<Integer> getClipboardHistoryCount() {
+        return new LiveData<>() {
+            @Override
+            protected void onActive() {
+                super.onActive();
+                disposables.add(store.historyCount
+                        .subscribeOn(schedulers.ui())
+                        .observeOn(AndroidSchedulers.mainThread())
+                        .subscribe(this::setValue,
+                                throwable -> Log.e(TAG, "Error observing history from Store: " + throwable.getMessage())));
+            }
+        };
+    }
+
+    // Lives as long as the screen, so pages read survive a rotation
+    public HistoryPager getHistoryPager() {
+        return historyPager;
+    }
+
+    // Text of the history search box, as typed; the list follows once typing pauses
+    public void searchHistory(@NonNull String text) {
+        historySearch.onNext(text);
+    }
+
+    // Field metrics as one line each, for the debug panel
+    public LiveData<String> getMetrics() {
+        return new LiveData<>() {
+            @Override
+            protected void onActive() {
+                super.onActive();
+                disposables.add(store.metrics
+                        .map(MetricsRegistry.Snapshot::toString)
+                        .subscribeOn(schedulers.ui())
+                        .observeOn(AndroidSchedulers.mainThread())
+                        .subscribe(this::setValue,
+                                throwable -> Log.e(TAG, "Error observing metrics from Store: " + throwable.getMessage())));
+            }
+        };
+    }
+
+    public LiveData<List<ClipTrace.Snapshot>> getClipTraces() {
+        return new LiveData<>() {
+            @Override
+            protected void onActive() {
+                super.onActive();
+                disposables.add(store.clipTraces
+                        .subscribeOn(schedulers.ui())
+                        .observeOn(AndroidSchedulers.mainThread())
+                        .subscribe(this::setValue,
+                                throwable -> Log.e(TAG, "Error observing clip traces from Store: " + throwable.getMessage())));
+            }
+        };
+    }
+
+    // Writes the traces as Chrome trace JSON where adb can pull them, for Perfetto or chrome://tracing.
+    public void exportTraces() {
+        disposables.add(Completable.fromAction(() -> {
+                    File directory = getApplication().getExternalFilesDir(null);
+                    File file = new File(directory != null ? directory : getApplication().getFilesDir(), Constants.TRACE_FILE);
+                    try (FileOutputStream out = new FileOutputStream(file)) {
+                        out.write(ChromeTrace.json(store.clipTraces.getValue()).getBytes(StandardCharsets.UTF_8));
+                    }
+                    store.lastAction.onNext("Traces exported to " + file.getPath());
+                })
+                .subscribeOn(Schedulers.io())
+                .subscribe(() -> Log.d(TAG, "Clip traces exported."),
+                        throwable -> Log.e(TAG, "Could not export clip traces: " + throwable.getMessage())));
     }
 
     private void observeStoreState() {
@@ -88,48 +190,41 @@ public class ConnectionViewModel extends AndroidViewModel {
         // This method can be used for other state observations if needed.
     }
 
-    private void observeReceivedEvents() {
-        disposables.add(store.clipboard
-                .filter(event -> event.getType() == ClipboardEvent.EventType.RECEIVED)
-                .subscribeOn(Schedulers.io())
+    private void observeHistorySearch() {
+        disposables.add(historySearch
+                .debounce(Constants.HISTORY_SEARCH_DEBOUNCE_MS, TimeUnit.MILLISECONDS, schedulers.ui())
+                .map(String::trim)
+                .distinctUntilChanged()
                 .observeOn(AndroidSchedulers.mainThread())
-                .subscribe(
-                        event -> {
-                            Log.d(TAG, "Received clipboard event from Store: " + event.getData());
-                            clipboardUtility.writeToClipboard(event.getData()); // Write to system clipboard
-                            addTextToHistory("Received: " + event.getData());
-                        },
-                        throwable -> Log.e(TAG, "Error observing RECEIVED clipboard events from Store: " + throwable.getMessage())
-                ));
+                .subscribe(text -> historyPager.setQuery(HistoryQuery.parse(text)),
+                        throwable -> Log.e(TAG, "Error observing history search: " + throwable.getMessage())));
     }
 
-    private void observeSentEvents() {
-        disposables.add(store.clipboard
-                .filter(event -> event.getType() == ClipboardEvent.EventType.SENT)
-                .subscribeOn(Schedulers.io())
+    private void observeReceivedEvents() {
+        disposables.add(store.clipboard.on(ClipboardEvent.EventType.RECEIVED)
+                .subscribeOn(schedulers.ui())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(
                         event -> {
-                            Log.d(TAG, "Sent clipboard event acknowledged by Store: " + event.getData());
-                            addTextToHistory("Sent: " + event.getData());
+                            Log.d(TAG, "Received clipboard event from Store: " + event.data());
+                            if (!event.isText()) {
+                                // Binary clips arrive as a cache file, shared with other apps through the FileProvider
+                                File file = new File(event.data());
+                                clipboardUtility.writeFileToClipboard(file, event.mimeType());
+                                return;
+                            }
+                            clipboardUtility.writeToClipboard(event.data()); // Write to system clipboard
+                            clipCache.record(ClipCache.hash(event.data()), ClipCache.Origin.RECEIVED); // So tapping sync won't bounce it back
                         },
-                        throwable -> Log.e(TAG, "Error observing SENT clipboard events from Store: " + throwable.getMessage())
+                        throwable -> Log.e(TAG, "Error observing RECEIVED clipboard events from Store: " + throwable.getMessage())
                 ));
     }
 
-    private void addTextToHistory(String text) {
-        List<String> currentHistory = clipboardHistory.getValue();
-        if (currentHistory == null) {
-            currentHistory = new ArrayList<>();
-        }
-        currentHistory.add(0, text);
-        clipboardHistory.postValue(currentHistory);
-    }
-
     @Override
     protected void onCleared() {
         super.onCleared();
         disposables.clear();
+        historyPager.dispose();
         // ClipboardUtility no longer has RxJava subscriptions to dispose of
     }
 }
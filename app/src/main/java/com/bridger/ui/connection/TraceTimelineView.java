@@ -0,0 +1,101 @@
+package com.bridger.ui.connection;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bridger.trace.ClipTrace;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Draws the last clip traces as a timeline, one row per clip: a bar split into the stages it went through,
+ * all on the scale of the slowest clip shown. A legend above names the stage colors.
+ */
+public class TraceTimelineView extends View {
+
+    // One color per stage span, by ordinal; TAP starts the first span and has none
+    private static final int[] COLORS = {0, 0xFF7E57C2, 0xFFBDBDBD, 0xFF26A69A, 0xFF8D6E63, 0xFFFFA726, 0xFF42A5F5, 0xFF1565C0, 0xFF66BB6A};
+
+    private final float density = getResources().getDisplayMetrics().density;
+    private final float rowHeight = 22 * density;
+    private final float labelWidth = 120 * density;
+    private final Paint text = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint bar = new Paint();
+    private List<ClipTrace.Snapshot> traces = Collections.emptyList();
+
+    public TraceTimelineView(@NonNull Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        text.setTextSize(10 * getResources().getDisplayMetrics().scaledDensity);
+        text.setColor(Color.DKGRAY);
+    }
+
+    public void setTraces(@NonNull List<ClipTrace.Snapshot> traces) {
+        this.traces = traces;
+        requestLayout();
+        invalidate();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int legendRows = (ClipTrace.Stage.values().length + 2) / 3;
+        int height = (int) Math.ceil((legendRows + Math.max(1, traces.size())) * rowHeight);
+        setMeasuredDimension(getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        float y = drawLegend(canvas);
+        if (traces.isEmpty()) {
+            canvas.drawText("No clips traced yet. Tap to export.", 0, y + baseline(), text);
+            return;
+        }
+        long slowest = 1;
+        for (ClipTrace.Snapshot trace : traces) slowest = Math.max(slowest, trace.totalNanos());
+        float barWidth = getWidth() - labelWidth;
+        for (ClipTrace.Snapshot trace : traces) {
+            String label = String.format(Locale.US, "#%d %d ms %s", trace.id(), trace.totalNanos() / 1_000_000,
+                    trace.outcome() != null ? trace.outcome() : "...");
+            canvas.drawText(label, 0, y + baseline(), text);
+            long previous = trace.startNanos();
+            for (ClipTrace.Stage stage : ClipTrace.Stage.values()) {
+                if (!trace.reached(stage) || stage.span == null) continue;
+                long at = trace.stageNanos()[stage.ordinal()];
+                float left = labelWidth + barWidth * (previous - trace.startNanos()) / slowest;
+                float right = labelWidth + barWidth * (at - trace.startNanos()) / slowest;
+                bar.setColor(COLORS[stage.ordinal()]);
+                canvas.drawRect(left, y + rowHeight * 0.2f, Math.max(right, left + 1), y + rowHeight * 0.8f, bar);
+                previous = Math.max(previous, at);
+            }
+            y += rowHeight;
+        }
+    }
+
+    // Three stages per row; returns where the timeline starts.
+    private float drawLegend(Canvas canvas) {
+        float y = 0;
+        float column = getWidth() / 3f;
+        int index = 0;
+        for (ClipTrace.Stage stage : ClipTrace.Stage.values()) {
+            if (stage.span == null) continue;
+            float x = column * (index % 3);
+            bar.setColor(COLORS[stage.ordinal()]);
+            canvas.drawRect(x, y + rowHeight * 0.3f, x + rowHeight * 0.4f, y + rowHeight * 0.7f, bar);
+            canvas.drawText(stage.span, x + rowHeight * 0.6f, y + baseline(), text);
+            if (++index % 3 == 0) y += rowHeight;
+        }
+        return index % 3 == 0 ? y : y + rowHeight;
+    }
+
+    private float baseline() {
+        return (rowHeight - text.ascent() - text.descent()) / 2;
+    }
+}
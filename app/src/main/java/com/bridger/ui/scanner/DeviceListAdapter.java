@@ -7,6 +7,7 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 
+import com.bridger.scan.DeviceScanResult;
 import com.bridger.ui.connection.ConnectionActivity; // Import ConnectionActivity
 
 public class DeviceListAdapter extends ListAdapter<DeviceScanResult, DeviceListViewHolder> {
@@ -8,6 +8,7 @@ import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.RecyclerView;
 import com.bridger.R; // Import R for colors
 import com.bridger.databinding.ListItemDeviceDetailedBinding;
+import com.bridger.scan.DeviceScanResult;
 
 public class DeviceListViewHolder extends RecyclerView.ViewHolder {
 
@@ -1,6 +1,7 @@
 package com.bridger.ui.scanner;
 
 import android.app.Application;
+import android.os.ParcelUuid;
 import android.util.Log;
 import android.widget.Toast;
 
@@ -8,11 +9,12 @@ import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 
 import com.bridger.BleScannerManager;
-import java.util.ArrayList;
+import com.bridger.constants.Constants;
+import com.bridger.scan.DeviceScanResult;
+import com.bridger.scan.ScannerAction;
+import com.bridger.scan.ScannerReducer;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
@@ -54,8 +56,8 @@ public class ScannerViewModel extends AndroidViewModel {
         // Use scan to manage the list state based on the action stream
         disposables.add(
                 actionsStream
-                        .scan(Collections.<String, DeviceScanResult>emptyMap(), this::onScan) // Accumulate a Map
-                        .map(this::mapToListAndSort) // Convert Map to List and sort
+                        .scan(Collections.<String, DeviceScanResult>emptyMap(), ScannerReducer::reduce) // Accumulate a Map
+                        .map(ScannerReducer::sorted) // Convert Map to List and sort
                         .observeOn(AndroidSchedulers.mainThread()) // Update UI on the main thread
                         .doOnSubscribe(disposable -> devicesSubject.onNext(Collections.emptyList())) // Clear list on subscribe
                         .subscribe(
@@ -79,12 +81,12 @@ public class ScannerViewModel extends AndroidViewModel {
                     // Stream for updates (with throttling)
                     Observable<ScannerAction> upsertActions = sharedGroup
                             .throttleFirst(DEVICE_UPDATE_THROTTLE_MS, TimeUnit.MILLISECONDS, Schedulers.computation()) // Emit no more often than every half-second
-                            .map(DeviceUpsertAction::new);
+                            .map(scanResult -> ScannerReducer.upsert(toDevice(scanResult)));
 
                     // Stream for removal (with a long delay)
                     Observable<ScannerAction> removeActions = sharedGroup
                             .debounce(DEVICE_REMOVE_TIMEOUT, TimeUnit.SECONDS, Schedulers.computation()) // Fires if device is silent for DEVICE_REMOVE_TIMEOUT seconds
-                            .map(scanResult -> new DeviceRemoveAction(scanResult.getDevice().getAddress()));
+                            .map(scanResult -> ScannerReducer.remove(scanResult.getDevice().getAddress()));
 
                     // Merge them into a single action stream for this group
                     return Observable.merge(upsertActions, removeActions)
@@ -92,29 +94,22 @@ public class ScannerViewModel extends AndroidViewModel {
                 }));
     }
 
-    /**
-     * Reducer for the scan operator. Updates the Map of devices based on the received action.
-     */
-    private Map<String, DeviceScanResult> onScan(Map<String, DeviceScanResult> currentMap, ScannerAction action) {
-        Map<String, DeviceScanResult> newMap = new HashMap<>(currentMap); // Create a mutable copy of the Map
-
-        if (action instanceof DeviceUpsertAction upsertAction) {
-            DeviceScanResult newDevice = new DeviceScanResult(upsertAction.getScanResult());
-            newMap.put(newDevice.getAddress(), newDevice); // Add or update device in Map
-        } else if (action instanceof DeviceRemoveAction removeAction) {
-            newMap.remove(removeAction.getDeviceAddress()); // Remove device from Map
-        }
-        return Collections.unmodifiableMap(newMap); // Return an unmodifiable Map
+    private static DeviceScanResult toDevice(ScanResult scanResult) {
+        String name = scanResult.getScanRecord() != null ? scanResult.getScanRecord().getDeviceName() : "Unknown Device";
+        return new DeviceScanResult(name, scanResult.getDevice().getAddress(), scanResult.getRssi(), System.currentTimeMillis(),
+                isBridger(scanResult));
     }
 
-    /**
-     * Converts a Map of devices to a sorted List.
-     */
-    private List<DeviceScanResult> mapToListAndSort(Map<String, DeviceScanResult> deviceMap) {
-        List<DeviceScanResult> newList = new ArrayList<>(deviceMap.values());
-        // Sort the list by RSSI in descending order (strongest signal at the top)
-        newList.sort((d1, d2) -> Integer.compare(d2.getRssi(), d1.getRssi()));
-        return Collections.unmodifiableList(newList);
+    // Helper method to check if the scan result contains the Bridger service UUID
+    private static boolean isBridger(ScanResult scanResult) {
+        if (scanResult.getScanRecord() == null) {
+            return false;
+        }
+        List<ParcelUuid> serviceUuids = scanResult.getScanRecord().getServiceUuids();
+        if (serviceUuids == null) {
+            return false;
+        }
+        return serviceUuids.contains(new ParcelUuid(Constants.BRIDGER_SERVICE_UUID));
     }
 
     private void onScanFailed(Throwable error) {
@@ -0,0 +1,89 @@
+package com.bridger.benchmarks;
+
+import com.bridger.constants.Constants;
+import com.bridger.protocol.Codec;
+import com.bridger.protocol.Frame;
+import com.bridger.protocol.MessageFramer;
+import com.bridger.protocol.PayloadEncoder;
+import com.bridger.protocol.Utf8Decoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of getting a text clip of 1 KB to 1 MB onto the wire, stage by stage: UTF-8 encoding, compression,
+ * chunking into frames at the maximum MTU, and decoding the text again on the receiving side.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ClipEncodeBenchmark {
+
+    private static final int FRAME_SIZE = 514; // MTU 517 - 3
+    private static final String[] WORDS = {"the", "clipboard", "sync", "between", "phone", "and", "Mac", "caf\u00E9",
+            "na\u00EFve", "\u20AC", "over", "Bluetooth", "Low", "Energy", "with", "frames", "credits"};
+
+    @Param({"1024", "16384", "131072", "1048576"})
+    public int clipBytes;
+
+    private String text;
+    private byte[] utf8;
+    private byte[] encoded;
+    private final PayloadEncoder encoder = new PayloadEncoder(Constants.COMPRESSION_THRESHOLD_BYTES, Constants.DELTA_THRESHOLD_BYTES);
+    private Utf8Decoder decoder;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42); // Same clip every run
+        StringBuilder builder = new StringBuilder(clipBytes);
+        int bytes = 0;
+        while (true) {
+            String word = WORDS[random.nextInt(WORDS.length)] + (random.nextInt(12) == 0 ? '\n' : ' ');
+            int wordBytes = word.getBytes(StandardCharsets.UTF_8).length;
+            if (bytes + wordBytes > clipBytes) break;
+            builder.append(word);
+            bytes += wordBytes;
+        }
+        text = builder.toString();
+        utf8 = text.getBytes(StandardCharsets.UTF_8);
+        encoded = encoder.encode(utf8, null, Codec.DEFLATE).payload();
+        decoder = new Utf8Decoder(Constants.MAX_RETAINED_TEXT_CHARS);
+    }
+
+    @Benchmark
+    public byte[] utf8Encode() {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public PayloadEncoder.Encoded compress() {
+        return encoder.encode(utf8, null, Codec.DEFLATE);
+    }
+
+    @Benchmark
+    public void chunk(Blackhole blackhole) {
+        MessageFramer framer = new MessageFramer(Frame.Type.TEXT, Codec.DEFLATE.frameFlag(), 1, encoded, FRAME_SIZE);
+        while (framer.hasNext()) blackhole.consume(framer.next());
+    }
+
+    @Benchmark
+    public void encodeAndChunk(Blackhole blackhole) {
+        PayloadEncoder.Encoded payload = encoder.encode(text.getBytes(StandardCharsets.UTF_8), null, Codec.DEFLATE);
+        MessageFramer framer = new MessageFramer(Frame.Type.TEXT, payload.flags(), 1, payload.payload(), FRAME_SIZE);
+        while (framer.hasNext()) blackhole.consume(framer.next());
+    }
+
+    @Benchmark
+    public String utf8Decode() {
+        return decoder.decode(ByteBuffer.wrap(utf8));
+    }
+}
@@ -0,0 +1,66 @@
+package com.bridger.benchmarks;
+
+import com.bridger.Store;
+import com.bridger.events.ClipboardEvent;
+import com.bridger.events.EventBus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.disposables.CompositeDisposable;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+
+/**
+ * Cost of posting one clipboard event to the app's five subscribers, through the Store's EventBus and
+ * through the single filtered PublishSubject it replaced.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventDispatchBenchmark {
+
+    // The subscribers of Store.clipboard: three in BleConnectionManager, two in ConnectionViewModel
+    private static final ClipboardEvent.EventType[] SUBSCRIBED = {
+            ClipboardEvent.EventType.SEND_REQUESTED, ClipboardEvent.EventType.CONNECT_REQUESTED,
+            ClipboardEvent.EventType.DISCONNECT_REQUESTED, ClipboardEvent.EventType.RECEIVED, ClipboardEvent.EventType.SENT};
+
+    private final ClipboardEvent[] events = new ClipboardEvent[1024];
+    private final CompositeDisposable disposables = new CompositeDisposable();
+    private EventBus<ClipboardEvent.EventType, ClipboardEvent> bus;
+    private PublishSubject<ClipboardEvent> subject;
+    private int next;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        for (int i = 0; i < events.length; i++) {
+            events[i] = i % 2 == 0 ? ClipboardEvent.createSentEvent("clip " + i) : ClipboardEvent.createReceiveEvent("clip " + i);
+        }
+        bus = Store.getInstance().clipboard;
+        subject = PublishSubject.create();
+        for (ClipboardEvent.EventType type : SUBSCRIBED) {
+            disposables.add(bus.on(type).subscribe(blackhole::consume));
+            disposables.add(subject.filter(event -> event.type() == type).subscribe(blackhole::consume));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        disposables.dispose();
+    }
+
+    @Benchmark
+    public void eventBus() {
+        bus.post(events[next++ & (events.length - 1)]);
+    }
+
+    @Benchmark
+    public void filteredSubject() {
+        subject.onNext(events[next++ & (events.length - 1)]);
+    }
+}
@@ -0,0 +1,86 @@
+package com.bridger.benchmarks;
+
+import com.bridger.protocol.BufferPool;
+import com.bridger.protocol.Frame;
+import com.bridger.protocol.FrameReassembler;
+import com.bridger.protocol.MessageFramer;
+import com.bridger.protocol.Utf8Decoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Receiving a 1 MB text clip at the maximum MTU, from packets to String: decoding every packet into a Frame and
+ * the clip with new String, against raw packets into pooled buffers and the streaming decoder. Also frames and
+ * reassembles the clip without decoding it. Bytes allocated per clip are gc.alloc.rate.norm from the gc profiler.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReceivePathBenchmark {
+
+    private static final int CLIP_BYTES = 1024 * 1024;
+    private static final int FRAME_SIZE = 514; // MTU 517 - 3
+
+    private byte[] clip;
+    private List<byte[]> packets;
+    private FrameReassembler framed;
+    private FrameReassembler pooled;
+    private Utf8Decoder decoder;
+    private int messageId;
+
+    @Setup
+    public void setUp() {
+        // Mostly ASCII with some multi-byte characters, so chunk boundaries split a few of them
+        String line = "The quick brown fox jumps over the lazy dog, na\u00EFve caf\u00E9 \u20AC ";
+        int lineBytes = line.getBytes(StandardCharsets.UTF_8).length;
+        StringBuilder builder = new StringBuilder();
+        for (int bytes = 0; bytes + lineBytes <= CLIP_BYTES; bytes += lineBytes) builder.append(line);
+        clip = builder.toString().getBytes(StandardCharsets.UTF_8);
+        packets = frame(clip, 1);
+
+        framed = new FrameReassembler(5_000, 16 * 1024 * 1024, System::currentTimeMillis);
+        pooled = new FrameReassembler(5_000, 16 * 1024 * 1024, System::currentTimeMillis, new BufferPool(CLIP_BYTES, 1));
+        decoder = new Utf8Decoder(CLIP_BYTES);
+    }
+
+    @Benchmark
+    public String framePerPacket() {
+        FrameReassembler.Message message = null;
+        for (byte[] packet : packets) message = framed.accept(Frame.decode(packet));
+        return new String(message.bytes(), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String pooledStreaming() {
+        FrameReassembler.Message message = null;
+        for (byte[] packet : packets) message = pooled.accept(packet);
+        String text = decoder.decode(message.payload().duplicate());
+        pooled.release(message);
+        return text;
+    }
+
+    // Framing on the sending side plus reassembly, with a new message id each time
+    @Benchmark
+    public int frameAndReassemble() {
+        FrameReassembler.Message message = null;
+        for (byte[] packet : frame(clip, ++messageId & 0xFFFF)) message = pooled.accept(packet);
+        int length = message.length();
+        pooled.release(message);
+        return length;
+    }
+
+    private static List<byte[]> frame(byte[] clip, int messageId) {
+        MessageFramer framer = new MessageFramer(Frame.Type.TEXT, 0, messageId, clip, FRAME_SIZE);
+        List<byte[]> packets = new ArrayList<>(framer.frameCount());
+        while (framer.hasNext()) packets.add(framer.next());
+        return packets;
+    }
+}
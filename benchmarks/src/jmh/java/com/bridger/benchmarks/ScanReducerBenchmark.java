@@ -0,0 +1,63 @@
+package com.bridger.benchmarks;
+
+import com.bridger.scan.DeviceScanResult;
+import com.bridger.scan.ScannerAction;
+import com.bridger.scan.ScannerReducer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one scan update on the scanner screen with 10, 100 and 1000 devices in range: the reducer applying
+ * a throttled RSSI update, and the reducer plus the sort the list is rebuilt with on every update.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScanReducerBenchmark {
+
+    private static final int ACTIONS = 4096;
+
+    @Param({"10", "100", "1000"})
+    public int devices;
+
+    private Map<String, DeviceScanResult> state;
+    private final ScannerAction[] actions = new ScannerAction[ACTIONS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42); // Same devices and updates every run
+        state = Collections.emptyMap();
+        for (int i = 0; i < devices; i++) {
+            state = ScannerReducer.reduce(state, ScannerReducer.upsert(device(i, random)));
+        }
+        for (int i = 0; i < ACTIONS; i++) {
+            actions[i] = ScannerReducer.upsert(device(random.nextInt(devices), random));
+        }
+    }
+
+    @Benchmark
+    public Map<String, DeviceScanResult> reduce() {
+        return ScannerReducer.reduce(state, actions[next++ & (ACTIONS - 1)]);
+    }
+
+    @Benchmark
+    public List<DeviceScanResult> reduceAndSort() {
+        return ScannerReducer.sorted(ScannerReducer.reduce(state, actions[next++ & (ACTIONS - 1)]));
+    }
+
+    private static DeviceScanResult device(int index, Random random) {
+        String address = String.format("C0:FF:EE:%02X:%02X:%02X", (index >> 16) & 0xFF, (index >> 8) & 0xFF, index & 0xFF);
+        return new DeviceScanResult("Device " + index, address, -30 - random.nextInt(70), 0, index % 10 == 0);
+    }
+}
@@ -0,0 +1,70 @@
+package com.bridger.benchmarks;
+
+import com.bridger.metrics.MetricsRegistry;
+import com.bridger.schedulers.NamedScheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * Per clip, the hops a send takes through the app's schedulers: the SEND_REQUESTED hand-off, then one hop per
+ * written chunk, each scheduled from the previous one like the engine's write callbacks and timers. Runs the
+ * chain on {@code Schedulers.io()} and on a single-threaded {@link NamedScheduler}. Thread changes and context
+ * switches per clip are best read with {@code -prof perfnorm} on Linux.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SchedulerDispatchBenchmark {
+
+    private static final int HOPS_PER_CLIP = 8;
+
+    @Param({"io", "named"})
+    public String scheduler;
+
+    private NamedScheduler named;
+    private Scheduler target;
+
+    @Setup
+    public void setUp() {
+        if (scheduler.equals("named")) {
+            named = new NamedScheduler("benchmark_ble", 1, MetricsRegistry.getInstance(), System::nanoTime);
+            target = named.scheduler();
+        } else {
+            target = Schedulers.io();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (named != null) named.shutdown();
+    }
+
+    // Clips go one after another, as the outbound queue sends them
+    @Benchmark
+    public void clip() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        hop(HOPS_PER_CLIP, done);
+        if (!done.await(5, TimeUnit.SECONDS)) throw new IllegalStateException("Clip did not complete.");
+    }
+
+    private void hop(int remaining, CountDownLatch done) {
+        target.scheduleDirect(() -> {
+            if (remaining == 1) {
+                done.countDown();
+            } else {
+                hop(remaining - 1, done);
+            }
+        });
+    }
+}
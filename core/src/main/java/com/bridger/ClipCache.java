@@ -0,0 +1,94 @@
+package com.bridger;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of recently synced clip hashes, used to keep redundant transfers off the radio.
+ * Both clipboards hold exactly one clip, so a clip is redundant when it is the one most recently
+ * synced in either direction: a repeated tap re-sending it, or the Mac bouncing back what we just sent.
+ */
+public class ClipCache {
+
+    private static final int CAPACITY = 64;
+    private static volatile ClipCache instance;
+
+    public enum Origin {
+        SENT,
+        RECEIVED
+    }
+
+    private final Map<String, Origin> recent = new LinkedHashMap<>(CAPACITY, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Origin> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+    @Nullable private String current; // Hash of the clip both sides hold right now
+    private long avoided;
+
+    private ClipCache() {}
+
+    public static ClipCache getInstance() {
+        if (instance == null) {
+            synchronized (ClipCache.class) {
+                if (instance == null) {
+                    instance = new ClipCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @return Hex SHA-1 of the clip's UTF-8 bytes.
+     */
+    @NonNull
+    public static String hash(@NonNull String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available.", e);
+        }
+    }
+
+    // True if the clip is the one most recently synced, so transferring it again changes nothing.
+    public synchronized boolean isCurrent(@NonNull String hash) {
+        return hash.equals(current);
+    }
+
+    public synchronized void record(@NonNull String hash, @NonNull Origin origin) {
+        recent.put(hash, origin);
+        current = hash;
+    }
+
+    // Called when a recorded send did not reach the Mac, so it no longer holds that clip.
+    public synchronized void invalidate(@NonNull String hash) {
+        if (hash.equals(current)) current = null;
+    }
+
+    @Nullable
+    public synchronized Origin originOf(@NonNull String hash) {
+        return recent.get(hash);
+    }
+
+    /**
+     * Counts one transfer that was skipped because of this cache.
+     *
+     * @return The total number of transfers avoided so far.
+     */
+    public synchronized long markAvoided() {
+        return ++avoided;
+    }
+}
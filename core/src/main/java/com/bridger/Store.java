@@ -0,0 +1,82 @@
+package com.bridger;
+
+import com.bridger.constants.Constants;
+import com.bridger.events.ClipboardEvent;
+import com.bridger.events.EventBus;
+import com.bridger.events.SystemEvent;
+import com.bridger.journal.EventJournal;
+import com.bridger.metrics.Histogram;
+import com.bridger.metrics.MetricsRegistry;
+import com.bridger.model.ConnectTiming;
+import com.bridger.model.ConnectionState;
+import com.bridger.model.LinkMode;
+import com.bridger.model.LinkTransition;
+import com.bridger.model.PeerState;
+import com.bridger.model.TransferStats;
+import com.bridger.trace.ClipTrace;
+import com.bridger.transfer.LaneScheduler;
+import com.bridger.transfer.OutboundQueue;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import io.reactivex.rxjava3.core.BackpressureStrategy;
+import io.reactivex.rxjava3.subjects.BehaviorSubject;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+
+public class Store {
+
+    private static volatile Store instance;
+
+    // State subjects
+    public final BehaviorSubject<ConnectionState> connection = BehaviorSubject.createDefault(ConnectionState.DISCONNECTED); // Best state across all peers
+    public final BehaviorSubject<Map<String, PeerState>> peers = BehaviorSubject.createDefault(Collections.emptyMap()); // Every open session, by device address
+    public final BehaviorSubject<String> lastAction = BehaviorSubject.createDefault("No action yet.");
+    public final BehaviorSubject<Integer> mtu = BehaviorSubject.createDefault(Constants.DEFAULT_ATT_MTU); // Smallest effective ATT MTU of the connected peers
+    public final BehaviorSubject<TransferStats> lastTransfer = BehaviorSubject.create(); // Throughput of the most recent outgoing transfer
+    public final BehaviorSubject<OutboundQueue.Stats> outboundQueue = BehaviorSubject.createDefault(new OutboundQueue.Stats(0, 0, 0)); // Depth and drop counts of the send queue
+    public final BehaviorSubject<List<LaneScheduler.LaneStats>> laneStats = BehaviorSubject.create(); // Write lane depth and queue wait, of the peer that last finished a transfer
+    public final BehaviorSubject<ConnectTiming> lastConnect = BehaviorSubject.create(); // Phase timings of the most recent connection
+    public final BehaviorSubject<Integer> reconnectAttempt = BehaviorSubject.createDefault(0); // Current reconnect attempt, 0 when not reconnecting
+    public final BehaviorSubject<Histogram.Snapshot> reconnectTimes = BehaviorSubject.create(); // Time from a dropped link to the next ready one, in ms
+    public final BehaviorSubject<LinkMode> linkMode = BehaviorSubject.createDefault(LinkMode.BALANCED); // Fastest connection parameters requested on any connected peer
+    public final PublishSubject<LinkTransition> linkTransitions = PublishSubject.create(); // Every change of linkMode, with its reason
+    public final BehaviorSubject<Histogram.Snapshot> deliveryLatency = BehaviorSubject.create(); // Copy to applied on the Mac, in ms, per confirmed clip
+    public final BehaviorSubject<Long> deliveryRetries = BehaviorSubject.createDefault(0L); // Clips resent because the Mac did not confirm them in time
+    public final BehaviorSubject<Long> avoidedTransfers = BehaviorSubject.createDefault(0L); // Duplicates and echoes dropped by ClipCache
+    public final BehaviorSubject<Integer> historyCount = BehaviorSubject.createDefault(0); // Clips in the history database, updated after each batch is written
+    public final BehaviorSubject<EventJournal.Stats> journal = BehaviorSubject.create(); // Size of the journal and how long its replay took
+    public final BehaviorSubject<List<ClipTrace.Snapshot>> clipTraces = BehaviorSubject.createDefault(Collections.emptyList()); // Last TRACE_HISTORY outgoing clips, newest first, updated as each ends
+    public final BehaviorSubject<MetricsRegistry.Snapshot> metrics = BehaviorSubject.create(); // Every field metric, refreshed every METRICS_PUBLISH_INTERVAL_MS
+
+    // Event buses, one channel per event type, each with its own overflow strategy. A repeated connect, disconnect
+    // or notification check only needs its latest request. Send requests, and the SENT and RECEIVED clips that
+    // history and the UI read behind observeOn, are buffered, dropping the oldest past EVENT_BUFFER_SIZE, so a
+    // burst never fails a subscriber. No type is serialized: requests are posted from the main thread, SENT and
+    // RECEIVED only from the BLE thread.
+    public final EventBus<ClipboardEvent.EventType, ClipboardEvent> clipboard = new EventBus<>(ClipboardEvent.EventType.class,
+            Map.of(ClipboardEvent.EventType.SEND_REQUESTED, BackpressureStrategy.BUFFER,
+                    ClipboardEvent.EventType.SENT, BackpressureStrategy.BUFFER,
+                    ClipboardEvent.EventType.RECEIVED, BackpressureStrategy.BUFFER,
+                    ClipboardEvent.EventType.CONNECT_REQUESTED, BackpressureStrategy.LATEST,
+                    ClipboardEvent.EventType.DISCONNECT_REQUESTED, BackpressureStrategy.LATEST),
+            EnumSet.noneOf(ClipboardEvent.EventType.class), Constants.EVENT_BUFFER_SIZE);
+    public final EventBus<SystemEvent.EventType, SystemEvent> system = new EventBus<>(SystemEvent.EventType.class,
+            Map.of(SystemEvent.EventType.CHECK_NOTIFICATION_PRESENCE, BackpressureStrategy.LATEST),
+            EnumSet.noneOf(SystemEvent.EventType.class), Constants.EVENT_BUFFER_SIZE);
+
+    private Store() {}
+
+    public static Store getInstance() {
+        if (instance == null) {
+            synchronized (Store.class) {
+                if (instance == null) {
+                    instance = new Store();
+                }
+            }
+        }
+        return instance;
+    }
+}
@@ -0,0 +1,54 @@
+package com.bridger.connection;
+
+import androidx.annotation.NonNull;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Delays between reconnect attempts.
+ * A link lost to range or interference usually comes back at once, so the first attempts after a link loss
+ * are immediate. Every other attempt waits an exponentially growing delay, capped at {@code maxDelayMs},
+ * of which a random half is jitter so several phones do not retry in lockstep.
+ */
+public class ReconnectPolicy {
+
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final int immediateRetries;
+    private final int maxAttempts;
+    private final DoubleSupplier random;
+
+    /**
+     * @param immediateRetries Attempts made without delay after a link loss.
+     * @param maxAttempts      Attempts before giving up.
+     * @param random           Source of values in [0, 1) for the jitter.
+     */
+    public ReconnectPolicy(long baseDelayMs, long maxDelayMs, int immediateRetries, int maxAttempts, @NonNull DoubleSupplier random) {
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.immediateRetries = immediateRetries;
+        this.maxAttempts = maxAttempts;
+        this.random = random;
+    }
+
+    /**
+     * @param attempt  Zero-based number of the attempt to schedule.
+     * @param linkLoss Whether the link was lost rather than closed by the peer or never opened.
+     * @return Delay before the attempt in milliseconds, or -1 to give up.
+     */
+    public long delayMs(int attempt, boolean linkLoss) {
+        if (attempt >= maxAttempts) return -1;
+        int backoffStep = attempt;
+        if (linkLoss) {
+            if (attempt < immediateRetries) return 0;
+            backoffStep -= immediateRetries;
+        }
+        long ceiling = Math.min(maxDelayMs, baseDelayMs << Math.min(backoffStep, 30));
+        long half = ceiling / 2;
+        return half + (long) (random.getAsDouble() * (ceiling - half));
+    }
+
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+}
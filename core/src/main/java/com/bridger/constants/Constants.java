@@ -0,0 +1,95 @@
+package com.bridger.constants;
+
+import java.util.UUID;
+
+public class Constants {
+
+    // Service UUID
+    public static final UUID BRIDGER_SERVICE_UUID = UUID.fromString("81a936be-a052-4ef1-9c3c-073c0b63438d");
+
+    // Characteristic UUIDs
+    public static final UUID ANDROID_TO_MAC_CHARACTERISTIC_UUID = UUID.fromString("f95f7d8b-cd6d-433a-b1d1-28b0955faa52");
+    public static final UUID MAC_TO_ANDROID_CHARACTERISTIC_UUID = UUID.fromString("b184c753-e5ca-401c-9844-b3935a56b7d2");
+
+    // ATT MTU
+    public static final int DEFAULT_ATT_MTU = 23; // MTU every link starts with before negotiation
+    public static final int MAX_ATT_MTU = 517; // Largest MTU allowed by the Bluetooth spec
+    public static final int ATT_WRITE_HEADER_SIZE = 3; // Opcode + handle, subtracted from the MTU for each write
+
+    // Transfer modes
+    public static final int STREAMING_THRESHOLD_BYTES = 1024; // Smaller clips always use acknowledged writes
+
+    // Framing
+    public static final long PARTIAL_MESSAGE_TIMEOUT_MS = 5_000; // Partial messages are discarded after this long without a chunk
+    public static final int MAX_MESSAGE_BYTES = 16 * 1024 * 1024; // Largest message the reassembler will buffer
+    public static final int RECEIVE_POOL_MAX_BYTES = 1024 * 1024; // Largest received message buffer kept for reuse
+    public static final int RECEIVE_POOL_BUFFERS_PER_CLASS = 2; // The delta base plus the message being received
+    public static final int MAX_RETAINED_TEXT_CHARS = RECEIVE_POOL_MAX_BYTES; // Text decode buffer kept between clips; UTF-8 never has more chars than bytes
+
+    // Protocol
+    public static final int PROTOCOL_VERSION = 1; // Announced in the HELLO frame
+    public static final int COMPRESSION_THRESHOLD_BYTES = 512; // Smaller clips are sent uncompressed
+    public static final int DELTA_THRESHOLD_BYTES = 1024; // Smaller clips are always sent in full
+
+    // Binary clips
+    public static final String CLIP_CACHE_DIR = "clips"; // Under the app's cache dir, shared through the FileProvider
+    public static final String CLIP_FILE_PROVIDER_AUTHORITY = "com.bridger.clips";
+    public static final int STREAM_COPY_BUFFER_BYTES = 8 * 1024;
+    public static final int MAX_BLOB_BYTES = 256 * 1024 * 1024; // Largest binary clip sent, or written to the cache dir when received; without the MIME prefix
+
+    // Resumable transfers
+    public static final long RESUME_SESSION_EXPIRY_MS = 120_000; // An interrupted transfer is abandoned if the link stays down this long
+    public static final int ACK_INTERVAL_FRAMES = 32; // The receiver reports progress every this many chunks
+    public static final long RESUME_TIMEOUT_MS = 5_000; // Time to wait for the receiver's answer to RESUME
+    public static final int MAX_RESUME_ATTEMPTS = 3; // Resume requests without any progress before the transfer fails
+
+    // Write lanes
+    public static final int LANE_WINDOW_PACKETS = 2; // Writes handed to the transport at once; the rest wait in their lane
+
+    // Delivery confirmation
+    public static final long DELIVERY_ACK_TIMEOUT_MS = 3_000; // Wait for APPLIED after the last frame is written, before resending
+    public static final int MAX_DELIVERY_ATTEMPTS = 3; // Sends of one clip, the first included, before it is reported failed
+
+    // Reconnect
+    public static final long RECONNECT_BASE_DELAY_MS = 1_000; // Ceiling of the first backed-off attempt, doubled on each one after
+    public static final long RECONNECT_MAX_DELAY_MS = 30_000; // Longest wait between two attempts
+    public static final int RECONNECT_IMMEDIATE_RETRIES = 2; // Attempts made without delay after a link loss
+    public static final int RECONNECT_MAX_ATTEMPTS = 12; // Attempts before the connection is reported FAILED
+    public static final long CONNECT_TIMEOUT_MS = 15_000; // Time allowed for a single connection attempt
+    public static final int MAX_PEERS = 4; // Macs kept connected at once; each holds its own GATT client
+
+    // Link scheduling
+    public static final long BALANCED_AFTER_IDLE_MS = 2_000; // Burst parameters are kept this long after the queue drains
+    public static final long LOW_POWER_AFTER_IDLE_MS = 30_000; // Idle time before the link drops to low power
+
+    // History
+    public static final int HISTORY_MAX_ROWS = 100_000; // Past this many clips the oldest are deleted
+    public static final long HISTORY_MAX_BYTES = 32L * 1024 * 1024; // Or past this much stored text, preview, hash and row overhead
+    public static final int HISTORY_PREVIEW_CHARS = 200; // Start of a clip shown in the history list
+    public static final long HISTORY_COMMIT_DELAY_MS = 250; // Clips within this window are inserted in one transaction
+    public static final int HISTORY_PAGE_SIZE = 50; // Rows read from the database at a time
+    public static final int HISTORY_MAX_PAGES = 6; // Pages a list holds; others are read again when scrolled back to
+    public static final long HISTORY_SEARCH_DEBOUNCE_MS = 150; // The history list is searched once typing pauses this long
+
+    // Journal
+    public static final int JOURNAL_ACTION_CHARS = 1_000; // Longer actions are cut, so a large clip stays out of the journal
+    public static final long JOURNAL_SEGMENT_BYTES = 64 * 1024; // A journal segment is closed at this size
+    public static final int JOURNAL_MAX_SEGMENTS = 4; // Past this many segments the journal is compacted to a snapshot
+    public static final long JOURNAL_COMMIT_DELAY_MS = 200; // Appends within this window are written together
+
+    // Metrics
+    public static final long METRICS_PUBLISH_INTERVAL_MS = 5_000; // Store.metrics is refreshed this often
+    public static final long METRICS_DUMP_INTERVAL_MS = 60_000; // The exposition file is rewritten this often
+    public static final String METRICS_FILE = "metrics.prom"; // In the app's files directory, for adb pull
+
+    // Tracing
+    public static final int TRACE_HISTORY = 20; // Clip traces kept for the timeline and export
+    public static final String TRACE_FILE = "clip-traces.json"; // Chrome trace export, in the app's external files directory
+
+    // Schedulers
+    public static final int ENCODE_LANE_THREADS = 2; // Hashing and compressing clips; one more than the radio can use
+
+    // Events
+    public static final int EVENT_BUFFER_SIZE = 64; // Events of one type held for a slow subscriber before the oldest are dropped
+
+}
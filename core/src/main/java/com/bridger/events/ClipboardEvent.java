@@ -0,0 +1,79 @@
+package com.bridger.events;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * A clipboard-related event. Routed by type through {@code Store.clipboard}.
+ *
+ * @param data     Optional data associated with the event (e.g., clipboard text, device address)
+ * @param mimeType Set for binary clips, whose data is a content URI or a file path
+ * @param traceId  Id of the clip's {@code ClipTrace}, 0 if it has none
+ */
+public record ClipboardEvent(@NonNull EventType type, @Nullable String data, @Nullable String mimeType, long traceId)
+        implements Event<ClipboardEvent.EventType> {
+
+    public enum EventType {
+        SEND_REQUESTED, // User tapped "Tap to Sync" or similar
+        SENT,           // Clipboard content successfully sent via BLE
+        RECEIVED,       // Clipboard content received via BLE
+        CONNECT_REQUESTED, // User requested to connect to a device
+        DISCONNECT_REQUESTED // User requested to disconnect
+    }
+
+    public static final String MIME_TEXT = "text/plain";
+
+    private ClipboardEvent(@NonNull EventType type, @Nullable String data) {
+        this(type, data, null, 0);
+    }
+
+    @NonNull
+    @Override
+    public String mimeType() {
+        return mimeType != null ? mimeType : MIME_TEXT;
+    }
+
+    // False for binary clips, whose data is a content URI (outgoing) or a cache file path (incoming).
+    public boolean isText() {
+        return mimeType == null;
+    }
+
+    // Factory methods for specific event types
+
+    public static final ClipboardEvent DISCONNECT_REQUESTED = new ClipboardEvent(EventType.DISCONNECT_REQUESTED, null);
+
+    public static ClipboardEvent createSendRequestedEvent(@NonNull String text, long traceId) {
+        return new ClipboardEvent(EventType.SEND_REQUESTED, text, null, traceId);
+    }
+
+    public static ClipboardEvent createUriSendRequestedEvent(@NonNull String uri, @NonNull String mimeType, long traceId) {
+        return new ClipboardEvent(EventType.SEND_REQUESTED, uri, mimeType, traceId);
+    }
+
+    public static ClipboardEvent createSentEvent(@NonNull String text) {
+        return new ClipboardEvent(EventType.SENT, text);
+    }
+
+    public static ClipboardEvent createReceiveEvent(@NonNull String text) {
+        return new ClipboardEvent(EventType.RECEIVED, text);
+    }
+
+    public static ClipboardEvent createFileReceiveEvent(@NonNull String path, @NonNull String mimeType) {
+        return new ClipboardEvent(EventType.RECEIVED, path, mimeType, 0);
+    }
+
+    public static ClipboardEvent createConnectEvent(@NonNull String deviceAddress) {
+        return new ClipboardEvent(EventType.CONNECT_REQUESTED, deviceAddress);
+    }
+
+    // Disconnects one peer; DISCONNECT_REQUESTED disconnects all of them.
+    public static ClipboardEvent createDisconnectEvent(@NonNull String deviceAddress) {
+        return new ClipboardEvent(EventType.DISCONNECT_REQUESTED, deviceAddress);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "ClipboardEvent: " + type + (data != null ? " (" + data + ")" : "") + (mimeType != null ? " [" + mimeType + "]" : "");
+    }
+}
@@ -0,0 +1,10 @@
+package com.bridger.events;
+
+import androidx.annotation.NonNull;
+
+// An event an EventBus routes by its type.
+public interface Event<T extends Enum<T>> {
+
+    @NonNull
+    T type();
+}
@@ -0,0 +1,79 @@
+package com.bridger.events;
+
+import androidx.annotation.NonNull;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.rxjava3.core.BackpressureOverflowStrategy;
+import io.reactivex.rxjava3.core.BackpressureStrategy;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.processors.FlowableProcessor;
+import io.reactivex.rxjava3.processors.PublishProcessor;
+
+/**
+ * Events routed by type: each type has its own channel, so posting an event reaches only the subscribers of its
+ * type instead of every subscriber running a filter. A type given an overflow strategy gets that stage per
+ * subscriber, so a burst that outruns a slow subscriber is buffered, dropped or collapsed as that type allows;
+ * other types reach their subscribers directly. Only types posted from more than one thread are serialized, so
+ * the common post is a plain PublishProcessor emission. Events dropped on overflow are counted.
+ */
+public class EventBus<T extends Enum<T>, E extends Event<T>> {
+
+    private record Channel<E>(FlowableProcessor<E> processor, Flowable<E> flowable) {}
+
+    private final Channel<E>[] channels; // Indexed by type ordinal
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * @param strategies  Overflow strategy of the types whose subscribers may fall behind; the others have none, and
+     *                    a subscriber that does not keep up with them fails with MissingBackpressureException.
+     * @param sharedTypes Types posted from more than one thread.
+     * @param bufferSize  Events a BUFFER channel holds per subscriber; beyond that the oldest are dropped.
+     */
+    @SuppressWarnings("unchecked")
+    public EventBus(@NonNull Class<T> types, @NonNull Map<T, BackpressureStrategy> strategies,
+                    @NonNull Set<T> sharedTypes, int bufferSize) {
+        T[] constants = types.getEnumConstants();
+        channels = (Channel<E>[]) new Channel<?>[constants.length];
+        for (T type : constants) {
+            FlowableProcessor<E> processor = PublishProcessor.create();
+            if (sharedTypes.contains(type)) processor = processor.toSerialized();
+            BackpressureStrategy strategy = strategies.get(type);
+            Flowable<E> flowable = strategy != null ? withOverflow(processor, strategy, bufferSize) : processor;
+            channels[type.ordinal()] = new Channel<>(processor, flowable);
+        }
+    }
+
+    public void post(@NonNull E event) {
+        channels[event.type().ordinal()].processor.onNext(event);
+    }
+
+    // Events of one type, from subscription on.
+    @NonNull
+    public Flowable<E> on(@NonNull T type) {
+        return channels[type.ordinal()].flowable;
+    }
+
+    // Events dropped on overflow so far, across all types and subscribers.
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    private Flowable<E> withOverflow(Flowable<E> source, BackpressureStrategy strategy, int bufferSize) {
+        switch (strategy) {
+            case DROP:
+                return source.onBackpressureDrop(event -> dropped.incrementAndGet());
+            case LATEST:
+                return source.onBackpressureLatest();
+            case ERROR:
+                return source.onBackpressureBuffer(bufferSize); // Fails the subscriber once full
+            case MISSING:
+                return source;
+            case BUFFER:
+            default:
+                return source.onBackpressureBuffer(bufferSize, dropped::incrementAndGet, BackpressureOverflowStrategy.DROP_OLDEST);
+        }
+    }
+}
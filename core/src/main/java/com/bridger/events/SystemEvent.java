@@ -0,0 +1,25 @@
+package com.bridger.events;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * An app-level event. Routed by type through {@code Store.system}.
+ *
+ * @param data Optional data associated with the event
+ */
+public record SystemEvent(@NonNull EventType type, @Nullable String data) implements Event<SystemEvent.EventType> {
+
+    public enum EventType {
+        CHECK_NOTIFICATION_PRESENCE // Request to check if the notification is present
+    }
+
+    // Factory methods for specific event types
+    public static final SystemEvent CHECK_NOTIFICATION_PRESENCE = new SystemEvent(EventType.CHECK_NOTIFICATION_PRESENCE, null);
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "SystemEvent: " + type + (data != null ? " (" + data + ")" : "");
+    }
+}
@@ -0,0 +1,83 @@
+package com.bridger.history;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bridger.ClipCache;
+import com.bridger.constants.Constants;
+import com.bridger.events.ClipboardEvent;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One sent or received clip in the history. Lists show only the start of a clip; the whole text is stored for the
+ * search index, but rows read back from a store leave it out so pages stay small.
+ *
+ * @param id        Row id, increasing with every insert; {@link #NO_ID} until written.
+ * @param timestamp Wall clock time of the clip, in ms.
+ * @param size      Size of the whole clip in bytes: UTF-8 for text, the file for binary clips.
+ * @param hash      {@link ClipCache#hash} of a text clip; null for binary clips.
+ * @param mimeType  Null for text.
+ * @param preview   Start of the text, or the file name of a binary clip.
+ * @param body      Whole text of a text clip, until written; null for binary clips and rows read back.
+ */
+public record HistoryEntry(long id, @NonNull Direction direction, long timestamp, long size, @Nullable String hash,
+                           @Nullable String mimeType, @NonNull String preview, @Nullable String body) {
+
+    public enum Direction { SENT, RECEIVED }
+
+    public static final long NO_ID = 0;
+
+    private static final int ROW_OVERHEAD = 48; // Id, direction, timestamp, size and the database's own record header
+
+    /**
+     * @param event A SENT or RECEIVED event.
+     */
+    @NonNull
+    public static HistoryEntry of(@NonNull ClipboardEvent event, long now) {
+        Direction direction = switch (event.type()) {
+            case SENT -> Direction.SENT;
+            case RECEIVED -> Direction.RECEIVED;
+            default -> throw new IllegalArgumentException("Not a history event: " + event.type());
+        };
+        String data = event.data() != null ? event.data() : "";
+        if (!event.isText()) {
+            File file = new File(data);
+            return new HistoryEntry(NO_ID, direction, now, file.length(), null, event.mimeType(), file.getName(), null);
+        }
+        return new HistoryEntry(NO_ID, direction, now, data.getBytes(StandardCharsets.UTF_8).length, ClipCache.hash(data),
+                null, preview(data), data);
+    }
+
+    public boolean isText() {
+        return mimeType == null;
+    }
+
+    // What the search index reads: the whole text of a text clip, the file name of a binary one
+    @NonNull
+    public String searchText() {
+        return body != null ? body : preview;
+    }
+
+    // What the row costs against the retention byte budget. A text clip's whole text is size bytes of UTF-8.
+    public long storedBytes() {
+        int previewBytes = preview.getBytes(StandardCharsets.UTF_8).length;
+        return ROW_OVERHEAD + previewBytes + (isText() ? size : previewBytes)
+                + (hash != null ? hash.length() : 0) + (mimeType != null ? mimeType.length() : 0);
+    }
+
+    @NonNull
+    public HistoryEntry withId(long id) {
+        return new HistoryEntry(id, direction, timestamp, size, hash, mimeType, preview, body);
+    }
+
+    // Cut before HISTORY_PREVIEW_CHARS, never between the two halves of a surrogate pair
+    @NonNull
+    static String preview(@NonNull String text) {
+        if (text.length() <= Constants.HISTORY_PREVIEW_CHARS) return text;
+        int end = Constants.HISTORY_PREVIEW_CHARS;
+        if (Character.isHighSurrogate(text.charAt(end - 1))) end--;
+        return text.substring(0, end);
+    }
+}
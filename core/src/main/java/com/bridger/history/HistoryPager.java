@@ -0,0 +1,260 @@
+package com.bridger.history;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.disposables.CompositeDisposable;
+import io.reactivex.rxjava3.observers.DisposableSingleObserver;
+
+/**
+ * Reads a {@link HistoryStore} a page at a time for a list, so only the rows near what is on screen are in memory.
+ * {@link #get} answers from the pages it holds and loads the page it is asked about, plus the neighbouring one
+ * when the position is near a page edge. At most maxPages pages are held; the least recently read is dropped.
+ * With a {@link HistoryQuery} set, only matching rows are listed. They are never counted: each page of matches is
+ * read after the last id of the page before it, and the list grows a page at a time until a page comes back short.
+ * Not thread-safe: call it, and receive {@link Listener} calls, on the deliver scheduler's thread only.
+ */
+public class HistoryPager {
+
+    public interface Listener {
+        // Rows from position on were loaded and can be bound again
+        void onRowsLoaded(int position, int count);
+
+        // The list changed as a whole: new rows, or another query
+        void onSizeChanged(int size);
+    }
+
+    private final HistoryStore store;
+    private final int pageSize;
+    private final int maxPages;
+    private final Scheduler loadScheduler;
+    private final Scheduler deliverScheduler;
+    private final CompositeDisposable disposables = new CompositeDisposable();
+
+    // In access order, so the first page is the least recently read
+    private final Map<Integer, List<HistoryEntry>> pages = new LinkedHashMap<>(16, 0.75f, true);
+    // Read before the last refresh; shown until their page is read again, so rows don't blank on every insert
+    private final Map<Integer, List<HistoryEntry>> stale = new LinkedHashMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+    // With a query: the last id on each page of matches read, kept when the page is dropped, so it can be read again
+    private final Map<Integer, Long> lastIds = new HashMap<>();
+    private int size;
+    private int storeSize;
+    private int generation; // Bumped whenever pages read so far no longer fit
+    private boolean more; // With a query: matches may go on past size, so the page there can be read
+    private int wantedPage = -1; // With a query: furthest page asked for while the pages before it are still read
+    @Nullable private HistoryQuery query;
+    @Nullable private Listener listener;
+
+    /**
+     * @param loadScheduler    Runs the reads; they block on disk.
+     * @param deliverScheduler The list's thread.
+     */
+    public HistoryPager(@NonNull HistoryStore store, int pageSize, int maxPages, @NonNull Scheduler loadScheduler,
+                        @NonNull Scheduler deliverScheduler) {
+        this.store = store;
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.loadScheduler = loadScheduler;
+        this.deliverScheduler = deliverScheduler;
+    }
+
+    public void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The row, or null while its page is being read.
+     */
+    @Nullable
+    public HistoryEntry get(int position) {
+        int page = position / pageSize;
+        int inPage = position % pageSize;
+        load(page);
+        if (inPage >= pageSize * 3 / 4) load(page + 1);
+        if (inPage < pageSize / 4) load(page - 1);
+
+        List<HistoryEntry> rows = pages.get(page);
+        if (rows == null) rows = stale.get(page);
+        return rows != null && inPage < rows.size() ? rows.get(inPage) : null;
+    }
+
+    /**
+     * Call when the store changed. Pages held so far are read again; until then they are still returned.
+     * With a query set, the matches are read again from the first page on.
+     *
+     * @param storeSize Rows in the store now.
+     */
+    public void refresh(int storeSize) {
+        this.storeSize = storeSize;
+        if (query == null) {
+            resize(storeSize);
+        } else {
+            searchAgain();
+        }
+    }
+
+    /**
+     * Lists only the rows matching the query, or every row again with null. The list is empty until the first page
+     * of matches is read.
+     */
+    public void setQuery(@Nullable HistoryQuery query) {
+        if (Objects.equals(query, this.query)) return;
+        this.query = query;
+        generation++;
+        pages.clear();
+        stale.clear();
+        loading.clear();
+        lastIds.clear();
+        wantedPage = -1;
+        if (query == null) {
+            resize(storeSize);
+        } else {
+            size = 0;
+            more = true;
+            if (listener != null) listener.onSizeChanged(0);
+            load(0);
+        }
+    }
+
+    @Nullable
+    public HistoryQuery query() {
+        return query;
+    }
+
+    // Pages held, fresh and stale, for tests and the debug panel
+    public int pagesHeld() {
+        return pages.size() + stale.size();
+    }
+
+    public void dispose() {
+        disposables.clear();
+    }
+
+    // Pages held are kept as stale and read again, in order, since each one starts where the one before ended
+    private void searchAgain() {
+        generation++;
+        stale.putAll(pages);
+        pages.clear();
+        loading.clear();
+        lastIds.clear();
+        more = true;
+        wantedPage = -1;
+        for (int page : stale.keySet()) wantedPage = Math.max(wantedPage, page);
+        load(0);
+    }
+
+    // Pages held are kept as stale and read again
+    private void resize(int size) {
+        this.size = size;
+        generation++;
+        stale.putAll(pages);
+        pages.clear();
+        loading.clear();
+        for (Iterator<Integer> it = stale.keySet().iterator(); it.hasNext(); ) {
+            int page = it.next();
+            if (page * pageSize >= size) it.remove();
+        }
+        for (int page : stale.keySet().toArray(new Integer[0])) load(page);
+        if (listener != null) listener.onSizeChanged(size);
+    }
+
+    private void load(int page) {
+        if (!exists(page) || pages.containsKey(page)) return;
+        if (query != null && page > 0 && !lastIds.containsKey(page - 1)) {
+            // Its matches start after the page before it, so read the earliest page missing first
+            wantedPage = Math.max(wantedPage, page);
+            while (page > 0 && !lastIds.containsKey(page - 1)) page--;
+        }
+        if (!loading.add(page)) return;
+        HistoryQuery read = query;
+        int loaded = page;
+        int offset = page * pageSize;
+        long beforeId = page == 0 ? Long.MAX_VALUE : lastIds.getOrDefault(page - 1, Long.MAX_VALUE);
+        read(() -> read == null ? store.page(offset, pageSize) : store.search(read, beforeId, pageSize), rows -> {
+            loading.remove(loaded);
+            stale.remove(loaded);
+            pages.put(loaded, rows);
+            if (read != null) onMatchesRead(loaded, rows);
+            evict();
+            if (listener != null && !rows.isEmpty()) listener.onRowsLoaded(offset, rows.size());
+            if (read != null && wantedPage > loaded) load(loaded + 1);
+        }, () -> loading.remove(loaded)); // Tried again on the next get
+    }
+
+    private boolean exists(int page) {
+        if (page < 0) return false;
+        return page * pageSize < size || query != null && more && page * pageSize == size;
+    }
+
+    // A full page of matches may be followed by more, a short one ends the list
+    private void onMatchesRead(int page, @NonNull List<HistoryEntry> rows) {
+        if (!rows.isEmpty()) lastIds.put(page, rows.get(rows.size() - 1).id());
+        int end = page * pageSize + rows.size();
+        if (rows.size() < pageSize) {
+            more = false;
+            wantedPage = -1;
+            pages.keySet().removeIf(held -> held > page);
+            stale.keySet().removeIf(held -> held > page);
+            lastIds.keySet().removeIf(held -> held > page);
+            if (end != size) setSize(end);
+        } else if (end >= size) {
+            more = true;
+            if (end > size) setSize(end);
+        }
+    }
+
+    private void setSize(int size) {
+        this.size = size;
+        if (listener != null) listener.onSizeChanged(size);
+    }
+
+    // Reads off the list's thread. The result is dropped if the generation moved on meanwhile; a newer read is on its way.
+    private <T> void read(@NonNull Callable<T> read, @NonNull Consumer<T> onRead, @NonNull Runnable onFailed) {
+        int readGeneration = generation;
+        disposables.add(Single.fromCallable(read)
+                .subscribeOn(loadScheduler)
+                .observeOn(deliverScheduler)
+                .subscribeWith(new DisposableSingleObserver<T>() {
+                    @Override
+                    public void onSuccess(@NonNull T result) {
+                        disposables.delete(this);
+                        if (readGeneration == generation) onRead.accept(result);
+                    }
+
+                    @Override
+                    public void onError(@NonNull Throwable error) {
+                        disposables.delete(this);
+                        if (readGeneration == generation) onFailed.run();
+                    }
+                }));
+    }
+
+    // Stale pages go first, then the least recently read
+    private void evict() {
+        for (Map<Integer, List<HistoryEntry>> held : List.of(stale, pages)) {
+            Iterator<Integer> it = held.keySet().iterator();
+            while (pages.size() + stale.size() > maxPages && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.bridger.history;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * What the user typed into the history search box. Every word of the query has to start a word of the clip, in
+ * any order: "sel us" finds "SELECT * FROM users". Case does not matter, and anything but letters and digits
+ * separates words, as it does for the full-text index.
+ *
+ * @param terms Lowercase query words, at least one.
+ */
+public record HistoryQuery(@NonNull List<String> terms) {
+
+    /**
+     * @return Null if the text holds no letters or digits, meaning no filter.
+     */
+    @Nullable
+    public static HistoryQuery parse(@Nullable String text) {
+        if (text == null) return null;
+        List<String> terms = words(text);
+        return terms.isEmpty() ? null : new HistoryQuery(List.copyOf(terms));
+    }
+
+    // The query in FTS MATCH syntax: a prefix term per word, all of them required.
+    @NonNull
+    public String ftsMatch() {
+        StringBuilder match = new StringBuilder();
+        for (String term : terms) {
+            if (match.length() > 0) match.append(' ');
+            match.append('"').append(term).append("*\""); // Words hold no quotes, so nothing needs escaping
+        }
+        return match.toString();
+    }
+
+    // Same answer as the index, for stores without one
+    public boolean matches(@NonNull String text) {
+        List<String> words = words(text);
+        for (String term : terms) {
+            boolean found = false;
+            for (String word : words) {
+                if (word.startsWith(term)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,44 @@
+package com.bridger.history;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+
+/**
+ * Durable clip history, newest first. Implementations are safe to call from several threads; none of the calls
+ * belong on the main thread.
+ */
+public interface HistoryStore {
+
+    /**
+     * Limits applied after every insert; the oldest rows go first.
+     *
+     * @param maxBytes Budget for {@link HistoryEntry#storedBytes()} summed over all rows.
+     */
+    record Retention(int maxRows, long maxBytes) {}
+
+    /**
+     * Inserts the entries, oldest first, in one transaction, and deletes the oldest rows past the retention limits.
+     *
+     * @return Rows kept afterwards.
+     */
+    int append(@NonNull List<HistoryEntry> entries, @NonNull Retention retention);
+
+    int count();
+
+    /**
+     * @param offset Rows to skip, counted from the newest.
+     * @return Up to limit rows, newest first.
+     */
+    @NonNull
+    List<HistoryEntry> page(int offset, int limit);
+
+    /**
+     * Pages through the matches by id rather than by position, so a page costs the same however deep it is.
+     *
+     * @param beforeId Only rows with a smaller id: the last id of the previous page, or {@link Long#MAX_VALUE}.
+     * @return Up to limit matching rows, newest first.
+     */
+    @NonNull
+    List<HistoryEntry> search(@NonNull HistoryQuery query, long beforeId, int limit);
+}
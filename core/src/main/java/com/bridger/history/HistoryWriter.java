@@ -0,0 +1,74 @@
+package com.bridger.history;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.core.Scheduler;
+
+/**
+ * Buffers history entries and inserts them together (group commit), commitDelayMs after the first one, so a burst
+ * of clips costs one transaction. Commits run on the given scheduler, never on the caller's thread.
+ */
+public class HistoryWriter {
+
+    public interface Listener {
+        // Rows kept after the commit
+        void onCommitted(int count);
+
+        // The batch is dropped; the next one is tried as usual
+        void onFailed(@NonNull RuntimeException error);
+    }
+
+    private final HistoryStore store;
+    private final HistoryStore.Retention retention;
+    private final Scheduler scheduler;
+    private final long commitDelayMs;
+    private final Listener listener;
+
+    // Guarded by this
+    private List<HistoryEntry> pending = new ArrayList<>();
+    private boolean commitScheduled;
+
+    /**
+     * @param scheduler     Runs the commits; they block on disk.
+     * @param commitDelayMs How long an entry may wait for others to be inserted with it.
+     */
+    public HistoryWriter(@NonNull HistoryStore store, @NonNull HistoryStore.Retention retention, @NonNull Scheduler scheduler,
+                         long commitDelayMs, @NonNull Listener listener) {
+        this.store = store;
+        this.retention = retention;
+        this.scheduler = scheduler;
+        this.commitDelayMs = commitDelayMs;
+        this.listener = listener;
+    }
+
+    public synchronized void add(@NonNull HistoryEntry entry) {
+        pending.add(entry);
+        if (!commitScheduled) {
+            commitScheduled = true;
+            scheduler.scheduleDirect(this::commit, commitDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Inserts the buffered entries now. Runs outside the lock, so adds are never held up by the disk.
+    public void commit() {
+        List<HistoryEntry> batch;
+        synchronized (this) {
+            commitScheduled = false;
+            if (pending.isEmpty()) return;
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+        int count;
+        try {
+            count = store.append(batch, retention);
+        } catch (RuntimeException e) {
+            listener.onFailed(e);
+            return;
+        }
+        listener.onCommitted(count);
+    }
+}
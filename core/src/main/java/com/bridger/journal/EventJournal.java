@@ -0,0 +1,292 @@
+package com.bridger.journal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+import io.reactivex.rxjava3.core.Scheduler;
+
+/**
+ * Append-only binary log of small records, split into segment files in one directory.
+ * <pre>
+ * record = | length (4) | crc32 (4) | kind (1) | timestamp (8) | body |
+ * </pre>
+ * Length and crc32 cover kind, timestamp and body; all fields are little-endian.
+ * Appends are buffered and written together (group commit), after commitDelayMs or once the buffer fills.
+ * Writes reach the OS, which keeps them across a process death; they are not forced to the disk.
+ * A segment that reaches segmentBytes is closed and a new one started. Once there are more than maxSegments,
+ * the journal is compacted: a snapshot of the current state is written to a new segment, which starts with
+ * {@link #KIND_SNAPSHOT}, and every older segment is deleted.
+ * A record cut short by a process death ends replay of its segment, and is truncated away.
+ */
+public class EventJournal implements Closeable {
+
+    // Reserved kind: replay forgets everything before it, as a snapshot follows
+    public static final int KIND_SNAPSHOT = 0;
+
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_OVERHEAD = 9; // Kind and timestamp, covered by length and crc32
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    public record Entry(int kind, long timestamp, @NonNull byte[] body) {}
+
+    /**
+     * @param replayMs        Time the last replay took.
+     * @param replayedRecords Records the last replay returned.
+     * @param bytes           Size of all segments on disk.
+     * @param segments        Segment files on disk.
+     * @param compactions     Compactions since the journal was opened.
+     */
+    public record Stats(long replayMs, int replayedRecords, long bytes, int segments, long compactions) {}
+
+    private final File directory;
+    private final long segmentBytes;
+    private final int maxSegments;
+    private final Supplier<List<Entry>> snapshot;
+    private final Scheduler scheduler;
+    private final long commitDelayMs;
+    private final LongSupplier clock;
+
+    // Guarded by this
+    private final ByteBuffer pending;
+    private boolean commitScheduled;
+    @Nullable private FileChannel segment;
+    private long segmentIndex;
+    private long segmentSize;
+    private long closedSegmentsBytes; // Size of every segment before the current one
+    private int segments;
+    private long replayMs;
+    private int replayedRecords;
+    private long compactions;
+
+    /**
+     * @param segmentBytes  Size at which a segment is closed and the next one started.
+     * @param maxSegments   Segments kept before the journal is compacted.
+     * @param snapshot      Records that rebuild the current state, written on compaction. Must not append.
+     * @param scheduler     Runs the delayed commits.
+     * @param commitDelayMs How long an append may wait for others to be written with it.
+     * @param clock         Millisecond clock for record timestamps and replay time.
+     */
+    public EventJournal(@NonNull File directory, long segmentBytes, int maxSegments, @NonNull Supplier<List<Entry>> snapshot,
+                        @NonNull Scheduler scheduler, long commitDelayMs, @NonNull LongSupplier clock) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        this.snapshot = snapshot;
+        this.scheduler = scheduler;
+        this.commitDelayMs = commitDelayMs;
+        this.clock = clock;
+        this.pending = ByteBuffer.allocate(MAX_RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Reads every record in the journal, oldest first, and opens it for appending. Call once, before appending.
+     */
+    @NonNull
+    public synchronized List<Entry> replay() throws IOException {
+        long start = clock.getAsLong();
+        if (!directory.isDirectory() && !directory.mkdirs()) throw new IOException("Cannot create " + directory);
+        File[] temps = directory.listFiles((dir, name) -> name.startsWith(PREFIX) && name.endsWith(TEMP_SUFFIX));
+        if (temps != null) {
+            for (File temp : temps) temp.delete(); // A compaction that did not finish; the old segments are still there
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        long[] indexes = segmentIndexes();
+        long bytes = 0;
+        for (long index : indexes) {
+            File file = segmentFile(index);
+            long valid = readSegment(file, entries);
+            if (valid < file.length()) {
+                try (RandomAccessFile torn = new RandomAccessFile(file, "rw")) {
+                    torn.setLength(valid); // Drop the record cut short by a process death
+                }
+            }
+            bytes += valid;
+        }
+
+        segments = indexes.length;
+        segmentIndex = indexes.length > 0 ? indexes[indexes.length - 1] : 0;
+        if (segments == 0) segments = 1;
+        segment = open(segmentFile(segmentIndex));
+        segmentSize = segment.size();
+        closedSegmentsBytes = bytes - segmentSize;
+        replayedRecords = entries.size();
+        replayMs = clock.getAsLong() - start;
+        return entries;
+    }
+
+    /**
+     * Buffers a record, written with the next commit.
+     *
+     * @param kind Any value but {@link #KIND_SNAPSHOT}, up to 255.
+     */
+    public synchronized void append(int kind, @NonNull byte[] body) throws IOException {
+        if (kind == KIND_SNAPSHOT || kind < 0 || kind > 0xFF) throw new IllegalArgumentException("Invalid record kind: " + kind);
+        int size = HEADER_SIZE + RECORD_OVERHEAD + body.length;
+        if (size > pending.capacity()) throw new IllegalArgumentException("Record too large: " + body.length + " bytes");
+        if (size > pending.remaining()) commit();
+        put(pending, kind, clock.getAsLong(), body);
+        if (!commitScheduled) {
+            commitScheduled = true;
+            scheduler.scheduleDirect(() -> {
+                try {
+                    commit();
+                } catch (IOException ignored) {
+                    // Kept pending; the next append or close tries again
+                }
+            }, commitDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Writes the buffered records now, rotating and compacting as needed.
+    public synchronized void commit() throws IOException {
+        commitScheduled = false;
+        if (pending.position() == 0 || segment == null) return;
+        pending.flip();
+        while (pending.hasRemaining()) segmentSize += segment.write(pending);
+        pending.clear();
+        if (segmentSize >= segmentBytes) rotate();
+    }
+
+    @NonNull
+    public synchronized Stats stats() {
+        return new Stats(replayMs, replayedRecords, closedSegmentsBytes + segmentSize + pending.position(), segments, compactions);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        commit();
+        if (segment != null) segment.close();
+        segment = null;
+    }
+
+    private void rotate() throws IOException {
+        segment.close();
+        closedSegmentsBytes += segmentSize;
+        segmentIndex++;
+        segments++;
+        if (segments > maxSegments) {
+            compact();
+            return;
+        }
+        segment = open(segmentFile(segmentIndex));
+        segmentSize = 0;
+    }
+
+    // Writes the snapshot beside the journal and renames it into place, then drops every older segment.
+    private void compact() throws IOException {
+        File target = segmentFile(segmentIndex);
+        File temp = new File(directory, target.getName() + TEMP_SUFFIX);
+        try (FileChannel channel = open(temp)) {
+            ByteBuffer buffer = ByteBuffer.allocate(MAX_RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            long now = clock.getAsLong();
+            put(buffer, KIND_SNAPSHOT, now, new byte[0]);
+            for (Entry entry : snapshot.get()) {
+                if (HEADER_SIZE + RECORD_OVERHEAD + entry.body().length > buffer.remaining()) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) channel.write(buffer);
+                    buffer.clear();
+                }
+                put(buffer, entry.kind(), entry.timestamp(), entry.body());
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(true); // The old segments go next, so the snapshot must be complete first
+        }
+        if (!temp.renameTo(target)) throw new IOException("Cannot rename " + temp + " to " + target);
+        for (long index : segmentIndexes()) {
+            if (index < segmentIndex) segmentFile(index).delete();
+        }
+        segment = open(target);
+        segmentSize = segment.size();
+        closedSegmentsBytes = 0;
+        segments = 1;
+        compactions++;
+    }
+
+    // Appends the records of one segment and returns how many bytes of it are intact.
+    private static long readSegment(File file, List<Entry> entries) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            buffer = ByteBuffer.allocate((int) channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Read it all
+            }
+        }
+        buffer.flip();
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int expectedCrc = buffer.getInt();
+            if (length < RECORD_OVERHEAD || length > buffer.remaining()) return start;
+            crc.reset();
+            crc.update(buffer.array(), buffer.position(), length);
+            if ((int) crc.getValue() != expectedCrc) return start;
+            int kind = buffer.get() & 0xFF;
+            long timestamp = buffer.getLong();
+            byte[] body = new byte[length - RECORD_OVERHEAD];
+            buffer.get(body);
+            if (kind == KIND_SNAPSHOT) {
+                entries.clear();
+            } else {
+                entries.add(new Entry(kind, timestamp, body));
+            }
+        }
+        return buffer.position();
+    }
+
+    private static void put(ByteBuffer buffer, int kind, long timestamp, byte[] body) {
+        int start = buffer.position();
+        buffer.putInt(RECORD_OVERHEAD + body.length).putInt(0).put((byte) kind).putLong(timestamp).put(body);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), start + HEADER_SIZE, RECORD_OVERHEAD + body.length);
+        buffer.putInt(start + 4, (int) crc.getValue());
+    }
+
+    private long[] segmentIndexes() {
+        String[] names = directory.list((dir, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (names == null) return new long[0];
+        long[] indexes = new long[names.length];
+        int count = 0;
+        for (String name : names) {
+            try {
+                indexes[count] = Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+                count++;
+            } catch (NumberFormatException ignored) {
+                // Not one of ours
+            }
+        }
+        indexes = Arrays.copyOf(indexes, count);
+        Arrays.sort(indexes);
+        return indexes;
+    }
+
+    private File segmentFile(long index) {
+        return new File(directory, PREFIX + index + SUFFIX);
+    }
+
+    private static FileChannel open(File file) throws IOException {
+        RandomAccessFile access = new RandomAccessFile(file, "rw");
+        access.seek(access.length());
+        return access.getChannel();
+    }
+}
@@ -0,0 +1,21 @@
+package com.bridger.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Monotonic count of events, cheap to increment from many threads.
+public class Counter {
+
+    private final LongAdder count = new LongAdder();
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(long amount) {
+        count.add(amount);
+    }
+
+    public long get() {
+        return count.sum();
+    }
+}
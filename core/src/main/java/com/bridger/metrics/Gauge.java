@@ -0,0 +1,21 @@
+package com.bridger.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Current value of something that goes up and down, such as the number of connected peers.
+public class Gauge {
+
+    private final AtomicLong value = new AtomicLong();
+
+    public void set(long value) {
+        this.value.set(value);
+    }
+
+    public void add(long delta) {
+        value.addAndGet(delta);
+    }
+
+    public long get() {
+        return value.get();
+    }
+}
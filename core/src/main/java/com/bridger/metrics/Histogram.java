@@ -0,0 +1,95 @@
+package com.bridger.metrics;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-bucket histogram of non-negative values, such as durations in milliseconds.
+ * Bucket {@code i} counts values up to {@code bounds[i]}; one extra bucket takes everything larger.
+ * Percentiles are therefore bucket upper bounds, clamped to the largest value seen.
+ */
+public class Histogram {
+
+    /**
+     * Immutable copy of a histogram at one point in time.
+     *
+     * @param bounds Inclusive upper bound of each bucket but the last.
+     * @param counts Values per bucket; one longer than bounds.
+     */
+    public record Snapshot(long[] bounds, long[] counts, long count, long sum, long min, long max) {
+
+        public double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * @param percent Between 0 and 100.
+         * @return Upper bound of the bucket holding that rank, or 0 if nothing was recorded.
+         */
+        public long percentile(double percent) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(percent / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < bounds.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(bounds[i], max);
+            }
+            return max;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "n=" + count + " p50=" + percentile(50) + " p95=" + percentile(95) + " p99=" + percentile(99) + " max=" + max;
+        }
+    }
+
+    private final long[] bounds;
+    private final long[] counts;
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    public Histogram(@NonNull long... bounds) {
+        for (int i = 1; i < bounds.length; i++) {
+            if (bounds[i] <= bounds[i - 1]) throw new IllegalArgumentException("Bucket bounds must be ascending");
+        }
+        this.bounds = bounds.clone();
+        this.counts = new long[bounds.length + 1];
+    }
+
+    // Buckets of first, 2 * first, 4 * first and so on.
+    @NonNull
+    public static Histogram exponential(long first, int buckets) {
+        long[] bounds = new long[buckets];
+        for (int i = 0; i < buckets; i++) {
+            bounds[i] = first << i;
+        }
+        return new Histogram(bounds);
+    }
+
+    public synchronized void record(long value) {
+        if (value < 0) value = 0;
+        int bucket = Arrays.binarySearch(bounds, value);
+        counts[bucket >= 0 ? bucket : -bucket - 1]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    @NonNull
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(bounds.clone(), counts.clone(), count, sum, count == 0 ? 0 : min, max);
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+}
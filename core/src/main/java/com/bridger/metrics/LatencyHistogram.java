@@ -0,0 +1,66 @@
+package com.bridger.metrics;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram with log-linear buckets, in the style of HdrHistogram: values below 16 are counted exactly,
+ * and every power of two above that is split into 16 buckets, so a percentile is within 1/16 (6.25%) of the true
+ * value. Values above {@link #MAX_VALUE} count as MAX_VALUE. Recording is a few atomic adds and never blocks.
+ * Snapshots are {@link Histogram.Snapshot}s; taken while values are being recorded, they may be off by those values.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 36;
+    public static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1; // About 19 hours in microseconds
+
+    private final AtomicLongArray counts = new AtomicLongArray(index(MAX_VALUE) + 1);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        value = Math.max(0, Math.min(value, MAX_VALUE));
+        counts.incrementAndGet(index(value));
+        sum.add(value);
+        min.accumulateAndGet(value, Math::min);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    @NonNull
+    public Histogram.Snapshot snapshot() {
+        int last = counts.length() - 1;
+        while (last > 0 && counts.get(last) == 0) last--;
+        long[] bounds = new long[last + 1];
+        long[] bucketCounts = new long[last + 2]; // The last bucket, above every bound, stays empty
+        long total = 0;
+        for (int i = 0; i <= last; i++) {
+            bounds[i] = upperBound(i);
+            bucketCounts[i] = counts.get(i);
+            total += bucketCounts[i];
+        }
+        long low = min.get();
+        return new Histogram.Snapshot(bounds, bucketCounts, total, sum.sum(), total == 0 ? 0 : low, max.get());
+    }
+
+    // Values below SUB_BUCKETS map to themselves; above, a power of two 2^e maps to SUB_BUCKETS buckets from
+    // SUB_BUCKETS * (e - SUB_BUCKET_BITS + 1), split by the SUB_BUCKET_BITS bits below the highest one.
+    static int index(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    // Largest value counted in a bucket.
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long mantissa = index - ((long) shift << SUB_BUCKET_BITS);
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,156 @@
+package com.bridger.metrics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Named counters, gauges and latency histograms for the whole app, so builds can be compared in the field.
+ * Metrics are created on first use and live as long as the process; recording never takes a lock.
+ * A {@link Snapshot} renders as text in the Prometheus exposition format.
+ */
+public class MetricsRegistry {
+
+    public enum Type { COUNTER, GAUGE, HISTOGRAM }
+
+    /**
+     * One metric at the time of a snapshot.
+     *
+     * @param value     Count or gauge value; the number of recorded values for a histogram.
+     * @param histogram Set for histograms only.
+     */
+    public record Sample(@NonNull String name, @NonNull String help, @NonNull Type type, long value,
+                         @Nullable Histogram.Snapshot histogram) {}
+
+    // Every metric, sorted by name, at one point in time.
+    public record Snapshot(long takenAt, @NonNull List<Sample> samples) {
+
+        @Nullable
+        public Sample get(@NonNull String name) {
+            for (Sample sample : samples) {
+                if (sample.name().equals(name)) return sample;
+            }
+            return null;
+        }
+
+        // Histograms are written as summaries with their p50, p90 and p99.
+        @NonNull
+        public String exposition(@NonNull String prefix) {
+            StringBuilder text = new StringBuilder();
+            for (Sample sample : samples) {
+                String name = prefix + sample.name();
+                text.append("# HELP ").append(name).append(' ').append(sample.help()).append('\n');
+                if (sample.histogram() == null) {
+                    text.append("# TYPE ").append(name).append(sample.type() == Type.COUNTER ? " counter\n" : " gauge\n");
+                    text.append(name).append(' ').append(sample.value()).append('\n');
+                    continue;
+                }
+                Histogram.Snapshot histogram = sample.histogram();
+                text.append("# TYPE ").append(name).append(" summary\n");
+                for (double quantile : new double[]{0.5, 0.9, 0.99}) {
+                    text.append(name).append("{quantile=\"").append(quantile).append("\"} ")
+                            .append(histogram.percentile(quantile * 100)).append('\n');
+                }
+                text.append(name).append("_sum ").append(histogram.sum()).append('\n');
+                text.append(name).append("_count ").append(histogram.count()).append('\n');
+            }
+            return text.toString();
+        }
+
+        // One line per metric, for the debug panel.
+        @NonNull
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            for (Sample sample : samples) {
+                if (text.length() > 0) text.append('\n');
+                text.append(sample.name()).append(": ");
+                if (sample.histogram() == null) {
+                    text.append(sample.value());
+                } else {
+                    Histogram.Snapshot histogram = sample.histogram();
+                    text.append(String.format(Locale.US, "n=%d p50=%d p90=%d p99=%d max=%d", histogram.count(),
+                            histogram.percentile(50), histogram.percentile(90), histogram.percentile(99), histogram.max()));
+                }
+            }
+            return text.toString();
+        }
+    }
+
+    private record Entry(String help, Object metric) {}
+
+    private static volatile MetricsRegistry instance;
+
+    private final Map<String, Entry> metrics = new ConcurrentSkipListMap<>();
+
+    MetricsRegistry() {} // The app shares getInstance(); tests make their own
+
+    public static MetricsRegistry getInstance() {
+        if (instance == null) {
+            synchronized (MetricsRegistry.class) {
+                if (instance == null) {
+                    instance = new MetricsRegistry();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @param name Lowercase with underscores; counters end in _total, and the unit is the last part of the name
+     *             otherwise, e.g. connect_time_ms.
+     */
+    @NonNull
+    public Counter counter(@NonNull String name, @NonNull String help) {
+        return get(name, help, Counter.class);
+    }
+
+    @NonNull
+    public Gauge gauge(@NonNull String name, @NonNull String help) {
+        return get(name, help, Gauge.class);
+    }
+
+    @NonNull
+    public LatencyHistogram histogram(@NonNull String name, @NonNull String help) {
+        return get(name, help, LatencyHistogram.class);
+    }
+
+    @NonNull
+    public Snapshot snapshot(long now) {
+        List<Sample> samples = new ArrayList<>(metrics.size());
+        for (Map.Entry<String, Entry> entry : metrics.entrySet()) {
+            String name = entry.getKey();
+            String help = entry.getValue().help();
+            Object metric = entry.getValue().metric();
+            if (metric instanceof Counter counter) {
+                samples.add(new Sample(name, help, Type.COUNTER, counter.get(), null));
+            } else if (metric instanceof Gauge gauge) {
+                samples.add(new Sample(name, help, Type.GAUGE, gauge.get(), null));
+            } else {
+                Histogram.Snapshot histogram = ((LatencyHistogram) metric).snapshot();
+                samples.add(new Sample(name, help, Type.HISTOGRAM, histogram.count(), histogram));
+            }
+        }
+        return new Snapshot(now, Collections.unmodifiableList(samples));
+    }
+
+    private <M> M get(String name, String help, Class<M> type) {
+        Entry entry = metrics.computeIfAbsent(name, key -> new Entry(help, newMetric(type)));
+        if (!type.isInstance(entry.metric())) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as another type");
+        }
+        return type.cast(entry.metric());
+    }
+
+    private static Object newMetric(Class<?> type) {
+        if (type == Counter.class) return new Counter();
+        if (type == Gauge.class) return new Gauge();
+        return new LatencyHistogram();
+    }
+}
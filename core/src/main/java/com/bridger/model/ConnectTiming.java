@@ -0,0 +1,25 @@
+package com.bridger.model;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Duration of each phase of a connection, from the connect request to a ready link.
+ *
+ * @param connectMs    Connect request to link up.
+ * @param servicesMs   Link up to services discovered.
+ * @param initMs       Services discovered to ready (MTU, PHY, priority and notifications).
+ * @param remembered   Whether the device was connected to from the remembered address rather than the scanner.
+ */
+public record ConnectTiming(long connectMs, long servicesMs, long initMs, boolean remembered) {
+
+    public long totalMs() {
+        return connectMs + servicesMs + initMs;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return totalMs() + " ms (connect " + connectMs + ", services " + servicesMs + ", init " + initMs + ")"
+                + (remembered ? ", remembered" : "");
+    }
+}
@@ -3,6 +3,7 @@ package com.bridger.model;
 public enum ConnectionState {
     DISCONNECTED,
     CONNECTING,
+    RECONNECTING, // Link dropped, waiting for the next reconnect attempt
     CONNECTED,
     DISCONNECTING,
     READY,
@@ -0,0 +1,25 @@
+package com.bridger.model;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Outcome of waiting for the peer to confirm a clip, one per outgoing text clip on a peer that confirms.
+ *
+ * @param messageId Message id of the last attempt.
+ * @param latencyMs Time from the clip being queued until the peer applied it, or until we gave up.
+ * @param attempts  Times the clip was sent, the first included.
+ * @param confirmed Whether the peer confirmed it; false once every attempt timed out.
+ */
+public record Delivery(int messageId, long latencyMs, int attempts, boolean confirmed) {
+
+    public int retries() {
+        return attempts - 1;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "message " + messageId + (confirmed ? " applied after " : " unconfirmed after ") + latencyMs + " ms, "
+                + attempts + (attempts == 1 ? " attempt" : " attempts");
+    }
+}
@@ -0,0 +1,8 @@
+package com.bridger.model;
+
+// Connection parameters requested from the stack, from fastest to most frugal.
+public enum LinkMode {
+    BURST, // High connection priority and LE 2M PHY, while clips are being sent
+    BALANCED, // The stack's default interval
+    LOW_POWER // Long interval once the link has been idle for a while
+}
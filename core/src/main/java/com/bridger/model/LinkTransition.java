@@ -0,0 +1,20 @@
+package com.bridger.model;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A change of {@link LinkMode}.
+ *
+ * @param from   Mode before the change.
+ * @param to     Mode requested from the stack.
+ * @param reason Why the scheduler switched, for logs and the debug UI.
+ * @param atMs   Time of the change, in elapsedRealtime milliseconds.
+ */
+public record LinkTransition(@NonNull LinkMode from, @NonNull LinkMode to, @NonNull String reason, long atMs) {
+
+    @NonNull
+    @Override
+    public String toString() {
+        return from + " -> " + to + " (" + reason + ")";
+    }
+}
@@ -13,6 +13,8 @@ public record NotificationContent(String title, String content) {
                 return "Connected";
             case CONNECTING:
                 return "Connecting...";
+            case RECONNECTING:
+                return "Reconnecting...";
             case DISCONNECTED:
                 return "Disconnected";
             case DISCONNECTING:
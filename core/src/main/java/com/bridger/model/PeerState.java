@@ -0,0 +1,74 @@
+package com.bridger.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bridger.constants.Constants;
+
+import java.util.Collection;
+
+/**
+ * State of one peer session, as published in {@code Store.peers}.
+ *
+ * @param address          Bluetooth address of the peer.
+ * @param state            Connection state of this peer alone.
+ * @param mtu              Effective ATT MTU of its link.
+ * @param linkMode         Connection parameters currently requested on its link.
+ * @param reconnectAttempt Current reconnect attempt, 0 when not reconnecting.
+ * @param lastTransfer     Most recent outgoing transfer to this peer, null before the first one.
+ */
+public record PeerState(@NonNull String address, @NonNull ConnectionState state, int mtu, @NonNull LinkMode linkMode,
+                        int reconnectAttempt, @Nullable TransferStats lastTransfer) {
+
+    // Throughput of the last transfer to this peer, 0 before the first one
+    public long bytesPerSecond() {
+        return lastTransfer != null ? lastTransfer.bytesPerSecond() : 0;
+    }
+
+    /**
+     * The state that best describes a set of peers: connected if any peer is, otherwise whichever is closest
+     * to connected, so the app shows one state however many Macs are paired.
+     */
+    @NonNull
+    public static ConnectionState overall(@NonNull Collection<PeerState> peers, @NonNull ConnectionState whenEmpty) {
+        ConnectionState best = null;
+        for (PeerState peer : peers) {
+            if (best == null || rank(peer.state) < rank(best)) best = peer.state;
+        }
+        return best != null ? best : whenEmpty;
+    }
+
+    // Smallest MTU of the connected peers, as a clip sent to all of them is chunked for each; the default without any
+    public static int overallMtu(@NonNull Collection<PeerState> peers) {
+        int mtu = Integer.MAX_VALUE;
+        for (PeerState peer : peers) {
+            if (peer.state == ConnectionState.CONNECTED) mtu = Math.min(mtu, peer.mtu);
+        }
+        return mtu != Integer.MAX_VALUE ? mtu : Constants.DEFAULT_ATT_MTU;
+    }
+
+    // Fastest mode requested on any connected peer's link; the stack's default without any
+    @NonNull
+    public static LinkMode overallLinkMode(@NonNull Collection<PeerState> peers) {
+        LinkMode fastest = null;
+        for (PeerState peer : peers) {
+            if (peer.state == ConnectionState.CONNECTED && (fastest == null || peer.linkMode.ordinal() < fastest.ordinal())) {
+                fastest = peer.linkMode;
+            }
+        }
+        return fastest != null ? fastest : LinkMode.BALANCED;
+    }
+
+    private static int rank(@NonNull ConnectionState state) {
+        return switch (state) {
+            case CONNECTED -> 0;
+            case READY -> 1;
+            case INITIALIZING -> 2;
+            case CONNECTING -> 3;
+            case RECONNECTING -> 4;
+            case DISCONNECTING -> 5;
+            case FAILED -> 6;
+            case DISCONNECTED -> 7;
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package com.bridger.model;
+
+/**
+ * Outcome of a single outgoing transfer, used to compare throughput and compression across builds.
+ *
+ * @param originalBytes Clip size before encoding.
+ * @param wireBytes     Payload size actually sent, after compression.
+ * @param durationMs    Time from the first chunk being written until the last one completed.
+ * @param encodeMicros  Time spent compressing the payload.
+ * @param mtu           ATT MTU in effect for the transfer.
+ */
+public record TransferStats(int originalBytes, int wireBytes, long durationMs, long encodeMicros, int mtu) {
+
+    // Link throughput, in bytes on the wire per second
+    public long bytesPerSecond() {
+        return durationMs > 0 ? wireBytes * 1000L / durationMs : wireBytes * 1000L;
+    }
+
+    public double compressionRatio() {
+        return wireBytes > 0 ? (double) originalBytes / wireBytes : 1.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(java.util.Locale.US, "%d B (%d B on wire, %.1fx, encoded in %d us) in %d ms (%d B/s, MTU %d)",
+                originalBytes, wireBytes, compressionRatio(), encodeMicros, durationMs, bytesPerSecond(), mtu);
+    }
+}
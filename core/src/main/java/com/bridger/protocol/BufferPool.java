@@ -0,0 +1,109 @@
+package com.bridger.protocol;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reusable heap buffers for message payloads, so receiving a clip does not allocate a new buffer for it.
+ * Buffers come in power-of-two size classes from {@value #MIN_CLASS_BYTES} bytes up to the pool's limit;
+ * a few of each class are kept once released. Larger requests are allocated and never kept.
+ * Buffers are heap buffers, so their {@link ByteBuffer#array()} can be handed to code that takes arrays.
+ * The pool remembers which buffers it handed out, so only those are taken back.
+ */
+public class BufferPool {
+
+    public static final int MIN_CLASS_BYTES = 1024;
+
+    /**
+     * @param allocated Buffers created because none was free.
+     * @param reused    Buffers handed out again after a release.
+     * @param idleBytes Capacity of the buffers waiting in the pool.
+     */
+    public record Stats(long allocated, long reused, long idleBytes) {}
+
+    private final int maxPooledBytes;
+    private final int buffersPerClass;
+    private final List<ArrayDeque<ByteBuffer>> idle;
+
+    // Guarded by this
+    private final Set<ByteBuffer> lent = Collections.newSetFromMap(new IdentityHashMap<>()); // ByteBuffer.equals compares contents
+    private long allocated;
+    private long reused;
+    private long idleBytes;
+
+    /**
+     * @param maxPooledBytes  Largest buffer kept for reuse, rounded up to a power of two.
+     * @param buffersPerClass Idle buffers kept per size class.
+     */
+    public BufferPool(int maxPooledBytes, int buffersPerClass) {
+        this.maxPooledBytes = classSize(Math.max(MIN_CLASS_BYTES, maxPooledBytes));
+        this.buffersPerClass = buffersPerClass;
+        int classes = classIndex(this.maxPooledBytes) + 1;
+        this.idle = new ArrayList<>(classes);
+        for (int i = 0; i < classes; i++) idle.add(new ArrayDeque<>(buffersPerClass));
+    }
+
+    /**
+     * @return A buffer with position 0 and its limit at the requested length. Its capacity may be larger.
+     */
+    @NonNull
+    public ByteBuffer acquire(int length) {
+        if (length < 0) throw new IllegalArgumentException("Negative buffer length: " + length);
+        if (length > maxPooledBytes) {
+            synchronized (this) {
+                allocated++;
+            }
+            return ByteBuffer.allocate(length);
+        }
+        int size = classSize(Math.max(MIN_CLASS_BYTES, length));
+        ByteBuffer buffer;
+        synchronized (this) {
+            buffer = idle.get(classIndex(size)).poll();
+            if (buffer != null) {
+                reused++;
+                idleBytes -= size;
+            } else {
+                allocated++;
+                buffer = ByteBuffer.allocate(size);
+            }
+            lent.add(buffer);
+        }
+        buffer.clear().limit(length);
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer for reuse. Buffers this pool did not hand out, such as wrapped arrays or oversized
+     * buffers, and buffers released twice are ignored; a buffer must not be used after it is released.
+     */
+    public void release(@NonNull ByteBuffer buffer) {
+        synchronized (this) {
+            if (!lent.remove(buffer)) return;
+            int size = buffer.capacity();
+            ArrayDeque<ByteBuffer> queue = idle.get(classIndex(size));
+            if (queue.size() >= buffersPerClass) return;
+            queue.add(buffer);
+            idleBytes += size;
+        }
+    }
+
+    @NonNull
+    public synchronized Stats stats() {
+        return new Stats(allocated, reused, idleBytes);
+    }
+
+    private static int classSize(int length) {
+        return Integer.highestOneBit(length - 1) << 1;
+    }
+
+    private static int classIndex(int size) {
+        return Integer.numberOfTrailingZeros(size) - Integer.numberOfTrailingZeros(MIN_CLASS_BYTES);
+    }
+}
@@ -0,0 +1,113 @@
+package com.bridger.protocol;
+
+import androidx.annotation.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Payload compression codecs. Each side announces the codecs it supports as a bitmask in its
+ * HELLO frame and the best common one is used; a compressed message is marked with the codec's frame flag.
+ */
+public enum Codec {
+    NONE(0, 0),
+    // Raw DEFLATE without zlib header, which is what Apple's COMPRESSION_ZLIB produces and expects.
+    DEFLATE(0x01, Frame.FLAG_DEFLATE);
+
+    // Codecs this build can encode and decode
+    public static final int SUPPORTED_MASK = DEFLATE.capabilityBit;
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final int capabilityBit;
+    private final int frameFlag;
+
+    Codec(int capabilityBit, int frameFlag) {
+        this.capabilityBit = capabilityBit;
+        this.frameFlag = frameFlag;
+    }
+
+    public int frameFlag() {
+        return frameFlag;
+    }
+
+    /**
+     * Picks the best codec both sides support.
+     */
+    @NonNull
+    public static Codec negotiate(int localMask, int peerMask) {
+        int common = localMask & peerMask;
+        return (common & DEFLATE.capabilityBit) != 0 ? DEFLATE : NONE;
+    }
+
+    @NonNull
+    public static Codec fromFlags(int flags) {
+        return (flags & Frame.FLAG_DEFLATE) != 0 ? DEFLATE : NONE;
+    }
+
+    @NonNull
+    public byte[] encode(@NonNull byte[] input) {
+        if (this == NONE) return input;
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, input.length / 2));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                output.write(buffer, 0, count);
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @param maxBytes Upper bound on the decoded size, protecting against decompression bombs.
+     * @throws DataFormatException if the input is corrupt, truncated or decodes to more than maxBytes.
+     */
+    @NonNull
+    public byte[] decode(@NonNull byte[] input, int maxBytes) throws DataFormatException {
+        if (this == NONE) return input;
+        return decode(input, input.length, maxBytes);
+    }
+
+    /**
+     * Decodes the first length bytes of input, e.g. a pooled buffer's array. Always returns a new array.
+     *
+     * @param maxBytes Upper bound on the decoded size, protecting against decompression bombs.
+     * @throws DataFormatException if the input is corrupt, truncated or decodes to more than maxBytes.
+     */
+    @NonNull
+    public byte[] decode(@NonNull byte[] input, int length, int maxBytes) throws DataFormatException {
+        if (this == NONE) return Arrays.copyOf(input, length);
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(input, 0, length);
+            ByteArrayOutputStream output = new ByteArrayOutputStream((int) Math.min(length * 3L, maxBytes));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            boolean paddingSupplied = false;
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && inflater.needsInput()) {
+                    // Raw inflate may need one extra padding byte to see the end of the stream.
+                    if (paddingSupplied) throw new DataFormatException("Truncated DEFLATE stream.");
+                    inflater.setInput(new byte[1]);
+                    paddingSupplied = true;
+                    continue;
+                }
+                if (count == 0 && inflater.needsDictionary()) throw new DataFormatException("Preset dictionaries are not supported.");
+                if (output.size() + count > maxBytes) throw new DataFormatException("Decoded payload exceeds " + maxBytes + " bytes.");
+                output.write(buffer, 0, count);
+            }
+            return output.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+}
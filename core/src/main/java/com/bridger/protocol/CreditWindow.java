@@ -0,0 +1,43 @@
+package com.bridger.protocol;
+
+/**
+ * Receiver-granted send window for write-without-response streaming.
+ * The Mac grants credits over MAC_TO_ANDROID, each streamed packet consumes one,
+ * and the sender pauses when the window is empty so the peer is never overrun.
+ */
+public class CreditWindow {
+
+    private int available;
+    private boolean granted; // True once the peer has granted credits, i.e. it supports streaming
+
+    public synchronized void grant(int credits) {
+        if (credits <= 0) return;
+        available += credits;
+        granted = true;
+    }
+
+    /**
+     * Takes one credit if the window is open.
+     *
+     * @return true if a packet may be sent now.
+     */
+    public synchronized boolean tryAcquire() {
+        if (available == 0) return false;
+        available--;
+        return true;
+    }
+
+    public synchronized int available() {
+        return available;
+    }
+
+    public synchronized boolean isGranted() {
+        return granted;
+    }
+
+    // Called when the link goes away; the next peer has to grant a fresh window.
+    public synchronized void reset() {
+        available = 0;
+        granted = false;
+    }
+}
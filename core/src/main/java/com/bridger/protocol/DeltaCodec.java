@@ -0,0 +1,237 @@
+package com.bridger.protocol;
+
+import androidx.annotation.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+
+/**
+ * rsync-style delta encoding of a clip against the previously synced one.
+ * The base is indexed in fixed-size blocks by a rolling checksum; the target is scanned byte by byte,
+ * and every block match is extended as far as it goes in both directions and emitted as a COPY,
+ * with the bytes in between emitted as INSERTs.
+ * <pre>
+ * patch = base crc32 (4) | target crc32 (4) | target length (varint) | op*
+ * op    = 0x01 offset (varint) length (varint)   copy from the base
+ *       | 0x02 length (varint) bytes             insert literal bytes
+ * </pre>
+ * Both checksums let the receiver detect a diverged base and a corrupt result.
+ */
+public final class DeltaCodec {
+
+    private static final int OP_COPY = 0x01;
+    private static final int OP_INSERT = 0x02;
+    private static final int MIN_BLOCK_SIZE = 16;
+    private static final int MAX_BLOCK_SIZE = 1024;
+
+    private DeltaCodec() {}
+
+    @NonNull
+    public static byte[] encode(@NonNull byte[] base, @NonNull byte[] target) {
+        ByteArrayOutputStream patch = new ByteArrayOutputStream();
+        writeInt(patch, crc32(base));
+        writeInt(patch, crc32(target));
+        writeVarint(patch, target.length);
+
+        int blockSize = blockSizeFor(target.length);
+        Map<Integer, Integer> index = indexBlocks(base, blockSize);
+        int literalStart = 0;
+        int pos = 0;
+        int hash = pos + blockSize <= target.length ? RollingHash.of(target, 0, blockSize) : 0;
+
+        while (pos + blockSize <= target.length) {
+            Integer candidate = index.get(hash);
+            if (candidate != null && regionEquals(base, candidate, target, pos, blockSize)) {
+                // Grow the match backwards into pending literals, then forwards as far as it goes.
+                int baseStart = candidate;
+                int targetStart = pos;
+                while (targetStart > literalStart && baseStart > 0 && base[baseStart - 1] == target[targetStart - 1]) {
+                    baseStart--;
+                    targetStart--;
+                }
+                int length = pos + blockSize - targetStart;
+                while (baseStart + length < base.length && targetStart + length < target.length
+                        && base[baseStart + length] == target[targetStart + length]) {
+                    length++;
+                }
+                writeInsert(patch, target, literalStart, targetStart - literalStart);
+                patch.write(OP_COPY);
+                writeVarint(patch, baseStart);
+                writeVarint(patch, length);
+
+                pos = targetStart + length;
+                literalStart = pos;
+                if (pos + blockSize <= target.length) hash = RollingHash.of(target, pos, blockSize);
+            } else {
+                if (pos + blockSize < target.length) hash = RollingHash.roll(hash, target[pos], target[pos + blockSize], blockSize);
+                pos++;
+            }
+        }
+        writeInsert(patch, target, literalStart, target.length - literalStart);
+        return patch.toByteArray();
+    }
+
+    /**
+     * Rebuilds the target from the base and a patch.
+     *
+     * @throws DataFormatException if the patch was made against a different base, is malformed,
+     *                             exceeds maxBytes, or the result fails its checksum.
+     */
+    @NonNull
+    public static byte[] apply(@NonNull byte[] base, @NonNull byte[] patch, int maxBytes) throws DataFormatException {
+        return apply(base, base.length, patch, maxBytes);
+    }
+
+    // Same, with the base in the first baseLength bytes of an array, e.g. a pooled buffer's.
+    @NonNull
+    public static byte[] apply(@NonNull byte[] base, int baseLength, @NonNull byte[] patch, int maxBytes) throws DataFormatException {
+        Reader reader = new Reader(patch);
+        int baseCrc = reader.readInt();
+        int targetCrc = reader.readInt();
+        if (baseCrc != crc32(base, baseLength)) throw new DataFormatException("Patch was made against a different base.");
+        int length = reader.readVarint();
+        if (length < 0) throw new DataFormatException("Negative patched length.");
+        if (length > maxBytes) throw new DataFormatException("Patched clip exceeds " + maxBytes + " bytes.");
+
+        byte[] target = new byte[length];
+        int written = 0;
+        while (reader.hasRemaining()) {
+            int op = reader.readByte();
+            if (op == OP_COPY) {
+                int offset = reader.readVarint();
+                int count = reader.readVarint();
+                // Compared so that a peer's values near Integer.MAX_VALUE cannot overflow past the checks
+                if (offset < 0 || count < 0 || offset > baseLength - count || count > length - written) {
+                    throw new DataFormatException("COPY out of range.");
+                }
+                System.arraycopy(base, offset, target, written, count);
+                written += count;
+            } else if (op == OP_INSERT) {
+                int count = reader.readVarint();
+                if (count < 0 || count > length - written) throw new DataFormatException("INSERT out of range.");
+                reader.readBytes(target, written, count);
+                written += count;
+            } else {
+                throw new DataFormatException("Unknown patch op: " + op);
+            }
+        }
+        if (written != length || crc32(target) != targetCrc) throw new DataFormatException("Patched clip failed its checksum.");
+        return target;
+    }
+
+    private static int blockSizeFor(int length) {
+        return Math.max(MIN_BLOCK_SIZE, Math.min(MAX_BLOCK_SIZE, (int) Math.sqrt(length)));
+    }
+
+    private static Map<Integer, Integer> indexBlocks(byte[] base, int blockSize) {
+        Map<Integer, Integer> index = new HashMap<>();
+        for (int offset = 0; offset + blockSize <= base.length; offset += blockSize) {
+            index.putIfAbsent(RollingHash.of(base, offset, blockSize), offset);
+        }
+        return index;
+    }
+
+    private static boolean regionEquals(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[aOffset + i] != b[bOffset + i]) return false;
+        }
+        return true;
+    }
+
+    static int crc32(byte[] data) {
+        return crc32(data, data.length);
+    }
+
+    private static int crc32(byte[] data, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        return (int) crc.getValue();
+    }
+
+    private static void writeInsert(ByteArrayOutputStream patch, byte[] source, int offset, int length) {
+        if (length == 0) return;
+        patch.write(OP_INSERT);
+        writeVarint(patch, length);
+        patch.write(source, offset, length);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    // Unsigned LEB128
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    // Adler-style weak checksum that can slide one byte at a time.
+    private static final class RollingHash {
+
+        static int of(byte[] data, int offset, int length) {
+            int a = 0;
+            int b = 0;
+            for (int i = 0; i < length; i++) {
+                int value = data[offset + i] & 0xFF;
+                a += value;
+                b += (length - i) * value;
+            }
+            return (b << 16) | (a & 0xFFFF);
+        }
+
+        static int roll(int hash, byte out, byte in, int length) {
+            int a = hash & 0xFFFF;
+            int b = hash >>> 16;
+            a = (a - (out & 0xFF) + (in & 0xFF)) & 0xFFFF;
+            b = (b - length * (out & 0xFF) + a) & 0xFFFF;
+            return (b << 16) | a;
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int pos;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        boolean hasRemaining() {
+            return pos < data.length;
+        }
+
+        int readByte() throws DataFormatException {
+            if (pos >= data.length) throw new DataFormatException("Truncated patch.");
+            return data[pos++] & 0xFF;
+        }
+
+        int readInt() throws DataFormatException {
+            return readByte() | readByte() << 8 | readByte() << 16 | readByte() << 24;
+        }
+
+        int readVarint() throws DataFormatException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new DataFormatException("Malformed varint.");
+        }
+
+        void readBytes(byte[] target, int offset, int length) throws DataFormatException {
+            if (length > data.length - pos) throw new DataFormatException("Truncated patch.");
+            System.arraycopy(data, pos, target, offset, length);
+            pos += length;
+        }
+    }
+}
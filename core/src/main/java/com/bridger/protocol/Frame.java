@@ -0,0 +1,169 @@
+package com.bridger.protocol;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * One packet of the Bridger wire protocol, used on both characteristics.
+ * <pre>
+ * | type (1) | flags (1) | message id (2) | chunk index (2) | total length (4) | payload |
+ * </pre>
+ * All fields are little-endian. A message is split into consecutive chunks that share a message id;
+ * the chunk index is a wrapping uint16 sequence number, and total length is the size of the whole message.
+ * Flags describe how the message payload is encoded, e.g. {@link #FLAG_DEFLATE}.
+ */
+public record Frame(@NonNull Type type, int flags, int messageId, int chunkIndex, int totalLength, @NonNull byte[] payload) {
+
+    public static final int HEADER_SIZE = 10;
+
+    // Payload encoding flags
+    public static final int FLAG_DEFLATE = 0x01; // Message payload is raw DEFLATE (RFC 1951)
+    public static final int FLAG_DELTA = 0x02; // Message payload is a DeltaCodec patch against the last clip synced in this direction
+
+    // Optional protocol features, announced in HELLO
+    public static final int FEATURE_DELTA = 0x01;
+    public static final int FEATURE_RESUME = 0x02; // Progress ACKs and RESUME, so a transfer continues after a link drop
+    public static final int FEATURE_DELIVERY = 0x04; // APPLIED once a clip is on the receiver's clipboard
+
+    public enum Type {
+        TEXT(0x01),   // Clipboard text, UTF-8
+        CREDIT(0x02), // Flow-control grant, payload is a uint16 credit count
+        HELLO(0x03),  // Capability exchange on connect, payload is protocol version + codec bitmask + feature bitmask
+        RESYNC(0x04), // A delta message could not be applied; the sender resends that message in full
+        CANCEL(0x05), // The sender stopped a message part-way; the receiver drops what it has of it
+        ACK(0x06),    // Receiver progress on a message: chunk index is the next chunk expected, total length the bytes received in order
+        RESUME(0x07), // After a link drop the sender asks how much of a message arrived; the receiver answers with ACK
+        BLOB(0x08),   // Binary clip streamed to a file, payload is a MIME type length byte, the MIME type, then the content
+        APPLIED(0x09); // The receiver applied a text message; total length is its decoded size
+
+        private final byte code;
+
+        Type(int code) {
+            this.code = (byte) code;
+        }
+
+        public byte code() {
+            return code;
+        }
+
+        @NonNull
+        public static Type fromCode(byte code) {
+            for (Type type : values()) {
+                if (type.code == code) return type;
+            }
+            throw new IllegalArgumentException("Unknown frame type: " + code);
+        }
+    }
+
+    @NonNull
+    public byte[] encode() {
+        return ByteBuffer.allocate(HEADER_SIZE + payload.length)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .put(type.code())
+                .put((byte) flags)
+                .putShort((short) messageId)
+                .putShort((short) chunkIndex)
+                .putInt(totalLength)
+                .put(payload)
+                .array();
+    }
+
+    /**
+     * Parses a received packet.
+     *
+     * @throws IllegalArgumentException if the packet is too short or has an unknown type.
+     */
+    @NonNull
+    public static Frame decode(@NonNull byte[] packet) {
+        if (packet.length < HEADER_SIZE) {
+            throw new IllegalArgumentException("Packet shorter than frame header: " + packet.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(packet).order(ByteOrder.LITTLE_ENDIAN);
+        Type type = Type.fromCode(buffer.get());
+        int flags = buffer.get() & 0xFF;
+        int messageId = buffer.getShort() & 0xFFFF;
+        int chunkIndex = buffer.getShort() & 0xFFFF;
+        int totalLength = buffer.getInt();
+        if (totalLength < 0) {
+            throw new IllegalArgumentException("Negative message length: " + totalLength);
+        }
+        byte[] payload = new byte[buffer.remaining()];
+        buffer.get(payload);
+        return new Frame(type, flags, messageId, chunkIndex, totalLength, payload);
+    }
+
+    // Header fields read in place, for callers that handle a packet without decoding it. The packet must hold a full header.
+
+    public static int messageIdOf(@NonNull byte[] packet) {
+        return (packet[2] & 0xFF) | (packet[3] & 0xFF) << 8;
+    }
+
+    public static int chunkIndexOf(@NonNull byte[] packet) {
+        return (packet[4] & 0xFF) | (packet[5] & 0xFF) << 8;
+    }
+
+    public static int totalLengthOf(@NonNull byte[] packet) {
+        return (packet[6] & 0xFF) | (packet[7] & 0xFF) << 8 | (packet[8] & 0xFF) << 16 | packet[9] << 24;
+    }
+
+    // Single-frame credit grant, sent by the receiving side of a streaming transfer.
+    @NonNull
+    public static Frame credit(int messageId, int credits) {
+        byte[] payload = {(byte) credits, (byte) (credits >> 8)};
+        return new Frame(Type.CREDIT, 0, messageId, 0, payload.length, payload);
+    }
+
+    // Capability announcement, sent by each side once the link is ready.
+    @NonNull
+    public static Frame hello(int protocolVersion, int codecMask, int featureMask) {
+        byte[] payload = {(byte) protocolVersion, (byte) codecMask, (byte) featureMask};
+        return new Frame(Type.HELLO, 0, 0, 0, payload.length, payload);
+    }
+
+    public int helloCodecMask() {
+        if (type != Type.HELLO || payload.length < 2) return 0;
+        return payload[1] & 0xFF;
+    }
+
+    // Peers that predate feature negotiation send a two-byte HELLO and support none.
+    public int helloFeatureMask() {
+        if (type != Type.HELLO || payload.length < 3) return 0;
+        return payload[2] & 0xFF;
+    }
+
+    // Asks the sender of messageId to send it again without delta encoding.
+    @NonNull
+    public static Frame resync(int messageId) {
+        return new Frame(Type.RESYNC, 0, messageId, 0, 0, new byte[0]);
+    }
+
+    @NonNull
+    public static Frame cancel(int messageId) {
+        return new Frame(Type.CANCEL, 0, messageId, 0, 0, new byte[0]);
+    }
+
+    // Progress report for messageId; receivedBytes equal to the message length means it is complete.
+    @NonNull
+    public static Frame ack(int messageId, int nextChunk, int receivedBytes) {
+        return new Frame(Type.ACK, 0, messageId, nextChunk, receivedBytes, new byte[0]);
+    }
+
+    // Asks the receiver where to continue messageId, whose full length is totalLength.
+    @NonNull
+    public static Frame resume(int messageId, int totalLength) {
+        return new Frame(Type.RESUME, 0, messageId, 0, totalLength, new byte[0]);
+    }
+
+    // Confirms that messageId was decoded and applied, so the sender can stop waiting and stop resending it.
+    @NonNull
+    public static Frame applied(int messageId, int decodedLength) {
+        return new Frame(Type.APPLIED, 0, messageId, 0, decodedLength, new byte[0]);
+    }
+
+    public int creditCount() {
+        if (type != Type.CREDIT || payload.length < 2) return -1;
+        return (payload[0] & 0xFF) | (payload[1] & 0xFF) << 8;
+    }
+}
@@ -0,0 +1,259 @@
+package com.bridger.protocol;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Rebuilds messages from received frames.
+ * Chunks of a message must arrive in sequence; a gap, or a message that stalls for longer
+ * than the timeout, discards the partial message instead of delivering a broken clip.
+ * Across a link drop, partial messages can be kept and continued, see {@link #resume} and {@link #progress}.
+ * Message buffers come from a {@link BufferPool}, and {@link #accept(byte[])} copies chunks straight out of the
+ * received packet, so a warm reassembler allocates nothing per chunk or per message.
+ * The length in a message's first chunk is only checked against the maximum, never allocated up front: the buffer
+ * starts at {@value #INITIAL_BUFFER_BYTES} bytes and doubles as chunks arrive, so a bogus length costs no more than
+ * the bytes the peer actually sends.
+ */
+public class FrameReassembler {
+
+    static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * A completed message. The payload is a pooled buffer from position 0 to its limit; hand it back with
+     * {@link #release} once it has been read.
+     */
+    public record Message(@NonNull Frame.Type type, int flags, int messageId, @NonNull ByteBuffer payload) {
+
+        public int length() {
+            return payload.limit();
+        }
+
+        // Copy of the payload, for callers that need an array of the exact length.
+        @NonNull
+        public byte[] bytes() {
+            byte[] bytes = new byte[payload.limit()];
+            payload.duplicate().position(0).get(bytes);
+            return bytes;
+        }
+    }
+
+    /**
+     * How far a partial message got.
+     *
+     * @param nextChunk Chunk index expected next.
+     * @param received  Bytes received in order.
+     * @param total     Length of the whole message.
+     */
+    public record Progress(int nextChunk, int received, int total) {}
+
+    private static class Partial {
+        final Frame.Type type;
+        final int flags;
+        final int total;
+        ByteBuffer buffer; // Limit at the bytes it has room for, up to total
+        int received;
+        int nextChunk;
+        long lastSeen;
+
+        Partial(Frame.Type type, int flags, int total, ByteBuffer buffer, long now) {
+            this.type = type;
+            this.flags = flags;
+            this.total = total;
+            this.buffer = buffer;
+            this.lastSeen = now;
+        }
+    }
+
+    private final Map<Integer, Partial> partials = new HashMap<>();
+    private final long timeoutMs;
+    private final int maxMessageBytes;
+    private final LongSupplier clock;
+    private final BufferPool pool;
+    private int discarded;
+
+    /**
+     * @param timeoutMs       How long a partial message may wait for its next chunk.
+     * @param maxMessageBytes Upper bound on a message's total length, protecting against bogus headers.
+     * @param clock           Millisecond clock, injectable for tests.
+     */
+    public FrameReassembler(long timeoutMs, int maxMessageBytes, @NonNull LongSupplier clock) {
+        this(timeoutMs, maxMessageBytes, clock, new BufferPool(maxMessageBytes, 1));
+    }
+
+    /**
+     * @param pool Where message buffers come from and go back to.
+     */
+    public FrameReassembler(long timeoutMs, int maxMessageBytes, @NonNull LongSupplier clock, @NonNull BufferPool pool) {
+        this.timeoutMs = timeoutMs;
+        this.maxMessageBytes = maxMessageBytes;
+        this.clock = clock;
+        this.pool = pool;
+    }
+
+    /**
+     * Feeds one frame.
+     *
+     * @return The completed message, or null if more chunks are needed or the frame was discarded.
+     */
+    @Nullable
+    public Message accept(@NonNull Frame frame) {
+        return accept(frame.type(), frame.flags(), frame.messageId(), frame.chunkIndex(), frame.totalLength(),
+                frame.payload(), 0, frame.payload().length);
+    }
+
+    /**
+     * Feeds one received packet without decoding it into a {@link Frame} first.
+     *
+     * @return The completed message, or null if more chunks are needed or the frame was discarded.
+     * @throws IllegalArgumentException if the packet is malformed, as {@link Frame#decode} would.
+     */
+    @Nullable
+    public Message accept(@NonNull byte[] packet) {
+        if (packet.length < Frame.HEADER_SIZE) {
+            throw new IllegalArgumentException("Packet shorter than frame header: " + packet.length);
+        }
+        int totalLength = Frame.totalLengthOf(packet);
+        if (totalLength < 0) {
+            throw new IllegalArgumentException("Negative message length: " + totalLength);
+        }
+        return accept(Frame.Type.fromCode(packet[0]), packet[1] & 0xFF, Frame.messageIdOf(packet), Frame.chunkIndexOf(packet),
+                totalLength, packet, Frame.HEADER_SIZE, packet.length - Frame.HEADER_SIZE);
+    }
+
+    // Returns a completed message's buffer to the pool.
+    public void release(@NonNull Message message) {
+        pool.release(message.payload());
+    }
+
+    @Nullable
+    private Message accept(Frame.Type type, int flags, int messageId, int chunkIndex, int totalLength,
+                           byte[] chunk, int offset, int length) {
+        long now = clock.getAsLong();
+        expire(now);
+
+        Partial partial = partials.get(messageId);
+        if (partial == null) {
+            if (chunkIndex != 0 || totalLength > maxMessageBytes || length > totalLength) {
+                discarded++; // Tail of a message we never saw the start of, or a bad header
+                return null;
+            }
+            ByteBuffer buffer = pool.acquire(Math.min(totalLength, Math.max(length, INITIAL_BUFFER_BYTES)));
+            partial = new Partial(type, flags, totalLength, buffer, now);
+            if (length < totalLength) partials.put(messageId, partial); // Otherwise a single-frame message
+        } else if (chunkIndex != partial.nextChunk || totalLength != partial.total
+                || partial.received + length > partial.total) {
+            remove(messageId);
+            discarded++;
+            return null;
+        }
+
+        grow(partial, partial.received + length);
+        System.arraycopy(chunk, offset, partial.buffer.array(), partial.received, length);
+        partial.received += length;
+        partial.nextChunk = (partial.nextChunk + 1) & 0xFFFF;
+        partial.lastSeen = now;
+
+        if (partial.received < partial.total) return null;
+        partials.remove(messageId);
+        return new Message(partial.type, partial.flags, messageId, partial.buffer);
+    }
+
+    // Doubles the buffer until needed bytes fit, never past the message's length
+    private void grow(Partial partial, int needed) {
+        ByteBuffer buffer = partial.buffer;
+        if (needed <= buffer.limit()) return;
+        int size = (int) Math.min(partial.total, Math.max(needed, buffer.limit() * 2L));
+        if (size <= buffer.capacity()) {
+            buffer.limit(size);
+            return;
+        }
+        ByteBuffer grown = pool.acquire(size);
+        System.arraycopy(buffer.array(), 0, grown.array(), 0, partial.received);
+        pool.release(buffer);
+        partial.buffer = grown;
+    }
+
+    private void remove(int messageId) {
+        Partial partial = partials.remove(messageId);
+        if (partial != null) pool.release(partial.buffer);
+    }
+
+    /**
+     * Drops partial messages whose last chunk is older than the timeout.
+     *
+     * @return The number of messages dropped.
+     */
+    public int expire(long now) {
+        int expired = 0;
+        Iterator<Partial> iterator = partials.values().iterator();
+        while (iterator.hasNext()) {
+            Partial partial = iterator.next();
+            if (now - partial.lastSeen > timeoutMs) {
+                iterator.remove();
+                pool.release(partial.buffer);
+                expired++;
+            }
+        }
+        discarded += expired;
+        return expired;
+    }
+
+    // Progress of a partial message, or null if there is none with that id.
+    @Nullable
+    public Progress progress(int messageId) {
+        Partial partial = partials.get(messageId);
+        return partial == null ? null : new Progress(partial.nextChunk, partial.received, partial.total);
+    }
+
+    /**
+     * Called when the link is back after a drop: partial messages older than maxAgeMs are dropped,
+     * and the others get a fresh timeout so the sender has time to resume them.
+     *
+     * @return The number of messages dropped.
+     */
+    public int resume(long now, long maxAgeMs) {
+        int dropped = 0;
+        Iterator<Partial> iterator = partials.values().iterator();
+        while (iterator.hasNext()) {
+            Partial partial = iterator.next();
+            if (now - partial.lastSeen > maxAgeMs) {
+                iterator.remove();
+                pool.release(partial.buffer);
+                dropped++;
+            } else {
+                partial.lastSeen = now;
+            }
+        }
+        discarded += dropped;
+        return dropped;
+    }
+
+    // Drops a partial message the sender has abandoned.
+    public void discard(int messageId) {
+        Partial partial = partials.remove(messageId);
+        if (partial == null) return;
+        pool.release(partial.buffer);
+        discarded++;
+    }
+
+    // Forgets all partial messages, e.g. when the link goes down.
+    public void clear() {
+        for (Partial partial : partials.values()) pool.release(partial.buffer);
+        partials.clear();
+    }
+
+    public int pendingCount() {
+        return partials.size();
+    }
+
+    // Total number of messages discarded because of gaps, bad headers or timeouts.
+    public int discardedCount() {
+        return discarded;
+    }
+}
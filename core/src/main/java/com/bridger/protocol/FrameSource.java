@@ -0,0 +1,17 @@
+package com.bridger.protocol;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+
+/**
+ * Produces the encoded frames of one outgoing message, one at a time, so a transfer can stop at any chunk boundary.
+ */
+public interface FrameSource {
+
+    boolean hasNext();
+
+    // Fails only for sources that read their payload while framing, such as a {@link StreamFramer}.
+    @NonNull
+    byte[] next() throws IOException;
+}
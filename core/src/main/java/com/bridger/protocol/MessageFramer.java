@@ -0,0 +1,80 @@
+package com.bridger.protocol;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Splits one outgoing message into encoded frames that each fit into a single ATT write.
+ * Frames are produced lazily so a transfer can stop at any chunk boundary.
+ */
+public class MessageFramer implements FrameSource {
+
+    private final Frame.Type type;
+    private final int flags;
+    private final int messageId;
+    private final byte[] payload;
+    private final int chunkSize;
+    private int offset;
+    private int chunkIndex;
+
+    /**
+     * @param maxFrameSize Largest packet the link accepts, i.e. MTU - 3.
+     */
+    public MessageFramer(@NonNull Frame.Type type, int flags, int messageId, @NonNull byte[] payload, int maxFrameSize) {
+        if (maxFrameSize <= Frame.HEADER_SIZE) {
+            throw new IllegalArgumentException("Frame size " + maxFrameSize + " leaves no room for payload.");
+        }
+        this.type = type;
+        this.flags = flags;
+        this.messageId = messageId;
+        this.payload = payload;
+        this.chunkSize = maxFrameSize - Frame.HEADER_SIZE;
+    }
+
+    public int messageId() {
+        return messageId;
+    }
+
+    public int size() {
+        return payload.length;
+    }
+
+    public int frameCount() {
+        return Math.max(1, (payload.length + chunkSize - 1) / chunkSize);
+    }
+
+    @Override
+    public boolean hasNext() {
+        // An empty message still takes one frame
+        return offset < payload.length || (chunkIndex == 0 && payload.length == 0);
+    }
+
+    // Bytes framed so far.
+    public int offset() {
+        return offset;
+    }
+
+    /**
+     * Continues from where the receiver stands, e.g. after a link drop. The chunk size may differ from the
+     * frames sent before, since the receiver only appends bytes in chunk order.
+     */
+    public void resumeAt(int offset, int chunkIndex) {
+        if (offset < 0 || offset > payload.length) {
+            throw new IllegalArgumentException("Resume offset " + offset + " outside message of " + payload.length + " bytes.");
+        }
+        this.offset = offset;
+        this.chunkIndex = chunkIndex;
+    }
+
+    @NonNull
+    @Override
+    public byte[] next() {
+        if (!hasNext()) throw new IllegalStateException("Message " + messageId + " is fully framed.");
+        int end = Math.min(offset + chunkSize, payload.length);
+        Frame frame = new Frame(type, flags, messageId, chunkIndex & 0xFFFF, payload.length, Arrays.copyOfRange(payload, offset, end));
+        offset = end;
+        chunkIndex++;
+        return frame.encode();
+    }
+}
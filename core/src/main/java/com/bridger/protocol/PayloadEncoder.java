@@ -0,0 +1,68 @@
+package com.bridger.protocol;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Turns an outgoing clip into the payload that goes on the wire.
+ * When a base is given, the clip is first delta-encoded against it, and the patch is used only
+ * if it is much smaller than the clip. The result is then compressed if it is above the compression
+ * threshold and compression actually makes it smaller; small clips skip both to avoid the CPU cost.
+ */
+public class PayloadEncoder {
+
+    // A patch is only sent if it is at most this fraction (1/n) of the full clip.
+    private static final int MAX_PATCH_FRACTION = 4;
+
+    /**
+     * @param payload      Bytes to put on the wire.
+     * @param flags        Frame flags describing the encoding.
+     * @param originalSize Size before encoding.
+     * @param encodeNanos  Time spent encoding, including attempts that were discarded.
+     */
+    public record Encoded(@NonNull byte[] payload, int flags, int originalSize, long encodeNanos) {
+
+        public double ratio() {
+            return payload.length == 0 ? 1.0 : (double) originalSize / payload.length;
+        }
+
+        public boolean isDelta() {
+            return (flags & Frame.FLAG_DELTA) != 0;
+        }
+    }
+
+    private final int compressionThresholdBytes;
+    private final int deltaThresholdBytes;
+
+    public PayloadEncoder(int compressionThresholdBytes, int deltaThresholdBytes) {
+        this.compressionThresholdBytes = compressionThresholdBytes;
+        this.deltaThresholdBytes = deltaThresholdBytes;
+    }
+
+    /**
+     * @param base  The last clip synced in this direction, or null to always send the clip in full.
+     * @param codec The negotiated compression codec.
+     */
+    @NonNull
+    public Encoded encode(@NonNull byte[] payload, @Nullable byte[] base, @NonNull Codec codec) {
+        long start = System.nanoTime();
+        byte[] body = payload;
+        int flags = 0;
+
+        if (base != null && payload.length >= deltaThresholdBytes) {
+            byte[] patch = DeltaCodec.encode(base, payload);
+            if (patch.length * MAX_PATCH_FRACTION <= payload.length) {
+                body = patch;
+                flags |= Frame.FLAG_DELTA;
+            }
+        }
+        if (codec != Codec.NONE && body.length >= compressionThresholdBytes) {
+            byte[] compressed = codec.encode(body);
+            if (compressed.length < body.length) {
+                body = compressed;
+                flags |= codec.frameFlag();
+            }
+        }
+        return new Encoded(body, flags, payload.length, System.nanoTime() - start);
+    }
+}
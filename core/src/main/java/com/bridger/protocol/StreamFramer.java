@@ -0,0 +1,85 @@
+package com.bridger.protocol;
+
+import androidx.annotation.NonNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Frames a {@link Frame.Type#BLOB} message straight from an InputStream, reading one chunk per frame,
+ * so memory use does not depend on the size of the content.
+ * The message payload is a one-byte MIME type length, the MIME type in ASCII, then the content.
+ */
+public class StreamFramer implements FrameSource {
+
+    public static final int MAX_MIME_TYPE_LENGTH = 255;
+
+    private final int messageId;
+    private final byte[] prefix;
+    private final InputStream content;
+    private final int totalLength;
+    private final int chunkSize;
+    private int offset;
+    private int chunkIndex;
+
+    /**
+     * @param contentLength Exact number of bytes the stream provides; the receiver preallocates nothing from it.
+     * @param maxFrameSize  Largest packet the link accepts, i.e. MTU - 3.
+     */
+    public StreamFramer(int messageId, @NonNull String mimeType, @NonNull InputStream content, long contentLength, int maxFrameSize) {
+        if (maxFrameSize <= Frame.HEADER_SIZE) {
+            throw new IllegalArgumentException("Frame size " + maxFrameSize + " leaves no room for payload.");
+        }
+        byte[] mime = mimeType.getBytes(StandardCharsets.US_ASCII);
+        if (mime.length > MAX_MIME_TYPE_LENGTH) {
+            throw new IllegalArgumentException("MIME type longer than " + MAX_MIME_TYPE_LENGTH + " bytes.");
+        }
+        if (contentLength < 0 || contentLength > Integer.MAX_VALUE - 1 - mime.length) {
+            throw new IllegalArgumentException("Content length " + contentLength + " does not fit a message.");
+        }
+        this.messageId = messageId;
+        this.prefix = new byte[1 + mime.length];
+        this.prefix[0] = (byte) mime.length;
+        System.arraycopy(mime, 0, prefix, 1, mime.length);
+        this.content = content;
+        this.totalLength = prefix.length + (int) contentLength;
+        this.chunkSize = maxFrameSize - Frame.HEADER_SIZE;
+    }
+
+    public int messageId() {
+        return messageId;
+    }
+
+    // Message length on the wire, MIME prefix included.
+    public int size() {
+        return totalLength;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return offset < totalLength;
+    }
+
+    @NonNull
+    @Override
+    public byte[] next() throws IOException {
+        if (!hasNext()) throw new IllegalStateException("Message " + messageId + " is fully framed.");
+        byte[] chunk = new byte[Math.min(chunkSize, totalLength - offset)];
+        int filled = 0;
+        if (offset < prefix.length) {
+            filled = Math.min(chunk.length, prefix.length - offset);
+            System.arraycopy(prefix, offset, chunk, 0, filled);
+        }
+        while (filled < chunk.length) {
+            int read = content.read(chunk, filled, chunk.length - filled);
+            if (read < 0) throw new EOFException("Content ended " + (totalLength - offset - filled) + " bytes early.");
+            filled += read;
+        }
+        Frame frame = new Frame(Frame.Type.BLOB, 0, messageId, chunkIndex & 0xFFFF, totalLength, chunk);
+        offset += chunk.length;
+        chunkIndex++;
+        return frame.encode();
+    }
+}
@@ -0,0 +1,199 @@
+package com.bridger.protocol;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Rebuilds {@link Frame.Type#BLOB} messages into files, writing each chunk as it arrives instead of
+ * buffering the message, so memory use does not depend on its size.
+ * Sequence and timeout rules are those of {@link FrameReassembler}; a discarded message's file is deleted.
+ */
+public class StreamReassembler {
+
+    /**
+     * A completed binary clip. The caller owns the file from here on.
+     *
+     * @param length Content length, without the MIME prefix.
+     */
+    public record Blob(int messageId, @NonNull String mimeType, @NonNull File file, long length) {}
+
+    private static class Partial {
+        final File file;
+        final int totalLength;
+        final byte[] prefix = new byte[1 + StreamFramer.MAX_MIME_TYPE_LENGTH];
+        int prefixLength = -1; // Known once the first byte arrived
+        @Nullable OutputStream out; // Opened once the MIME prefix is complete
+        String mimeType;
+        int received;
+        int nextChunk;
+        long lastSeen;
+
+        Partial(File file, int totalLength, long now) {
+            this.file = file;
+            this.totalLength = totalLength;
+            this.lastSeen = now;
+        }
+
+        void close() {
+            if (out == null) return;
+            try {
+                out.close();
+            } catch (IOException ignored) {
+                // Only reached when the message is dropped anyway
+            }
+        }
+    }
+
+    private final File directory;
+    private final long timeoutMs;
+    private final int maxMessageBytes;
+    private final LongSupplier clock;
+    private final Map<Integer, Partial> partials = new HashMap<>();
+    private int discarded;
+
+    /**
+     * @param directory       Where completed and partial files are written; created if missing.
+     * @param timeoutMs       How long a partial message may wait for its next chunk.
+     * @param maxMessageBytes Upper bound on a message's total length, so a bogus header cannot fill the disk.
+     * @param clock           Millisecond clock, injectable for tests.
+     */
+    public StreamReassembler(@NonNull File directory, long timeoutMs, int maxMessageBytes, @NonNull LongSupplier clock) {
+        this.directory = directory;
+        this.timeoutMs = timeoutMs;
+        this.maxMessageBytes = maxMessageBytes;
+        this.clock = clock;
+    }
+
+    /**
+     * Feeds one BLOB frame.
+     *
+     * @return The completed clip, or null if more chunks are needed or the frame was discarded.
+     * @throws IOException If the file cannot be written; the partial message is dropped.
+     */
+    @Nullable
+    public Blob accept(@NonNull Frame frame) throws IOException {
+        long now = clock.getAsLong();
+        expire(now);
+
+        Partial partial = partials.get(frame.messageId());
+        if (partial == null) {
+            if (frame.chunkIndex() != 0 || frame.totalLength() < 1 || frame.totalLength() > maxMessageBytes) {
+                discarded++; // Tail of a message we never saw the start of, or a bad header
+                return null;
+            }
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Cannot create " + directory + ".");
+            }
+            partial = new Partial(File.createTempFile("blob-", ".part", directory), frame.totalLength(), now);
+            partials.put(frame.messageId(), partial);
+        } else if (frame.chunkIndex() != partial.nextChunk || frame.totalLength() != partial.totalLength) {
+            drop(frame.messageId());
+            return null;
+        }
+        if (partial.received + frame.payload().length > partial.totalLength) {
+            drop(frame.messageId());
+            return null;
+        }
+
+        try {
+            write(partial, frame.payload());
+        } catch (IOException e) {
+            drop(frame.messageId());
+            throw e;
+        }
+        partial.received += frame.payload().length;
+        partial.nextChunk = (partial.nextChunk + 1) & 0xFFFF;
+        partial.lastSeen = now;
+
+        if (partial.received < partial.totalLength) return null;
+        partials.remove(frame.messageId());
+        if (partial.out == null) {
+            discarded++; // Ended inside its MIME prefix
+            partial.file.delete();
+            return null;
+        }
+        partial.out.close();
+        return new Blob(frame.messageId(), partial.mimeType, partial.file, partial.totalLength - partial.prefixLength);
+    }
+
+    // Splits the MIME prefix off the first bytes and streams the rest into the file.
+    private void write(@NonNull Partial partial, @NonNull byte[] chunk) throws IOException {
+        int position = 0;
+        if (partial.out == null) {
+            int prefixReceived = partial.received;
+            if (partial.prefixLength < 0 && chunk.length > 0) {
+                partial.prefixLength = 1 + (chunk[0] & 0xFF);
+            }
+            int take = Math.min(chunk.length, Math.max(0, partial.prefixLength - prefixReceived));
+            System.arraycopy(chunk, 0, partial.prefix, prefixReceived, take);
+            position = take;
+            if (prefixReceived + take < partial.prefixLength) return;
+            partial.mimeType = new String(partial.prefix, 1, partial.prefixLength - 1, StandardCharsets.US_ASCII);
+            partial.out = new BufferedOutputStream(new FileOutputStream(partial.file));
+        }
+        partial.out.write(chunk, position, chunk.length - position);
+    }
+
+    /**
+     * Drops partial messages whose last chunk is older than the timeout.
+     *
+     * @return The number of messages dropped.
+     */
+    public int expire(long now) {
+        int expired = 0;
+        Iterator<Partial> iterator = partials.values().iterator();
+        while (iterator.hasNext()) {
+            Partial partial = iterator.next();
+            if (now - partial.lastSeen > timeoutMs) {
+                iterator.remove();
+                delete(partial);
+                expired++;
+            }
+        }
+        discarded += expired;
+        return expired;
+    }
+
+    // Drops a partial message the sender has abandoned.
+    public void discard(int messageId) {
+        Partial partial = partials.remove(messageId);
+        if (partial != null) delete(partial);
+    }
+
+    // Drops all partial messages, e.g. when the link is lost.
+    public void clear() {
+        for (Partial partial : partials.values()) {
+            delete(partial);
+        }
+        partials.clear();
+    }
+
+    public int pendingCount() {
+        return partials.size();
+    }
+
+    public int discardedCount() {
+        return discarded;
+    }
+
+    private void drop(int messageId) {
+        discard(messageId);
+        discarded++;
+    }
+
+    private static void delete(@NonNull Partial partial) {
+        partial.close();
+        partial.file.delete();
+    }
+}
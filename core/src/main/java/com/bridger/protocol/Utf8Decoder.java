@@ -0,0 +1,97 @@
+package com.bridger.protocol;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes UTF-8 text fed in pieces, building the String once at the end.
+ * A multi-byte character split across two pieces is carried over to the next one instead of being replaced,
+ * and malformed input decodes to U+FFFD. The char buffer is kept between texts, up to maxRetainedChars; a text
+ * that fits within that limit grows the buffer to exactly the limit at most, so it is reused for the next one.
+ * Not thread-safe; one decoder per receiving thread.
+ */
+public class Utf8Decoder {
+
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer pending = ByteBuffer.allocate(4); // Start of a character split across pieces
+    private final int maxRetainedChars;
+    private CharBuffer chars;
+
+    public Utf8Decoder(int maxRetainedChars) {
+        this.maxRetainedChars = maxRetainedChars;
+        this.chars = CharBuffer.allocate(Math.min(1024, maxRetainedChars));
+    }
+
+    /**
+     * Decodes the next piece, consuming all of it.
+     */
+    public void feed(@NonNull ByteBuffer piece) {
+        // Complete a character left over from the previous piece; it needs at most 3 more bytes
+        while (pending.position() > 0 && piece.hasRemaining()) {
+            pending.put(piece.get());
+            pending.flip();
+            decode(pending, false);
+            pending.compact();
+        }
+        if (pending.position() > 0) return;
+        decode(piece, false);
+        if (piece.hasRemaining()) pending.put(piece); // The decoder leaves only an incomplete character behind
+    }
+
+    /**
+     * Ends the text: an incomplete character at the end decodes to U+FFFD.
+     *
+     * @return Everything fed since the last call.
+     */
+    @NonNull
+    public String finish() {
+        pending.flip();
+        decode(pending, true);
+        pending.clear();
+        while (decoder.flush(chars).isOverflow()) grow(1);
+        String text = chars.flip().toString();
+        decoder.reset();
+        if (chars.capacity() > maxRetainedChars) {
+            chars = CharBuffer.allocate(Math.min(1024, maxRetainedChars));
+        } else {
+            chars.clear();
+        }
+        return text;
+    }
+
+    // Decodes a whole text in one piece.
+    @NonNull
+    public String decode(@NonNull ByteBuffer text) {
+        feed(text);
+        return finish();
+    }
+
+    private void decode(ByteBuffer input, boolean endOfInput) {
+        // UTF-8 never decodes to more chars than it has bytes, so this is usually the only growth
+        if (chars.remaining() < input.remaining()) grow(input.remaining());
+        while (true) {
+            CoderResult result = decoder.decode(input, chars, endOfInput);
+            if (!result.isOverflow()) return;
+            grow(Math.max(2, input.remaining()));
+        }
+    }
+
+    private void grow(int needed) {
+        int required = chars.position() + needed;
+        int capacity = Math.max(chars.capacity() * 2, required);
+        // Doubling past the limit would make the buffer too large to keep, though the text still fits in it
+        if (capacity > maxRetainedChars && required <= maxRetainedChars) capacity = maxRetainedChars;
+        CharBuffer grown = CharBuffer.allocate(capacity);
+        chars.flip();
+        grown.put(chars);
+        chars = grown;
+    }
+}
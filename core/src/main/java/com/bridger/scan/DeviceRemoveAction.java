@@ -0,0 +1,14 @@
+package com.bridger.scan;
+
+// Action: a device should be removed
+class DeviceRemoveAction implements ScannerAction {
+    private final String deviceAddress;
+
+    public DeviceRemoveAction(String deviceAddress) {
+        this.deviceAddress = deviceAddress;
+    }
+
+    public String getDeviceAddress() {
+        return deviceAddress;
+    }
+}
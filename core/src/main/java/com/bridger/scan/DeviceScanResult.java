@@ -1,38 +1,21 @@
-package com.bridger.ui.scanner;
+package com.bridger.scan;
 
-import android.os.ParcelUuid;
-import com.bridger.constants.Constants;
-
-import java.util.List;
 import java.util.Objects;
 
-import no.nordicsemi.android.support.v18.scanner.ScanResult;
-
 public class DeviceScanResult {
     private final String name;
     private final String address;
     private int rssi; // Not final anymore, as it will be updated
     private long lastSeen; // Add a field for the last seen timestamp
-    private final ScanResult rawScanResult; // Keep it final, as this is the original scan result
     private final boolean isBridgerDevice; // New field to indicate if it's a Bridger device
 
-    public DeviceScanResult(ScanResult scanResult) {
-        this.rawScanResult = scanResult;
-        this.address = scanResult.getDevice().getAddress();
-        this.rssi = scanResult.getRssi();
-        this.name = scanResult.getScanRecord() != null ? scanResult.getScanRecord().getDeviceName() : "Unknown Device";
-        this.lastSeen = System.currentTimeMillis(); // Initialize on creation
-        this.isBridgerDevice = checkIsBridger(scanResult); // Determine Bridger status on creation
-    }
-
-    // Private constructor for creating updated copies
-    private DeviceScanResult(String name, String address, int rssi, long lastSeen, ScanResult rawScanResult, boolean isBridgerDevice) {
+    // Built by the app from a platform scan result, so this class stays free of Android types
+    public DeviceScanResult(String name, String address, int rssi, long lastSeen, boolean isBridgerDevice) {
         this.name = name;
         this.address = address;
         this.rssi = rssi;
         this.lastSeen = lastSeen;
-        this.rawScanResult = rawScanResult;
-        this.isBridgerDevice = isBridgerDevice; // Pass the flag
+        this.isBridgerDevice = isBridgerDevice;
     }
 
     public String getName() {
@@ -51,29 +34,13 @@ public class DeviceScanResult {
         return lastSeen;
     }
 
-    public ScanResult getRawScanResult() {
-        return rawScanResult;
-    }
-
     public boolean isBridgerDevice() {
         return isBridgerDevice;
     }
 
     // Method to create a new copy with updated RSSI and lastSeen
     public DeviceScanResult withUpdatedRssi(int newRssi) {
-        return new DeviceScanResult(this.name, this.address, newRssi, System.currentTimeMillis(), this.rawScanResult, this.isBridgerDevice);
-    }
-
-    // Helper method to check if the scan result contains the Bridger service UUID
-    private boolean checkIsBridger(ScanResult rawScanResult) {
-        if (rawScanResult == null || rawScanResult.getScanRecord() == null) {
-            return false;
-        }
-        List<ParcelUuid> serviceUuids = rawScanResult.getScanRecord().getServiceUuids();
-        if (serviceUuids == null) {
-            return false;
-        }
-        return serviceUuids.contains(new ParcelUuid(Constants.BRIDGER_SERVICE_UUID));
+        return new DeviceScanResult(this.name, this.address, newRssi, System.currentTimeMillis(), this.isBridgerDevice);
     }
 
     @Override
@@ -0,0 +1,14 @@
+package com.bridger.scan;
+
+// Action: a device is found or updated
+class DeviceUpsertAction implements ScannerAction {
+    private final DeviceScanResult device;
+
+    public DeviceUpsertAction(DeviceScanResult device) {
+        this.device = device;
+    }
+
+    public DeviceScanResult getDevice() {
+        return device;
+    }
+}
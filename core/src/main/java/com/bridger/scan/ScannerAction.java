@@ -0,0 +1,4 @@
+package com.bridger.scan;
+
+// Base interface for all scanner actions
+public interface ScannerAction {}
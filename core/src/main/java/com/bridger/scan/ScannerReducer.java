@@ -0,0 +1,55 @@
+package com.bridger.scan;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The device list state of the scanner screen: a map by address, updated one {@link ScannerAction} at a time,
+ * and the list shown from it, strongest signal first.
+ */
+public final class ScannerReducer {
+
+    private ScannerReducer() {}
+
+    @NonNull
+    public static ScannerAction upsert(@NonNull DeviceScanResult device) {
+        return new DeviceUpsertAction(device);
+    }
+
+    @NonNull
+    public static ScannerAction remove(@NonNull String address) {
+        return new DeviceRemoveAction(address);
+    }
+
+    /**
+     * Reducer for the scan operator. Updates the Map of devices based on the received action.
+     */
+    @NonNull
+    public static Map<String, DeviceScanResult> reduce(@NonNull Map<String, DeviceScanResult> currentMap, @NonNull ScannerAction action) {
+        Map<String, DeviceScanResult> newMap = new HashMap<>(currentMap); // Create a mutable copy of the Map
+
+        if (action instanceof DeviceUpsertAction upsertAction) {
+            DeviceScanResult newDevice = upsertAction.getDevice();
+            newMap.put(newDevice.getAddress(), newDevice); // Add or update device in Map
+        } else if (action instanceof DeviceRemoveAction removeAction) {
+            newMap.remove(removeAction.getDeviceAddress()); // Remove device from Map
+        }
+        return Collections.unmodifiableMap(newMap); // Return an unmodifiable Map
+    }
+
+    /**
+     * Converts a Map of devices to a sorted List.
+     */
+    @NonNull
+    public static List<DeviceScanResult> sorted(@NonNull Map<String, DeviceScanResult> deviceMap) {
+        List<DeviceScanResult> newList = new ArrayList<>(deviceMap.values());
+        // Sort the list by RSSI in descending order (strongest signal at the top)
+        newList.sort((d1, d2) -> Integer.compare(d2.getRssi(), d1.getRssi()));
+        return Collections.unmodifiableList(newList);
+    }
+}
@@ -0,0 +1,59 @@
+package com.bridger.schedulers;
+
+import androidx.annotation.NonNull;
+
+import com.bridger.constants.Constants;
+import com.bridger.metrics.MetricsRegistry;
+
+import java.util.List;
+
+import io.reactivex.rxjava3.core.Scheduler;
+
+/**
+ * The app's schedulers, one {@link NamedScheduler} per subsystem:
+ * <ul>
+ *     <li>encode: a few threads for hashing and compressing clips, kept off the BLE thread.</li>
+ *     <li>ui: one thread where screens and the notification subscribe and shape Store values before
+ *     handing them to the main thread.</li>
+ * </ul>
+ * Blocking disk work (journal commits, exports) stays on {@code Schedulers.io()}. BLE work has its own scheduler
+ * in the app, on the Looper thread the Nordic managers call back on.
+ */
+public class AppSchedulers {
+
+    private static volatile AppSchedulers instance;
+
+    private final NamedScheduler encode;
+    private final NamedScheduler ui;
+
+    private AppSchedulers(@NonNull MetricsRegistry registry) {
+        encode = new NamedScheduler("encode", Constants.ENCODE_LANE_THREADS, registry, System::nanoTime);
+        ui = new NamedScheduler("ui", 1, registry, System::nanoTime);
+    }
+
+    public static AppSchedulers getInstance() {
+        if (instance == null) {
+            synchronized (AppSchedulers.class) {
+                if (instance == null) {
+                    instance = new AppSchedulers(MetricsRegistry.getInstance());
+                }
+            }
+        }
+        return instance;
+    }
+
+    @NonNull
+    public Scheduler encode() {
+        return encode.scheduler();
+    }
+
+    @NonNull
+    public Scheduler ui() {
+        return ui.scheduler();
+    }
+
+    @NonNull
+    public List<NamedScheduler.Stats> stats() {
+        return List.of(encode.stats(), ui.stats());
+    }
+}
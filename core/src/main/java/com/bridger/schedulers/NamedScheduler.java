@@ -0,0 +1,124 @@
+package com.bridger.schedulers;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bridger.metrics.Counter;
+import com.bridger.metrics.Gauge;
+import com.bridger.metrics.Histogram;
+import com.bridger.metrics.LatencyHistogram;
+import com.bridger.metrics.MetricsRegistry;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * A scheduler on a fixed number of named threads, for one subsystem. Unlike {@code Schedulers.io()}, work never
+ * spreads over new threads: tasks queue up in order, and a single-threaded scheduler runs them one after another.
+ * Every task is counted, and the time it waited in the queue and the queue depth are kept in the
+ * {@link MetricsRegistry} as {@code scheduler_<name>_wait_us} and {@code scheduler_<name>_queue_depth}.
+ * It either owns its threads or wraps a single thread owned elsewhere, such as an Android Looper thread.
+ */
+public class NamedScheduler {
+
+    /**
+     * @param queueDepth Tasks waiting right now, not counting running ones.
+     * @param waitMicros Time from scheduling a task to its start.
+     */
+    public record Stats(@NonNull String name, int threads, long tasks, long queueDepth,
+                        @NonNull Histogram.Snapshot waitMicros) {}
+
+    private final String name;
+    private final int threads;
+    private final LongSupplier clock;
+    @Nullable private final ThreadPoolExecutor pool; // Null when running on a thread owned elsewhere
+    private final Executor executor;
+    private final Scheduler scheduler;
+    private final Counter tasks;
+    private final Gauge queueDepth;
+    private final LatencyHistogram wait;
+
+    /**
+     * @param threads Fixed pool size; 1 runs tasks strictly in order.
+     * @param clock   Nanosecond clock for the queue wait.
+     */
+    public NamedScheduler(@NonNull String name, int threads, @NonNull MetricsRegistry registry, @NonNull LongSupplier clock) {
+        this(name, threads, newPool(name, threads), true, registry, clock);
+    }
+
+    /**
+     * Runs on one thread owned elsewhere. {@link #shutdown()} leaves that thread alone.
+     *
+     * @param thread Runs tasks in order on a single thread, e.g. {@code handler::post}.
+     */
+    public NamedScheduler(@NonNull String name, @NonNull Executor thread, @NonNull MetricsRegistry registry, @NonNull LongSupplier clock) {
+        this(name, 1, thread, false, registry, clock);
+    }
+
+    private NamedScheduler(String name, int threads, Executor executor, boolean owned, MetricsRegistry registry, LongSupplier clock) {
+        this.name = name;
+        this.threads = threads;
+        this.clock = clock;
+        this.tasks = registry.counter("scheduler_" + name + "_tasks_total", "Tasks run on the " + name + " scheduler");
+        this.queueDepth = registry.gauge("scheduler_" + name + "_queue_depth", "Tasks waiting on the " + name + " scheduler");
+        this.wait = registry.histogram("scheduler_" + name + "_wait_us", "Time a task waited for the " + name + " scheduler");
+        this.pool = owned ? (ThreadPoolExecutor) executor : null;
+        this.executor = executor;
+        // Fair, so every Rx task goes through the executor on its own and is measured on its own
+        this.scheduler = Schedulers.from(this::execute, false, true);
+    }
+
+    private static ThreadPoolExecutor newPool(String name, int threads) {
+        AtomicInteger created = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bridger-" + name + "-" + created.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @NonNull
+    public String name() {
+        return name;
+    }
+
+    @NonNull
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    // Also usable as a plain Executor, with the same accounting
+    @NonNull
+    public Executor executor() {
+        return this::execute;
+    }
+
+    @NonNull
+    public Stats stats() {
+        return new Stats(name, threads, tasks.get(), queueDepth.get(), wait.snapshot());
+    }
+
+    // Running tasks finish; queued ones are dropped
+    public void shutdown() {
+        if (pool != null) queueDepth.add(-pool.shutdownNow().size());
+    }
+
+    private void execute(@NonNull Runnable task) {
+        long queuedAt = clock.getAsLong();
+        queueDepth.add(1);
+        executor.execute(() -> {
+            queueDepth.add(-1);
+            wait.record(Math.max(0, (clock.getAsLong() - queuedAt) / 1_000));
+            tasks.increment();
+            task.run();
+        });
+    }
+}
@@ -0,0 +1,72 @@
+package com.bridger.trace;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes clip traces in the Chrome trace event format, which Perfetto and chrome://tracing open.
+ * Each clip is a track of its own, holding a span for the whole clip and one per stage it reached.
+ */
+public final class ChromeTrace {
+
+    private static final int PID = 1;
+
+    private ChromeTrace() {}
+
+    @NonNull
+    public static String json(@NonNull List<ClipTrace.Snapshot> traces) {
+        StringBuilder json = new StringBuilder("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+        boolean first = true;
+        for (ClipTrace.Snapshot trace : traces) {
+            long start = trace.startNanos();
+            if (start == ClipTrace.NOT_REACHED) continue;
+            if (!first) json.append(',');
+            first = false;
+            String name = "clip " + trace.id();
+            json.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":").append(PID).append(",\"tid\":").append(trace.id())
+                    .append(",\"args\":{\"name\":").append(quote(name)).append("}}");
+            span(json, name, "clip", trace.id(), start, trace.totalNanos());
+            json.append(",\"args\":{\"label\":").append(quote(trace.label()))
+                    .append(",\"outcome\":").append(quote(trace.outcome() != null ? trace.outcome() : "pending")).append("}}");
+            long previous = start;
+            for (ClipTrace.Stage stage : ClipTrace.Stage.values()) {
+                if (!trace.reached(stage)) continue;
+                long at = trace.stageNanos()[stage.ordinal()];
+                if (stage.span != null && at >= previous) {
+                    span(json, stage.span, "stage", trace.id(), previous, at - previous);
+                    json.append('}');
+                }
+                previous = Math.max(previous, at);
+            }
+        }
+        return json.append("]}").toString();
+    }
+
+    // A complete ("X") event, left open for args.
+    private static void span(StringBuilder json, String name, String category, long tid, long startNanos, long durationNanos) {
+        json.append(",{\"name\":").append(quote(name)).append(",\"cat\":\"").append(category).append("\",\"ph\":\"X\",\"pid\":")
+                .append(PID).append(",\"tid\":").append(tid)
+                .append(",\"ts\":").append(micros(startNanos)).append(",\"dur\":").append(micros(durationNanos));
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.US, "%.3f", nanos / 1_000.0);
+    }
+
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format(Locale.US, "\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
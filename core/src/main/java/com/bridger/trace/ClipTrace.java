@@ -0,0 +1,117 @@
+package com.bridger.trace;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Timestamps of one outgoing clip, from the tap that started it to its completion, so a slow sync can be
+ * traced to the stage that took the time. Stages are marked from whichever thread reaches them, without locking.
+ * A stage reached by several peers keeps the earliest time, except the last chunk and completion, which keep the latest.
+ */
+public class ClipTrace {
+
+    public enum Stage {
+        TAP(null),                             // ClipboardHandlerActivity instantiated, the first the app sees of a tap
+        CREATE("launch activity"),
+        FOCUS("wait for focus"),
+        READ("read clipboard"),
+        DISPATCH("prepare event"),             // Just before the event is posted
+        SEND("store dispatch"),                // The connection manager has the event
+        FIRST_CHUNK("queue and first write"),  // First write response, from any peer
+        LAST_CHUNK("remaining writes"),        // Last write response, from the slowest peer
+        COMPLETE("confirm delivery");          // Every peer has the clip, or has applied it if it confirms
+
+        // The span that ends at this stage
+        @Nullable public final String span;
+
+        Stage(@Nullable String span) {
+            this.span = span;
+        }
+
+        boolean keepsLatest() {
+            return this == LAST_CHUNK || this == COMPLETE;
+        }
+    }
+
+    public static final long NOT_REACHED = Long.MIN_VALUE;
+
+    /**
+     * @param stageNanos Clock time of each stage by ordinal, NOT_REACHED for stages it did not get to.
+     * @param outcome    Null while the clip is still on its way.
+     */
+    public record Snapshot(long id, @NonNull String label, @NonNull long[] stageNanos, @Nullable String outcome) {
+
+        public boolean reached(@NonNull Stage stage) {
+            return stageNanos[stage.ordinal()] != NOT_REACHED;
+        }
+
+        // Nanoseconds from the first stage reached, or -1.
+        public long offsetNanos(@NonNull Stage stage) {
+            long start = startNanos();
+            return reached(stage) && start != NOT_REACHED ? stageNanos[stage.ordinal()] - start : -1;
+        }
+
+        // Nanoseconds from the first stage reached to the last.
+        public long totalNanos() {
+            long start = startNanos();
+            long end = NOT_REACHED;
+            for (long at : stageNanos) end = Math.max(end, at);
+            return start == NOT_REACHED ? 0 : end - start;
+        }
+
+        public long startNanos() {
+            for (long at : stageNanos) {
+                if (at != NOT_REACHED) return at;
+            }
+            return NOT_REACHED;
+        }
+    }
+
+    private final long id;
+    private final LongSupplier clock;
+    private final AtomicLongArray stageNanos = new AtomicLongArray(Stage.values().length);
+    private volatile String label = "";
+    @Nullable private volatile String outcome;
+
+    ClipTrace(long id, @NonNull LongSupplier clock) {
+        this.id = id;
+        this.clock = clock;
+        for (int i = 0; i < stageNanos.length(); i++) stageNanos.set(i, NOT_REACHED);
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public void mark(@NonNull Stage stage) {
+        long now = clock.getAsLong();
+        if (stage.keepsLatest()) {
+            stageNanos.accumulateAndGet(stage.ordinal(), now, Math::max);
+        } else {
+            stageNanos.compareAndSet(stage.ordinal(), NOT_REACHED, now);
+        }
+    }
+
+    // What was sent, e.g. "text, 12 KB".
+    public void setLabel(@NonNull String label) {
+        this.label = label;
+    }
+
+    void setOutcome(@NonNull String outcome) {
+        this.outcome = outcome;
+    }
+
+    boolean ended() {
+        return outcome != null;
+    }
+
+    @NonNull
+    public Snapshot snapshot() {
+        long[] stages = new long[stageNanos.length()];
+        for (int i = 0; i < stages.length; i++) stages[i] = stageNanos.get(i);
+        return new Snapshot(id, label, stages, outcome);
+    }
+}
@@ -0,0 +1,106 @@
+package com.bridger.trace;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bridger.constants.Constants;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+import io.reactivex.rxjava3.subjects.Subject;
+
+/**
+ * Starts a {@link ClipTrace} for every outgoing clip and keeps the last few in a ring buffer. A trace is found
+ * again by its id, which travels with the clip's SEND_REQUESTED event.
+ */
+public class ClipTracer {
+
+    // Ids start at 1; events without a trace carry this
+    public static final long NO_TRACE = 0;
+
+    private static volatile ClipTracer instance;
+
+    private final LongSupplier clock;
+    private final Subject<List<ClipTrace.Snapshot>> traces = PublishSubject.<List<ClipTrace.Snapshot>>create().toSerialized();
+
+    // Guarded by this
+    private final ClipTrace[] ring;
+    private long nextId = 1;
+
+    /**
+     * @param capacity Traces kept; starting one more evicts the oldest.
+     * @param clock    Nanosecond clock for the stage timestamps.
+     */
+    public ClipTracer(int capacity, @NonNull LongSupplier clock) {
+        this.ring = new ClipTrace[capacity];
+        this.clock = clock;
+    }
+
+    public static ClipTracer getInstance() {
+        if (instance == null) {
+            synchronized (ClipTracer.class) {
+                if (instance == null) {
+                    instance = new ClipTracer(Constants.TRACE_HISTORY, System::nanoTime);
+                }
+            }
+        }
+        return instance;
+    }
+
+    // A new trace, with TAP marked now.
+    @NonNull
+    public synchronized ClipTrace begin() {
+        ClipTrace trace = new ClipTrace(nextId++, clock);
+        ring[(int) (trace.id() % ring.length)] = trace;
+        trace.mark(ClipTrace.Stage.TAP);
+        return trace;
+    }
+
+    // The trace with this id, or null if it was never started or has been evicted.
+    @Nullable
+    public synchronized ClipTrace get(long id) {
+        if (id == NO_TRACE) return null;
+        ClipTrace trace = ring[(int) (id % ring.length)];
+        return trace != null && trace.id() == id ? trace : null;
+    }
+
+    // Marks COMPLETE and publishes. Safe to call with null, for clips sent without a trace.
+    public void complete(@Nullable ClipTrace trace) {
+        if (trace == null) return;
+        trace.mark(ClipTrace.Stage.COMPLETE);
+        end(trace, "sent");
+    }
+
+    // Ends a trace that never completes, such as an empty clipboard or a failed send, and publishes.
+    public void abandon(@Nullable ClipTrace trace, @NonNull String reason) {
+        if (trace == null) return;
+        end(trace, reason);
+    }
+
+    // Every trace kept, newest first.
+    @NonNull
+    public synchronized List<ClipTrace.Snapshot> snapshots() {
+        List<ClipTrace.Snapshot> snapshots = new ArrayList<>(ring.length);
+        for (long id = nextId - 1; id >= 1 && id >= nextId - ring.length; id--) {
+            snapshots.add(ring[(int) (id % ring.length)].snapshot());
+        }
+        return Collections.unmodifiableList(snapshots);
+    }
+
+    // Every trace kept, newest first, each time one ends.
+    @NonNull
+    public Observable<List<ClipTrace.Snapshot>> traces() {
+        return traces;
+    }
+
+    private void end(ClipTrace trace, String outcome) {
+        if (trace.ended()) return; // Only the first outcome counts
+        trace.setOutcome(outcome);
+        traces.onNext(snapshots());
+    }
+}
@@ -0,0 +1,162 @@
+package com.bridger.transfer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import com.bridger.metrics.Histogram;
+import com.bridger.transport.ClipboardTransport;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.CompletableEmitter;
+
+/**
+ * Orders packet writes to a {@link ClipboardTransport} by lane, so a control frame or a short clip never waits
+ * behind a large one. Only {@code window} packets are handed to the transport at a time; the rest wait here, where
+ * the next packet is always taken from the highest lane that has one. A bulk transfer is therefore preempted at the
+ * next packet boundary, while the transport's own queue stays too short to hold anything up.
+ * Records how long each packet waited here, per lane.
+ */
+public class LaneScheduler {
+
+    // Highest priority first.
+    public enum Lane {
+        CONTROL,     // HELLO, credits, ACK, RESUME, APPLIED and the like: single frames the peer is waiting on
+        INTERACTIVE, // Text clips
+        BULK         // Binary clips
+    }
+
+    /**
+     * @param depth  Packets waiting in the lane.
+     * @param sent   Packets handed to the transport so far.
+     * @param waitMs Time from submit until handed to the transport, in ms.
+     */
+    public record LaneStats(@NonNull Lane lane, int depth, long sent, @NonNull Histogram.Snapshot waitMs) {}
+
+    private record Entry(byte[] packet, boolean acknowledged, CompletableEmitter emitter, long submittedAt) {}
+
+    private final ClipboardTransport transport;
+    private final int window;
+    private final LongSupplier clock;
+
+    // Guarded by this
+    private final Map<Lane, Deque<Entry>> lanes = new EnumMap<>(Lane.class);
+    private final Map<Lane, Histogram> waits = new EnumMap<>(Lane.class);
+    private final Map<Lane, Long> sent = new EnumMap<>(Lane.class);
+    private int inFlight;
+    private int wip; // Drain requests; only the thread that raised it from 0 writes
+
+    /**
+     * @param window Packets handed to the transport and not yet completed, at most.
+     * @param clock  Millisecond clock for the wait times.
+     */
+    public LaneScheduler(@NonNull ClipboardTransport transport, int window, @NonNull LongSupplier clock) {
+        if (window < 1) throw new IllegalArgumentException("window must be at least 1");
+        this.transport = transport;
+        this.window = window;
+        this.clock = clock;
+        for (Lane lane : Lane.values()) {
+            lanes.put(lane, new ArrayDeque<>());
+            waits.put(lane, Histogram.exponential(1, 14)); // 1 ms up to about 8 s
+            sent.put(lane, 0L);
+        }
+    }
+
+    /**
+     * Queues a packet on a lane. The Completable ends as the transport's write does.
+     */
+    @NonNull
+    public Completable submit(@NonNull Lane lane, @NonNull byte[] packet, boolean acknowledged) {
+        return Completable.create(emitter -> {
+            synchronized (this) {
+                lanes.get(lane).add(new Entry(packet, acknowledged, emitter, clock.getAsLong()));
+            }
+            drain();
+        });
+    }
+
+    /**
+     * Fails every packet still waiting, e.g. when the link is lost. Packets already handed to the transport
+     * end as their writes do.
+     */
+    public void clear(@NonNull Throwable error) {
+        List<Entry> dropped = new ArrayList<>();
+        synchronized (this) {
+            for (Deque<Entry> queue : lanes.values()) {
+                dropped.addAll(queue);
+                queue.clear();
+            }
+        }
+        for (Entry entry : dropped) {
+            entry.emitter.tryOnError(error);
+        }
+    }
+
+    @NonNull
+    public synchronized List<LaneStats> stats() {
+        List<LaneStats> stats = new ArrayList<>(lanes.size());
+        for (Lane lane : Lane.values()) {
+            stats.add(new LaneStats(lane, lanes.get(lane).size(), sent.get(lane), waits.get(lane).snapshot()));
+        }
+        return stats;
+    }
+
+    // Writes while the window has room. Completions that arrive synchronously only raise wip, so the
+    // outer loop picks up their follow-up packets instead of recursing.
+    private void drain() {
+        synchronized (this) {
+            if (wip++ > 0) return;
+        }
+        int missed = 1;
+        while (true) {
+            while (true) {
+                Entry next = null;
+                synchronized (this) {
+                    if (inFlight < window) next = poll();
+                    if (next != null) inFlight++;
+                }
+                if (next == null) break;
+                Entry entry = next;
+                transport.write(entry.packet, entry.acknowledged).subscribe(() -> {
+                    release();
+                    entry.emitter.onComplete();
+                    drain(); // After the completion, so a packet it submits competes for the free slot
+                }, error -> {
+                    release();
+                    entry.emitter.tryOnError(error);
+                    drain();
+                });
+            }
+            synchronized (this) {
+                wip -= missed;
+                missed = wip;
+                if (missed == 0) return;
+            }
+        }
+    }
+
+    private synchronized void release() {
+        inFlight--;
+    }
+
+    // Takes the next packet from the highest lane that has one. Must be called with this held.
+    @Nullable
+    private Entry poll() {
+        for (Lane lane : Lane.values()) {
+            Entry entry = lanes.get(lane).poll();
+            if (entry != null) {
+                waits.get(lane).record(clock.getAsLong() - entry.submittedAt);
+                sent.merge(lane, 1L, Long::sum);
+                return entry;
+            }
+        }
+        return null;
+    }
+}
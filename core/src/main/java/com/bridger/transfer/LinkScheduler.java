@@ -0,0 +1,93 @@
+package com.bridger.transfer;
+
+import androidx.annotation.Nullable;
+
+import com.bridger.model.LinkMode;
+
+/**
+ * Decides which {@link LinkMode} the link should be in.
+ * Any outgoing work switches straight to {@link LinkMode#BURST}. Once the queue drains, the link steps down to
+ * {@link LinkMode#BALANCED} after {@code balancedAfterMs} and to {@link LinkMode#LOW_POWER} after {@code lowPowerAfterMs},
+ * both counted from the moment it went idle.
+ * The scheduler only decides; the caller applies the returned modes and schedules {@link #step} using {@link #nextStepDelay}.
+ */
+public class LinkScheduler {
+
+    private final long balancedAfterMs;
+    private final long lowPowerAfterMs;
+    private LinkMode mode = LinkMode.BALANCED;
+    private boolean busy;
+    private long idleSince;
+
+    public LinkScheduler(long balancedAfterMs, long lowPowerAfterMs) {
+        if (lowPowerAfterMs < balancedAfterMs) {
+            throw new IllegalArgumentException("lowPowerAfterMs must not be shorter than balancedAfterMs");
+        }
+        this.balancedAfterMs = balancedAfterMs;
+        this.lowPowerAfterMs = lowPowerAfterMs;
+    }
+
+    public synchronized LinkMode mode() {
+        return mode;
+    }
+
+    /**
+     * Records that a transfer is queued or running.
+     *
+     * @return {@link LinkMode#BURST} if the link has to switch, otherwise null.
+     */
+    @Nullable
+    public synchronized LinkMode onBusy() {
+        busy = true;
+        return switchTo(LinkMode.BURST);
+    }
+
+    // Records that the outbound queue drained. Repeated calls keep the original idle start.
+    public synchronized void onIdle(long now) {
+        if (!busy) return;
+        busy = false;
+        idleSince = now;
+    }
+
+    /**
+     * Steps down if the link has been idle long enough.
+     *
+     * @return The new mode, or null if it stays the same.
+     */
+    @Nullable
+    public synchronized LinkMode step(long now) {
+        if (busy) return null;
+        long idleFor = now - idleSince;
+        if (idleFor >= lowPowerAfterMs) return switchTo(LinkMode.LOW_POWER);
+        if (idleFor >= balancedAfterMs && mode == LinkMode.BURST) return switchTo(LinkMode.BALANCED);
+        return null;
+    }
+
+    /**
+     * @return Milliseconds until {@link #step} can next change the mode, or -1 if nothing is due.
+     */
+    public synchronized long nextStepDelay(long now) {
+        if (busy || mode == LinkMode.LOW_POWER) return -1;
+        long due = idleSince + (mode == LinkMode.BURST ? balancedAfterMs : lowPowerAfterMs);
+        return Math.max(0, due - now);
+    }
+
+    // Starts over for a new link, which the stack opens with balanced parameters.
+    public synchronized void reset(long now) {
+        reset(now, LinkMode.BALANCED);
+    }
+
+    // Starts over for a new link whose setup already requested the given mode; it steps down from there.
+    public synchronized void reset(long now, LinkMode initial) {
+        mode = initial;
+        busy = false;
+        idleSince = now;
+    }
+
+    @Nullable
+    private LinkMode switchTo(LinkMode next) {
+        if (mode == next) return null;
+        mode = next;
+        return next;
+    }
+}
@@ -0,0 +1,141 @@
+package com.bridger.transfer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Outgoing transfer queue with one active item.
+ * In {@link Mode#LATEST_WINS} only the newest clip matters: a new item replaces the pending one
+ * and flags the active transfer as cancelled, so the sender can stop it at the next chunk boundary.
+ * In {@link Mode#NEVER_CANCEL} every item is kept and sent in order.
+ * Items handed back by {@link #offer} and {@link #clear} are the caller's to fail.
+ */
+public class OutboundQueue<T> {
+
+    public enum Mode {
+        LATEST_WINS,
+        NEVER_CANCEL
+    }
+
+    /**
+     * @param depth     Items waiting or in progress.
+     * @param dropped   Pending items replaced before they started.
+     * @param cancelled Active transfers stopped part-way by a newer item.
+     */
+    public record Stats(int depth, long dropped, long cancelled) {}
+
+    private final Deque<T> pending = new ArrayDeque<>();
+    @Nullable private T active;
+    private boolean activeCancelled;
+    private Mode mode;
+    private long dropped;
+    private long cancelled;
+
+    public OutboundQueue(@NonNull Mode mode) {
+        this.mode = mode;
+    }
+
+    public synchronized void setMode(@NonNull Mode mode) {
+        this.mode = mode;
+    }
+
+    @NonNull
+    public synchronized Mode mode() {
+        return mode;
+    }
+
+    /**
+     * Queues an item.
+     *
+     * @return Pending items it superseded; they will never be started.
+     */
+    @NonNull
+    public synchronized List<T> offer(@NonNull T item) {
+        List<T> superseded = mode == Mode.LATEST_WINS ? supersede() : new ArrayList<>();
+        pending.add(item);
+        return superseded;
+    }
+
+    /**
+     * Drops every pending item and flags the active one as cancelled, as a newer item does in
+     * {@link Mode#LATEST_WINS}; used when that newer item went to another queue.
+     *
+     * @return The pending items dropped.
+     */
+    @NonNull
+    public synchronized List<T> supersede() {
+        List<T> superseded = new ArrayList<>(pending);
+        dropped += pending.size();
+        pending.clear();
+        if (active != null && !activeCancelled) {
+            activeCancelled = true;
+            cancelled++;
+        }
+        return superseded;
+    }
+
+    /**
+     * Makes the next pending item active if nothing is in progress.
+     *
+     * @return The newly active item, or null if busy or empty.
+     */
+    @Nullable
+    public synchronized T activateNext() {
+        if (active != null) return null;
+        active = pending.poll();
+        activeCancelled = false;
+        return active;
+    }
+
+    @Nullable
+    public synchronized T active() {
+        return active;
+    }
+
+    // True once a newer item asked the active transfer to stop.
+    public synchronized boolean isActiveCancelled() {
+        return active != null && activeCancelled;
+    }
+
+    /**
+     * Releases the active slot.
+     *
+     * @return false if the item was no longer active, e.g. it was already finished.
+     */
+    public synchronized boolean finish(@NonNull T item) {
+        if (active != item) return false;
+        active = null;
+        activeCancelled = false;
+        return true;
+    }
+
+    /**
+     * Empties the queue, e.g. when the link is lost.
+     *
+     * @return The active and pending items, for the caller to fail.
+     */
+    @NonNull
+    public synchronized List<T> clear() {
+        List<T> removed = new ArrayList<>();
+        if (active != null) removed.add(active);
+        removed.addAll(pending);
+        active = null;
+        activeCancelled = false;
+        pending.clear();
+        return removed;
+    }
+
+    public synchronized int depth() {
+        return pending.size() + (active != null ? 1 : 0);
+    }
+
+    @NonNull
+    public synchronized Stats stats() {
+        return new Stats(depth(), dropped, cancelled);
+    }
+}
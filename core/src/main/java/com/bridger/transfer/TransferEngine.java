@@ -0,0 +1,1034 @@
+package com.bridger.transfer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.zip.DataFormatException;
+
+import com.bridger.constants.Constants;
+import com.bridger.model.Delivery;
+import com.bridger.model.TransferStats;
+import com.bridger.protocol.BufferPool;
+import com.bridger.protocol.Codec;
+import com.bridger.protocol.CreditWindow;
+import com.bridger.protocol.DeltaCodec;
+import com.bridger.protocol.Frame;
+import com.bridger.protocol.FrameReassembler;
+import com.bridger.protocol.FrameSource;
+import com.bridger.protocol.MessageFramer;
+import com.bridger.protocol.PayloadEncoder;
+import com.bridger.protocol.StreamFramer;
+import com.bridger.protocol.StreamReassembler;
+import com.bridger.protocol.Utf8Decoder;
+import com.bridger.trace.ClipTrace;
+import com.bridger.transport.ClipboardTransport;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.CompletableEmitter;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.disposables.CompositeDisposable;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+import io.reactivex.rxjava3.subjects.Subject;
+
+/**
+ * The clip sync protocol on top of any {@link ClipboardTransport}: outbound queueing, delta encoding,
+ * compression, framing, credit flow control, reassembly and decoding.
+ * Binary clips take a separate path: they are framed straight from an InputStream and written to a file
+ * on the receiving side, so neither end ever holds one in memory.
+ * When both ends support it, a transfer interrupted by a link drop is suspended rather than failed: after the
+ * reconnect the sender asks the receiver how far it got with RESUME and continues from there, unless the link
+ * stayed down longer than the session expiry.
+ * A text clip sent to a peer that confirms delivery completes only once the peer reports it applied, and is
+ * resent in full if that confirmation does not arrive in time.
+ * Text and binary clips have separate queues, and every write goes through a {@link LaneScheduler}: control
+ * frames first, then text, then binary clips, so a short clip overtakes a large file at the next packet.
+ * It has no Android dependencies, so the whole send and receive path runs against a {@code LoopbackTransport}.
+ */
+public class TransferEngine {
+
+    // Receives diagnostics; the BLE side forwards them to logcat.
+    public interface Logger {
+        void info(@NonNull String message);
+
+        void warn(@NonNull String message);
+
+        Logger NONE = new Logger() {
+            @Override
+            public void info(@NonNull String message) {}
+
+            @Override
+            public void warn(@NonNull String message) {}
+        };
+    }
+
+    private final ClipboardTransport transport;
+    private final Scheduler scheduler;
+    private final Scheduler encodeScheduler;
+    private final LongSupplier clock;
+    private final long sessionExpiryMs;
+    private final Logger logger;
+    private final CompositeDisposable disposables = new CompositeDisposable();
+
+    private final LaneScheduler lanes;
+    private final CreditWindow creditWindow = new CreditWindow();
+    private final FrameReassembler reassembler;
+    @Nullable private volatile StreamReassembler blobReassembler; // Null until a blob directory is set
+
+    // Outgoing transfers, one active per lane; the queues have their own locks, the rest is guarded by transferLock
+    private final OutboundQueue<OutgoingTransfer> textQueue = new OutboundQueue<>(OutboundQueue.Mode.LATEST_WINS);
+    private final OutboundQueue<OutgoingTransfer> blobQueue = new OutboundQueue<>(OutboundQueue.Mode.LATEST_WINS);
+    private final Object transferLock = new Object();
+    private int nextMessageId;
+    @Nullable private byte[] lastSent; // Delta base: the last clip the peer fully received from us
+    private final PayloadEncoder payloadEncoder = new PayloadEncoder(
+            Constants.COMPRESSION_THRESHOLD_BYTES, Constants.DELTA_THRESHOLD_BYTES);
+    private final Map<Integer, OutgoingTransfer> awaitingDelivery = new HashMap<>(); // Fully written, waiting for APPLIED
+    private final AtomicLong latestSequence = new AtomicLong(); // Sequence of the newest clip handed to send()
+
+    // Negotiated from the peer's HELLO
+    private volatile Codec codec = Codec.NONE;
+    private volatile boolean deltaSupported;
+    private volatile boolean resumeSupported;
+    private volatile boolean deliverySupported;
+
+    private volatile boolean linkUp;
+    private volatile long linkLostAt;
+    @Nullable private volatile Disposable sessionExpiry; // Fails suspended transfers if the link stays down
+
+    // Delta base for incoming messages, a pooled buffer; this and the decoder are only touched on the delivery thread
+    @Nullable private ByteBuffer lastReceived;
+    private final BufferPool receiveBuffers = new BufferPool(Constants.RECEIVE_POOL_MAX_BYTES, Constants.RECEIVE_POOL_BUFFERS_PER_CLASS);
+    private final Utf8Decoder textDecoder = new Utf8Decoder(Constants.MAX_RETAINED_TEXT_CHARS);
+    // Last message delivered to us, so a RESUME for it after a lost write response is answered as complete
+    private int lastCompletedId = -1;
+    private int lastCompletedLength;
+
+    private final Subject<byte[]> received = PublishSubject.<byte[]>create().toSerialized();
+    private final Subject<String> receivedText = PublishSubject.<String>create().toSerialized();
+    private final Subject<StreamReassembler.Blob> receivedBlobs = PublishSubject.<StreamReassembler.Blob>create().toSerialized();
+    private final Subject<TransferStats> transfers = PublishSubject.<TransferStats>create().toSerialized();
+    private final Subject<Delivery> deliveries = PublishSubject.<Delivery>create().toSerialized();
+    private final Subject<OutboundQueue.Stats> queueStats = PublishSubject.<OutboundQueue.Stats>create().toSerialized();
+    private final Subject<Boolean> busy = PublishSubject.<Boolean>create().toSerialized();
+
+    /**
+     * @param scheduler       Runs the resume and session expiry timeouts.
+     * @param encodeScheduler Delta-encodes and compresses text clips as they become active, so a large clip
+     *                        never holds up the thread whose write callback or timer activated it.
+     * @param clock           Millisecond clock, for transfer durations and partial message timeouts.
+     * @param sessionExpiryMs How long an interrupted transfer waits for the link to come back.
+     */
+    public TransferEngine(@NonNull ClipboardTransport transport, @NonNull Scheduler scheduler, @NonNull Scheduler encodeScheduler,
+                          @NonNull LongSupplier clock, long sessionExpiryMs, @NonNull Logger logger) {
+        this.transport = transport;
+        this.scheduler = scheduler;
+        this.encodeScheduler = encodeScheduler;
+        this.clock = clock;
+        this.sessionExpiryMs = sessionExpiryMs;
+        this.logger = logger;
+        this.reassembler = new FrameReassembler(Constants.PARTIAL_MESSAGE_TIMEOUT_MS, Constants.MAX_MESSAGE_BYTES, clock, receiveBuffers);
+        this.lanes = new LaneScheduler(transport, Constants.LANE_WINDOW_PACKETS, clock);
+        disposables.add(transport.incoming().subscribe(this::onPacketReceivedSafely,
+                error -> logger.warn("Incoming packets failed: " + error.getMessage())));
+        disposables.add(transport.linkReady().distinctUntilChanged().subscribe(ready -> {
+            if (ready) {
+                onLinkReady();
+            } else {
+                onLinkLost();
+            }
+        }));
+    }
+
+    public void dispose() {
+        disposables.dispose();
+        Disposable expiry = sessionExpiry;
+        if (expiry != null) expiry.dispose();
+        StreamReassembler blobs = blobReassembler;
+        if (blobs != null) blobs.clear();
+        failAllTransfers(new CancellationException("Transfer engine disposed."));
+    }
+
+    /**
+     * Queues a clip. When it becomes active it is delta-encoded against the last clip sent and
+     * compressed on the encode scheduler, then framed. Large clips are streamed without write responses, one frame per credit,
+     * when the peer has granted credits; everything else uses acknowledged writes with a single frame in flight.
+     * In latest-wins mode the Completable fails with a CancellationException if a newer clip replaces it.
+     * If the peer confirms delivery, the Completable completes once it has applied the clip, and fails if it
+     * never confirms within {@link Constants#MAX_DELIVERY_ATTEMPTS} sends.
+     */
+    @NonNull
+    public Completable send(@NonNull byte[] payload) {
+        return send(payload, null);
+    }
+
+    // As send(byte[]), marking the first and last write responses on trace.
+    @NonNull
+    public Completable send(@NonNull byte[] payload, @Nullable ClipTrace trace) {
+        return Completable.create(emitter -> {
+            OutgoingTransfer transfer = new OutgoingTransfer(payload, emitter);
+            transfer.trace = trace;
+            enqueue(transfer);
+        });
+    }
+
+    /**
+     * Queues a binary clip, read from content one frame at a time when it becomes active. It is neither
+     * compressed nor delta-encoded, and a link drop fails it rather than suspending it.
+     * The stream is closed when the transfer ends, whatever the outcome.
+     *
+     * @param length Exact number of bytes content provides.
+     */
+    @NonNull
+    public Completable sendBlob(@NonNull String mimeType, @NonNull InputStream content, long length) {
+        return sendBlob(mimeType, content, length, null);
+    }
+
+    @NonNull
+    public Completable sendBlob(@NonNull String mimeType, @NonNull InputStream content, long length, @Nullable ClipTrace trace) {
+        return Completable.create(emitter -> {
+            OutgoingTransfer transfer = new OutgoingTransfer(mimeType, content, length, emitter);
+            transfer.trace = trace;
+            enqueue(transfer);
+        });
+    }
+
+    // Where incoming binary clips are written. Until this is set they are dropped.
+    public void setBlobDirectory(@NonNull File directory) {
+        blobReassembler = new StreamReassembler(directory, Constants.PARTIAL_MESSAGE_TIMEOUT_MS,
+                Constants.MAX_BLOB_BYTES + 1 + StreamFramer.MAX_MIME_TYPE_LENGTH, clock); // Content plus its MIME prefix
+    }
+
+    // Chooses whether a newer clip cancels the one in flight (the default) or every clip is delivered.
+    public void setQueueMode(@NonNull OutboundQueue.Mode mode) {
+        textQueue.setMode(mode);
+        blobQueue.setMode(mode);
+    }
+
+    // Decoded clips from the peer. Each clip is copied out for this stream, so only subscribe if the bytes are needed.
+    @NonNull
+    public Observable<byte[]> received() {
+        return received;
+    }
+
+    // Decoded clips from the peer as text, decoded straight from the receive buffer.
+    @NonNull
+    public Observable<String> receivedText() {
+        return receivedText;
+    }
+
+    // Binary clips from the peer, already written to files the subscriber now owns.
+    @NonNull
+    public Observable<StreamReassembler.Blob> receivedBlobs() {
+        return receivedBlobs;
+    }
+
+    // One entry per completed outgoing transfer.
+    @NonNull
+    public Observable<TransferStats> transfers() {
+        return transfers;
+    }
+
+    // One entry per text clip the peer was asked to confirm: its copy-to-applied latency and resends.
+    @NonNull
+    public Observable<Delivery> deliveries() {
+        return deliveries;
+    }
+
+    @NonNull
+    public Observable<OutboundQueue.Stats> queueStats() {
+        return queueStats;
+    }
+
+    // Depth and wait times of each write lane, to check that nothing waits behind bulk data.
+    @NonNull
+    public List<LaneScheduler.LaneStats> laneStats() {
+        return lanes.stats();
+    }
+
+    /**
+     * Emits true when a clip is queued, before its first frame is written, and false whenever the queue
+     * is found empty. Emitted synchronously, so a subscriber can order link requests ahead of the frames.
+     */
+    @NonNull
+    public Observable<Boolean> busy() {
+        return busy;
+    }
+
+    private void enqueue(@NonNull OutgoingTransfer transfer) {
+        if (transfer.attempts == 1 && transfer.emitter != null) {
+            transfer.sequence = latestSequence.incrementAndGet();
+            transfer.queuedAt = clock.getAsLong();
+        }
+        OutboundQueue<OutgoingTransfer> queue = transfer.content != null ? blobQueue : textQueue;
+        List<OutgoingTransfer> superseded = new ArrayList<>(queue.offer(transfer));
+        if (transfer.emitter != null && queue.mode() == OutboundQueue.Mode.LATEST_WINS) {
+            // A newer clip of the other kind replaces the clipboard just the same
+            superseded.addAll((queue == textQueue ? blobQueue : textQueue).supersede());
+        }
+        for (OutgoingTransfer dropped : superseded) {
+            dropped.fail(new CancellationException("Superseded by a newer clip."));
+        }
+        publishQueueStats();
+        busy.onNext(true); // Before the first frame, so faster link parameters apply to the whole clip
+        pumpTransfers();
+    }
+
+    private void pumpTransfers() {
+        boolean textIdle = pumpTransfers(textQueue);
+        boolean blobIdle = pumpTransfers(blobQueue);
+        if (textIdle && blobIdle) busy.onNext(false);
+    }
+
+    /**
+     * Starts the next queued transfer of a lane if idle, then writes as many frames as the current mode allows.
+     * A cancelled transfer stops here, at a frame boundary, once its in-flight frames are done.
+     *
+     * @return true if the queue was found empty.
+     */
+    private boolean pumpTransfers(@NonNull OutboundQueue<OutgoingTransfer> queue) {
+        OutgoingTransfer stopped = null;
+        Throwable stopError = null;
+        Runnable encode = null;
+        synchronized (transferLock) {
+            OutgoingTransfer transfer = queue.active();
+            if (transfer == null) {
+                transfer = queue.activateNext();
+                if (transfer == null) return true;
+                if (transfer.payload != null) {
+                    encode = encodeTask(transfer);
+                } else {
+                    stopError = startBlobTransfer(transfer);
+                }
+            }
+            if (stopError == null && queue.isActiveCancelled()) {
+                if (transfer.inFlight > 0) return false; // Wait for the frames already handed to the link
+                if (transfer.framesWritten > 0) sendControlFrame(Frame.cancel(transfer.messageId));
+                stopError = new CancellationException("Superseded by a newer clip.");
+                encode = null;
+            }
+            if (stopError == null && !transfer.encoding) stopError = writeFrames(transfer);
+            if (stopError != null) {
+                queue.finish(transfer);
+                stopped = transfer;
+            }
+        }
+        if (encode != null) encodeScheduler.scheduleDirect(encode);
+        if (stopped != null) {
+            stopped.fail(stopError);
+            publishQueueStats();
+            pumpTransfers();
+        }
+        return false;
+    }
+
+    /**
+     * Must be called with transferLock held.
+     *
+     * @return An error if the next frame could not be read, otherwise null.
+     */
+    @Nullable
+    private Throwable writeFrames(@NonNull OutgoingTransfer transfer) {
+        if (transfer.suspended) return null; // Waiting for the link, or for the receiver's answer to RESUME
+        int generation = transfer.generation;
+        while (transfer.framer.hasNext() && (transfer.streaming ? creditWindow.tryAcquire() : transfer.inFlight == 0)) {
+            byte[] packet;
+            try {
+                packet = transfer.framer.next();
+            } catch (IOException e) {
+                if (transfer.streaming) creditWindow.grant(1); // The credit taken for it was never used
+                if (transfer.framesWritten > 0) sendControlFrame(Frame.cancel(transfer.messageId));
+                return e;
+            }
+            transfer.inFlight++;
+            transfer.framesWritten++;
+            lanes.submit(transfer.content != null ? LaneScheduler.Lane.BULK : LaneScheduler.Lane.INTERACTIVE, packet, !transfer.streaming)
+                    .subscribe(() -> onFrameWritten(transfer, generation), error -> onFrameFailed(transfer, generation, error));
+        }
+        return null;
+    }
+
+    /**
+     * Frames a newly active binary transfer. Must be called with transferLock held.
+     *
+     * @return An error if the transfer cannot start, otherwise null.
+     */
+    @Nullable
+    private Throwable startBlobTransfer(@NonNull OutgoingTransfer transfer) {
+        int maxFrameSize = transport.metrics().maxPacketSize();
+        if (maxFrameSize <= Frame.HEADER_SIZE) {
+            return new Throwable("Link MTU too small for framing.");
+        }
+        int messageId = nextMessageId();
+        StreamFramer framer;
+        try {
+            framer = new StreamFramer(messageId, transfer.mimeType, transfer.content, transfer.contentLength, maxFrameSize);
+        } catch (IllegalArgumentException e) {
+            return e;
+        }
+        boolean streaming = framer.size() >= Constants.STREAMING_THRESHOLD_BYTES && creditWindow.isGranted();
+        transfer.start(messageId, null, framer, framer.size(), streaming, false, clock.getAsLong());
+        return null;
+    }
+
+    /**
+     * Encoding of a newly active text transfer, to run on the encode scheduler. The delta base is taken now, on
+     * activation, so it is the last clip that actually reached the peer. Only the active transfer of the text
+     * queue is ever encoded, so there is at most one encode in flight. Must be called with transferLock held.
+     */
+    @NonNull
+    private Runnable encodeTask(@NonNull OutgoingTransfer transfer) {
+        transfer.encoding = true;
+        byte[] base = deltaSupported ? lastSent : null;
+        Codec encodeCodec = codec;
+        return () -> {
+            PayloadEncoder.Encoded encoded;
+            try {
+                encoded = payloadEncoder.encode(transfer.payload, base, encodeCodec);
+            } catch (RuntimeException e) {
+                onEncoded(transfer, null, e);
+                return;
+            }
+            onEncoded(transfer, encoded, null);
+        };
+    }
+
+    // Frames an encoded text transfer and starts writing it, unless it was superseded or failed meanwhile.
+    private void onEncoded(@NonNull OutgoingTransfer transfer, @Nullable PayloadEncoder.Encoded encoded, @Nullable Throwable error) {
+        synchronized (transferLock) {
+            if (textQueue.active() != transfer || !transfer.encoding) return;
+            transfer.encoding = false;
+            int maxFrameSize = transport.metrics().maxPacketSize();
+            if (error == null && maxFrameSize <= Frame.HEADER_SIZE) {
+                error = new Throwable("Link MTU too small for framing.");
+            }
+            if (error == null) {
+                byte[] payload = encoded.payload();
+                boolean streaming = payload.length >= Constants.STREAMING_THRESHOLD_BYTES && creditWindow.isGranted();
+                int messageId = nextMessageId();
+                MessageFramer framer = new MessageFramer(Frame.Type.TEXT, encoded.flags(), messageId, payload, maxFrameSize);
+                transfer.start(messageId, encoded, framer, payload.length, streaming, resumeSupported, clock.getAsLong());
+                transfer.awaitsDelivery = deliverySupported && transfer.emitter != null;
+            } else {
+                textQueue.finish(transfer);
+            }
+        }
+        if (error != null) {
+            transfer.fail(error);
+            publishQueueStats();
+        }
+        pumpTransfers();
+    }
+
+    // Must be called with transferLock held.
+    private int nextMessageId() {
+        int messageId = nextMessageId;
+        nextMessageId = (nextMessageId + 1) & 0xFFFF;
+        return messageId;
+    }
+
+    private void onFrameWritten(@NonNull OutgoingTransfer transfer, int generation) {
+        boolean complete;
+        synchronized (transferLock) {
+            if (transfer.generation != generation) return; // Written before the transfer was suspended
+            transfer.inFlight--;
+            complete = !transfer.framer.hasNext() && transfer.inFlight == 0;
+        }
+        ClipTrace trace = transfer.trace;
+        if (trace != null) {
+            trace.mark(ClipTrace.Stage.FIRST_CHUNK); // Only the first mark counts
+            if (complete) trace.mark(ClipTrace.Stage.LAST_CHUNK);
+        }
+        if (!complete) {
+            pumpTransfers();
+            return;
+        }
+        completeTransfer(transfer);
+    }
+
+    // A failed write usually means the link is going down. A resumable transfer is suspended instead of failed:
+    // frames still in flight are forgotten and the receiver tells us where to continue.
+    private void onFrameFailed(@NonNull OutgoingTransfer transfer, int generation, @NonNull Throwable error) {
+        synchronized (transferLock) {
+            if (transfer.generation != generation) return;
+            if (transfer.resumable) transfer.suspend();
+        }
+        if (!transfer.resumable) {
+            finishTransfer(transfer, error);
+            return;
+        }
+        logger.info("Write failed in message " + transfer.messageId + " (" + error.getMessage() + "), suspending it.");
+        if (linkUp) requestResume(transfer);
+    }
+
+    // Asks the receiver how much of a suspended transfer it has; onAckReceived continues from there.
+    private void requestResume(@NonNull OutgoingTransfer transfer) {
+        int generation;
+        synchronized (transferLock) {
+            if (textQueue.active() != transfer || !transfer.suspended || transfer.awaitingResume) return;
+            transfer.awaitingResume = true;
+            generation = ++transfer.generation;
+        }
+        sendControlFrame(Frame.resume(transfer.messageId, transfer.wireSize));
+        scheduler.scheduleDirect(() -> onResumeTimeout(transfer, generation), Constants.RESUME_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void onResumeTimeout(@NonNull OutgoingTransfer transfer, int generation) {
+        boolean giveUp;
+        synchronized (transferLock) {
+            if (transfer.generation != generation || !transfer.awaitingResume) return; // Answered meanwhile
+            transfer.awaitingResume = false;
+            if (!linkUp) return; // Asked again when the link is back
+            giveUp = ++transfer.resumeAttempts >= Constants.MAX_RESUME_ATTEMPTS;
+        }
+        if (giveUp) {
+            finishTransfer(transfer, new Throwable("Peer did not answer the resume request."));
+        } else {
+            requestResume(transfer);
+        }
+    }
+
+    // Progress of one of our messages: periodic while it streams, or the answer to RESUME.
+    private void onAckReceived(@NonNull Frame frame) {
+        OutgoingTransfer transfer;
+        boolean complete = false;
+        Throwable error = null;
+        synchronized (transferLock) {
+            transfer = textQueue.active();
+            if (transfer == null || transfer.encoded == null || transfer.messageId != frame.messageId()) return;
+            transfer.resumeAttempts = 0;
+            if (!transfer.awaitingResume) return;
+            int length = transfer.encoded.payload().length;
+            int offset = frame.totalLength();
+            transfer.awaitingResume = false;
+            transfer.suspended = false;
+            transfer.generation++;
+            int maxFrameSize = transport.metrics().maxPacketSize();
+            if (offset < 0 || offset > length) {
+                error = new Throwable("Peer reported offset " + offset + " for a message of " + length + " bytes.");
+            } else if (offset == length) {
+                complete = true; // Only the write response was lost
+            } else if (maxFrameSize <= Frame.HEADER_SIZE) {
+                error = new Throwable("Link MTU too small for framing.");
+            } else {
+                // Reframed for the current MTU, which may differ after a reconnect
+                MessageFramer framer = new MessageFramer(Frame.Type.TEXT, transfer.encoded.flags(), transfer.messageId,
+                        transfer.encoded.payload(), maxFrameSize);
+                framer.resumeAt(offset, frame.chunkIndex());
+                transfer.framer = framer;
+                logger.info("Resuming message " + transfer.messageId + " at " + offset + " of " + length + " bytes.");
+            }
+        }
+        if (error != null) {
+            finishTransfer(transfer, error);
+        } else if (complete) {
+            completeTransfer(transfer);
+        } else {
+            pumpTransfers();
+        }
+    }
+
+    private void completeTransfer(@NonNull OutgoingTransfer transfer) {
+        PayloadEncoder.Encoded encoded = transfer.encoded;
+        int originalSize = encoded != null ? encoded.originalSize() : transfer.wireSize;
+        long encodeMicros = encoded != null ? encoded.encodeNanos() / 1_000 : 0;
+        transfers.onNext(new TransferStats(originalSize, transfer.wireSize,
+                clock.getAsLong() - transfer.startedAt, encodeMicros, transport.metrics().mtu()));
+        finishTransfer(transfer, null);
+    }
+
+    // Once written, a clip the peer confirms leaves the queue but only completes when APPLIED arrives,
+    // so the next clip does not wait for the round trip.
+    private void finishTransfer(@NonNull OutgoingTransfer transfer, @Nullable Throwable error) {
+        boolean awaitingDelivery = error == null && transfer.awaitsDelivery && !transfer.applied;
+        synchronized (transferLock) {
+            if (!(transfer.content != null ? blobQueue : textQueue).finish(transfer)) return; // Already finished
+            // On failure the peer may have missed it, so the next clip goes in full
+            lastSent = error == null ? transfer.payload : null;
+            if (awaitingDelivery) awaitDelivery(transfer);
+        }
+        if (error != null) {
+            transfer.fail(error);
+        } else if (transfer.applied) {
+            confirmDelivery(transfer);
+        } else if (!awaitingDelivery) {
+            transfer.complete();
+        }
+        publishQueueStats();
+        pumpTransfers();
+    }
+
+    // Must be called with transferLock held.
+    private void awaitDelivery(@NonNull OutgoingTransfer transfer) {
+        awaitingDelivery.put(transfer.messageId, transfer);
+        transfer.deliveryTimeout = scheduler.scheduleDirect(() -> onDeliveryTimeout(transfer),
+                Constants.DELIVERY_ACK_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // APPLIED usually overtakes the write response of the last frame; it proves every frame arrived,
+    // so the active transfer completes right away and its pending write callbacks are ignored.
+    private void onAppliedReceived(@NonNull Frame frame) {
+        OutgoingTransfer transfer;
+        boolean active = false;
+        synchronized (transferLock) {
+            transfer = awaitingDelivery.get(frame.messageId());
+            if (transfer == null) {
+                transfer = textQueue.active();
+                if (transfer == null || !transfer.awaitsDelivery || transfer.messageId != frame.messageId()) return;
+                active = true;
+            }
+            // A length mismatch is an older message that reused the id, or a late answer after a resend
+            if (transfer.payload == null || transfer.payload.length != frame.totalLength()) return;
+            if (active) {
+                transfer.applied = true;
+                transfer.generation++;
+            } else {
+                awaitingDelivery.remove(frame.messageId());
+            }
+        }
+        if (active) {
+            completeTransfer(transfer);
+            return;
+        }
+        transfer.cancelDeliveryTimeout();
+        confirmDelivery(transfer);
+    }
+
+    private void confirmDelivery(@NonNull OutgoingTransfer transfer) {
+        deliveries.onNext(new Delivery(transfer.messageId, clock.getAsLong() - transfer.queuedAt, transfer.attempts, true));
+        transfer.complete();
+    }
+
+    // No APPLIED in time: resend the clip in full, unless a newer clip replaced it or the attempts are used up.
+    // While the link is down the wait is extended instead; the session expiry bounds it.
+    private void onDeliveryTimeout(@NonNull OutgoingTransfer transfer) {
+        boolean superseded;
+        boolean giveUp;
+        synchronized (transferLock) {
+            if (awaitingDelivery.get(transfer.messageId) != transfer) return; // Confirmed or failed meanwhile
+            if (!linkUp) {
+                awaitDelivery(transfer);
+                return;
+            }
+            awaitingDelivery.remove(transfer.messageId);
+            superseded = textQueue.mode() == OutboundQueue.Mode.LATEST_WINS && transfer.sequence != latestSequence.get();
+            giveUp = transfer.attempts >= Constants.MAX_DELIVERY_ATTEMPTS;
+            if (!superseded && !giveUp) lastSent = null; // The peer may not hold it, so it cannot be a delta base
+        }
+        if (superseded) {
+            transfer.fail(new CancellationException("Superseded by a newer clip."));
+        } else if (giveUp) {
+            logger.warn("Message " + transfer.messageId + " was never confirmed after " + transfer.attempts + " attempts.");
+            deliveries.onNext(new Delivery(transfer.messageId, clock.getAsLong() - transfer.queuedAt, transfer.attempts, false));
+            transfer.fail(new Throwable("Peer did not confirm delivery."));
+        } else {
+            logger.info("No delivery confirmation for message " + transfer.messageId + ", resending (attempt "
+                    + (transfer.attempts + 1) + "/" + Constants.MAX_DELIVERY_ATTEMPTS + ").");
+            enqueue(transfer.resend());
+        }
+    }
+
+    private void publishQueueStats() {
+        OutboundQueue.Stats text = textQueue.stats();
+        OutboundQueue.Stats blobs = blobQueue.stats();
+        queueStats.onNext(new OutboundQueue.Stats(text.depth() + blobs.depth(), text.dropped() + blobs.dropped(),
+                text.cancelled() + blobs.cancelled()));
+    }
+
+    // A peer's packet must never take the process down; anything the decoders missed drops just that packet.
+    private void onPacketReceivedSafely(@NonNull byte[] packet) {
+        try {
+            onPacketReceived(packet);
+        } catch (RuntimeException e) {
+            logger.warn("Dropping packet that failed to process: " + e);
+        }
+    }
+
+    private void onPacketReceived(@NonNull byte[] packet) {
+        if (packet.length >= Frame.HEADER_SIZE && packet[0] == Frame.Type.TEXT.code()) {
+            // Text chunks are copied straight from the packet into the message buffer, without a Frame
+            onTextPacket(packet);
+            return;
+        }
+        Frame frame;
+        try {
+            frame = Frame.decode(packet);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Dropping malformed packet: " + e.getMessage());
+            return;
+        }
+        if (frame.type() == Frame.Type.CREDIT) {
+            creditWindow.grant(frame.creditCount());
+            pumpTransfers();
+            return;
+        }
+        if (frame.type() == Frame.Type.HELLO) {
+            codec = Codec.negotiate(Codec.SUPPORTED_MASK, frame.helloCodecMask());
+            deltaSupported = (frame.helloFeatureMask() & Frame.FEATURE_DELTA) != 0;
+            resumeSupported = (frame.helloFeatureMask() & Frame.FEATURE_RESUME) != 0;
+            deliverySupported = (frame.helloFeatureMask() & Frame.FEATURE_DELIVERY) != 0;
+            logger.info("Peer capabilities received, using codec " + codec + ", delta " + (deltaSupported ? "on" : "off")
+                    + ", resume " + (resumeSupported ? "on" : "off") + ", delivery " + (deliverySupported ? "on" : "off"));
+            return;
+        }
+        if (frame.type() == Frame.Type.RESYNC) {
+            onResyncRequested(frame.messageId());
+            return;
+        }
+        if (frame.type() == Frame.Type.CANCEL) {
+            reassembler.discard(frame.messageId());
+            StreamReassembler blobs = blobReassembler;
+            if (blobs != null) blobs.discard(frame.messageId());
+            return;
+        }
+        if (frame.type() == Frame.Type.BLOB) {
+            onBlobFrame(frame);
+            return;
+        }
+        if (frame.type() == Frame.Type.ACK) {
+            onAckReceived(frame);
+            return;
+        }
+        if (frame.type() == Frame.Type.RESUME) {
+            onResumeRequested(frame.messageId(), frame.totalLength());
+            return;
+        }
+        if (frame.type() == Frame.Type.APPLIED) {
+            onAppliedReceived(frame);
+            return;
+        }
+    }
+
+    private void onTextPacket(@NonNull byte[] packet) {
+        FrameReassembler.Message message;
+        try {
+            message = reassembler.accept(packet);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Dropping malformed packet: " + e.getMessage());
+            return;
+        }
+        if (message == null) {
+            acknowledgeProgress(Frame.messageIdOf(packet));
+            return;
+        }
+        lastCompletedId = message.messageId();
+        lastCompletedLength = message.length();
+
+        // Plain messages are used as they are; compressed and delta ones are decoded into a new buffer
+        ByteBuffer payload = message.payload();
+        if (message.flags() != 0) {
+            try {
+                payload = ByteBuffer.wrap(decodeText(message));
+            } catch (DataFormatException e) {
+                logger.warn("Could not decode message " + message.messageId() + " (" + e.getMessage() + "), requesting a full resend.");
+                setDeltaBase(null);
+                sendControlFrame(Frame.resync(message.messageId()));
+                return;
+            } finally {
+                reassembler.release(message);
+            }
+        }
+        int length = payload.limit();
+        if (received.hasObservers()) {
+            byte[] bytes = new byte[length];
+            payload.duplicate().get(bytes);
+            received.onNext(bytes);
+        }
+        if (receivedText.hasObservers()) receivedText.onNext(textDecoder.decode(payload.duplicate()));
+        setDeltaBase(payload);
+        if (deliverySupported) sendControlFrame(Frame.applied(message.messageId(), length));
+    }
+
+    @NonNull
+    private byte[] decodeText(@NonNull FrameReassembler.Message message) throws DataFormatException {
+        ByteBuffer payload = message.payload();
+        byte[] decoded = Codec.fromFlags(message.flags()).decode(payload.array(), payload.limit(), Constants.MAX_MESSAGE_BYTES);
+        if ((message.flags() & Frame.FLAG_DELTA) == 0) return decoded;
+        ByteBuffer base = lastReceived;
+        if (base == null) throw new DataFormatException("No base for delta message.");
+        return DeltaCodec.apply(base.array(), base.limit(), decoded, Constants.MAX_MESSAGE_BYTES);
+    }
+
+    // Replaces the delta base for incoming messages, handing the previous buffer back to the pool.
+    private void setDeltaBase(@Nullable ByteBuffer base) {
+        ByteBuffer previous = lastReceived;
+        lastReceived = base;
+        if (previous != null && previous != base) receiveBuffers.release(previous);
+    }
+
+    private void onBlobFrame(@NonNull Frame frame) {
+        StreamReassembler blobs = blobReassembler;
+        if (blobs == null) {
+            if (frame.chunkIndex() == 0) logger.warn("Dropping binary clip " + frame.messageId() + ", no blob directory set.");
+            return;
+        }
+        StreamReassembler.Blob blob;
+        try {
+            blob = blobs.accept(frame);
+        } catch (IOException e) {
+            logger.warn("Could not write binary clip " + frame.messageId() + ": " + e.getMessage());
+            return;
+        }
+        if (blob != null) receivedBlobs.onNext(blob);
+    }
+
+    // Reports progress every few chunks, so the sender knows what reached us even before a link drop.
+    private void acknowledgeProgress(int messageId) {
+        if (!resumeSupported) return;
+        FrameReassembler.Progress progress = reassembler.progress(messageId);
+        if (progress != null && progress.nextChunk() % Constants.ACK_INTERVAL_FRAMES == 0) {
+            sendControlFrame(Frame.ack(messageId, progress.nextChunk(), progress.received()));
+        }
+    }
+
+    // Answers the sender of a suspended message with where to continue; offset 0 makes it start over.
+    private void onResumeRequested(int messageId, int totalLength) {
+        FrameReassembler.Progress progress = reassembler.progress(messageId);
+        Frame reply;
+        if (messageId == lastCompletedId && totalLength == lastCompletedLength) {
+            reply = Frame.ack(messageId, 0, totalLength);
+        } else if (progress != null && progress.total() == totalLength) {
+            reply = Frame.ack(messageId, progress.nextChunk(), progress.received());
+        } else {
+            reassembler.discard(messageId);
+            reply = Frame.ack(messageId, 0, 0);
+        }
+        sendControlFrame(reply);
+    }
+
+    // The peer could not apply a delta, so its base has diverged: stop delta-encoding until it is
+    // rebuilt, and resend the latest clip in full unless a newer clip is already on its way.
+    private void onResyncRequested(int messageId) {
+        byte[] clip;
+        OutgoingTransfer awaited;
+        synchronized (transferLock) {
+            clip = lastSent;
+            lastSent = null;
+            awaited = awaitingDelivery.remove(messageId);
+        }
+        if (awaited != null) {
+            // Someone is waiting on this clip: the full resend is its next attempt
+            awaited.cancelDeliveryTimeout();
+            logger.info("RESYNC for message " + messageId + ", resending it in full.");
+            enqueue(awaited.resend());
+            return;
+        }
+        if (clip == null || textQueue.depth() > 0 || blobQueue.depth() > 0) {
+            logger.info("RESYNC for message " + messageId + ", the next clip will be sent in full.");
+            return;
+        }
+        logger.info("RESYNC for message " + messageId + ", resending the latest clip in full.");
+        enqueue(new OutgoingTransfer(clip, null));
+    }
+
+    // Writes a single-frame control message outside the transfer queue.
+    private void sendControlFrame(@NonNull Frame frame) {
+        lanes.submit(LaneScheduler.Lane.CONTROL, frame.encode(), true)
+                .subscribe(() -> {}, error -> logger.warn("Could not send " + frame.type() + ": " + error.getMessage()));
+    }
+
+    // Announces our capabilities, the peer replies with its own HELLO, and picks up a suspended transfer.
+    private void onLinkReady() {
+        linkUp = true;
+        Disposable expiry = sessionExpiry;
+        if (expiry != null) expiry.dispose();
+        long now = clock.getAsLong();
+        if (now - linkLostAt > sessionExpiryMs) setDeltaBase(null);
+        int dropped = reassembler.resume(now, sessionExpiryMs);
+        if (dropped > 0) logger.info("Dropped " + dropped + " partial messages older than the session expiry.");
+        sendControlFrame(Frame.hello(Constants.PROTOCOL_VERSION, Codec.SUPPORTED_MASK,
+                Frame.FEATURE_DELTA | Frame.FEATURE_RESUME | Frame.FEATURE_DELIVERY));
+
+        OutgoingTransfer active;
+        synchronized (transferLock) {
+            active = textQueue.active();
+        }
+        if (active != null) requestResume(active);
+    }
+
+    // With a peer that resumes, the transfer in flight, the queue behind it, partial incoming messages
+    // and both delta bases are kept until the session expires.
+    private void onLinkLost() {
+        linkUp = false;
+        linkLostAt = clock.getAsLong();
+        boolean keepSession = resumeSupported;
+        codec = Codec.NONE;
+        deltaSupported = false;
+        resumeSupported = false;
+        deliverySupported = false;
+        creditWindow.reset();
+        StreamReassembler blobs = blobReassembler;
+        if (blobs != null) blobs.clear(); // Binary clips are not resumed
+        if (keepSession) {
+            synchronized (transferLock) {
+                OutgoingTransfer active = textQueue.active();
+                if (active != null && active.framer != null) {
+                    if (active.resumable) {
+                        active.suspend();
+                    } else {
+                        keepSession = false; // Started before the peer's HELLO
+                    }
+                }
+                OutgoingTransfer blob = blobQueue.active();
+                if (blob != null && blob.framer != null) keepSession = false; // Binary clips are not resumed
+            }
+        }
+        // Frames still waiting for the link go nowhere now; suspended transfers ignore their failures
+        lanes.clear(new Throwable("Link lost."));
+        if (!keepSession) {
+            setDeltaBase(null);
+            reassembler.clear();
+            failAllTransfers(new Throwable("Link lost during transfer."));
+            return;
+        }
+        boolean awaiting;
+        synchronized (transferLock) {
+            awaiting = !awaitingDelivery.isEmpty();
+        }
+        if (textQueue.depth() > 0 || blobQueue.depth() > 0 || awaiting) {
+            sessionExpiry = scheduler.scheduleDirect(this::onSessionExpired, sessionExpiryMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void onSessionExpired() {
+        if (linkUp) return;
+        logger.info("Link stayed down for " + sessionExpiryMs + " ms, abandoning queued transfers.");
+        failAllTransfers(new Throwable("Link lost during transfer."));
+    }
+
+    private void failAllTransfers(@NonNull Throwable error) {
+        List<OutgoingTransfer> failed;
+        synchronized (transferLock) {
+            failed = new ArrayList<>(textQueue.clear());
+            failed.addAll(blobQueue.clear());
+            failed.addAll(awaitingDelivery.values());
+            awaitingDelivery.clear();
+            lastSent = null; // Delta bases start over with the next link
+        }
+        for (OutgoingTransfer transfer : failed) {
+            transfer.cancelDeliveryTimeout();
+            transfer.fail(error);
+        }
+        publishQueueStats();
+    }
+
+    // One outgoing clip, either text bytes or a binary stream; it is encoded and framed when it becomes active.
+    private static class OutgoingTransfer {
+        @Nullable final byte[] payload; // Null for binary clips
+        @Nullable final String mimeType;
+        @Nullable final InputStream content;
+        final long contentLength;
+        @Nullable final CompletableEmitter emitter; // Null for internal resends nobody waits on
+        int messageId;
+        @Nullable PayloadEncoder.Encoded encoded; // Null for binary clips
+        FrameSource framer;
+        int wireSize;
+        boolean streaming;
+        boolean resumable; // The peer supported RESUME when the transfer started
+        boolean encoding; // Active, with its payload being encoded on the encode scheduler
+        long startedAt;
+        int inFlight;
+        int framesWritten;
+        int generation; // Bumped on suspension and resume, so callbacks of earlier writes are ignored
+        boolean suspended;
+        boolean awaitingResume;
+        int resumeAttempts; // Unanswered RESUME requests since the last ACK
+        // Delivery confirmation, carried over from one attempt to the next
+        final int attempts;
+        long sequence;
+        long queuedAt;
+        boolean awaitsDelivery;
+        boolean applied; // Confirmed before the last write response came back
+        @Nullable Disposable deliveryTimeout;
+        @Nullable ClipTrace trace;
+
+        OutgoingTransfer(@NonNull byte[] payload, @Nullable CompletableEmitter emitter) {
+            this(payload, emitter, 1);
+        }
+
+        private OutgoingTransfer(@NonNull byte[] payload, @Nullable CompletableEmitter emitter, int attempts) {
+            this.payload = payload;
+            this.mimeType = null;
+            this.content = null;
+            this.contentLength = payload.length;
+            this.emitter = emitter;
+            this.attempts = attempts;
+        }
+
+        OutgoingTransfer(@NonNull String mimeType, @NonNull InputStream content, long contentLength, @NonNull CompletableEmitter emitter) {
+            this.payload = null;
+            this.mimeType = mimeType;
+            this.content = content;
+            this.contentLength = contentLength;
+            this.emitter = emitter;
+            this.attempts = 1;
+        }
+
+        // The next attempt of an unconfirmed text clip, completing the same emitter.
+        @NonNull
+        OutgoingTransfer resend() {
+            OutgoingTransfer next = new OutgoingTransfer(payload, emitter, attempts + 1);
+            next.sequence = sequence;
+            next.queuedAt = queuedAt;
+            next.trace = trace;
+            return next;
+        }
+
+        void cancelDeliveryTimeout() {
+            Disposable timeout = deliveryTimeout;
+            if (timeout != null) timeout.dispose();
+        }
+
+        void start(int messageId, @Nullable PayloadEncoder.Encoded encoded, @NonNull FrameSource framer, int wireSize,
+                   boolean streaming, boolean resumable, long now) {
+            this.messageId = messageId;
+            this.encoded = encoded;
+            this.framer = framer;
+            this.wireSize = wireSize;
+            this.streaming = streaming;
+            this.resumable = resumable;
+            this.startedAt = now;
+        }
+
+        void suspend() {
+            suspended = true;
+            awaitingResume = false;
+            inFlight = 0;
+            generation++;
+        }
+
+        void complete() {
+            closeContent();
+            if (emitter != null) emitter.onComplete();
+        }
+
+        void fail(@NonNull Throwable error) {
+            closeContent();
+            if (emitter != null) emitter.tryOnError(error);
+        }
+
+        private void closeContent() {
+            Closeable source = content;
+            if (source == null) return;
+            try {
+                source.close();
+            } catch (IOException ignored) {
+                // Nothing left to read from it either way
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.bridger.transport;
+
+import androidx.annotation.NonNull;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Observable;
+
+/**
+ * Packet link between us and a clipboard peer, below framing and above the radio.
+ * The BLE implementation maps packets to ATT writes and notifications; {@link LoopbackTransport}
+ * connects two endpoints in memory so the sync path can run on a plain JVM.
+ * Writes are lazy, like every other Completable here: nothing is sent until they are subscribed.
+ */
+public interface ClipboardTransport {
+
+    // Opens a link to the peer at the given address; completes once the link is ready for writes.
+    @NonNull
+    Completable connect(@NonNull String address);
+
+    @NonNull
+    Completable disconnect();
+
+    /**
+     * Sends one packet of at most {@link LinkMetrics#maxPacketSize()} bytes.
+     *
+     * @param acknowledged Whether to wait for the peer's write response, rather than completing as soon as
+     *                     the packet is handed to the link.
+     */
+    @NonNull
+    Completable write(@NonNull byte[] packet, boolean acknowledged);
+
+    // Packets from the peer, in the order they were sent.
+    @NonNull
+    Observable<byte[]> incoming();
+
+    // True while the link is up and ready for writes; replays the current value on subscribe.
+    @NonNull
+    Observable<Boolean> linkReady();
+
+    @NonNull
+    LinkMetrics metrics();
+}
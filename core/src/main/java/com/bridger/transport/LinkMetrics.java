@@ -0,0 +1,21 @@
+package com.bridger.transport;
+
+import com.bridger.constants.Constants;
+
+/**
+ * Counters of a transport link since it was created.
+ *
+ * @param mtu             ATT MTU in effect now.
+ * @param packetsSent     Packets handed to the link.
+ * @param bytesSent       Bytes in those packets.
+ * @param packetsReceived Packets delivered from the peer.
+ * @param bytesReceived   Bytes in those packets.
+ * @param retransmissions Packets the link had to send again; always 0 where the stack does not report it.
+ */
+public record LinkMetrics(int mtu, long packetsSent, long bytesSent, long packetsReceived, long bytesReceived, long retransmissions) {
+
+    // Largest packet a single write may carry at the current MTU.
+    public int maxPacketSize() {
+        return mtu - Constants.ATT_WRITE_HEADER_SIZE;
+    }
+}
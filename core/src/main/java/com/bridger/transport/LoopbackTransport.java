@@ -0,0 +1,201 @@
+package com.bridger.transport;
+
+import androidx.annotation.NonNull;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.bridger.protocol.Frame;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.subjects.BehaviorSubject;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+import io.reactivex.rxjava3.subjects.Subject;
+
+/**
+ * In-memory link between two endpoints that behaves like a BLE connection, for JVM tests and benchmarks.
+ * Packets leave only at connection events, every {@code connectionIntervalMs}, at most {@code packetsPerInterval}
+ * per event and direction, and arrive {@code packetLatencyMs} later. A lost packet is retransmitted at the next
+ * event, as the link layer does, so delivery stays reliable and in order but slows down.
+ * An acknowledged write completes when its response comes back one event after delivery; an unacknowledged
+ * write completes as soon as it is queued. Disconnecting drops every packet in flight and fails pending
+ * acknowledged writes, even if the link is back by the time they would have completed.
+ * The peripheral end can also play the Mac's receive buffer: it grants {@code creditWindow} credits when the
+ * link comes up and returns one for every unacknowledged packet it is delivered.
+ * All timing runs on the given scheduler; with a TestScheduler a whole transfer runs in virtual time.
+ */
+public class LoopbackTransport implements ClipboardTransport {
+
+    /**
+     * @param mtu                  ATT MTU of the link.
+     * @param packetLatencyMs      Extra delay between a connection event and delivery.
+     * @param connectionIntervalMs Time between connection events.
+     * @param packetsPerInterval   Packets each direction can carry per event.
+     * @param lossRate             Chance that a transmission is lost and has to be repeated, from 0 up to but excluding 1.
+     * @param creditWindow         Credits the peripheral grants for streaming, or 0 for a peer that does not stream.
+     * @param seed                 Seed for the loss pattern, so runs are repeatable.
+     */
+    public record Config(int mtu, long packetLatencyMs, long connectionIntervalMs, int packetsPerInterval, double lossRate,
+                         int creditWindow, long seed) {
+
+        // A good phone-to-Mac link: maximum MTU, 15 ms interval, no loss, a 32-packet receive buffer.
+        @NonNull
+        public static Config fast() {
+            return new Config(517, 0, 15, 6, 0, 32, 1);
+        }
+    }
+
+    private final Config config;
+    private final Scheduler scheduler;
+    private final Random random;
+    private final boolean grantsCredits; // True for the peripheral end when the config has a credit window
+    private LoopbackTransport peer;
+    private final Subject<byte[]> incoming = PublishSubject.<byte[]>create().toSerialized();
+    private final BehaviorSubject<Boolean> linkReady = BehaviorSubject.createDefault(false);
+    private volatile int linkEpoch; // Bumped on both ends at every disconnect
+
+    // Transmit slots of this direction, guarded by this
+    private long nextEventAt;
+    private int packetsInEvent;
+
+    // Metrics, guarded by this
+    private long packetsSent;
+    private long bytesSent;
+    private long packetsReceived;
+    private long bytesReceived;
+    private long retransmissions;
+    private int deliveredSinceGrant; // Unacknowledged packets whose credit was not returned yet
+
+    private LoopbackTransport(@NonNull Config config, @NonNull Scheduler scheduler, long seed, boolean grantsCredits) {
+        this.config = config;
+        this.scheduler = scheduler;
+        this.random = new Random(seed);
+        this.grantsCredits = grantsCredits;
+    }
+
+    /**
+     * Creates two endpoints linked to each other, e.g. the phone and a simulated Mac.
+     * Connecting either one brings the link up on both.
+     */
+    @NonNull
+    public static LoopbackTransport[] pair(@NonNull Config config, @NonNull Scheduler scheduler) {
+        LoopbackTransport central = new LoopbackTransport(config, scheduler, config.seed(), false);
+        LoopbackTransport peripheral = new LoopbackTransport(config, scheduler, config.seed() + 1, config.creditWindow() > 0);
+        central.peer = peripheral;
+        peripheral.peer = central;
+        return new LoopbackTransport[] {central, peripheral};
+    }
+
+    // The link comes up after one connection interval, like the first connection event.
+    @NonNull
+    @Override
+    public Completable connect(@NonNull String address) {
+        return Completable.timer(config.connectionIntervalMs(), TimeUnit.MILLISECONDS, scheduler)
+                .doOnComplete(() -> {
+                    linkReady.onNext(true);
+                    peer.linkReady.onNext(true);
+                    if (grantsCredits) grantCredits(config.creditWindow());
+                    if (peer.grantsCredits) peer.grantCredits(config.creditWindow());
+                });
+    }
+
+    @NonNull
+    @Override
+    public Completable disconnect() {
+        return Completable.fromAction(() -> {
+            linkEpoch++;
+            peer.linkEpoch++;
+            linkReady.onNext(false);
+            peer.linkReady.onNext(false);
+        });
+    }
+
+    @NonNull
+    @Override
+    public Completable write(@NonNull byte[] packet, boolean acknowledged) {
+        return Completable.defer(() -> {
+            if (!Boolean.TRUE.equals(linkReady.getValue())) {
+                return Completable.error(new IllegalStateException("Link is down."));
+            }
+            if (packet.length > metrics().maxPacketSize()) {
+                return Completable.error(new IllegalArgumentException("Packet of " + packet.length + " bytes exceeds the MTU."));
+            }
+            long now = scheduler.now(TimeUnit.MILLISECONDS);
+            long deliverAt = reserveSlot(now, packet.length) + config.packetLatencyMs();
+            byte[] copy = packet.clone();
+            int epoch = linkEpoch;
+            scheduler.scheduleDirect(() -> {
+                if (linkEpoch == epoch) peer.deliver(copy, acknowledged); // Otherwise lost with the link
+            }, deliverAt - now, TimeUnit.MILLISECONDS);
+            if (!acknowledged) return Completable.complete();
+            // The write response rides on the next connection event after delivery
+            return Completable.timer(deliverAt + config.connectionIntervalMs() - now, TimeUnit.MILLISECONDS, scheduler)
+                    .andThen(Completable.defer(() -> linkEpoch == epoch
+                            ? Completable.complete()
+                            : Completable.error(new IllegalStateException("Link lost before the write response."))));
+        });
+    }
+
+    @NonNull
+    @Override
+    public Observable<byte[]> incoming() {
+        return incoming;
+    }
+
+    @NonNull
+    @Override
+    public Observable<Boolean> linkReady() {
+        return linkReady;
+    }
+
+    @NonNull
+    @Override
+    public synchronized LinkMetrics metrics() {
+        return new LinkMetrics(config.mtu(), packetsSent, bytesSent, packetsReceived, bytesReceived, retransmissions);
+    }
+
+    // Picks the connection event that carries the packet, after any lost attempts, and returns its time.
+    private synchronized long reserveSlot(long now, int size) {
+        long interval = config.connectionIntervalMs();
+        if (nextEventAt < now) {
+            // First event at or after now, on the interval grid
+            nextEventAt = interval > 0 ? (now + interval - 1) / interval * interval : now;
+            packetsInEvent = 0;
+        }
+        while (true) {
+            if (packetsInEvent == config.packetsPerInterval()) {
+                nextEventAt += interval;
+                packetsInEvent = 0;
+            }
+            packetsInEvent++;
+            if (random.nextDouble() >= config.lossRate()) break;
+            retransmissions++;
+            packetsInEvent = config.packetsPerInterval(); // Retried at the next event
+        }
+        packetsSent++;
+        bytesSent += size;
+        return nextEventAt;
+    }
+
+    private void deliver(@NonNull byte[] packet, boolean acknowledged) {
+        if (!Boolean.TRUE.equals(linkReady.getValue())) return; // Link dropped while in flight
+        int returned = 0;
+        synchronized (this) {
+            packetsReceived++;
+            bytesReceived += packet.length;
+            if (grantsCredits && !acknowledged && ++deliveredSinceGrant >= Math.max(1, config.creditWindow() / 2)) {
+                // Returned in batches of half the window, so grants cost few packets
+                returned = deliveredSinceGrant;
+                deliveredSinceGrant = 0;
+            }
+        }
+        incoming.onNext(packet);
+        if (returned > 0) grantCredits(returned);
+    }
+
+    private void grantCredits(int credits) {
+        write(Frame.credit(0, credits).encode(), false).subscribe(() -> {}, error -> {});
+    }
+}
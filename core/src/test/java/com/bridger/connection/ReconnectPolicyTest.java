@@ -0,0 +1,37 @@
+package com.bridger.connection;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ReconnectPolicyTest {
+
+    @Test
+    public void linkLoss_retriesImmediatelyThenBacksOff() {
+        ReconnectPolicy policy = new ReconnectPolicy(1_000, 30_000, 2, 10, () -> 0.999);
+
+        assertEquals(0, policy.delayMs(0, true));
+        assertEquals(0, policy.delayMs(1, true));
+        assertEquals(999, policy.delayMs(2, true));
+        assertEquals(1_999, policy.delayMs(3, true));
+    }
+
+    @Test
+    public void backoff_isCappedAndJittered() {
+        ReconnectPolicy low = new ReconnectPolicy(1_000, 30_000, 0, 20, () -> 0.0);
+        ReconnectPolicy high = new ReconnectPolicy(1_000, 30_000, 0, 20, () -> 0.999);
+
+        assertEquals(500, low.delayMs(0, false));
+        assertEquals(15_000, low.delayMs(12, false));
+        assertTrue(high.delayMs(12, false) < 30_000);
+        assertTrue(high.delayMs(12, false) > 29_000);
+    }
+
+    @Test
+    public void givesUpAfterMaxAttempts() {
+        ReconnectPolicy policy = new ReconnectPolicy(1_000, 30_000, 2, 3, () -> 0.5);
+
+        assertTrue(policy.delayMs(2, true) >= 0);
+        assertEquals(-1, policy.delayMs(3, true));
+    }
+}
@@ -0,0 +1,128 @@
+package com.bridger.events;
+
+import com.bridger.Store;
+import com.bridger.constants.Constants;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.EnumSet;
+import java.util.Map;
+
+import io.reactivex.rxjava3.core.BackpressureStrategy;
+import io.reactivex.rxjava3.exceptions.MissingBackpressureException;
+import io.reactivex.rxjava3.subscribers.TestSubscriber;
+
+import static org.junit.Assert.assertEquals;
+
+public class EventBusTest {
+
+    private static final int BUFFER_SIZE = 4;
+
+    private EventBus<ClipboardEvent.EventType, ClipboardEvent> bus;
+
+    @Before
+    public void setUp() {
+        bus = new EventBus<>(ClipboardEvent.EventType.class,
+                Map.of(ClipboardEvent.EventType.CONNECT_REQUESTED, BackpressureStrategy.LATEST,
+                        ClipboardEvent.EventType.SEND_REQUESTED, BackpressureStrategy.BUFFER),
+                EnumSet.of(ClipboardEvent.EventType.SENT), BUFFER_SIZE);
+    }
+
+    @Test
+    public void events_reachOnlySubscribersOfTheirType() {
+        TestSubscriber<ClipboardEvent> sent = bus.on(ClipboardEvent.EventType.SENT).test();
+        TestSubscriber<ClipboardEvent> received = bus.on(ClipboardEvent.EventType.RECEIVED).test();
+
+        bus.post(ClipboardEvent.createSentEvent("a"));
+        bus.post(ClipboardEvent.createReceiveEvent("b"));
+        bus.post(ClipboardEvent.createSentEvent("c"));
+
+        sent.assertValues(ClipboardEvent.createSentEvent("a"), ClipboardEvent.createSentEvent("c"));
+        received.assertValues(ClipboardEvent.createReceiveEvent("b"));
+    }
+
+    @Test
+    public void bufferedChannel_dropsOldestBeyondItsBuffer() {
+        TestSubscriber<ClipboardEvent> slow = bus.on(ClipboardEvent.EventType.SEND_REQUESTED).test(0);
+
+        for (int i = 0; i < BUFFER_SIZE + 2; i++) bus.post(ClipboardEvent.createSendRequestedEvent("clip " + i, i));
+        slow.request(Long.MAX_VALUE);
+
+        assertEquals(BUFFER_SIZE, slow.values().size());
+        assertEquals(ClipboardEvent.createSendRequestedEvent("clip 2", 2), slow.values().get(0));
+        assertEquals(2, bus.droppedCount());
+    }
+
+    @Test
+    public void latestChannel_keepsOnlyTheNewestForASlowSubscriber() {
+        TestSubscriber<ClipboardEvent> slow = bus.on(ClipboardEvent.EventType.CONNECT_REQUESTED).test(0);
+
+        bus.post(ClipboardEvent.createConnectEvent("AA"));
+        bus.post(ClipboardEvent.createConnectEvent("BB"));
+        slow.request(1);
+
+        slow.assertValues(ClipboardEvent.createConnectEvent("BB"));
+    }
+
+    @Test
+    public void slowSubscriber_doesNotHoldBackOthers() {
+        TestSubscriber<ClipboardEvent> slow = bus.on(ClipboardEvent.EventType.SEND_REQUESTED).test(0);
+        TestSubscriber<ClipboardEvent> fast = bus.on(ClipboardEvent.EventType.SEND_REQUESTED).test();
+
+        for (int i = 0; i < 10; i++) bus.post(ClipboardEvent.createSendRequestedEvent("clip " + i, i));
+
+        assertEquals(10, fast.values().size());
+        slow.assertNoValues();
+    }
+
+    @Test
+    public void channelWithoutStrategy_failsOnlyTheSubscriberThatFellBehind() {
+        TestSubscriber<ClipboardEvent> slow = bus.on(ClipboardEvent.EventType.RECEIVED).test(1);
+        TestSubscriber<ClipboardEvent> fast = bus.on(ClipboardEvent.EventType.RECEIVED).test();
+
+        bus.post(ClipboardEvent.createReceiveEvent("a"));
+        bus.post(ClipboardEvent.createReceiveEvent("b"));
+
+        slow.assertError(MissingBackpressureException.class);
+        fast.assertValues(ClipboardEvent.createReceiveEvent("a"), ClipboardEvent.createReceiveEvent("b"));
+    }
+
+    @Test
+    public void sharedType_deliversEveryEventPostedFromSeveralThreads() throws InterruptedException {
+        TestSubscriber<ClipboardEvent> sent = bus.on(ClipboardEvent.EventType.SENT).test();
+        Runnable poster = () -> {
+            for (int i = 0; i < 10_000; i++) bus.post(ClipboardEvent.createSentEvent("clip"));
+        };
+        Thread first = new Thread(poster);
+        Thread second = new Thread(poster);
+
+        first.start();
+        second.start();
+        first.join();
+        second.join();
+
+        sent.assertValueCount(20_000).assertNoErrors();
+    }
+
+    @Test
+    public void storeClipboardBus_buffersSentAndReceivedForASubscriberThatFellBehind() {
+        EventBus<ClipboardEvent.EventType, ClipboardEvent> clipboard = Store.getInstance().clipboard;
+        TestSubscriber<ClipboardEvent> history = clipboard.on(ClipboardEvent.EventType.SENT).test(0);
+        TestSubscriber<ClipboardEvent> ui = clipboard.on(ClipboardEvent.EventType.RECEIVED).test(0);
+
+        for (int i = 0; i <= Constants.EVENT_BUFFER_SIZE; i++) {
+            clipboard.post(ClipboardEvent.createSentEvent("sent " + i));
+            clipboard.post(ClipboardEvent.createReceiveEvent("received " + i));
+        }
+        history.request(Long.MAX_VALUE);
+        ui.request(Long.MAX_VALUE);
+
+        history.assertNoErrors();
+        ui.assertNoErrors();
+        assertEquals(Constants.EVENT_BUFFER_SIZE, history.values().size());
+        assertEquals(ClipboardEvent.createReceiveEvent("received " + Constants.EVENT_BUFFER_SIZE), ui.values().get(ui.values().size() - 1));
+        history.cancel();
+        ui.cancel();
+    }
+}
@@ -0,0 +1,205 @@
+package com.bridger.history;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+
+import static org.junit.Assert.*;
+
+public class HistoryPagerTest {
+
+    private final TestScheduler io = new TestScheduler();
+    private final TestScheduler main = new TestScheduler();
+    private final List<int[]> loaded = new ArrayList<>();
+    private final List<Integer> sizes = new ArrayList<>();
+
+    private MemoryHistoryStore storeWith(int rows) {
+        MemoryHistoryStore store = new MemoryHistoryStore();
+        List<HistoryEntry> entries = new ArrayList<>();
+        for (int i = 0; i < rows; i++) entries.add(MemoryHistoryStore.text("clip " + i));
+        store.append(entries, new HistoryStore.Retention(Integer.MAX_VALUE, Long.MAX_VALUE));
+        return store;
+    }
+
+    private HistoryPager pager(MemoryHistoryStore store, int maxPages) {
+        HistoryPager pager = new HistoryPager(store, 10, maxPages, io, main);
+        pager.setListener(new HistoryPager.Listener() {
+            @Override
+            public void onRowsLoaded(int position, int count) {
+                loaded.add(new int[]{position, count});
+            }
+
+            @Override
+            public void onSizeChanged(int size) {
+                sizes.add(size);
+            }
+        });
+        pager.refresh(store.count());
+        return pager;
+    }
+
+    private void runLoads() {
+        io.triggerActions();
+        main.triggerActions();
+    }
+
+    @Test
+    public void get_returnsNullUntilThePageIsRead_thenNewestFirst() {
+        HistoryPager pager = pager(storeWith(100), 4);
+
+        assertNull(pager.get(5));
+        runLoads();
+
+        assertEquals(1, loaded.size());
+        assertArrayEquals(new int[]{0, 10}, loaded.get(0));
+        assertEquals("clip 99", pager.get(0).preview());
+        assertEquals("clip 94", pager.get(5).preview());
+    }
+
+    @Test
+    public void get_nearAPageEdge_readsTheNextPageAhead() {
+        MemoryHistoryStore store = storeWith(100);
+        HistoryPager pager = pager(store, 4);
+
+        pager.get(18); // Last quarter of page 1
+        runLoads();
+
+        assertEquals(2, store.pageReads);
+        assertEquals("clip 79", pager.get(20).preview());
+    }
+
+    @Test
+    public void scrollingThroughManyRows_holdsAtMostMaxPages() {
+        MemoryHistoryStore store = storeWith(100_000);
+        HistoryPager pager = pager(store, 4);
+
+        for (int position = 0; position < 100_000; position += 5) {
+            pager.get(position);
+            runLoads();
+            assertNotNull(pager.get(position));
+            assertTrue(pager.pagesHeld() <= 4);
+        }
+        assertEquals("clip 0", pager.get(99_999).preview());
+        assertTrue(store.pageReads <= 100_000 / 10 + 1); // Every page read once on the way down
+    }
+
+    @Test
+    public void refresh_keepsShowingOldRowsUntilReadAgain_andDropsStaleReads() {
+        MemoryHistoryStore store = storeWith(20);
+        HistoryPager pager = pager(store, 4);
+        pager.get(0);
+        runLoads();
+
+        pager.get(12); // Read in flight when the store changes
+        store.append(List.of(MemoryHistoryStore.text("new")), new HistoryStore.Retention(Integer.MAX_VALUE, Long.MAX_VALUE));
+        pager.refresh(store.count());
+
+        assertEquals(21, pager.size());
+        assertEquals("clip 19", pager.get(0).preview()); // Stale, but not blank
+        runLoads();
+        assertEquals("new", pager.get(0).preview());
+        assertEquals("clip 18", pager.get(2).preview());
+    }
+
+    @Test
+    public void dispose_dropsReadsInFlight() {
+        HistoryPager pager = pager(storeWith(100), 4);
+        pager.get(50);
+        pager.dispose();
+        runLoads();
+
+        assertTrue(loaded.isEmpty());
+        assertEquals(0, pager.pagesHeld());
+    }
+
+    @Test
+    public void setQuery_listsOnlyMatches_andNullListsEverythingAgain() {
+        MemoryHistoryStore store = storeWith(30);
+        store.append(List.of(MemoryHistoryStore.text("SELECT * FROM users"), MemoryHistoryStore.text("select 1")),
+                new HistoryStore.Retention(Integer.MAX_VALUE, Long.MAX_VALUE));
+        HistoryPager pager = pager(store, 4);
+        pager.refresh(store.count());
+
+        pager.setQuery(HistoryQuery.parse("sel"));
+        assertEquals(0, pager.size());
+        runLoads();
+        assertEquals(2, pager.size()); // A short first page is all the matches
+        assertEquals("select 1", pager.get(0).preview());
+        assertEquals("SELECT * FROM users", pager.get(1).preview());
+
+        store.append(List.of(MemoryHistoryStore.text("selected")), new HistoryStore.Retention(Integer.MAX_VALUE, Long.MAX_VALUE));
+        pager.refresh(store.count()); // Matches are read again
+        assertEquals("select 1", pager.get(0).preview()); // Stale, but not blank
+        runLoads();
+        assertEquals(3, pager.size());
+        assertEquals("selected", pager.get(0).preview());
+
+        pager.setQuery(null);
+        assertEquals(33, pager.size());
+        assertEquals(Integer.valueOf(33), sizes.get(sizes.size() - 1));
+    }
+
+    @Test
+    public void setQuery_dropsReadsOfAnEarlierQuery() {
+        MemoryHistoryStore store = storeWith(30);
+        HistoryPager pager = pager(store, 4);
+        runLoads();
+        sizes.clear();
+
+        pager.setQuery(HistoryQuery.parse("clip"));
+        pager.setQuery(HistoryQuery.parse("nothing"));
+        runLoads();
+
+        assertEquals(0, pager.size());
+        assertEquals(List.of(0, 0), sizes); // The matches of "clip" never show
+    }
+
+    @Test
+    public void search_readsEachPageAfterTheLastIdOfThePreviousOne_andGrowsUntilAShortPage() {
+        MemoryHistoryStore store = storeWith(25); // "clip i" has id i + 1
+        HistoryPager pager = pager(store, 4);
+        runLoads();
+        store.searchedBefore.clear();
+
+        pager.setQuery(HistoryQuery.parse("clip"));
+        runLoads();
+        assertEquals(10, pager.size()); // Full, so there may be more
+        pager.get(9);
+        runLoads();
+        assertEquals(20, pager.size());
+        pager.get(19);
+        runLoads();
+
+        assertEquals(25, pager.size());
+        assertEquals("clip 0", pager.get(24).preview());
+        assertEquals(List.of(Long.MAX_VALUE, 16L, 6L), store.searchedBefore);
+        assertEquals(List.of(0, 10, 20, 25), sizes.subList(sizes.size() - 4, sizes.size()));
+    }
+
+    @Test
+    public void search_refresh_readsHeldPagesAgainInOrder() {
+        MemoryHistoryStore store = storeWith(25);
+        HistoryPager pager = pager(store, 4);
+        pager.setQuery(HistoryQuery.parse("clip"));
+        for (int position = 0; position < 25; position += 9) {
+            pager.get(position);
+            runLoads();
+        }
+        assertEquals(25, pager.size());
+
+        store.append(List.of(MemoryHistoryStore.text("clip new")), new HistoryStore.Retention(Integer.MAX_VALUE, Long.MAX_VALUE));
+        pager.refresh(store.count());
+        store.searchedBefore.clear();
+        runLoads();
+        runLoads();
+        runLoads();
+
+        assertEquals(26, pager.size());
+        assertEquals("clip new", pager.get(0).preview());
+        assertEquals("clip 0", pager.get(25).preview());
+        assertEquals(List.of(Long.MAX_VALUE, 17L, 7L), store.searchedBefore);
+    }
+}
@@ -0,0 +1,33 @@
+package com.bridger.history;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HistoryQueryTest {
+
+    @Test
+    public void parse_splitsOnAnythingButLettersAndDigits() {
+        assertEquals(List.of("select", "from", "us"), HistoryQuery.parse("  SELECT *\tfrom \"us").terms());
+        assertEquals(List.of("caf\u00e9", "42"), HistoryQuery.parse("Caf\u00e9-42").terms());
+        assertNull(HistoryQuery.parse(" *\" ,"));
+        assertNull(HistoryQuery.parse(null));
+    }
+
+    @Test
+    public void ftsMatch_isOneQuotedPrefixTermPerWord() {
+        assertEquals("\"sel*\" \"us*\"", HistoryQuery.parse("sel \"us").ftsMatch());
+    }
+
+    @Test
+    public void matches_needsEveryWordToStartAWordInAnyOrder() {
+        HistoryQuery query = HistoryQuery.parse("us sel");
+        assertTrue(query.matches("SELECT * FROM users"));
+        assertTrue(query.matches("users: select"));
+        assertFalse(query.matches("SELECT * FROM accounts")); // Missing a word
+        assertFalse(query.matches("reselect users")); // Inside a word
+        assertTrue(HistoryQuery.parse("2024").matches("Invoice 2024-05"));
+    }
+}
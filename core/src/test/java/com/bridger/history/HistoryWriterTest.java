@@ -0,0 +1,96 @@
+package com.bridger.history;
+
+import androidx.annotation.NonNull;
+
+import com.bridger.constants.Constants;
+import com.bridger.events.ClipboardEvent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+
+import static org.junit.Assert.*;
+
+public class HistoryWriterTest {
+
+    private static final HistoryStore.Retention UNLIMITED = new HistoryStore.Retention(Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    private final TestScheduler scheduler = new TestScheduler();
+    private final List<Integer> committed = new ArrayList<>();
+    private final List<RuntimeException> failures = new ArrayList<>();
+    private final HistoryWriter.Listener listener = new HistoryWriter.Listener() {
+        @Override
+        public void onCommitted(int count) {
+            committed.add(count);
+        }
+
+        @Override
+        public void onFailed(@NonNull RuntimeException error) {
+            failures.add(error);
+        }
+    };
+
+    @Test
+    public void entriesWithinTheDelay_areInsertedInOneBatch() {
+        MemoryHistoryStore store = new MemoryHistoryStore();
+        HistoryWriter writer = new HistoryWriter(store, UNLIMITED, scheduler, 250, listener);
+
+        writer.add(MemoryHistoryStore.text("one"));
+        writer.add(MemoryHistoryStore.text("two"));
+        scheduler.advanceTimeBy(249, TimeUnit.MILLISECONDS);
+        assertEquals(0, store.appends);
+        writer.add(MemoryHistoryStore.text("three"));
+        scheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+
+        assertEquals(1, store.appends);
+        assertEquals(List.of(3), committed);
+        assertEquals("three", store.page(0, 1).get(0).preview());
+        assertEquals(3, store.page(0, 1).get(0).id());
+
+        writer.add(MemoryHistoryStore.text("four"));
+        scheduler.advanceTimeBy(250, TimeUnit.MILLISECONDS);
+        assertEquals(2, store.appends);
+        assertEquals(List.of(3, 4), committed);
+    }
+
+    @Test
+    public void failedBatch_isReportedAndTheNextOneStillWritten() {
+        MemoryHistoryStore store = new MemoryHistoryStore() {
+            @Override
+            public synchronized int append(@NonNull List<HistoryEntry> entries, @NonNull Retention retention) {
+                if (appends++ == 0) throw new IllegalStateException("disk full");
+                appends--;
+                return super.append(entries, retention);
+            }
+        };
+        HistoryWriter writer = new HistoryWriter(store, UNLIMITED, scheduler, 10, listener);
+
+        writer.add(MemoryHistoryStore.text("lost"));
+        scheduler.advanceTimeBy(10, TimeUnit.MILLISECONDS);
+        writer.add(MemoryHistoryStore.text("kept"));
+        scheduler.advanceTimeBy(10, TimeUnit.MILLISECONDS);
+
+        assertEquals(1, failures.size());
+        assertEquals(List.of(1), committed);
+        assertEquals("kept", store.page(0, 1).get(0).preview());
+    }
+
+    @Test
+    public void entryOf_showsAPreviewButSearchesTheWholeClip() {
+        String text = "x".repeat(Constants.HISTORY_PREVIEW_CHARS - 1) + "\uD83D\uDE00" + "y".repeat(10_000);
+        HistoryEntry entry = HistoryEntry.of(ClipboardEvent.createSentEvent(text), 42);
+
+        assertEquals(HistoryEntry.Direction.SENT, entry.direction());
+        assertEquals(42, entry.timestamp());
+        assertEquals(Constants.HISTORY_PREVIEW_CHARS - 1 + 4 + 10_000, entry.size());
+        assertEquals(Constants.HISTORY_PREVIEW_CHARS - 1, entry.preview().length()); // Not half an emoji
+        assertTrue(entry.isText());
+        assertEquals(40, entry.hash().length());
+        assertEquals(text, entry.searchText());
+        assertTrue(entry.storedBytes() > entry.size()); // The whole text counts against the budget
+    }
+}
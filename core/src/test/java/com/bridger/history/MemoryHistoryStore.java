@@ -0,0 +1,60 @@
+package com.bridger.history;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// HistoryStore in a list, oldest first, for tests. Searches by scanning; counts page reads and records search keys.
+class MemoryHistoryStore implements HistoryStore {
+
+    final List<HistoryEntry> rows = new ArrayList<>();
+    int appends;
+    int pageReads;
+    final List<Long> searchedBefore = new ArrayList<>();
+    private long nextId = 1;
+
+    @Override
+    public synchronized int append(@NonNull List<HistoryEntry> entries, @NonNull Retention retention) {
+        appends++;
+        for (HistoryEntry entry : entries) rows.add(entry.withId(nextId++));
+        long bytes = 0;
+        for (HistoryEntry row : rows) bytes += row.storedBytes();
+        while (!rows.isEmpty() && (rows.size() > retention.maxRows() || bytes > retention.maxBytes())) {
+            bytes -= rows.remove(0).storedBytes();
+        }
+        return rows.size();
+    }
+
+    @Override
+    public synchronized int count() {
+        return rows.size();
+    }
+
+    @NonNull
+    @Override
+    public synchronized List<HistoryEntry> page(int offset, int limit) {
+        pageReads++;
+        List<HistoryEntry> page = new ArrayList<>();
+        for (int i = rows.size() - 1 - offset; i >= 0 && page.size() < limit; i--) page.add(rows.get(i));
+        return page;
+    }
+
+    @NonNull
+    @Override
+    public synchronized List<HistoryEntry> search(@NonNull HistoryQuery query, long beforeId, int limit) {
+        pageReads++;
+        searchedBefore.add(beforeId);
+        List<HistoryEntry> page = new ArrayList<>();
+        for (int i = rows.size() - 1; i >= 0 && page.size() < limit; i--) {
+            HistoryEntry row = rows.get(i);
+            if (row.id() < beforeId && query.matches(row.searchText())) page.add(row);
+        }
+        return page;
+    }
+
+    static HistoryEntry text(String text) {
+        return new HistoryEntry(HistoryEntry.NO_ID, HistoryEntry.Direction.SENT, 0, text.length(), null, null,
+                HistoryEntry.preview(text), text);
+    }
+}
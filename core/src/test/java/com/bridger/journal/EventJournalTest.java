@@ -0,0 +1,120 @@
+package com.bridger.journal;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+
+import static org.junit.Assert.*;
+
+public class EventJournalTest {
+
+    private static final long COMMIT_DELAY_MS = 50;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final TestScheduler scheduler = new TestScheduler();
+    private final List<EventJournal.Entry> state = new ArrayList<>(); // What the snapshot writes on compaction
+    private File directory;
+
+    @Before
+    public void setUp() {
+        directory = new File(folder.getRoot(), "journal");
+    }
+
+    private EventJournal open(long segmentBytes, int maxSegments) {
+        return new EventJournal(directory, segmentBytes, maxSegments, () -> new ArrayList<>(state), scheduler, COMMIT_DELAY_MS,
+                () -> scheduler.now(TimeUnit.MILLISECONDS));
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> bodies(List<EventJournal.Entry> entries) {
+        List<String> bodies = new ArrayList<>();
+        for (EventJournal.Entry entry : entries) bodies.add(entry.kind() + ":" + new String(entry.body(), StandardCharsets.UTF_8));
+        return bodies;
+    }
+
+    @Test
+    public void appendedRecords_areReplayedInOrder() throws IOException {
+        EventJournal journal = open(1024 * 1024, 4);
+        assertTrue(journal.replay().isEmpty());
+        journal.append(1, utf8("first"));
+        journal.append(2, utf8("second"));
+        journal.close();
+
+        EventJournal reopened = open(1024 * 1024, 4);
+        assertEquals(List.of("1:first", "2:second"), bodies(reopened.replay()));
+        assertEquals(2, reopened.stats().replayedRecords());
+    }
+
+    @Test
+    public void appends_areWrittenTogetherAfterTheCommitDelay() throws IOException {
+        EventJournal journal = open(1024 * 1024, 4);
+        journal.replay();
+        journal.append(1, utf8("a"));
+        journal.append(1, utf8("b"));
+        File segment = directory.listFiles()[0];
+        assertEquals(0, segment.length());
+
+        scheduler.advanceTimeBy(COMMIT_DELAY_MS, TimeUnit.MILLISECONDS);
+
+        assertEquals(2 * (8 + 9 + 1), segment.length());
+        assertEquals(segment.length(), journal.stats().bytes());
+    }
+
+    @Test
+    public void recordCutShort_isDroppedOnReplay() throws IOException {
+        EventJournal journal = open(1024 * 1024, 4);
+        journal.replay();
+        journal.append(1, utf8("kept"));
+        journal.append(1, utf8("torn"));
+        journal.close();
+        File segment = directory.listFiles()[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(file.length() - 2);
+        }
+
+        EventJournal reopened = open(1024 * 1024, 4);
+        assertEquals(List.of("1:kept"), bodies(reopened.replay()));
+        reopened.append(1, utf8("after"));
+        reopened.close();
+
+        assertEquals(List.of("1:kept", "1:after"), bodies(open(1024 * 1024, 4).replay()));
+    }
+
+    @Test
+    public void fullSegments_rotateAndCompactToTheSnapshot() throws IOException {
+        EventJournal journal = open(64, 3);
+        journal.replay();
+        for (int i = 0; i < 20; i++) {
+            journal.append(1, utf8("event " + i));
+            state.clear();
+            state.add(new EventJournal.Entry(2, 0, utf8("state " + i)));
+            journal.commit();
+        }
+        journal.close();
+
+        assertTrue(journal.stats().compactions() > 0);
+        assertTrue(journal.stats().segments() <= 3);
+        assertEquals(journal.stats().segments(), directory.listFiles().length);
+        List<String> replayed = bodies(open(64, 3).replay());
+        // The last snapshot, then whatever was appended after it
+        assertTrue(replayed.get(0).startsWith("2:state "));
+        assertEquals("1:event 19", replayed.get(replayed.size() - 1));
+        assertTrue(replayed.size() < 20);
+    }
+}
@@ -0,0 +1,43 @@
+package com.bridger.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HistogramTest {
+
+    @Test
+    public void record_countsIntoBuckets() {
+        Histogram histogram = new Histogram(10, 100, 1_000);
+        histogram.record(5);
+        histogram.record(10);
+        histogram.record(50);
+        histogram.record(5_000);
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertArrayEquals(new long[] {2, 1, 0, 1}, snapshot.counts());
+        assertEquals(4, snapshot.count());
+        assertEquals(5, snapshot.min());
+        assertEquals(5_000, snapshot.max());
+    }
+
+    @Test
+    public void percentile_usesBucketBoundsClampedToMax() {
+        Histogram histogram = Histogram.exponential(1, 12);
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(64, snapshot.percentile(50));
+        assertEquals(100, snapshot.percentile(99)); // Bucket bound is 128, but nothing above 100 was seen
+        assertEquals(50.5, snapshot.mean(), 0.001);
+    }
+
+    @Test
+    public void emptyHistogram_reportsZeros() {
+        Histogram.Snapshot snapshot = new Histogram(10).snapshot();
+        assertEquals(0, snapshot.percentile(95));
+        assertEquals(0, snapshot.min());
+    }
+}
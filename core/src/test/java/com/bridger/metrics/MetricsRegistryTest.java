@@ -0,0 +1,98 @@
+package com.bridger.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void latencyHistogram_bucketsAreExactBelow16AndWithin1In16Above() {
+        for (long value = 0; value < 100_000; value++) {
+            int index = LatencyHistogram.index(value);
+            long upper = LatencyHistogram.upperBound(index);
+            assertTrue(value <= upper);
+            if (index > 0) assertTrue(value > LatencyHistogram.upperBound(index - 1));
+            if (value < 16) assertEquals(value, upper);
+            assertTrue(upper - value <= value / 16);
+        }
+        assertEquals(LatencyHistogram.MAX_VALUE, LatencyHistogram.upperBound(LatencyHistogram.index(LatencyHistogram.MAX_VALUE)));
+    }
+
+    @Test
+    public void latencyHistogram_percentilesWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1_000; i++) {
+            histogram.record(i);
+        }
+        histogram.record(-5); // Counts as 0
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1_001, snapshot.count());
+        assertEquals(0, snapshot.min());
+        assertEquals(1_000, snapshot.max());
+        assertEquals(500_500, snapshot.sum());
+        assertEquals(500, snapshot.percentile(50), 500 / 16.0);
+        assertEquals(990, snapshot.percentile(99), 990 / 16.0);
+        assertEquals(1_000, snapshot.percentile(100));
+    }
+
+    @Test
+    public void latencyHistogram_concurrentRecordsAreAllCounted() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) histogram.record(i);
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        assertEquals(40_000, histogram.snapshot().count());
+    }
+
+    @Test
+    public void registry_returnsTheSameMetricForAName() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("sent_total", "Sent").increment();
+        registry.counter("sent_total", "Sent").add(2);
+        registry.gauge("peers", "Peers").set(3);
+
+        MetricsRegistry.Snapshot snapshot = registry.snapshot(42);
+        assertEquals(42, snapshot.takenAt());
+        assertEquals(3, snapshot.get("sent_total").value());
+        assertEquals(3, snapshot.get("peers").value());
+        assertNull(snapshot.get("missing"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void registry_rejectsANameReusedForAnotherType() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("clips", "Clips");
+        registry.gauge("clips", "Clips");
+    }
+
+    @Test
+    public void exposition_writesPrometheusText() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("sent_total", "Clips sent").add(7);
+        registry.gauge("peers", "Macs connected").set(2);
+        LatencyHistogram histogram = registry.histogram("send_ms", "Send time");
+        histogram.record(10);
+        histogram.record(10);
+
+        assertEquals("# HELP x_peers Macs connected\n"
+                + "# TYPE x_peers gauge\n"
+                + "x_peers 2\n"
+                + "# HELP x_send_ms Send time\n"
+                + "# TYPE x_send_ms summary\n"
+                + "x_send_ms{quantile=\"0.5\"} 10\n"
+                + "x_send_ms{quantile=\"0.9\"} 10\n"
+                + "x_send_ms{quantile=\"0.99\"} 10\n"
+                + "x_send_ms_sum 20\n"
+                + "x_send_ms_count 2\n"
+                + "# HELP x_sent_total Clips sent\n"
+                + "# TYPE x_sent_total counter\n"
+                + "x_sent_total 7\n", registry.snapshot(0).exposition("x_"));
+    }
+}
@@ -0,0 +1,58 @@
+package com.bridger.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class PeerStateTest {
+
+    @Test
+    public void overall_isConnectedWhileAnyPeerIs() {
+        assertEquals(ConnectionState.CONNECTED, PeerState.overall(Arrays.asList(
+                peer("a", ConnectionState.RECONNECTING), peer("b", ConnectionState.CONNECTED), peer("c", ConnectionState.FAILED)),
+                ConnectionState.DISCONNECTED));
+    }
+
+    @Test
+    public void overall_prefersTheStateClosestToConnected() {
+        assertEquals(ConnectionState.CONNECTING, PeerState.overall(Arrays.asList(
+                peer("a", ConnectionState.RECONNECTING), peer("b", ConnectionState.CONNECTING)), ConnectionState.DISCONNECTED));
+        assertEquals(ConnectionState.RECONNECTING, PeerState.overall(Arrays.asList(
+                peer("a", ConnectionState.FAILED), peer("b", ConnectionState.RECONNECTING)), ConnectionState.DISCONNECTED));
+    }
+
+    @Test
+    public void overall_withoutPeers_isTheFallback() {
+        assertEquals(ConnectionState.FAILED, PeerState.overall(Collections.emptyList(), ConnectionState.FAILED));
+    }
+
+    @Test
+    public void bytesPerSecond_isZeroBeforeTheFirstTransfer() {
+        assertEquals(0, peer("a", ConnectionState.CONNECTED).bytesPerSecond());
+        PeerState sent = new PeerState("a", ConnectionState.CONNECTED, 517, LinkMode.BURST, 0,
+                new TransferStats(1000, 1000, 500, 0, 517));
+        assertEquals(2000, sent.bytesPerSecond());
+    }
+
+    @Test
+    public void overallMtuAndLinkMode_comeFromConnectedPeersOnly() {
+        PeerState small = new PeerState("a", ConnectionState.CONNECTED, 185, LinkMode.LOW_POWER, 0, null);
+        PeerState large = new PeerState("b", ConnectionState.CONNECTED, 517, LinkMode.BURST, 0, null);
+        PeerState dropped = new PeerState("c", ConnectionState.RECONNECTING, 23, LinkMode.BALANCED, 1, null);
+
+        assertEquals(185, PeerState.overallMtu(Arrays.asList(small, large, dropped)));
+        assertEquals(LinkMode.BURST, PeerState.overallLinkMode(Arrays.asList(small, large, dropped)));
+        // One peer dropping leaves what the other reports
+        assertEquals(185, PeerState.overallMtu(Arrays.asList(small, dropped)));
+        assertEquals(LinkMode.LOW_POWER, PeerState.overallLinkMode(Arrays.asList(small, dropped)));
+        assertEquals(23, PeerState.overallMtu(Collections.singletonList(dropped)));
+        assertEquals(LinkMode.BALANCED, PeerState.overallLinkMode(Collections.emptyList()));
+    }
+
+    private static PeerState peer(String address, ConnectionState state) {
+        return new PeerState(address, state, 23, LinkMode.BALANCED, 0, null);
+    }
+}
@@ -0,0 +1,83 @@
+package com.bridger.protocol;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+
+import static org.junit.Assert.*;
+
+public class DeltaCodecTest {
+
+    private static final int MAX_BYTES = 1024 * 1024;
+
+    private static byte[] config(String value) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            builder.append("setting.").append(i).append(" = ").append(i == 150 ? value : "default").append('\n');
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void oneLineEdit_producesSmallPatch() throws DataFormatException {
+        byte[] base = config("default");
+        byte[] target = config("changed-value");
+
+        byte[] patch = DeltaCodec.encode(base, target);
+
+        assertTrue("patch " + patch.length + " for " + target.length, patch.length < 64);
+        assertArrayEquals(target, DeltaCodec.apply(base, patch, MAX_BYTES));
+    }
+
+    @Test
+    public void insertionsAndDeletions_roundTrip() throws DataFormatException {
+        String text = new String(config("default"), StandardCharsets.UTF_8);
+        byte[] base = text.getBytes(StandardCharsets.UTF_8);
+        byte[] target = ("header\n" + text.substring(100, 4000) + "inserted line\n" + text.substring(4000) + "footer")
+                .getBytes(StandardCharsets.UTF_8);
+
+        assertArrayEquals(target, DeltaCodec.apply(base, DeltaCodec.encode(base, target), MAX_BYTES));
+    }
+
+    @Test
+    public void emptyAndTinyInputs_roundTrip() throws DataFormatException {
+        byte[] empty = new byte[0];
+        byte[] tiny = "abc".getBytes(StandardCharsets.UTF_8);
+
+        assertArrayEquals(tiny, DeltaCodec.apply(empty, DeltaCodec.encode(empty, tiny), MAX_BYTES));
+        assertArrayEquals(empty, DeltaCodec.apply(tiny, DeltaCodec.encode(tiny, empty), MAX_BYTES));
+    }
+
+    @Test(expected = DataFormatException.class)
+    public void wrongBase_isRejected() throws DataFormatException {
+        byte[] patch = DeltaCodec.encode(config("default"), config("changed"));
+
+        DeltaCodec.apply(config("something else"), patch, MAX_BYTES);
+    }
+
+    @Test
+    public void craftedPatches_areRejectedAsMalformed() {
+        byte[] base = config("default");
+        int crc = DeltaCodec.crc32(base);
+        int[][] bodies = {
+                {0xFF, 0xFF, 0xFF, 0xFF, 0x0F},                                     // Length -1
+                {0x10, 0x01, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F, 0x04},                   // COPY from offset -1
+                {0x10, 0x01, 0x00, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F},                   // COPY of -1 bytes
+                {0x10, 0x01, 0x04, 0xFF, 0xFF, 0xFF, 0xFF, 0x07},                   // COPY whose end overflows int
+                {0x10, 0x02, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F},                         // INSERT of -1 bytes
+                {0x10, 0x02, 0xFF, 0xFF, 0xFF, 0xFF, 0x07},                         // INSERT past the end
+        };
+        for (int[] body : bodies) {
+            byte[] patch = new byte[8 + body.length];
+            for (int i = 0; i < 4; i++) patch[i] = (byte) (crc >>> (8 * i));
+            for (int i = 0; i < body.length; i++) patch[8 + i] = (byte) body[i];
+            try {
+                DeltaCodec.apply(base, patch, MAX_BYTES);
+                fail("Accepted a malformed patch");
+            } catch (DataFormatException expected) {
+                // The only exception a peer's patch may cause
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.bridger.protocol;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FrameReassemblerTest {
+
+    private static final int FRAME_SIZE = 20; // Default MTU - 3
+    private static final long TIMEOUT_MS = 1_000;
+
+    private long now;
+    private FrameReassembler reassembler;
+
+    @Before
+    public void setUp() {
+        now = 0;
+        reassembler = new FrameReassembler(TIMEOUT_MS, 1024 * 1024, () -> now);
+    }
+
+    private static List<Frame> frames(int messageId, byte[] payload) {
+        List<Frame> frames = new ArrayList<>();
+        MessageFramer framer = new MessageFramer(Frame.Type.TEXT, 0, messageId, payload, FRAME_SIZE);
+        while (framer.hasNext()) {
+            frames.add(Frame.decode(framer.next()));
+        }
+        return frames;
+    }
+
+    private static byte[] text(int length) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < length; i++) builder.append((char) ('a' + i % 26));
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void frame_roundTripsHeaderFields() {
+        Frame frame = new Frame(Frame.Type.TEXT, 0x5, 0xBEEF, 0xFFFF, 70_000, new byte[]{1, 2, 3});
+        Frame decoded = Frame.decode(frame.encode());
+
+        assertEquals(Frame.Type.TEXT, decoded.type());
+        assertEquals(0x5, decoded.flags());
+        assertEquals(0xBEEF, decoded.messageId());
+        assertEquals(0xFFFF, decoded.chunkIndex());
+        assertEquals(70_000, decoded.totalLength());
+        assertArrayEquals(new byte[]{1, 2, 3}, decoded.payload());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void frame_rejectsTruncatedHeader() {
+        Frame.decode(new byte[Frame.HEADER_SIZE - 1]);
+    }
+
+    @Test
+    public void credit_carriesCount() {
+        assertEquals(300, Frame.decode(Frame.credit(0, 300).encode()).creditCount());
+    }
+
+    @Test
+    public void singleFrameMessage_isDeliveredImmediately() {
+        byte[] payload = text(5);
+        FrameReassembler.Message message = reassembler.accept(frames(1, payload).get(0));
+
+        assertNotNull(message);
+        assertArrayEquals(payload, message.bytes());
+        assertEquals(0, reassembler.pendingCount());
+    }
+
+    @Test
+    public void emptyMessage_isDelivered() {
+        List<Frame> frames = frames(1, new byte[0]);
+
+        assertEquals(1, frames.size());
+        FrameReassembler.Message message = reassembler.accept(frames.get(0));
+        assertNotNull(message);
+        assertEquals(0, message.length());
+    }
+
+    @Test
+    public void multiFrameMessage_isDeliveredOnceComplete() {
+        byte[] payload = text(1000);
+        List<Frame> frames = frames(7, payload);
+        assertTrue(frames.size() > 1);
+
+        for (int i = 0; i < frames.size() - 1; i++) {
+            assertNull(reassembler.accept(frames.get(i)));
+        }
+        FrameReassembler.Message message = reassembler.accept(frames.get(frames.size() - 1));
+
+        assertNotNull(message);
+        assertEquals(7, message.messageId());
+        assertArrayEquals(payload, message.bytes());
+        assertEquals(0, reassembler.pendingCount());
+    }
+
+    @Test
+    public void interleavedMessages_areReassembledIndependently() {
+        byte[] first = text(50);
+        byte[] second = text(70);
+        List<Frame> a = frames(1, first);
+        List<Frame> b = frames(2, second);
+        List<FrameReassembler.Message> delivered = new ArrayList<>();
+
+        for (int i = 0; i < Math.max(a.size(), b.size()); i++) {
+            if (i < a.size()) addIfComplete(delivered, reassembler.accept(a.get(i)));
+            if (i < b.size()) addIfComplete(delivered, reassembler.accept(b.get(i)));
+        }
+
+        assertEquals(2, delivered.size());
+        assertArrayEquals(first, delivered.get(0).bytes());
+        assertArrayEquals(second, delivered.get(1).bytes());
+    }
+
+    @Test
+    public void sequenceGap_discardsPartialMessage() {
+        List<Frame> frames = frames(3, text(100));
+
+        reassembler.accept(frames.get(0));
+        assertNull(reassembler.accept(frames.get(2)));
+
+        assertEquals(0, reassembler.pendingCount());
+        assertEquals(1, reassembler.discardedCount());
+        // The rest of the broken message is ignored too
+        for (int i = 3; i < frames.size(); i++) {
+            assertNull(reassembler.accept(frames.get(i)));
+        }
+    }
+
+    @Test
+    public void staleTail_withoutStart_isDiscarded() {
+        List<Frame> frames = frames(4, text(100));
+
+        assertNull(reassembler.accept(frames.get(1)));
+        assertEquals(0, reassembler.pendingCount());
+    }
+
+    @Test
+    public void stalledPartial_expiresAfterTimeout() {
+        List<Frame> frames = frames(5, text(100));
+        reassembler.accept(frames.get(0));
+        assertEquals(1, reassembler.pendingCount());
+
+        now += TIMEOUT_MS + 1;
+        assertEquals(1, reassembler.expire(now));
+
+        assertEquals(0, reassembler.pendingCount());
+        assertNull(reassembler.accept(frames.get(1)));
+    }
+
+    @Test
+    public void oversizedHeader_isRejected() {
+        Frame frame = new Frame(Frame.Type.TEXT, 0, 1, 0, Integer.MAX_VALUE, new byte[10]);
+
+        assertNull(reassembler.accept(frame));
+        assertEquals(0, reassembler.pendingCount());
+    }
+
+    @Test
+    public void resumedPartial_continuesWithLargerFrames() {
+        byte[] payload = text(200);
+        List<Frame> frames = frames(6, payload);
+        reassembler.accept(frames.get(0));
+        reassembler.accept(frames.get(1));
+        FrameReassembler.Progress progress = reassembler.progress(6);
+        assertEquals(new FrameReassembler.Progress(2, 2 * (FRAME_SIZE - Frame.HEADER_SIZE), payload.length), progress);
+
+        // Link down for longer than the partial timeout, but within the session expiry
+        now += TIMEOUT_MS * 5;
+        assertEquals(0, reassembler.resume(now, TIMEOUT_MS * 10));
+        MessageFramer framer = new MessageFramer(Frame.Type.TEXT, 0, 6, payload, 100);
+        framer.resumeAt(progress.received(), progress.nextChunk());
+        FrameReassembler.Message message = null;
+        while (framer.hasNext()) {
+            message = reassembler.accept(Frame.decode(framer.next()));
+        }
+
+        assertNotNull(message);
+        assertArrayEquals(payload, message.bytes());
+    }
+
+    @Test
+    public void resume_dropsPartialsOlderThanSessionExpiry() {
+        reassembler.accept(frames(7, text(100)).get(0));
+
+        now += 10_000;
+        assertEquals(1, reassembler.resume(now, 5_000));
+
+        assertNull(reassembler.progress(7));
+    }
+
+    @Test
+    public void rawPackets_reuseReleasedBuffers() {
+        BufferPool pool = new BufferPool(64 * 1024, 1);
+        reassembler = new FrameReassembler(TIMEOUT_MS, 1024 * 1024, () -> now, pool);
+        byte[] payload = text(5_000);
+
+        for (int id = 0; id < 3; id++) {
+            MessageFramer framer = new MessageFramer(Frame.Type.TEXT, 0, id, payload, FRAME_SIZE);
+            FrameReassembler.Message message = null;
+            while (framer.hasNext()) message = reassembler.accept(framer.next());
+            assertNotNull(message);
+            assertEquals(id, message.messageId());
+            assertArrayEquals(payload, message.bytes());
+            reassembler.release(message);
+        }
+
+        assertEquals(new BufferPool.Stats(1, 2, 8 * 1024), pool.stats());
+    }
+
+    @Test
+    public void discardedPartial_returnsItsBuffer() {
+        BufferPool pool = new BufferPool(64 * 1024, 1);
+        reassembler = new FrameReassembler(TIMEOUT_MS, 1024 * 1024, () -> now, pool);
+        reassembler.accept(frames(8, text(100)).get(0));
+
+        reassembler.discard(8);
+
+        assertEquals(1024, pool.stats().idleBytes());
+    }
+
+    @Test
+    public void firstChunkLength_isNotAllocatedUpFront() {
+        BufferPool pool = new BufferPool(1024 * 1024, 1);
+        reassembler = new FrameReassembler(TIMEOUT_MS, 1024 * 1024, () -> now, pool);
+
+        reassembler.accept(new Frame(Frame.Type.TEXT, 0, 9, 0, 1024 * 1024, new byte[10])); // Claims the maximum
+        reassembler.discard(9);
+
+        assertEquals(new BufferPool.Stats(1, 0, FrameReassembler.INITIAL_BUFFER_BYTES), pool.stats());
+    }
+
+    @Test
+    public void largeMessage_growsItsBufferAsChunksArrive() {
+        BufferPool pool = new BufferPool(1024 * 1024, 1);
+        reassembler = new FrameReassembler(TIMEOUT_MS, 1024 * 1024, () -> now, pool);
+        byte[] payload = text(200_000);
+
+        MessageFramer framer = new MessageFramer(Frame.Type.TEXT, 0, 10, payload, 4096);
+        FrameReassembler.Message message = null;
+        while (framer.hasNext()) message = reassembler.accept(framer.next());
+
+        assertNotNull(message);
+        assertArrayEquals(payload, message.bytes());
+        assertEquals(new BufferPool.Stats(3, 0, 64 * 1024 + 128 * 1024), pool.stats()); // 64 KB, 128 KB, then 256 KB
+    }
+
+    @Test
+    public void foreignBuffers_areNotPooled() {
+        BufferPool pool = new BufferPool(64 * 1024, 1);
+
+        pool.release(ByteBuffer.wrap(new byte[4096])); // Same shape as a pooled buffer, but never handed out
+        ByteBuffer pooled = pool.acquire(4096);
+        pool.release(pooled);
+        pool.release(pooled);
+
+        assertEquals(new BufferPool.Stats(1, 0, 4096), pool.stats());
+    }
+
+    private static void addIfComplete(List<FrameReassembler.Message> delivered, FrameReassembler.Message message) {
+        if (message != null) delivered.add(message);
+    }
+}
@@ -0,0 +1,86 @@
+package com.bridger.protocol;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+
+import static org.junit.Assert.*;
+
+public class PayloadEncoderTest {
+
+    private final PayloadEncoder encoder = new PayloadEncoder(512, 1024);
+
+    private static byte[] log(int lines) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            builder.append("2024-05-01 12:00:").append(i % 60).append(" INFO BleConnectionManager: frame written\n");
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void negotiate_picksCommonCodec() {
+        assertEquals(Codec.DEFLATE, Codec.negotiate(Codec.SUPPORTED_MASK, Codec.SUPPORTED_MASK));
+        assertEquals(Codec.NONE, Codec.negotiate(Codec.SUPPORTED_MASK, 0));
+    }
+
+    @Test
+    public void largeClip_isCompressedAndRoundTrips() throws DataFormatException {
+        byte[] clip = log(200);
+        PayloadEncoder.Encoded encoded = encoder.encode(clip, null, Codec.DEFLATE);
+
+        assertEquals(Frame.FLAG_DEFLATE, encoded.flags());
+        assertTrue(encoded.ratio() > 3);
+        assertArrayEquals(clip, Codec.fromFlags(encoded.flags()).decode(encoded.payload(), clip.length));
+    }
+
+    @Test
+    public void smallClip_isSentAsIs() {
+        byte[] clip = "hello".getBytes(StandardCharsets.UTF_8);
+        PayloadEncoder.Encoded encoded = encoder.encode(clip, null, Codec.DEFLATE);
+
+        assertEquals(0, encoded.flags());
+        assertSame(clip, encoded.payload());
+    }
+
+    @Test
+    public void incompressibleClip_isSentAsIs() {
+        byte[] clip = new byte[4096];
+        new Random(42).nextBytes(clip);
+
+        assertEquals(0, encoder.encode(clip, null, Codec.DEFLATE).flags());
+    }
+
+    @Test
+    public void editedClip_isSentAsCompressedDelta() throws DataFormatException {
+        byte[] base = log(500);
+        String edited = new String(base, StandardCharsets.UTF_8).replace("12:00:42 INFO", "12:00:42 WARN");
+        byte[] clip = edited.getBytes(StandardCharsets.UTF_8);
+
+        PayloadEncoder.Encoded encoded = encoder.encode(clip, base, Codec.DEFLATE);
+
+        assertTrue(encoded.isDelta());
+        assertTrue(encoded.payload().length < clip.length / 20);
+        byte[] patch = Codec.fromFlags(encoded.flags()).decode(encoded.payload(), clip.length);
+        assertArrayEquals(clip, DeltaCodec.apply(base, patch, clip.length));
+    }
+
+    @Test
+    public void unrelatedClip_isNotSentAsDelta() {
+        byte[] base = new byte[4096];
+        byte[] clip = new byte[4096];
+        Random random = new Random(7);
+        random.nextBytes(base);
+        random.nextBytes(clip);
+
+        assertFalse(encoder.encode(clip, base, Codec.NONE).isDelta());
+    }
+
+    @Test(expected = DataFormatException.class)
+    public void decode_enforcesSizeLimit() throws DataFormatException {
+        byte[] clip = log(200);
+        Codec.DEFLATE.decode(Codec.DEFLATE.encode(clip), clip.length / 2);
+    }
+}
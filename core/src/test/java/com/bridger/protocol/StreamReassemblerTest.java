@@ -0,0 +1,122 @@
+package com.bridger.protocol;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StreamReassemblerTest {
+
+    private static final int FRAME_SIZE = 20; // Default MTU - 3, so a long MIME type spans several frames
+    private static final long TIMEOUT_MS = 1_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private long now;
+    private File directory;
+    private StreamReassembler reassembler;
+
+    @Before
+    public void setUp() {
+        now = 0;
+        directory = new File(folder.getRoot(), "clips");
+        reassembler = new StreamReassembler(directory, TIMEOUT_MS, 1024 * 1024, () -> now);
+    }
+
+    private static List<Frame> frames(int messageId, String mimeType, byte[] content) throws IOException {
+        List<Frame> frames = new ArrayList<>();
+        StreamFramer framer = new StreamFramer(messageId, mimeType, new ByteArrayInputStream(content), content.length, FRAME_SIZE);
+        while (framer.hasNext()) {
+            frames.add(Frame.decode(framer.next()));
+        }
+        return frames;
+    }
+
+    private static byte[] content(int length) {
+        byte[] content = new byte[length];
+        new java.util.Random(length).nextBytes(content);
+        return content;
+    }
+
+    @Test
+    public void blob_isWrittenToFileWithItsMimeType() throws IOException {
+        byte[] content = content(1000);
+        StreamReassembler.Blob blob = null;
+        for (Frame frame : frames(1, "application/vnd.openxmlformats-officedocument.wordprocessingml.document", content)) {
+            assertNull(blob);
+            blob = reassembler.accept(frame);
+        }
+
+        assertNotNull(blob);
+        assertEquals("application/vnd.openxmlformats-officedocument.wordprocessingml.document", blob.mimeType());
+        assertEquals(content.length, blob.length());
+        assertArrayEquals(content, Files.readAllBytes(blob.file().toPath()));
+        assertEquals(0, reassembler.pendingCount());
+    }
+
+    @Test
+    public void emptyBlob_isDelivered() throws IOException {
+        List<Frame> frames = frames(2, "image/png", new byte[0]);
+
+        StreamReassembler.Blob blob = reassembler.accept(frames.get(0));
+
+        assertEquals(1, frames.size());
+        assertNotNull(blob);
+        assertEquals(0, blob.file().length());
+    }
+
+    @Test
+    public void sequenceGap_deletesPartialFile() throws IOException {
+        List<Frame> frames = frames(3, "image/png", content(500));
+        reassembler.accept(frames.get(0));
+        reassembler.accept(frames.get(1));
+
+        assertNull(reassembler.accept(frames.get(3)));
+
+        assertEquals(0, reassembler.pendingCount());
+        assertEquals(1, reassembler.discardedCount());
+        assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void stalledBlob_expiresAndDeletesFile() throws IOException {
+        List<Frame> frames = frames(4, "image/png", content(500));
+        reassembler.accept(frames.get(0));
+        reassembler.accept(frames.get(1));
+
+        now += TIMEOUT_MS + 1;
+        assertEquals(1, reassembler.expire(now));
+
+        assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void oversizedHeader_isRejectedWithoutAFile() throws IOException {
+        Frame frame = new Frame(Frame.Type.BLOB, 0, 6, 0, 1024 * 1024 + 1, new byte[10]);
+
+        assertNull(reassembler.accept(frame));
+
+        assertEquals(0, reassembler.pendingCount());
+        assertEquals(1, reassembler.discardedCount());
+        assertFalse(directory.exists() && directory.listFiles().length > 0);
+    }
+
+    @Test(expected = EOFException.class)
+    public void shortStream_failsFraming() throws IOException {
+        StreamFramer framer = new StreamFramer(5, "image/png", new ByteArrayInputStream(new byte[10]), 100, FRAME_SIZE);
+        while (framer.hasNext()) {
+            framer.next();
+        }
+    }
+}
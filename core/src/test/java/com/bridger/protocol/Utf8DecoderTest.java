@@ -0,0 +1,74 @@
+package com.bridger.protocol;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class Utf8DecoderTest {
+
+    // 1, 2, 3 and 4-byte characters, the last one a surrogate pair
+    private static final String TEXT = "a\u00E9\u20AC\uD83D\uDE00b\u00E9\u20AC\uD83D\uDE00";
+
+    @Test
+    public void wholeText_decodes() {
+        Utf8Decoder decoder = new Utf8Decoder(1024);
+
+        assertEquals(TEXT, decoder.decode(ByteBuffer.wrap(TEXT.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void characterSplitAcrossPieces_isCarriedOver() {
+        byte[] bytes = TEXT.getBytes(StandardCharsets.UTF_8);
+        Utf8Decoder decoder = new Utf8Decoder(1024);
+
+        // Every split point, including those inside a multi-byte character
+        for (int split = 0; split <= bytes.length; split++) {
+            decoder.feed(ByteBuffer.wrap(bytes, 0, split));
+            decoder.feed(ByteBuffer.wrap(bytes, split, bytes.length - split));
+            assertEquals("split at " + split, TEXT, decoder.finish());
+        }
+    }
+
+    @Test
+    public void singleBytePieces_decode() {
+        byte[] bytes = TEXT.getBytes(StandardCharsets.UTF_8);
+        Utf8Decoder decoder = new Utf8Decoder(1024);
+
+        for (int i = 0; i < bytes.length; i++) decoder.feed(ByteBuffer.wrap(bytes, i, 1));
+
+        assertEquals(TEXT, decoder.finish());
+    }
+
+    @Test
+    public void truncatedCharacterAtEnd_decodesToReplacement() {
+        byte[] euro = "\u20AC".getBytes(StandardCharsets.UTF_8);
+        Utf8Decoder decoder = new Utf8Decoder(1024);
+
+        decoder.feed(ByteBuffer.wrap(new byte[]{'x', euro[0], euro[1]}));
+
+        assertEquals("x\uFFFD", decoder.finish());
+        // The next text starts clean
+        assertEquals("y", decoder.decode(ByteBuffer.wrap(new byte[]{'y'})));
+    }
+
+    @Test
+    public void malformedByte_decodesToReplacement() {
+        Utf8Decoder decoder = new Utf8Decoder(1024);
+
+        assertEquals("a\uFFFDb", decoder.decode(ByteBuffer.wrap(new byte[]{'a', (byte) 0xFF, 'b'})));
+    }
+
+    @Test
+    public void textLongerThanRetainedBuffer_decodes() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) builder.append(i % 2 == 0 ? 'a' : '\u00E9');
+        String text = builder.toString();
+        Utf8Decoder decoder = new Utf8Decoder(16);
+
+        assertEquals(text, decoder.decode(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8))));
+        assertEquals("short", decoder.decode(ByteBuffer.wrap("short".getBytes(StandardCharsets.UTF_8))));
+    }
+}
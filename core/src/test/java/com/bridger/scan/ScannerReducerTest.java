@@ -0,0 +1,43 @@
+package com.bridger.scan;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ScannerReducerTest {
+
+    @Test
+    public void reduce_upsertsAndRemovesByAddress() {
+        Map<String, DeviceScanResult> state = Collections.emptyMap();
+        state = ScannerReducer.reduce(state, ScannerReducer.upsert(device("A", -70)));
+        state = ScannerReducer.reduce(state, ScannerReducer.upsert(device("B", -50)));
+        state = ScannerReducer.reduce(state, ScannerReducer.upsert(device("A", -40)));
+
+        assertEquals(2, state.size());
+        assertEquals(-40, state.get("A").getRssi());
+
+        state = ScannerReducer.reduce(state, ScannerReducer.remove("B"));
+        assertEquals(Collections.singleton("A"), state.keySet());
+    }
+
+    @Test
+    public void sorted_putsTheStrongestSignalFirst() {
+        Map<String, DeviceScanResult> state = Collections.emptyMap();
+        for (DeviceScanResult device : new DeviceScanResult[]{device("A", -80), device("B", -30), device("C", -55)}) {
+            state = ScannerReducer.reduce(state, ScannerReducer.upsert(device));
+        }
+
+        List<DeviceScanResult> list = ScannerReducer.sorted(state);
+        assertEquals("B", list.get(0).getAddress());
+        assertEquals("C", list.get(1).getAddress());
+        assertEquals("A", list.get(2).getAddress());
+    }
+
+    private static DeviceScanResult device(String address, int rssi) {
+        return new DeviceScanResult("Mac " + address, address, rssi, 0, true);
+    }
+}
@@ -0,0 +1,111 @@
+package com.bridger.schedulers;
+
+import com.bridger.metrics.MetricsRegistry;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.rxjava3.core.Observable;
+
+import static org.junit.Assert.*;
+
+public class NamedSchedulerTest {
+
+    @Test
+    public void singleThread_runsTasksInOrderOnOneNamedThread() throws InterruptedException {
+        NamedScheduler scheduler = new NamedScheduler("test_order", 1, MetricsRegistry.getInstance(), System::nanoTime);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            int task = i;
+            scheduler.scheduler().scheduleDirect(() -> {
+                order.add(task);
+                threads.add(Thread.currentThread().getName());
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        scheduler.shutdown();
+
+        for (int i = 0; i < 100; i++) assertEquals(i, (int) order.get(i));
+        assertEquals(1, threads.stream().distinct().count());
+        assertEquals("bridger-test_order-1", threads.get(0));
+    }
+
+    @Test
+    public void observeOn_keepsOrderAcrossSeveralThreads() {
+        NamedScheduler scheduler = new NamedScheduler("test_observe", 3, MetricsRegistry.getInstance(), System::nanoTime);
+        List<Integer> received = Observable.range(0, 1_000)
+                .observeOn(scheduler.scheduler())
+                .toList()
+                .blockingGet();
+        scheduler.shutdown();
+
+        for (int i = 0; i < 1_000; i++) assertEquals(i, (int) received.get(i));
+    }
+
+    @Test
+    public void stats_countTasksQueueDepthAndWait() throws InterruptedException {
+        AtomicLong now = new AtomicLong();
+        NamedScheduler scheduler = new NamedScheduler("test_stats", 1, MetricsRegistry.getInstance(), now::get);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        scheduler.executor().execute(() -> {
+            blocked.countDown();
+            awaitQuietly(release);
+            done.countDown();
+        });
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        scheduler.executor().execute(done::countDown);
+        scheduler.executor().execute(done::countDown);
+        assertEquals(2, scheduler.stats().queueDepth());
+
+        now.set(3_000_000); // The two queued tasks start 3 ms after they were queued
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        scheduler.shutdown();
+
+        NamedScheduler.Stats stats = scheduler.stats();
+        assertEquals("test_stats", stats.name());
+        assertEquals(3, stats.tasks());
+        assertEquals(0, stats.queueDepth());
+        assertEquals(3, stats.waitMicros().count());
+        assertEquals(3_000, stats.waitMicros().max());
+        assertEquals(3, MetricsRegistry.getInstance().snapshot(0).get("scheduler_test_stats_tasks_total").value());
+    }
+
+    @Test
+    public void borrowedThread_runsTasksThereAndSurvivesShutdown() throws InterruptedException {
+        ExecutorService owner = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "looper"));
+        NamedScheduler scheduler = new NamedScheduler("test_borrowed", owner, MetricsRegistry.getInstance(), System::nanoTime);
+
+        String thread = Observable.just(1)
+                .observeOn(scheduler.scheduler())
+                .map(value -> Thread.currentThread().getName())
+                .blockingFirst();
+        scheduler.shutdown();
+
+        assertEquals("looper", thread);
+        assertFalse(owner.isShutdown());
+        assertEquals(1, scheduler.stats().threads());
+        owner.shutdown();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.bridger.trace;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ClipTracerTest {
+
+    private long now;
+    private ClipTracer tracer;
+
+    @Before
+    public void setUp() {
+        now = 1_000_000;
+        tracer = new ClipTracer(3, () -> now);
+    }
+
+    @Test
+    public void mark_keepsFirstTimeExceptForLastChunkAndCompletion() {
+        ClipTrace trace = tracer.begin();
+        now += 5_000_000;
+        trace.mark(ClipTrace.Stage.FIRST_CHUNK);
+        trace.mark(ClipTrace.Stage.LAST_CHUNK);
+        now += 3_000_000;
+        trace.mark(ClipTrace.Stage.FIRST_CHUNK); // A second peer
+        trace.mark(ClipTrace.Stage.LAST_CHUNK);
+
+        ClipTrace.Snapshot snapshot = trace.snapshot();
+        assertEquals(0, snapshot.offsetNanos(ClipTrace.Stage.TAP));
+        assertEquals(5_000_000, snapshot.offsetNanos(ClipTrace.Stage.FIRST_CHUNK));
+        assertEquals(8_000_000, snapshot.offsetNanos(ClipTrace.Stage.LAST_CHUNK));
+        assertEquals(-1, snapshot.offsetNanos(ClipTrace.Stage.FOCUS));
+        assertEquals(8_000_000, snapshot.totalNanos());
+        assertNull(snapshot.outcome());
+    }
+
+    @Test
+    public void ring_keepsTheNewestTraces() {
+        ClipTrace first = tracer.begin();
+        for (int i = 0; i < 3; i++) tracer.begin();
+
+        assertNull(tracer.get(first.id()));
+        assertNull(tracer.get(ClipTracer.NO_TRACE));
+        assertNotNull(tracer.get(first.id() + 1));
+        List<ClipTrace.Snapshot> snapshots = tracer.snapshots();
+        assertEquals(3, snapshots.size());
+        assertEquals(4, snapshots.get(0).id());
+        assertEquals(2, snapshots.get(2).id());
+    }
+
+    @Test
+    public void end_publishesOnceWithTheFirstOutcome() {
+        List<List<ClipTrace.Snapshot>> published = new ArrayList<>();
+        tracer.traces().subscribe(published::add);
+        ClipTrace trace = tracer.begin();
+
+        tracer.complete(trace);
+        tracer.abandon(trace, "failed");
+        tracer.complete(null);
+
+        assertEquals(1, published.size());
+        assertEquals("sent", published.get(0).get(0).outcome());
+        assertTrue(published.get(0).get(0).reached(ClipTrace.Stage.COMPLETE));
+    }
+
+    @Test
+    public void chromeTrace_hasATrackPerClipAndASpanPerStage() {
+        ClipTrace trace = tracer.begin();
+        trace.setLabel("text, \"quoted\"");
+        now += 2_000;
+        trace.mark(ClipTrace.Stage.CREATE);
+        now += 1_500;
+        tracer.complete(trace);
+
+        String json = ChromeTrace.json(tracer.snapshots());
+        assertEquals("{\"displayTimeUnit\":\"ms\",\"traceEvents\":["
+                + "{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":1,\"args\":{\"name\":\"clip 1\"}},"
+                + "{\"name\":\"clip 1\",\"cat\":\"clip\",\"ph\":\"X\",\"pid\":1,\"tid\":1,\"ts\":1000.000,\"dur\":3.500,"
+                + "\"args\":{\"label\":\"text, \\\"quoted\\\"\",\"outcome\":\"sent\"}},"
+                + "{\"name\":\"launch activity\",\"cat\":\"stage\",\"ph\":\"X\",\"pid\":1,\"tid\":1,\"ts\":1000.000,\"dur\":2.000},"
+                + "{\"name\":\"confirm delivery\",\"cat\":\"stage\",\"ph\":\"X\",\"pid\":1,\"tid\":1,\"ts\":1002.000,\"dur\":1.500}"
+                + "]}", json);
+    }
+}
@@ -0,0 +1,128 @@
+package com.bridger.transfer;
+
+import com.bridger.transport.ClipboardTransport;
+import com.bridger.transport.LinkMetrics;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.observers.TestObserver;
+import io.reactivex.rxjava3.subjects.CompletableSubject;
+
+import static org.junit.Assert.*;
+
+public class LaneSchedulerTest {
+
+    private long now;
+
+    @Test
+    public void window_limitsWritesHandedToTheTransport() {
+        ManualTransport transport = new ManualTransport();
+        LaneScheduler lanes = new LaneScheduler(transport, 2, () -> now);
+
+        for (int i = 0; i < 5; i++) lanes.submit(LaneScheduler.Lane.BULK, new byte[] {(byte) i}, false).test();
+
+        assertEquals(2, transport.writes.size());
+        transport.complete(0);
+        assertEquals(3, transport.writes.size());
+        assertEquals(2, transport.writes.get(2).packet[0]); // Still in order within the lane
+    }
+
+    @Test
+    public void higherLane_preemptsBulkAtTheNextPacket() {
+        ManualTransport transport = new ManualTransport();
+        LaneScheduler lanes = new LaneScheduler(transport, 1, () -> now);
+        for (int i = 0; i < 100; i++) lanes.submit(LaneScheduler.Lane.BULK, new byte[] {'b'}, false).test();
+        lanes.submit(LaneScheduler.Lane.INTERACTIVE, new byte[] {'t'}, true).test();
+        TestObserver<Void> control = lanes.submit(LaneScheduler.Lane.CONTROL, new byte[] {'c'}, true).test();
+
+        now = 15;
+        transport.complete(0);
+        transport.complete(1);
+
+        assertEquals('c', transport.writes.get(1).packet[0]);
+        assertEquals('t', transport.writes.get(2).packet[0]);
+        control.assertComplete();
+        List<LaneScheduler.LaneStats> stats = lanes.stats();
+        assertEquals(15, stats.get(LaneScheduler.Lane.CONTROL.ordinal()).waitMs().max());
+        assertEquals(1, stats.get(LaneScheduler.Lane.CONTROL.ordinal()).sent());
+        assertEquals(99, stats.get(LaneScheduler.Lane.BULK.ordinal()).depth());
+    }
+
+    @Test
+    public void synchronousCompletions_drainWithoutRecursion() {
+        ManualTransport transport = new ManualTransport();
+        transport.completeImmediately = true;
+        LaneScheduler lanes = new LaneScheduler(transport, 1, () -> now);
+        List<TestObserver<Void>> writes = new ArrayList<>();
+
+        for (int i = 0; i < 10_000; i++) writes.add(lanes.submit(LaneScheduler.Lane.BULK, new byte[] {1}, false).test());
+
+        assertEquals(10_000, transport.writes.size());
+        writes.forEach(TestObserver::assertComplete);
+    }
+
+    @Test
+    public void clear_failsWaitingPacketsOnly() {
+        ManualTransport transport = new ManualTransport();
+        LaneScheduler lanes = new LaneScheduler(transport, 1, () -> now);
+        TestObserver<Void> handedOver = lanes.submit(LaneScheduler.Lane.BULK, new byte[] {1}, false).test();
+        TestObserver<Void> waiting = lanes.submit(LaneScheduler.Lane.BULK, new byte[] {2}, false).test();
+
+        lanes.clear(new Throwable("Link lost."));
+        transport.complete(0);
+
+        handedOver.assertComplete();
+        waiting.assertError(Throwable.class);
+        assertEquals(1, transport.writes.size());
+    }
+
+    // Writes complete only when the test says so, unless completeImmediately is set.
+    private static class ManualTransport implements ClipboardTransport {
+        record Write(byte[] packet, CompletableSubject result) {}
+
+        final List<Write> writes = new ArrayList<>();
+        boolean completeImmediately;
+
+        void complete(int index) {
+            writes.get(index).result.onComplete();
+        }
+
+        @Override
+        public Completable connect(String address) {
+            return Completable.complete();
+        }
+
+        @Override
+        public Completable disconnect() {
+            return Completable.complete();
+        }
+
+        @Override
+        public Completable write(byte[] packet, boolean acknowledged) {
+            CompletableSubject result = CompletableSubject.create();
+            writes.add(new Write(packet, result));
+            if (completeImmediately) result.onComplete();
+            return result;
+        }
+
+        @Override
+        public Observable<byte[]> incoming() {
+            return Observable.never();
+        }
+
+        @Override
+        public Observable<Boolean> linkReady() {
+            return Observable.just(true);
+        }
+
+        @Override
+        public LinkMetrics metrics() {
+            return new LinkMetrics(517, 0, 0, 0, 0, 0);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.bridger.transfer;
+
+import com.bridger.model.LinkMode;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LinkSchedulerTest {
+
+    @Test
+    public void busy_switchesToBurstOnce() {
+        LinkScheduler scheduler = new LinkScheduler(2_000, 30_000);
+        scheduler.reset(0);
+
+        assertEquals(LinkMode.BURST, scheduler.onBusy());
+        assertNull(scheduler.onBusy());
+        assertNull(scheduler.step(60_000)); // Never steps down while busy
+        assertEquals(-1, scheduler.nextStepDelay(60_000));
+    }
+
+    @Test
+    public void idle_stepsDownThroughBalancedToLowPower() {
+        LinkScheduler scheduler = new LinkScheduler(2_000, 30_000);
+        scheduler.reset(0);
+        scheduler.onBusy();
+        scheduler.onIdle(1_000);
+        scheduler.onIdle(2_500); // Still idle since 1_000
+
+        assertEquals(2_000, scheduler.nextStepDelay(1_000));
+        assertNull(scheduler.step(2_999));
+        assertEquals(LinkMode.BALANCED, scheduler.step(3_000));
+        assertEquals(28_000, scheduler.nextStepDelay(3_000));
+        assertEquals(LinkMode.LOW_POWER, scheduler.step(31_000));
+        assertEquals(-1, scheduler.nextStepDelay(31_000));
+    }
+
+    @Test
+    public void lateStep_goesStraightToLowPower() {
+        LinkScheduler scheduler = new LinkScheduler(2_000, 30_000);
+        scheduler.reset(0);
+        scheduler.onBusy();
+        scheduler.onIdle(0);
+
+        assertEquals(LinkMode.LOW_POWER, scheduler.step(45_000));
+    }
+
+    @Test
+    public void newWork_interruptsStepDown() {
+        LinkScheduler scheduler = new LinkScheduler(2_000, 30_000);
+        scheduler.reset(0);
+        scheduler.onBusy();
+        scheduler.onIdle(0);
+        assertEquals(LinkMode.BALANCED, scheduler.step(2_000));
+
+        assertEquals(LinkMode.BURST, scheduler.onBusy());
+        scheduler.onIdle(10_000);
+        assertNull(scheduler.step(11_000));
+        assertEquals(LinkMode.BALANCED, scheduler.step(12_000));
+    }
+}
@@ -0,0 +1,84 @@
+package com.bridger.transfer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class OutboundQueueTest {
+
+    @Test
+    public void latestWins_keepsOnlyNewestPendingItem() {
+        OutboundQueue<String> queue = new OutboundQueue<>(OutboundQueue.Mode.LATEST_WINS);
+
+        assertEquals(Collections.emptyList(), queue.offer("a"));
+        assertEquals(Collections.singletonList("a"), queue.offer("b"));
+        assertEquals(Collections.singletonList("b"), queue.offer("c"));
+
+        assertEquals("c", queue.activateNext());
+        assertEquals(new OutboundQueue.Stats(1, 2, 0), queue.stats());
+    }
+
+    @Test
+    public void latestWins_cancelsActiveTransfer() {
+        OutboundQueue<String> queue = new OutboundQueue<>(OutboundQueue.Mode.LATEST_WINS);
+        queue.offer("a");
+        queue.activateNext();
+        assertFalse(queue.isActiveCancelled());
+
+        queue.offer("b");
+
+        assertTrue(queue.isActiveCancelled());
+        assertNull(queue.activateNext()); // Still busy until the active transfer stops
+        assertTrue(queue.finish("a"));
+        assertEquals("b", queue.activateNext());
+        assertFalse(queue.isActiveCancelled());
+        assertEquals(1, queue.stats().cancelled());
+    }
+
+    @Test
+    public void supersede_dropsPendingAndCancelsActiveWithoutQueueing() {
+        OutboundQueue<String> queue = new OutboundQueue<>(OutboundQueue.Mode.NEVER_CANCEL);
+        queue.offer("a");
+        queue.activateNext();
+        queue.offer("b");
+
+        assertEquals(Collections.singletonList("b"), queue.supersede());
+
+        assertTrue(queue.isActiveCancelled());
+        assertTrue(queue.finish("a"));
+        assertNull(queue.activateNext());
+        assertEquals(new OutboundQueue.Stats(0, 1, 1), queue.stats());
+    }
+
+    @Test
+    public void neverCancel_sendsEveryItemInOrder() {
+        OutboundQueue<String> queue = new OutboundQueue<>(OutboundQueue.Mode.NEVER_CANCEL);
+        queue.offer("a");
+        queue.activateNext();
+        queue.offer("b");
+        queue.offer("c");
+
+        assertFalse(queue.isActiveCancelled());
+        assertEquals(3, queue.depth());
+        queue.finish("a");
+        assertEquals("b", queue.activateNext());
+        queue.finish("b");
+        assertEquals("c", queue.activateNext());
+        assertEquals(new OutboundQueue.Stats(1, 0, 0), queue.stats());
+    }
+
+    @Test
+    public void clear_returnsActiveAndPending() {
+        OutboundQueue<String> queue = new OutboundQueue<>(OutboundQueue.Mode.NEVER_CANCEL);
+        queue.offer("a");
+        queue.activateNext();
+        queue.offer("b");
+
+        assertEquals(Arrays.asList("a", "b"), queue.clear());
+        assertEquals(0, queue.depth());
+        assertFalse(queue.finish("a"));
+    }
+}
@@ -0,0 +1,385 @@
+package com.bridger.transfer;
+
+import com.bridger.constants.Constants;
+import com.bridger.model.Delivery;
+import com.bridger.model.TransferStats;
+import com.bridger.protocol.Frame;
+import com.bridger.protocol.StreamReassembler;
+import com.bridger.trace.ClipTrace;
+import com.bridger.trace.ClipTracer;
+import com.bridger.transport.ClipboardTransport;
+import com.bridger.transport.LinkMetrics;
+import com.bridger.transport.LoopbackTransport;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.observers.TestObserver;
+import io.reactivex.rxjava3.schedulers.TestScheduler;
+
+import static org.junit.Assert.*;
+
+public class TransferEngineTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TestScheduler scheduler;
+    private TestScheduler encoder; // Same as scheduler unless a test needs encoding to run separately
+
+    @Before
+    public void setUp() {
+        scheduler = new TestScheduler();
+        encoder = scheduler;
+    }
+
+    @Test
+    public void smallClip_isDeliveredWithAcknowledgedWrites() {
+        Link link = connect(LoopbackTransport.Config.fast());
+
+        TestObserver<Void> sent = link.phone.send(utf8("hello")).test();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        sent.assertComplete();
+        assertEquals(1, link.received.size());
+        assertEquals("hello", new String(link.received.get(0), StandardCharsets.UTF_8));
+        assertEquals(0, link.phoneEnd.metrics().retransmissions());
+    }
+
+    @Test
+    public void clipActivatedByAWriteCallback_isEncodedOnTheEncodeScheduler() {
+        encoder = new TestScheduler();
+        Link link = connect(LoopbackTransport.Config.fast());
+        link.phone.setQueueMode(OutboundQueue.Mode.NEVER_CANCEL);
+
+        TestObserver<Void> first = link.phone.send(utf8("first")).test();
+        TestObserver<Void> second = link.phone.send(utf8("second")).test(); // Activated when the first is written
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        assertTrue(link.received.isEmpty()); // Active, but nothing encoded yet
+
+        encoder.triggerActions();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        first.assertComplete();
+        second.assertNotComplete();
+        assertEquals(1, link.received.size());
+
+        encoder.triggerActions();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        second.assertComplete();
+        assertEquals("second", new String(link.received.get(1), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void largeClip_isStreamedUnderCredits() {
+        Link link = connect(LoopbackTransport.Config.fast());
+        List<TransferStats> stats = new ArrayList<>();
+        link.phone.transfers().subscribe(stats::add);
+        byte[] clip = randomClip(64 * 1024);
+
+        link.phone.send(clip).test();
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+
+        assertEquals(1, link.received.size());
+        assertArrayEquals(clip, link.received.get(0));
+        // 128 frames of 504 bytes at 6 per 15 ms event; acknowledged writes would need two events each
+        assertTrue("took " + stats.get(0).durationMs() + " ms", stats.get(0).durationMs() < 128 * 30 / 2);
+    }
+
+    @Test
+    public void tracedClip_marksFirstAndLastWrite() {
+        Link link = connect(LoopbackTransport.Config.fast());
+        ClipTrace trace = new ClipTracer(4, () -> scheduler.now(TimeUnit.NANOSECONDS)).begin();
+
+        link.phone.send(randomClip(16 * 1024), trace).test();
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+
+        ClipTrace.Snapshot snapshot = trace.snapshot();
+        assertTrue(snapshot.reached(ClipTrace.Stage.FIRST_CHUNK));
+        assertTrue(snapshot.offsetNanos(ClipTrace.Stage.LAST_CHUNK) > snapshot.offsetNanos(ClipTrace.Stage.FIRST_CHUNK));
+        assertFalse(snapshot.reached(ClipTrace.Stage.COMPLETE)); // Marked by the caller, once every peer has it
+    }
+
+    @Test
+    public void lossySmallMtuLink_stillDeliversInOrder() {
+        Link link = connect(new LoopbackTransport.Config(23, 5, 30, 2, 0.2, 8, 42));
+        byte[] clip = randomClip(4 * 1024);
+
+        link.phone.send(clip).test();
+        scheduler.advanceTimeBy(5, TimeUnit.MINUTES);
+
+        assertEquals(1, link.received.size());
+        assertArrayEquals(clip, link.received.get(0));
+        assertTrue(link.phoneEnd.metrics().retransmissions() > 0);
+    }
+
+    @Test
+    public void newerClip_cancelsOneInFlight() {
+        Link link = connect(LoopbackTransport.Config.fast());
+        byte[] first = randomClip(256 * 1024);
+        byte[] second = utf8("newer");
+
+        TestObserver<Void> firstSend = link.phone.send(first).test();
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+        TestObserver<Void> secondSend = link.phone.send(second).test();
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+
+        firstSend.assertError(CancellationException.class);
+        secondSend.assertComplete();
+        assertEquals(1, link.received.size());
+        assertArrayEquals(second, link.received.get(0));
+    }
+
+    @Test
+    public void editedClip_isSentAsDelta() {
+        Link link = connect(LoopbackTransport.Config.fast());
+        List<TransferStats> stats = new ArrayList<>();
+        link.phone.transfers().subscribe(stats::add);
+        byte[] original = randomClip(32 * 1024);
+        byte[] edited = original.clone();
+        edited[1000] ^= 1;
+
+        link.phone.send(original).test();
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+        link.phone.send(edited).test();
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+
+        assertEquals(2, link.received.size());
+        assertArrayEquals(edited, link.received.get(1));
+        assertTrue(stats.get(1).wireBytes() < 1024);
+    }
+
+    @Test
+    public void linkDrop_resumesFromReceiverOffset() {
+        Link link = connect(LoopbackTransport.Config.fast());
+        byte[] clip = randomClip(256 * 1024);
+
+        TestObserver<Void> sent = link.phone.send(clip).test();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        link.phoneEnd.disconnect().test();
+        scheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+        sent.assertNotComplete();
+        link.phoneEnd.connect("loopback").test();
+        scheduler.advanceTimeBy(30, TimeUnit.SECONDS);
+
+        sent.assertComplete();
+        assertEquals(1, link.received.size());
+        assertArrayEquals(clip, link.received.get(0));
+        // A restart would send the clip twice over; resuming only repeats what was in flight at the drop
+        assertTrue("sent " + link.phoneEnd.metrics().bytesSent(), link.phoneEnd.metrics().bytesSent() < clip.length * 11L / 10);
+    }
+
+    @Test
+    public void linkLoss_failsTransferAfterSessionExpiry() {
+        Link link = connect(LoopbackTransport.Config.fast());
+
+        TestObserver<Void> sent = link.phone.send(randomClip(256 * 1024)).test();
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+        link.phoneEnd.disconnect().test();
+        scheduler.advanceTimeBy(Constants.RESUME_SESSION_EXPIRY_MS - 1, TimeUnit.MILLISECONDS);
+        sent.assertNotComplete();
+        sent.assertNoErrors();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        sent.assertError(Throwable.class);
+        assertTrue(link.received.isEmpty());
+    }
+
+    @Test
+    public void textClip_completesOnceThePeerAppliesIt() {
+        Link link = connect(LoopbackTransport.Config.fast());
+        List<Delivery> deliveries = new ArrayList<>();
+        link.phone.deliveries().subscribe(deliveries::add);
+
+        TestObserver<Void> sent = link.phone.send(utf8("hello")).test();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        sent.assertComplete();
+        assertEquals(1, deliveries.size());
+        assertTrue(deliveries.get(0).confirmed());
+        assertEquals(1, deliveries.get(0).attempts());
+        // Two acknowledged writes for the clip, one for APPLIED on the way back
+        assertTrue("took " + deliveries.get(0).latencyMs() + " ms", deliveries.get(0).latencyMs() > 0);
+    }
+
+    @Test
+    public void unconfirmedClip_isResentThenFails() {
+        Link link = connect(LoopbackTransport.Config.fast(), packet -> packet[0] != Frame.Type.APPLIED.code());
+        List<Delivery> deliveries = new ArrayList<>();
+        link.phone.deliveries().subscribe(deliveries::add);
+
+        TestObserver<Void> sent = link.phone.send(utf8("hello")).test();
+        scheduler.advanceTimeBy(Constants.DELIVERY_ACK_TIMEOUT_MS + 500, TimeUnit.MILLISECONDS);
+        sent.assertNotComplete();
+        assertEquals(2, link.received.size()); // Resent once the first confirmation timed out
+        scheduler.advanceTimeBy(Constants.MAX_DELIVERY_ATTEMPTS * Constants.DELIVERY_ACK_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        sent.assertError(Throwable.class);
+        assertEquals(Constants.MAX_DELIVERY_ATTEMPTS, link.received.size());
+        assertEquals(1, deliveries.size());
+        assertFalse(deliveries.get(0).confirmed());
+        assertEquals(Constants.MAX_DELIVERY_ATTEMPTS - 1, deliveries.get(0).retries());
+    }
+
+    @Test
+    public void textClip_overtakesBinaryClipInFlight() {
+        Link link = connect(LoopbackTransport.Config.fast());
+        link.mac.setBlobDirectory(folder.getRoot());
+        link.phone.setQueueMode(OutboundQueue.Mode.NEVER_CANCEL);
+        int length = 2 * 1024 * 1024;
+
+        TestObserver<Void> blob = link.phone.sendBlob("image/png", new GeneratedStream(length), length).test();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        TestObserver<Void> text = link.phone.send(utf8("hello")).test();
+        scheduler.advanceTimeBy(500, TimeUnit.MILLISECONDS);
+
+        // Sharing one queue, the text would wait for the whole file, about ten seconds at this link speed
+        text.assertComplete();
+        blob.assertNotComplete();
+        assertEquals(1, link.received.size());
+        LaneScheduler.LaneStats control = link.phone.laneStats().get(LaneScheduler.Lane.CONTROL.ordinal());
+        assertTrue(control.sent() > 0);
+        assertTrue("control waited " + control.waitMs().max() + " ms", control.waitMs().max() < 100);
+        scheduler.advanceTimeBy(10, TimeUnit.MINUTES);
+        blob.assertComplete();
+    }
+
+    @Test
+    public void binaryClip_isStreamedIntoFile() throws IOException {
+        Link link = connect(LoopbackTransport.Config.fast());
+        List<StreamReassembler.Blob> blobs = new ArrayList<>();
+        link.mac.setBlobDirectory(folder.getRoot());
+        link.mac.receivedBlobs().subscribe(blobs::add);
+        int length = 20 * 1024 * 1024; // Larger than any message the in-memory reassembler accepts
+
+        TestObserver<Void> sent = link.phone.sendBlob("image/png", new GeneratedStream(length), length).test();
+        scheduler.advanceTimeBy(5, TimeUnit.MINUTES);
+
+        sent.assertComplete();
+        assertTrue(link.received.isEmpty());
+        assertEquals(1, blobs.size());
+        assertEquals("image/png", blobs.get(0).mimeType());
+        assertEquals(length, blobs.get(0).file().length());
+        assertEquals(checksum(new GeneratedStream(length)), checksum(new FileInputStream(blobs.get(0).file())));
+    }
+
+    private Link connect(LoopbackTransport.Config config) {
+        return connect(config, packet -> true);
+    }
+
+    // macSends decides which of the Mac's packets make it onto the link.
+    private Link connect(LoopbackTransport.Config config, java.util.function.Predicate<byte[]> macSends) {
+        LoopbackTransport[] ends = LoopbackTransport.pair(config, scheduler);
+        Link link = new Link(ends[0], new TransferEngine(ends[0], scheduler, encoder, () -> scheduler.now(TimeUnit.MILLISECONDS),
+                Constants.RESUME_SESSION_EXPIRY_MS, TransferEngine.Logger.NONE),
+                new TransferEngine(new FilteringTransport(ends[1], macSends), scheduler, encoder, () -> scheduler.now(TimeUnit.MILLISECONDS),
+                Constants.RESUME_SESSION_EXPIRY_MS, TransferEngine.Logger.NONE));
+        link.mac.received().subscribe(link.received::add);
+        ends[0].connect("loopback").test();
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS); // Link up, HELLOs and credits exchanged
+        return link;
+    }
+
+    // Random bytes do not compress, so sizes on the wire are predictable.
+    private static byte[] randomClip(int size) {
+        byte[] clip = new byte[size];
+        new java.util.Random(size).nextBytes(clip);
+        return clip;
+    }
+
+    private static long checksum(InputStream in) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[8192];
+        try (in) {
+            int read;
+            while ((read = in.read(buffer)) >= 0) crc.update(buffer, 0, read);
+        }
+        return crc.getValue();
+    }
+
+    // Produces its bytes on demand, so a large clip is never held in memory by the test either.
+    private static class GeneratedStream extends InputStream {
+        private final long length;
+        private long position;
+
+        GeneratedStream(long length) {
+            this.length = length;
+        }
+
+        @Override
+        public int read() {
+            return position < length ? (int) ((position++ * 31 + 7) >>> 3) & 0xFF : -1;
+        }
+    }
+
+    // Silently drops the writes the filter rejects, like a peer whose packets never arrive.
+    private static class FilteringTransport implements ClipboardTransport {
+        private final ClipboardTransport delegate;
+        private final java.util.function.Predicate<byte[]> filter;
+
+        FilteringTransport(ClipboardTransport delegate, java.util.function.Predicate<byte[]> filter) {
+            this.delegate = delegate;
+            this.filter = filter;
+        }
+
+        @Override
+        public Completable connect(String address) {
+            return delegate.connect(address);
+        }
+
+        @Override
+        public Completable disconnect() {
+            return delegate.disconnect();
+        }
+
+        @Override
+        public Completable write(byte[] packet, boolean acknowledged) {
+            return filter.test(packet) ? delegate.write(packet, acknowledged) : Completable.complete();
+        }
+
+        @Override
+        public Observable<byte[]> incoming() {
+            return delegate.incoming();
+        }
+
+        @Override
+        public Observable<Boolean> linkReady() {
+            return delegate.linkReady();
+        }
+
+        @Override
+        public LinkMetrics metrics() {
+            return delegate.metrics();
+        }
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static class Link {
+        final LoopbackTransport phoneEnd;
+        final TransferEngine phone;
+        final TransferEngine mac;
+        final List<byte[]> received = new ArrayList<>();
+
+        Link(LoopbackTransport phoneEnd, TransferEngine phone, TransferEngine mac) {
+            this.phoneEnd = phoneEnd;
+            this.phone = phone;
+            this.mac = mac;
+        }
+    }
+}